@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.util.CategoryMap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Compares {@link CategoryMap} with an ordinary {@link LinkedHashMultimap}.
+ * Every invocation moves a random value to a random other category, which
+ * requires looking up the current category of the value. The category map
+ * does this in constant time, the ordinary multimap needs to scan its
+ * entries.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class CategoryMapBenchmark {
+  static final int CATEGORIES = 16;
+  static final int MOVES = 4096;
+
+  /**
+   * The number of values in the map.
+   */
+  @Param({"100", "10000"})
+  public int values;
+
+  CategoryMap<Integer, Object> categoryMap;
+  SetMultimap<Integer, Object> multimap;
+  List<Object> objects;
+  int[] valueSequence;
+  int[] categorySequence;
+  int index;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public CategoryMapBenchmark() {}
+
+  /**
+   * Fills both maps with the same values.
+   */
+  @Setup
+  public void setUp() {
+    final RandomGenerator rng = Workloads.rng();
+    categoryMap = CategoryMap.create();
+    multimap = LinkedHashMultimap.create();
+    objects = new ArrayList<>();
+    for (int i = 0; i < values; i++) {
+      final Object o = new Object();
+      final int category = rng.nextInt(CATEGORIES);
+      objects.add(o);
+      categoryMap.put(category, o);
+      multimap.put(category, o);
+    }
+    valueSequence = new int[MOVES];
+    categorySequence = new int[MOVES];
+    for (int i = 0; i < MOVES; i++) {
+      valueSequence[i] = rng.nextInt(values);
+      categorySequence[i] = rng.nextInt(CATEGORIES);
+    }
+  }
+
+  /**
+   * Moves a value using the category map.
+   * @return The previous category of the value.
+   */
+  @Benchmark
+  public Integer moveCategoryMap() {
+    final int i = next();
+    final Object value = objects.get(valueSequence[i]);
+    final Integer category = categoryMap.getKeys(value);
+    categoryMap.removeValue(value);
+    categoryMap.put(categorySequence[i], value);
+    return category;
+  }
+
+  /**
+   * Moves a value using the ordinary multimap.
+   * @return The previous category of the value.
+   */
+  @Benchmark
+  public Integer moveMultimap() {
+    final int i = next();
+    final Object value = objects.get(valueSequence[i]);
+    Integer category = null;
+    for (final Entry<Integer, Object> entry : multimap.entries()) {
+      if (entry.getValue() == value) {
+        category = entry.getKey();
+        break;
+      }
+    }
+    multimap.remove(category, value);
+    multimap.put(categorySequence[i], value);
+    return category;
+  }
+
+  int next() {
+    final int i = index;
+    index = (i + 1) % MOVES;
+    return i;
+  }
+}
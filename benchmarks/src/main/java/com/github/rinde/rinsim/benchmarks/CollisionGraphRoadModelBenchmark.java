@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import javax.measure.unit.SI;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.model.road.CollisionGraphRoadModel;
+import com.github.rinde.rinsim.core.model.road.DeadlockException;
+import com.github.rinde.rinsim.core.model.road.MovingRoadUser;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModelBuilders;
+import com.github.rinde.rinsim.core.model.time.TickListener;
+import com.github.rinde.rinsim.core.model.time.TimeLapse;
+import com.github.rinde.rinsim.geom.ListenableGraph;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Benchmarks the collision avoiding graph road model with many AGVs on a
+ * regular grid, similar to the warehouse example. Every AGV drives to random
+ * nodes, AGVs that are blocked wait behind the AGV in front of them and AGVs
+ * that would cause a deadlock choose another destination.
+ * Every invocation is a single tick of the simulator.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class CollisionGraphRoadModelBenchmark {
+  static final int GRID_SIZE = 40;
+  static final double VEHICLE_LENGTH = 2d;
+  static final double SPACING = 4 * VEHICLE_LENGTH;
+
+  /**
+   * The number of AGVs, the grid has room for at most one AGV per node.
+   */
+  @Param({"50", "200", "800"})
+  public int agvs;
+
+  Simulator sim;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public CollisionGraphRoadModelBenchmark() {}
+
+  /**
+   * Creates the simulator and registers the AGVs.
+   */
+  @Setup
+  public void setUp() {
+    sim = Simulator.builder()
+      .setRandomSeed(Workloads.SEED)
+      .addModel(RoadModelBuilders
+        .dynamicGraph(new ListenableGraph<>(
+          Workloads.grid(GRID_SIZE, SPACING, 0d, Workloads.rng())))
+        .withCollisionAvoidance()
+        .withDistanceUnit(SI.METER)
+        .withVehicleLength(VEHICLE_LENGTH))
+      .build();
+    for (int i = 0; i < agvs; i++) {
+      sim.register(new Agv(sim.getRandomGenerator()));
+    }
+  }
+
+  /**
+   * Advances the simulation with one tick.
+   */
+  @Benchmark
+  public void tick() {
+    sim.tick();
+  }
+
+  static class Agv implements MovingRoadUser, TickListener {
+    final RandomGenerator rng;
+    CollisionGraphRoadModel roadModel;
+    Queue<Point> path;
+
+    Agv(RandomGenerator r) {
+      rng = r;
+      path = new LinkedList<>();
+    }
+
+    @Override
+    public void initRoadUser(RoadModel model) {
+      roadModel = (CollisionGraphRoadModel) model;
+      Point p;
+      do {
+        p = model.getRandomPosition(rng);
+      } while (roadModel.isOccupied(p));
+      model.addObjectAt(this, p);
+    }
+
+    @Override
+    public double getSpeed() {
+      return 1d;
+    }
+
+    @Override
+    public void tick(TimeLapse timeLapse) {
+      if (path.isEmpty()) {
+        path = new LinkedList<>(roadModel.getShortestPathTo(this,
+          roadModel.getRandomPosition(rng)));
+      }
+      try {
+        roadModel.followPath(this, path, timeLapse);
+      } catch (final DeadlockException e) {
+        // an AGV is approaching from the opposite direction, try another
+        // destination in the next tick
+        path.clear();
+      }
+    }
+
+    @Override
+    public void afterTick(TimeLapse timeLapse) {}
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.model.comm.CommDevice;
+import com.github.rinde.rinsim.core.model.comm.CommDeviceBuilder;
+import com.github.rinde.rinsim.core.model.comm.CommModel;
+import com.github.rinde.rinsim.core.model.comm.CommUser;
+import com.github.rinde.rinsim.core.model.comm.MessageContents;
+import com.github.rinde.rinsim.core.model.time.TickListener;
+import com.github.rinde.rinsim.core.model.time.TimeLapse;
+import com.github.rinde.rinsim.geom.Point;
+import com.google.common.base.Optional;
+
+/**
+ * Benchmarks broadcasting in the {@link CommModel}. Every user broadcasts a
+ * message in every tick and reads its unread messages. Users have a limited
+ * range such that each message reaches a subset of all users. Every
+ * invocation is a single tick of the simulator, which includes the delivery
+ * of all messages.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class CommModelBenchmark {
+  static final double RANGE = 2.5;
+
+  /**
+   * The number of communicating users.
+   */
+  @Param({"10", "100", "1000"})
+  public int users;
+
+  Simulator sim;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public CommModelBenchmark() {}
+
+  /**
+   * Creates the simulator and registers the users.
+   */
+  @Setup
+  public void setUp() {
+    final RandomGenerator rng = Workloads.rng();
+    sim = Simulator.builder()
+      .setRandomSeed(Workloads.SEED)
+      .addModel(CommModel.builder())
+      .build();
+    for (int i = 0; i < users; i++) {
+      sim.register(new Broadcaster(Workloads.randomPoint(rng)));
+    }
+  }
+
+  /**
+   * Advances the simulation with one tick.
+   */
+  @Benchmark
+  public void tick() {
+    sim.tick();
+  }
+
+  enum Ping implements MessageContents {
+    INSTANCE
+  }
+
+  static class Broadcaster implements CommUser, TickListener {
+    final Point position;
+    Optional<CommDevice> device;
+    int received;
+
+    Broadcaster(Point pos) {
+      position = pos;
+      device = Optional.absent();
+    }
+
+    @Override
+    public Optional<Point> getPosition() {
+      return Optional.of(position);
+    }
+
+    @Override
+    public void setCommDevice(CommDeviceBuilder builder) {
+      device = Optional.of(builder.setMaxRange(RANGE).build());
+    }
+
+    @Override
+    public void tick(TimeLapse timeLapse) {
+      received += device.get().getUnreadMessages().size();
+      device.get().broadcast(Ping.INSTANCE);
+    }
+
+    @Override
+    public void afterTick(TimeLapse timeLapse) {}
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.rinde.rinsim.event.Event;
+import com.github.rinde.rinsim.event.EventDispatcher;
+import com.github.rinde.rinsim.event.Listener;
+
+/**
+ * Benchmarks {@link EventDispatcher#dispatchEvent(Event)} with a varying
+ * number of listeners. Half of the listeners listen to the dispatched event
+ * type, the other half listens to another type.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class EventDispatcherBenchmark {
+  /**
+   * The number of listeners.
+   */
+  @Param({"1", "10", "100"})
+  public int listeners;
+
+  EventDispatcher dispatcher;
+  Event event;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public EventDispatcherBenchmark() {}
+
+  /**
+   * Creates the dispatcher and adds the listeners.
+   * @param bh The blackhole that consumes the received events.
+   */
+  @Setup
+  public void setUp(final Blackhole bh) {
+    dispatcher = new EventDispatcher(EventType.values());
+    for (int i = 0; i < listeners; i++) {
+      dispatcher.addListener(new Listener() {
+        @Override
+        public void handleEvent(Event e) {
+          bh.consume(e);
+        }
+      }, i % 2 == 0 ? EventType.DISPATCHED : EventType.OTHER);
+    }
+    event = new Event(EventType.DISPATCHED, this);
+  }
+
+  /**
+   * Dispatches a single event.
+   */
+  @Benchmark
+  public void dispatch() {
+    dispatcher.dispatchEvent(event);
+  }
+
+  enum EventType {
+    DISPATCHED, OTHER
+  }
+}
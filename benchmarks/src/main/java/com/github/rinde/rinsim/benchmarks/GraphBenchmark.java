@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.Graphs;
+import com.github.rinde.rinsim.geom.LengthData;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Benchmarks {@link Graphs#shortestPathEuclideanDistance(Graph, Point, Point)}
+ * on jittered grid graphs of different sizes. Every invocation computes the
+ * path of the next pair in a fixed sequence of random node pairs.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class GraphBenchmark {
+  static final int QUERIES = 1024;
+  static final double SPACING = 100d;
+
+  /**
+   * The number of nodes per row and per column of the grid.
+   */
+  @Param({"10", "30", "60"})
+  public int size;
+
+  Graph<LengthData> graph;
+  List<Point> from;
+  List<Point> to;
+  int index;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public GraphBenchmark() {}
+
+  /**
+   * Creates the graph and the queries.
+   */
+  @Setup
+  public void setUp() {
+    final RandomGenerator rng = Workloads.rng();
+    graph = Workloads.grid(size, SPACING, Workloads.JITTER, rng);
+    from = new ArrayList<>();
+    to = new ArrayList<>();
+    for (int i = 0; i < QUERIES; i++) {
+      from.add(graph.getRandomNode(rng));
+      to.add(graph.getRandomNode(rng));
+    }
+  }
+
+  /**
+   * @return The shortest path of the next query.
+   */
+  @Benchmark
+  public List<Point> shortestPath() {
+    final int i = index;
+    index = (i + 1) % QUERIES;
+    return Graphs.shortestPathEuclideanDistance(graph, from.get(i),
+      to.get(i));
+  }
+}
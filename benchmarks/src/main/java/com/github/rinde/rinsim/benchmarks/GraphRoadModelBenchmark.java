@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.model.road.MovingRoadUser;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModelBuilders;
+import com.github.rinde.rinsim.core.model.time.TickListener;
+import com.github.rinde.rinsim.core.model.time.TimeLapse;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Benchmarks {@link RoadModel#followPath(MovingRoadUser, Queue, TimeLapse)} of
+ * the static graph road model. A number of agents drive to random nodes of a
+ * jittered grid, a new destination is chosen as soon as one is reached. Every
+ * invocation is a single tick of the simulator.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class GraphRoadModelBenchmark {
+  static final int GRID_SIZE = 30;
+  static final double SPACING = 100d;
+  static final double SPEED = 15d;
+
+  /**
+   * The number of agents.
+   */
+  @Param({"10", "100", "1000"})
+  public int agents;
+
+  Simulator sim;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public GraphRoadModelBenchmark() {}
+
+  /**
+   * Creates the simulator and registers the agents.
+   */
+  @Setup
+  public void setUp() {
+    final RandomGenerator rng = Workloads.rng();
+    sim = Simulator.builder()
+      .setRandomSeed(Workloads.SEED)
+      .addModel(RoadModelBuilders.staticGraph(
+        Workloads.grid(GRID_SIZE, SPACING, Workloads.JITTER, rng)))
+      .build();
+    for (int i = 0; i < agents; i++) {
+      sim.register(new Driver(sim.getRandomGenerator()));
+    }
+  }
+
+  /**
+   * Advances the simulation with one tick.
+   */
+  @Benchmark
+  public void tick() {
+    sim.tick();
+  }
+
+  static class Driver implements MovingRoadUser, TickListener {
+    final RandomGenerator rng;
+    RoadModel roadModel;
+    Queue<Point> path;
+
+    Driver(RandomGenerator r) {
+      rng = r;
+      path = new LinkedList<>();
+    }
+
+    @Override
+    public void initRoadUser(RoadModel model) {
+      roadModel = model;
+      model.addObjectAt(this, model.getRandomPosition(rng));
+    }
+
+    @Override
+    public double getSpeed() {
+      return SPEED;
+    }
+
+    @Override
+    public void tick(TimeLapse timeLapse) {
+      if (path.isEmpty()) {
+        path = new LinkedList<>(roadModel.getShortestPathTo(this,
+          roadModel.getRandomPosition(rng)));
+      }
+      roadModel.followPath(this, path, timeLapse);
+    }
+
+    @Override
+    public void afterTick(TimeLapse timeLapse) {}
+  }
+}
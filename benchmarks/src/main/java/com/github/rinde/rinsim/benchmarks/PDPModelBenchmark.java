@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.model.pdp.DefaultPDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel.ParcelState;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel.PDPModelEventType;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.pdp.Vehicle;
+import com.github.rinde.rinsim.core.model.pdp.VehicleDTO;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModelBuilders;
+import com.github.rinde.rinsim.core.model.road.RoadModels;
+import com.github.rinde.rinsim.core.model.time.TimeLapse;
+import com.github.rinde.rinsim.event.Event;
+import com.github.rinde.rinsim.event.Listener;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Benchmarks the {@link DefaultPDPModel} with greedy vehicles that pick up the
+ * closest available parcel and deliver it. The number of available parcels is
+ * kept constant by registering a new parcel for every delivered parcel. Every
+ * invocation is a single tick of the simulator, which includes the tick of the
+ * PDP model and the pickup and delivery operations of the vehicles.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class PDPModelBenchmark {
+  static final int PARCELS_PER_VEHICLE = 5;
+
+  /**
+   * The number of vehicles.
+   */
+  @Param({"10", "100", "500"})
+  public int vehicles;
+
+  Simulator sim;
+  RandomGenerator rng;
+  int delivered;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public PDPModelBenchmark() {}
+
+  /**
+   * Creates the simulator and registers the vehicles and parcels.
+   */
+  @Setup
+  public void setUp() {
+    rng = Workloads.rng();
+    sim = Simulator.builder()
+      .setRandomSeed(Workloads.SEED)
+      .addModel(RoadModelBuilders.plane()
+        .withMinPoint(new Point(0, 0))
+        .withMaxPoint(
+          new Point(Workloads.PLANE_SIZE, Workloads.PLANE_SIZE)))
+      .addModel(DefaultPDPModel.builder())
+      .build();
+    sim.getModelProvider().getModel(PDPModel.class).getEventAPI()
+      .addListener(new Listener() {
+        @Override
+        public void handleEvent(Event e) {
+          delivered++;
+        }
+      }, PDPModelEventType.END_DELIVERY);
+
+    for (int i = 0; i < vehicles; i++) {
+      sim.register(new GreedyVehicle(VehicleDTO.builder()
+        .startPosition(Workloads.randomPoint(rng))
+        .speed(Workloads.VEHICLE_SPEED)
+        .build()));
+    }
+    for (int i = 0; i < vehicles * PARCELS_PER_VEHICLE; i++) {
+      sim.register(newParcel());
+    }
+  }
+
+  /**
+   * Advances the simulation with one tick and replaces the delivered parcels.
+   */
+  @Benchmark
+  public void tick() {
+    sim.tick();
+    for (; delivered > 0; delivered--) {
+      sim.register(newParcel());
+    }
+  }
+
+  Parcel newParcel() {
+    return Parcel.builder(Workloads.randomPoint(rng),
+      Workloads.randomPoint(rng)).build();
+  }
+
+  static class GreedyVehicle extends Vehicle {
+    GreedyVehicle(VehicleDTO dto) {
+      super(dto);
+    }
+
+    @Override
+    protected void tickImpl(TimeLapse time) {
+      final RoadModel rm = getRoadModel();
+      final PDPModel pm = getPDPModel();
+      final Collection<Parcel> contents = pm.getContents(this);
+      if (contents.isEmpty()) {
+        final Collection<Parcel> available =
+          pm.getParcels(ParcelState.AVAILABLE);
+        if (available.isEmpty()) {
+          return;
+        }
+        final Parcel closest =
+          RoadModels.findClosestObject(rm.getPosition(this), rm, available);
+        rm.moveTo(this, closest, time);
+        if (time.hasTimeLeft()
+          && rm.getPosition(this).equals(closest.getPickupLocation())) {
+          pm.pickup(this, closest, time);
+        }
+      } else {
+        final Parcel parcel = contents.iterator().next();
+        rm.moveTo(this, parcel.getDeliveryLocation(), time);
+        if (time.hasTimeLeft()
+          && rm.getPosition(this).equals(parcel.getDeliveryLocation())) {
+          pm.deliver(this, parcel, time);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
+
+/**
+ * Benchmarks serialization and deserialization of scenarios using
+ * {@link ScenarioIO}.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class ScenarioIOBenchmark {
+  static final int VEHICLES = 10;
+
+  /**
+   * The number of parcels in the scenario.
+   */
+  @Param({"100", "1000"})
+  public int parcels;
+
+  Scenario scenario;
+  String serialized;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public ScenarioIOBenchmark() {}
+
+  /**
+   * Creates the scenario and its serialized form.
+   */
+  @Setup
+  public void setUp() {
+    scenario = Workloads.scenario(Workloads.SEED, VEHICLES, parcels);
+    serialized = ScenarioIO.write(scenario);
+  }
+
+  /**
+   * @return The serialized scenario.
+   */
+  @Benchmark
+  public String write() {
+    return ScenarioIO.write(scenario);
+  }
+
+  /**
+   * @return The deserialized scenario.
+   */
+  @Benchmark
+  public Scenario read() {
+    return ScenarioIO.read(serialized);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.RandomSolver;
+import com.github.rinde.rinsim.central.Solvers;
+import com.github.rinde.rinsim.central.Solvers.ExtendedStats;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Benchmarks the evaluation of a schedule using
+ * {@link Solvers#computeStats(GlobalStateObject, ImmutableList)}.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class SolversBenchmark {
+  static final int PARCELS_PER_VEHICLE = 10;
+
+  /**
+   * The number of vehicles.
+   */
+  @Param({"5", "20", "50"})
+  public int vehicles;
+
+  GlobalStateObject state;
+  ImmutableList<ImmutableList<Parcel>> schedule;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public SolversBenchmark() {}
+
+  /**
+   * Creates the state and a random schedule.
+   * @throws InterruptedException Should not happen.
+   */
+  @Setup
+  public void setUp() throws InterruptedException {
+    state = Workloads.state(Workloads.SEED, vehicles,
+      vehicles * PARCELS_PER_VEHICLE);
+    schedule = RandomSolver.create(Workloads.SEED).solve(state);
+  }
+
+  /**
+   * @return The statistics of the schedule.
+   */
+  @Benchmark
+  public ExtendedStats computeStats() {
+    return Solvers.computeStats(state, schedule);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rinde.rinsim.util.StochasticSupplier;
+import com.github.rinde.rinsim.util.StochasticSuppliers;
+
+/**
+ * Compares the ways of drawing many values from a {@link StochasticSupplier}:
+ * one by one, as a batch with a seed per value and as a batch from a single
+ * random stream.
+ * @author Rinde van Lon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Workloads.WARMUP_ITERATIONS)
+@Measurement(iterations = Workloads.MEASUREMENT_ITERATIONS)
+@Fork(1)
+public class StochasticSuppliersBenchmark {
+  static final int VALUES = 1000;
+
+  /**
+   * The supplier to draw from.
+   */
+  @Param({"uniform", "fastUniform", "normal"})
+  public String supplierType;
+
+  StochasticSupplier<Double> supplier;
+  long[] seeds;
+  double[] values;
+
+  /**
+   * Creates a new instance, the state is initialized by JMH.
+   */
+  public StochasticSuppliersBenchmark() {}
+
+  /**
+   * Creates the supplier and the seeds.
+   */
+  @Setup
+  public void setUp() {
+    if ("uniform".equals(supplierType)) {
+      supplier = StochasticSuppliers.uniformDouble(0, 1);
+    } else if ("fastUniform".equals(supplierType)) {
+      supplier = StochasticSuppliers.fastUniformDouble(0, 1);
+    } else {
+      supplier = StochasticSuppliers.normal().bounds(-1, 1).buildDouble();
+    }
+    seeds = StochasticSuppliers.seeds(Workloads.SEED, VALUES);
+    values = new double[VALUES];
+  }
+
+  /**
+   * Draws the values one by one.
+   * @return The sum of the values.
+   */
+  @Benchmark
+  public double oneByOne() {
+    double sum = 0;
+    for (int i = 0; i < VALUES; i++) {
+      sum += supplier.get(seeds[i]);
+    }
+    return sum;
+  }
+
+  /**
+   * Draws the values as a batch with a seed per value.
+   * @return The array with values.
+   */
+  @Benchmark
+  public double[] batchPerSeed() {
+    StochasticSuppliers.getDoubles(supplier, seeds, values);
+    return values;
+  }
+
+  /**
+   * Draws the values as a batch from a single stream.
+   * @return The array with values.
+   */
+  @Benchmark
+  public double[] batchStream() {
+    return StochasticSuppliers.getDoubles(supplier, Workloads.SEED, VALUES);
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.benchmarks;
+
+import java.util.Collections;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.GlobalStateObjectBuilder;
+import com.github.rinde.rinsim.central.GlobalStateObjectBuilder.VSOBuilder;
+import com.github.rinde.rinsim.core.model.pdp.DefaultPDPModel;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.pdp.VehicleDTO;
+import com.github.rinde.rinsim.core.model.road.RoadModelBuilders;
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.Graphs;
+import com.github.rinde.rinsim.geom.LengthData;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.geom.TableGraph;
+import com.github.rinde.rinsim.pdptw.common.AddParcelEvent;
+import com.github.rinde.rinsim.pdptw.common.AddVehicleEvent;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.StopConditions;
+import com.github.rinde.rinsim.scenario.TimeOutEvent;
+import com.github.rinde.rinsim.util.TimeWindow;
+
+/**
+ * Seeded workloads that are shared by the benchmarks. All workloads are
+ * deterministic for a given seed such that results can be compared between
+ * releases.
+ * @author Rinde van Lon
+ */
+final class Workloads {
+  /**
+   * The seed that is used by all benchmarks.
+   */
+  static final long SEED = 123L;
+  static final int WARMUP_ITERATIONS = 5;
+  static final int MEASUREMENT_ITERATIONS = 10;
+
+  static final long HOUR = 60 * 60 * 1000L;
+  static final long SCENARIO_LENGTH = 8 * HOUR;
+  static final long SHIFT_LENGTH = 4 * HOUR;
+  static final long SNAPSHOT_TIME = 15 * 60 * 1000L;
+  static final double PLANE_SIZE = 10d;
+  static final double JITTER = .25;
+  static final double ANNOUNCE_FRACTION = .8;
+  static final double VEHICLE_SPEED = 50d;
+
+  private Workloads() {}
+
+  /**
+   * @return A new random generator that is seeded with {@link #SEED}.
+   */
+  static RandomGenerator rng() {
+    return new MersenneTwister(SEED);
+  }
+
+  /**
+   * Creates a street grid of <code>size x size</code> nodes with
+   * bidirectional connections. The nodes are moved randomly by at most
+   * <code>jitter</code> times the spacing such that connection lengths differ,
+   * as they do in a real road network.
+   * @param size The number of nodes per row and per column.
+   * @param spacing The distance between neighboring nodes.
+   * @param jitter The maximum displacement of a node as a fraction of the
+   *          spacing, use {@link #JITTER} for a typical road network.
+   * @param rng The random generator that is used for the jitter.
+   * @return A new graph.
+   */
+  static Graph<LengthData> grid(int size, double spacing, double jitter,
+      RandomGenerator rng) {
+    final Point[][] nodes = new Point[size][size];
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        nodes[r][c] = new Point(
+          c * spacing + displacement(spacing * jitter, rng),
+          r * spacing + displacement(spacing * jitter, rng));
+      }
+    }
+    final Graph<LengthData> graph = new TableGraph<>();
+    for (int i = 0; i < size; i++) {
+      final Point[] column = new Point[size];
+      for (int j = 0; j < size; j++) {
+        column[j] = nodes[j][i];
+      }
+      // addBiPath reverses the array in place, a copy keeps the grid intact
+      Graphs.addBiPath(graph, nodes[i].clone());
+      Graphs.addBiPath(graph, column);
+    }
+    return graph;
+  }
+
+  static double displacement(double max, RandomGenerator rng) {
+    return (rng.nextDouble() * 2 - 1) * max;
+  }
+
+  /**
+   * Creates a scenario with the specified number of vehicles and parcels that
+   * are announced at random times during the first part of the scenario.
+   * @param seed The seed for the parcels.
+   * @param vehicles The number of vehicles.
+   * @param parcels The number of parcels.
+   * @return A new scenario.
+   */
+  static Scenario scenario(long seed, int vehicles, int parcels) {
+    final long endTime = SCENARIO_LENGTH;
+    final Scenario.Builder b = Scenario.builder()
+      .addModel(RoadModelBuilders.plane())
+      .addModel(DefaultPDPModel.builder())
+      .addEvents(Collections.nCopies(vehicles,
+        AddVehicleEvent.create(-1, VehicleDTO.builder()
+          .startPosition(new Point(PLANE_SIZE / 2, PLANE_SIZE / 2))
+          .speed(VEHICLE_SPEED)
+          .build())));
+
+    final RandomGenerator rng = new MersenneTwister(seed);
+    for (int i = 0; i < parcels; i++) {
+      final long announceTime =
+        (long) (rng.nextDouble() * endTime * ANNOUNCE_FRACTION);
+      b.addEvent(AddParcelEvent.create(
+        Parcel.builder(randomPoint(rng), randomPoint(rng))
+          .orderAnnounceTime(announceTime)
+          .pickupTimeWindow(TimeWindow.create(announceTime, endTime))
+          .deliveryTimeWindow(TimeWindow.create(announceTime, endTime))
+          .buildDTO()));
+    }
+    return b.addEvent(TimeOutEvent.create(endTime))
+      .scenarioLength(endTime)
+      .setStopCondition(StopConditions.limitedTime(endTime))
+      .build();
+  }
+
+  /**
+   * Creates a snapshot of a problem in which some vehicles carry parcels and
+   * some vehicles are on their way to a parcel.
+   * @param seed The seed for the positions.
+   * @param vehicles The number of vehicles.
+   * @param parcels The number of available parcels.
+   * @return A new state.
+   */
+  static GlobalStateObject state(long seed, int vehicles, int parcels) {
+    final RandomGenerator rng = new MersenneTwister(seed);
+    final GlobalStateObjectBuilder builder =
+      GlobalStateObjectBuilder.globalBuilder()
+        .setTime(SNAPSHOT_TIME)
+        .setPlaneTravelTimes(new Point(0, 0),
+          new Point(PLANE_SIZE, PLANE_SIZE));
+    for (int v = 0; v < vehicles; v++) {
+      final VSOBuilder vb = GlobalStateObjectBuilder.vehicleBuilder()
+        .setLocation(randomPoint(rng))
+        .setVehicleDTO(VehicleDTO.builder()
+          .startPosition(new Point(PLANE_SIZE / 2, PLANE_SIZE / 2))
+          .speed(VEHICLE_SPEED)
+          .availabilityTimeWindow(TimeWindow.create(0, SHIFT_LENGTH))
+          .build());
+      if (v % 2 == 1) {
+        vb.addToContents(randomParcel(rng));
+      }
+      builder.addVehicle(vb.build());
+    }
+    for (int p = 0; p < parcels; p++) {
+      builder.addAvailableParcel(randomParcel(rng));
+    }
+    return builder.build();
+  }
+
+  static Parcel randomParcel(RandomGenerator rng) {
+    final long start = (long) (rng.nextDouble() * 2 * HOUR);
+    return Parcel.builder(randomPoint(rng), randomPoint(rng))
+      .pickupTimeWindow(TimeWindow.create(start, start + HOUR))
+      .deliveryTimeWindow(TimeWindow.create(start, start + 2 * HOUR))
+      .build();
+  }
+
+  static Point randomPoint(RandomGenerator rng) {
+    return new Point(rng.nextDouble() * PLANE_SIZE,
+      rng.nextDouble() * PLANE_SIZE);
+  }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * JMH benchmarks of the hot paths of the simulator. The benchmarks are built
+ * in the <code>benchmarks</code> profile and can be run using:
+ * <pre>
+ * mvn -Pbenchmarks -pl benchmarks -am package
+ * java -jar benchmarks/target/benchmarks.jar
+ * </pre>
+ * All workloads are seeded, see {@link Workloads}.
+ */
+package com.github.rinde.rinsim.benchmarks;
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import java.util.List;
+
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Interface for solvers of the PDPTW that improve a schedule in small steps,
+ * such that the computation can be interrupted at any time while a feasible
+ * schedule is available. See
+ * {@link com.github.rinde.rinsim.central.rt.RtAnytimeSolver} for running an
+ * anytime solver in real-time.
+ * @author Rinde van Lon
+ */
+public interface AnytimeSolver {
+
+  /**
+   * Constructs a feasible schedule for the specified state, starting from the
+   * specified routes. The routes are typically the schedule that was computed
+   * for a previous state, they may contain parcels that are no longer
+   * available and they may lack parcels that are new. Implementations should
+   * keep as much of the initial routes as possible.
+   * @param state The state of the world, or problem instance.
+   * @param initial The initial routes, either one route for every vehicle or
+   *          an empty list if no initial routes are known.
+   * @return A list of routes, one for every vehicle in the
+   *         {@link GlobalStateObject}.
+   * @throws InterruptedException When the computation is interrupted.
+   */
+  ImmutableList<ImmutableList<Parcel>> construct(GlobalStateObject state,
+      List<? extends List<Parcel>> initial) throws InterruptedException;
+
+  /**
+   * Performs a single improvement step on the specified schedule. A step
+   * should be short, its duration determines how fast the computation reacts
+   * to interruption and time budgets.
+   * @param state The state of the world, or problem instance.
+   * @param schedule A feasible schedule for the state.
+   * @return A feasible schedule with a cost that is lower than the cost of the
+   *         specified schedule, or the specified instance if no improvement
+   *         could be found.
+   * @throws InterruptedException When the computation is interrupted.
+   */
+  ImmutableList<ImmutableList<Parcel>> improveStep(GlobalStateObject state,
+      ImmutableList<ImmutableList<Parcel>> schedule)
+      throws InterruptedException;
+
+  /**
+   * Computes the cost of a schedule as it is minimized by this solver.
+   * @param state The state of the schedule.
+   * @param schedule The schedule, one route per vehicle.
+   * @return The cost.
+   */
+  double computeCost(GlobalStateObject state,
+      ImmutableList<ImmutableList<Parcel>> schedule);
+}
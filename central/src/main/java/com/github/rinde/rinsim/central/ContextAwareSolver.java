@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A {@link Solver} that supports cooperative cancellation, deadlines and
+ * progress reporting via a {@link SolveContext}. Decorators of solvers should
+ * forward the context using
+ * {@link Solvers#solve(Solver, GlobalStateObject, SolveContext)}.
+ * @author Rinde van Lon
+ */
+public interface ContextAwareSolver extends Solver {
+
+  /**
+   * Computes a solution for the PDPTW as specified by the
+   * {@link GlobalStateObject}, see {@link Solver#solve(GlobalStateObject)}.
+   * When the deadline of the context has passed the best schedule found so far
+   * should be returned.
+   * @param state The state of the world, or problem instance.
+   * @param context The context of this computation.
+   * @return A list of routes, one for every vehicle in the
+   *         {@link GlobalStateObject}.
+   * @throws InterruptedException When the computation is cancelled or
+   *           interrupted.
+   */
+  ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state,
+      SolveContext context) throws InterruptedException;
+}
@@ -27,6 +27,8 @@ import com.github.rinde.rinsim.core.model.pdp.Parcel;
 import com.github.rinde.rinsim.core.model.pdp.VehicleDTO;
 import com.github.rinde.rinsim.core.model.road.RoadModelSnapshot;
 import com.github.rinde.rinsim.geom.Connection;
+import com.github.rinde.rinsim.geom.GeomHeuristic;
+import com.github.rinde.rinsim.geom.GeomHeuristics;
 import com.github.rinde.rinsim.geom.Point;
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Optional;
@@ -43,6 +45,9 @@ public abstract class GlobalStateObject {
   // TODO add generic way for storing travel distances based on shortest path
   // in road model
 
+  @Nullable
+  private volatile ScheduleEvaluator defaultEvaluator;
+
   GlobalStateObject() {}
 
   /**
@@ -126,6 +131,46 @@ public abstract class GlobalStateObject {
       getSpeedUnit(), getDistUnit(), getRoadModelSnapshot());
   }
 
+  /**
+   * Returns the {@link ScheduleEvaluator} for this state that uses the
+   * euclidean heuristic and weighs travel time, tardiness and overtime
+   * equally, its costs are therefore equal to the sum of these values as
+   * computed by
+   * {@link Solvers#computeStats(GlobalStateObject, ImmutableList)}. The
+   * evaluator is created once and shared by all users of this state, such
+   * that its travel time cache is reused.
+   * @return The default evaluator of this state.
+   */
+  public ScheduleEvaluator evaluator() {
+    ScheduleEvaluator ev = defaultEvaluator;
+    if (ev == null) {
+      synchronized (this) {
+        ev = defaultEvaluator;
+        if (ev == null) {
+          ev = evaluator(GeomHeuristics.euclidean(), 1d, 1d, 1d);
+          defaultEvaluator = ev;
+        }
+      }
+    }
+    return ev;
+  }
+
+  /**
+   * Creates a new {@link ScheduleEvaluator} for this state.
+   * @param heuristic The heuristic that is used for computing the travel times
+   *          between locations.
+   * @param travelTimeWeight The weight of the travel time in the cost.
+   * @param tardinessWeight The weight of the pickup and delivery tardiness in
+   *          the cost.
+   * @param overTimeWeight The weight of the overtime in the cost.
+   * @return A new evaluator.
+   */
+  public ScheduleEvaluator evaluator(GeomHeuristic heuristic,
+      double travelTimeWeight, double tardinessWeight, double overTimeWeight) {
+    return new ScheduleEvaluator(this, heuristic, travelTimeWeight,
+      tardinessWeight, overTimeWeight);
+  }
+
   /**
    * Immutable state object of a vehicle.
    * @author Rinde van Lon
@@ -0,0 +1,720 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
+
+import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
+import com.github.rinde.rinsim.central.ScheduleEvaluator.RouteEvaluation;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.geom.GeomHeuristics;
+import com.github.rinde.rinsim.util.ForkJoinPools;
+import com.github.rinde.rinsim.util.StochasticSupplier;
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * A {@link Solver} that constructs a schedule using cheapest insertion and
+ * improves it using local search. The construction repeatedly inserts the
+ * parcel that can be inserted at the lowest cost. The local search
+ * repeatedly applies the best <i>relocate</i> (move one parcel to a different
+ * position, possibly in a different route) or <i>exchange</i> (swap two
+ * parcels between routes) move until no improving move exists or until the
+ * maximum number of iterations is reached.
+ * <p>
+ * The cost of a schedule is a weighted sum of the travel time, the tardiness
+ * and the overtime, computed in the same way as
+ * {@link Solvers#computeStats(GlobalStateObject, ImmutableList)}. Candidate
+ * moves are evaluated in parallel, the cost of inserting a parcel in a route
+ * is computed incrementally from the arrival times and slack of that route.
+ * The produced schedules are deterministic, they do not depend on the number
+ * of threads.
+ * <p>
+ * Parcels that are in cargo or that are the current destination of a vehicle
+ * remain in the route of that vehicle, only the position of their delivery
+ * can change.
+ * <p>
+ * As an {@link AnytimeSolver} the construction keeps the valid parts of the
+ * initial routes and each improvement step applies a single move.
+ * @author Rinde van Lon
+ */
+public final class LocalSearchSolver
+    implements ContextAwareSolver, AnytimeSolver {
+  static final double MIN_IMPROVEMENT = 1e-6;
+  static final String R_BRACE = ")";
+  static final ImmutableList<ImmutableList<Parcel>> NO_ROUTES =
+    ImmutableList.of();
+
+  final Builder settings;
+  private final ExecutorService executor;
+  // the evaluator of the most recent state, reused by consecutive calls for
+  // the same state
+  private final AtomicReference<ScheduleEvaluator> lastEvaluator;
+
+  LocalSearchSolver(Builder b) {
+    settings = b;
+    lastEvaluator = new AtomicReference<>();
+    if (b.getThreads() == 1) {
+      executor = MoreExecutors.newDirectExecutorService();
+    } else {
+      // all solvers with the same number of threads share a pool
+      executor = ForkJoinPools.shared(b.getThreads());
+    }
+  }
+
+  @Override
+  public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state)
+      throws InterruptedException {
+    return solve(state, SolveContext.create());
+  }
+
+  /**
+   * Constructs a schedule and improves it using local search. The constructed
+   * schedule and every improved schedule are reported as progress to the
+   * context. When the deadline of the context passes the local search stops
+   * and the best schedule found so far is returned.
+   * @param state The state to construct a schedule for.
+   * @param context The context of the computation.
+   * @return A new schedule.
+   * @throws InterruptedException When the computation is interrupted or
+   *           cancelled.
+   */
+  @Override
+  public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state,
+      SolveContext context) throws InterruptedException {
+    final ScheduleEvaluator evaluator = createEvaluator(state);
+    final ImmutableList<ImmutableList<Parcel>> schedule =
+      construct(evaluator, NO_ROUTES, context);
+    context.reportProgress(state, schedule);
+    return improve(evaluator, schedule, settings.getMaxIterations(), context);
+  }
+
+  /**
+   * Constructs a schedule using cheapest insertion.
+   * @param state The state to construct a schedule for.
+   * @return A new schedule.
+   * @throws InterruptedException When the computation is interrupted.
+   */
+  public ImmutableList<ImmutableList<Parcel>> construct(
+      GlobalStateObject state) throws InterruptedException {
+    return construct(createEvaluator(state), NO_ROUTES,
+      SolveContext.create());
+  }
+
+  /**
+   * Constructs a schedule by completing the specified initial routes using
+   * cheapest insertion. Parcels that are no longer available, that occur only
+   * once in an initial route or that are bound to a different vehicle are
+   * removed from the initial routes, the order of the other parcels is kept.
+   * @param state The state to construct a schedule for.
+   * @param initial The initial routes, one for each vehicle or an empty list.
+   * @return A new schedule.
+   * @throws InterruptedException When the computation is interrupted.
+   */
+  @Override
+  public ImmutableList<ImmutableList<Parcel>> construct(
+      GlobalStateObject state, List<? extends List<Parcel>> initial)
+      throws InterruptedException {
+    return construct(createEvaluator(state), initial, SolveContext.create());
+  }
+
+  /**
+   * Improves the specified schedule using local search.
+   * @param state The state of the schedule.
+   * @param schedule A valid schedule for the state, one route per vehicle.
+   * @return An improved schedule, or the specified schedule instance if no
+   *         improvement could be found.
+   * @throws InterruptedException When the computation is interrupted.
+   */
+  public ImmutableList<ImmutableList<Parcel>> improve(GlobalStateObject state,
+      ImmutableList<ImmutableList<Parcel>> schedule)
+      throws InterruptedException {
+    return improve(createEvaluator(state), schedule,
+      settings.getMaxIterations(), SolveContext.create());
+  }
+
+  /**
+   * Applies the best improving move to the specified schedule.
+   * @param state The state of the schedule.
+   * @param schedule A valid schedule for the state, one route per vehicle.
+   * @return An improved schedule, or the specified schedule instance if no
+   *         improving move exists.
+   * @throws InterruptedException When the computation is interrupted.
+   */
+  @Override
+  public ImmutableList<ImmutableList<Parcel>> improveStep(
+      GlobalStateObject state, ImmutableList<ImmutableList<Parcel>> schedule)
+      throws InterruptedException {
+    return improve(createEvaluator(state), schedule, 1,
+      SolveContext.create());
+  }
+
+  /**
+   * Computes the cost of a schedule as it is minimized by this solver.
+   * @param state The state of the schedule.
+   * @param schedule The schedule, one route per vehicle.
+   * @return The cost.
+   */
+  @Override
+  public double computeCost(GlobalStateObject state,
+      ImmutableList<ImmutableList<Parcel>> schedule) {
+    return createEvaluator(state).computeCost(schedule);
+  }
+
+  ScheduleEvaluator createEvaluator(GlobalStateObject state) {
+    checkArgument(!state.getVehicles().isEmpty(), "Need at least one vehicle.");
+    final ScheduleEvaluator last = lastEvaluator.get();
+    if (last != null && last.getState() == state) {
+      return last;
+    }
+    final ScheduleEvaluator evaluator = state.evaluator(
+      GeomHeuristics.euclidean(), settings.getTravelTimeWeight(),
+      settings.getTardinessWeight(), settings.getOverTimeWeight());
+    lastEvaluator.set(evaluator);
+    return evaluator;
+  }
+
+  ImmutableList<ImmutableList<Parcel>> construct(
+      final ScheduleEvaluator evaluator, List<? extends List<Parcel>> initial,
+      SolveContext context) throws InterruptedException {
+    final GlobalStateObject state = evaluator.state;
+    final int numVehicles = state.getVehicles().size();
+    checkArgument(initial.isEmpty() || initial.size() == numVehicles,
+      "Expected an initial route for each of the %s vehicles, found %s.",
+      numVehicles, initial.size());
+    final List<ImmutableList<Parcel>> routes = new ArrayList<>();
+    final RouteEvaluation[] evaluations = new RouteEvaluation[numVehicles];
+    final Set<Parcel> unassigned =
+      new LinkedHashSet<>(state.getAvailableParcels());
+    for (final VehicleStateObject vso : state.getVehicles()) {
+      unassigned.removeAll(vso.getDestination().asSet());
+    }
+
+    // parcels in cargo and destinations are bound to their vehicle
+    for (int v = 0; v < numVehicles; v++) {
+      final VehicleStateObject vso = state.getVehicles().get(v);
+      final List<Parcel> initialRoute = new ArrayList<>(
+        vso.getDestination().asSet());
+      final Set<Parcel> deliveries = new LinkedHashSet<>(vso.getContents());
+      if (vso.getDestination().isPresent()
+        && !vso.getContents().contains(vso.getDestination().get())) {
+        deliveries.add(vso.getDestination().get());
+      } else {
+        deliveries.removeAll(initialRoute);
+      }
+      if (!initial.isEmpty()) {
+        keepValid(initial.get(v), initialRoute, deliveries, unassigned);
+      }
+      ImmutableList<Parcel> route = ImmutableList.copyOf(initialRoute);
+      for (final Parcel p : deliveries) {
+        final Insertion ins =
+          bestDeliveryInsertion(evaluator.evaluate(v, route), p);
+        route = ins.apply(route, p);
+      }
+      routes.add(route);
+      evaluations[v] = evaluator.evaluate(v, route);
+    }
+
+    // cheapest insertion of all other parcels
+    final List<Parcel> parcels = new ArrayList<>(unassigned);
+    final List<Insertion[]> best = invokeAll(
+      insertionTasks(parcels, evaluations, -1));
+    while (!parcels.isEmpty()) {
+      context.checkpoint();
+      int bestParcel = -1;
+      int bestVehicle = -1;
+      for (int p = 0; p < parcels.size(); p++) {
+        for (int v = 0; v < numVehicles; v++) {
+          if (bestParcel == -1 || best.get(p)[v].cost < best
+            .get(bestParcel)[bestVehicle].cost) {
+            bestParcel = p;
+            bestVehicle = v;
+          }
+        }
+      }
+      final Parcel parcel = parcels.remove(bestParcel);
+      final Insertion ins = best.remove(bestParcel)[bestVehicle];
+      routes.set(bestVehicle, ins.apply(routes.get(bestVehicle), parcel));
+      evaluations[bestVehicle] =
+        evaluator.evaluate(bestVehicle, routes.get(bestVehicle));
+
+      final List<Insertion[]> updated = invokeAll(
+        insertionTasks(parcels, evaluations, bestVehicle));
+      for (int p = 0; p < parcels.size(); p++) {
+        best.get(p)[bestVehicle] = updated.get(p)[bestVehicle];
+      }
+    }
+    return ImmutableList.copyOf(routes);
+  }
+
+  // copies the stops of the initial route that are still valid to the route,
+  // the deliveries and parcels that are copied are removed from the
+  // respective sets
+  static void keepValid(List<Parcel> initialRoute, List<Parcel> route,
+      Set<Parcel> deliveries, Set<Parcel> unassigned) {
+    for (int k = 0; k < initialRoute.size(); k++) {
+      final Parcel p = initialRoute.get(k);
+      final int first = initialRoute.indexOf(p);
+      final int last = initialRoute.lastIndexOf(p);
+      if (deliveries.contains(p)) {
+        // the destination is already at the start of the route, its delivery
+        // is the second occurrence
+        final boolean isDestination =
+          !route.isEmpty() && p.equals(route.get(0));
+        if (k == last && (first < last || !isDestination)) {
+          route.add(p);
+          deliveries.remove(p);
+        }
+      } else if (unassigned.contains(p) && first < last) {
+        route.add(p);
+        if (k == last) {
+          unassigned.remove(p);
+        }
+      }
+    }
+  }
+
+  ImmutableList<ImmutableList<Parcel>> improve(
+      final ScheduleEvaluator evaluator,
+      ImmutableList<ImmutableList<Parcel>> schedule, int maxIterations,
+      SolveContext context) throws InterruptedException {
+    checkArgument(schedule.size() == evaluator.numVehicles(),
+      "Exactly one route per vehicle is required, found %s routes for %s "
+        + "vehicles.",
+      schedule.size(), evaluator.numVehicles());
+    final List<ImmutableList<Parcel>> routes = new ArrayList<>(schedule);
+    final RouteEvaluation[] evaluations = new RouteEvaluation[routes.size()];
+    for (int v = 0; v < routes.size(); v++) {
+      evaluations[v] = evaluator.evaluate(v, routes.get(v));
+    }
+
+    boolean improved = false;
+    for (int it = 0; it < maxIterations; it++) {
+      context.checkpoint();
+      if (context.isExpired()) {
+        break;
+      }
+      // first compute the routes without each of the movable parcels, then
+      // find the best move for each of these removals
+      final List<Removal> removals = invokeAll(removalTasks(evaluator,
+        routes));
+      final List<Move> moves =
+        invokeAll(moveTasks(removals, evaluations));
+      Move bestMove = null;
+      for (final Move m : moves) {
+        if (m != null && (bestMove == null || m.delta < bestMove.delta)) {
+          bestMove = m;
+        }
+      }
+      if (bestMove == null || bestMove.delta > -MIN_IMPROVEMENT) {
+        break;
+      }
+      improved = true;
+      routes.set(bestMove.vehicle, bestMove.route);
+      evaluations[bestMove.vehicle] =
+        evaluator.evaluate(bestMove.vehicle, bestMove.route);
+      if (bestMove.otherRoute != null) {
+        routes.set(bestMove.otherVehicle, bestMove.otherRoute);
+        evaluations[bestMove.otherVehicle] =
+          evaluator.evaluate(bestMove.otherVehicle, bestMove.otherRoute);
+      }
+      context.reportProgress(evaluator.state, ImmutableList.copyOf(routes));
+    }
+    return improved ? ImmutableList.copyOf(routes) : schedule;
+  }
+
+  // computes the best insertion of each parcel in each vehicle, or only in
+  // the specified vehicle if it is not -1
+  List<Callable<Insertion[]>> insertionTasks(List<Parcel> parcels,
+      final RouteEvaluation[] evaluations, final int vehicle) {
+    final List<Callable<Insertion[]>> tasks = new ArrayList<>();
+    for (final Parcel p : parcels) {
+      tasks.add(new Callable<Insertion[]>() {
+        @Override
+        public Insertion[] call() {
+          final Insertion[] result = new Insertion[evaluations.length];
+          for (int v = 0; v < evaluations.length; v++) {
+            if (vehicle == -1 || vehicle == v) {
+              result[v] = bestInsertion(evaluations[v], p);
+            }
+          }
+          return result;
+        }
+      });
+    }
+    return tasks;
+  }
+
+  static List<Callable<Removal>> removalTasks(
+      final ScheduleEvaluator evaluator,
+      List<ImmutableList<Parcel>> routes) {
+    final List<Callable<Removal>> tasks = new ArrayList<>();
+    for (int v = 0; v < routes.size(); v++) {
+      final VehicleStateObject vso = evaluator.state.getVehicles().get(v);
+      final ImmutableList<Parcel> route = routes.get(v);
+      final int vehicle = v;
+      for (final Parcel p : new LinkedHashSet<>(route)) {
+        final boolean bound = vso.getContents().contains(p)
+          || vso.getDestination().asSet().contains(p);
+        if (vso.getDestination().asSet().contains(p)
+          && route.indexOf(p) == route.lastIndexOf(p)) {
+          // the destination is being delivered, it can not be moved
+          continue;
+        }
+        tasks.add(new Callable<Removal>() {
+          @Override
+          public Removal call() {
+            return new Removal(evaluator, vehicle, route, p, bound);
+          }
+        });
+      }
+    }
+    return tasks;
+  }
+
+  static List<Callable<Move>> moveTasks(final List<Removal> removals,
+      final RouteEvaluation[] evaluations) {
+    final List<Callable<Move>> tasks = new ArrayList<>();
+    for (int r = 0; r < removals.size(); r++) {
+      final int index = r;
+      tasks.add(new Callable<Move>() {
+        @Override
+        @Nullable
+        public Move call() {
+          return bestMove(removals, index, evaluations);
+        }
+      });
+    }
+    return tasks;
+  }
+
+  @Nullable
+  static Move bestMove(List<Removal> removals, int index,
+      RouteEvaluation[] evaluations) {
+    final Removal rem = removals.get(index);
+    final double removalDelta =
+      rem.evaluation.getCost() - evaluations[rem.vehicle].getCost();
+    if (rem.bound) {
+      final Insertion ins = bestDeliveryInsertion(rem.evaluation, rem.parcel);
+      return new Move(removalDelta + ins.cost, rem.vehicle,
+        ins.apply(rem.evaluation.route, rem.parcel), -1, null);
+    }
+    Move best = null;
+    // relocate
+    for (int v = 0; v < evaluations.length; v++) {
+      final RouteEvaluation target =
+        v == rem.vehicle ? rem.evaluation : evaluations[v];
+      final Insertion ins = bestInsertion(target, rem.parcel);
+      final double delta = removalDelta + ins.cost;
+      if (best == null || delta < best.delta) {
+        final ImmutableList<Parcel> route = ins.apply(target.route, rem.parcel);
+        best = v == rem.vehicle
+          ? new Move(delta, v, route, -1, null)
+          : new Move(delta, rem.vehicle, rem.evaluation.route, v, route);
+      }
+    }
+    // exchange with parcels in routes of vehicles with a higher index
+    for (int o = index + 1; o < removals.size(); o++) {
+      final Removal other = removals.get(o);
+      if (other.bound || other.vehicle <= rem.vehicle) {
+        continue;
+      }
+      final Insertion ins1 = bestInsertion(rem.evaluation, other.parcel);
+      final Insertion ins2 = bestInsertion(other.evaluation, rem.parcel);
+      final double delta = removalDelta + other.evaluation.getCost()
+        - evaluations[other.vehicle].getCost() + ins1.cost + ins2.cost;
+      if (delta < best.delta) {
+        best = new Move(delta, rem.vehicle,
+          ins1.apply(rem.evaluation.route, other.parcel), other.vehicle,
+          ins2.apply(other.evaluation.route, rem.parcel));
+      }
+    }
+    return best;
+  }
+
+  static Insertion bestInsertion(RouteEvaluation eval, Parcel p) {
+    final ScheduleEvaluator evaluator = eval.evaluator();
+    final int pickup = evaluator.indexOf(p.getPickupLocation());
+    final int delivery = evaluator.indexOf(p.getDeliveryLocation());
+    Insertion best = null;
+    for (int i = eval.vehicle.firstInsertion; i <= eval.size; i++) {
+      for (int j = i; j <= eval.size; j++) {
+        final double cost = eval.insertionCost(p, pickup, delivery, i, j);
+        if (best == null || cost < best.cost) {
+          best = new Insertion(i, j, cost);
+        }
+      }
+    }
+    return best;
+  }
+
+  static Insertion bestDeliveryInsertion(RouteEvaluation eval, Parcel p) {
+    final int delivery = eval.evaluator().indexOf(p.getDeliveryLocation());
+    Insertion best = null;
+    for (int i = eval.vehicle.firstInsertion; i <= eval.size; i++) {
+      final double cost = eval.deliveryInsertionCost(p, delivery, i);
+      if (best == null || cost < best.cost) {
+        best = new Insertion(-1, i, cost);
+      }
+    }
+    return best;
+  }
+
+  <T> List<T> invokeAll(List<Callable<T>> tasks) throws InterruptedException {
+    final List<T> results = new ArrayList<>();
+    for (final Future<T> f : executor.invokeAll(tasks)) {
+      try {
+        results.add(f.get());
+      } catch (final ExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public String toString() {
+    return Joiner.on("").join(LocalSearchSolver.class.getSimpleName(), "(",
+      settings, R_BRACE);
+  }
+
+  /**
+   * @return A {@link StochasticSupplier} for {@link LocalSearchSolver}
+   *         instances with default settings.
+   */
+  public static StochasticSupplier<LocalSearchSolver> supplier() {
+    return builder().buildSupplier();
+  }
+
+  /**
+   * @return A new {@link Builder} with default settings.
+   */
+  @CheckReturnValue
+  public static Builder builder() {
+    return Builder.create(Runtime.getRuntime().availableProcessors(),
+      Builder.DEFAULT_MAX_ITERATIONS, 1d, 1d, 1d);
+  }
+
+  static final class Insertion {
+    // -1 if only a delivery is inserted
+    final int pickup;
+    final int delivery;
+    final double cost;
+
+    Insertion(int p, int d, double c) {
+      pickup = p;
+      delivery = d;
+      cost = c;
+    }
+
+    ImmutableList<Parcel> apply(List<Parcel> route, Parcel p) {
+      final List<Parcel> list = new ArrayList<>(route);
+      list.add(delivery, p);
+      if (pickup >= 0) {
+        list.add(pickup, p);
+      }
+      return ImmutableList.copyOf(list);
+    }
+  }
+
+  static final class Removal {
+    final int vehicle;
+    final Parcel parcel;
+    final boolean bound;
+    final RouteEvaluation evaluation;
+
+    Removal(ScheduleEvaluator evaluator, int v, List<Parcel> route, Parcel p,
+        boolean b) {
+      vehicle = v;
+      parcel = p;
+      bound = b;
+      final List<Parcel> list = new ArrayList<>(route);
+      // only the last occurrence (the delivery) is removed for bound parcels
+      list.remove(list.lastIndexOf(p));
+      if (!bound) {
+        list.remove(p);
+      }
+      evaluation = evaluator.evaluate(v, list);
+    }
+  }
+
+  static final class Move {
+    final double delta;
+    final int vehicle;
+    final ImmutableList<Parcel> route;
+    final int otherVehicle;
+    @Nullable
+    final ImmutableList<Parcel> otherRoute;
+
+    Move(double d, int v, ImmutableList<Parcel> r, int ov,
+        @Nullable ImmutableList<Parcel> or) {
+      delta = d;
+      vehicle = v;
+      route = r;
+      otherVehicle = ov;
+      otherRoute = or;
+    }
+  }
+
+  /**
+   * A builder for {@link LocalSearchSolver} instances.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class Builder {
+    static final int DEFAULT_MAX_ITERATIONS = 1000;
+    static final String NEGATIVE_WEIGHT =
+      "Weight must be non-negative, found %s.";
+
+    Builder() {}
+
+    abstract int getThreads();
+
+    abstract int getMaxIterations();
+
+    abstract double getTravelTimeWeight();
+
+    abstract double getTardinessWeight();
+
+    abstract double getOverTimeWeight();
+
+    /**
+     * Sets the number of threads that is used for evaluating moves. By
+     * default the number of available processors is used. The threads belong
+     * to a pool that is shared by all solvers with the same number of
+     * threads, see {@link ForkJoinPools}.
+     * @param threads The number of threads, must be positive.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withThreads(int threads) {
+      checkArgument(threads > 0, "The number of threads must be positive.");
+      return create(threads, getMaxIterations(), getTravelTimeWeight(),
+        getTardinessWeight(), getOverTimeWeight());
+    }
+
+    /**
+     * Sets the maximum number of moves that are applied by the local search.
+     * The default is {@value #DEFAULT_MAX_ITERATIONS}.
+     * @param iterations The maximum number of iterations, <code>0</code>
+     *          disables the local search.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withMaxIterations(int iterations) {
+      checkArgument(iterations >= 0,
+        "The number of iterations must be non-negative.");
+      return create(getThreads(), iterations, getTravelTimeWeight(),
+        getTardinessWeight(), getOverTimeWeight());
+    }
+
+    /**
+     * Sets the weight of the travel time in the cost, default is
+     * <code>1</code>.
+     * @param weight The weight, must be non-negative.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withTravelTimeWeight(double weight) {
+      checkArgument(weight >= 0, NEGATIVE_WEIGHT, weight);
+      return create(getThreads(), getMaxIterations(), weight,
+        getTardinessWeight(), getOverTimeWeight());
+    }
+
+    /**
+     * Sets the weight of the tardiness of pickups and deliveries in the cost,
+     * default is <code>1</code>.
+     * @param weight The weight, must be non-negative.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withTardinessWeight(double weight) {
+      checkArgument(weight >= 0, NEGATIVE_WEIGHT, weight);
+      return create(getThreads(), getMaxIterations(), getTravelTimeWeight(),
+        weight, getOverTimeWeight());
+    }
+
+    /**
+     * Sets the weight of the overtime of vehicles in the cost, default is
+     * <code>1</code>.
+     * @param weight The weight, must be non-negative.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withOverTimeWeight(double weight) {
+      checkArgument(weight >= 0, NEGATIVE_WEIGHT, weight);
+      return create(getThreads(), getMaxIterations(), getTravelTimeWeight(),
+        getTardinessWeight(), weight);
+    }
+
+    /**
+     * @return A new {@link LocalSearchSolver} instance.
+     */
+    public LocalSearchSolver build() {
+      return new LocalSearchSolver(this);
+    }
+
+    /**
+     * @return A {@link StochasticSupplier} that creates
+     *         {@link LocalSearchSolver} instances using the settings of this
+     *         builder.
+     */
+    public StochasticSupplier<LocalSearchSolver> buildSupplier() {
+      return new Sup(this);
+    }
+
+    static Builder create(int threads, int iterations, double ttWeight,
+        double tardWeight, double otWeight) {
+      return new AutoValue_LocalSearchSolver_Builder(threads, iterations,
+        ttWeight, tardWeight, otWeight);
+    }
+  }
+
+  static class Sup implements StochasticSupplier<LocalSearchSolver> {
+    final Builder builder;
+
+    Sup(Builder b) {
+      builder = b;
+    }
+
+    @Override
+    public LocalSearchSolver get(long seed) {
+      return builder.build();
+    }
+
+    @Override
+    public String toString() {
+      return Joiner.on("").join(LocalSearchSolver.class.getSimpleName(),
+        ".supplier(", builder, R_BRACE);
+    }
+  }
+}
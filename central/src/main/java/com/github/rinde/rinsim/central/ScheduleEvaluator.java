@@ -0,0 +1,703 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Velocity;
+
+import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.road.RoadPath;
+import com.github.rinde.rinsim.geom.Connection;
+import com.github.rinde.rinsim.geom.ConnectionData;
+import com.github.rinde.rinsim.geom.GeomHeuristic;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.math.DoubleMath;
+
+/**
+ * Evaluates routes for the vehicles of a {@link GlobalStateObject} using the
+ * same semantics as
+ * {@link Solvers#computeStats(GlobalStateObject, ImmutableList, GeomHeuristic)}
+ * . The cost of a route is a weighted sum of its travel time, the tardiness of
+ * its pickups and deliveries and the overtime of the vehicle.
+ * <p>
+ * Travel times between all relevant locations are computed once and cached.
+ * Each {@link RouteEvaluation} keeps the arrival times, tardiness prefix sums
+ * and slack of a route, such that the cost of inserting or removing a parcel
+ * can in most cases be computed in constant time. Instances are thread safe,
+ * they are obtained via {@link GlobalStateObject#evaluator()} or
+ * {@link GlobalStateObject#evaluator(GeomHeuristic, double, double, double)}.
+ * @author Rinde van Lon
+ */
+public final class ScheduleEvaluator {
+  // a bit pattern that is never produced by Double.doubleToLongBits
+  private static final long UNKNOWN = -1L;
+
+  final GlobalStateObject state;
+  final GeomHeuristic heuristic;
+  final double travelTimeWeight;
+  final double tardinessWeight;
+  final double overTimeWeight;
+
+  private final ImmutableMap<Point, Integer> pointIndex;
+  private final Point[] points;
+  private final ImmutableList<VehicleContext> vehicles;
+
+  ScheduleEvaluator(GlobalStateObject s, GeomHeuristic h, double ttWeight,
+      double tardWeight, double otWeight) {
+    state = s;
+    heuristic = h;
+    travelTimeWeight = ttWeight;
+    tardinessWeight = tardWeight;
+    overTimeWeight = otWeight;
+
+    final Map<Point, Integer> index = new HashMap<>();
+    for (final VehicleStateObject vso : state.getVehicles()) {
+      addPoint(index, startLocation(vso));
+      addPoint(index, vso.getDto().getStartPosition());
+      for (final Parcel p : vso.getContents()) {
+        addPoint(index, p.getPickupLocation());
+        addPoint(index, p.getDeliveryLocation());
+      }
+    }
+    for (final Parcel p : state.getAvailableParcels()) {
+      addPoint(index, p.getPickupLocation());
+      addPoint(index, p.getDeliveryLocation());
+    }
+    pointIndex = ImmutableMap.copyOf(index);
+    points = new Point[index.size()];
+    for (final Map.Entry<Point, Integer> entry : index.entrySet()) {
+      points[entry.getValue()] = entry.getKey();
+    }
+
+    final Map<Double, Legs> legs = new HashMap<>();
+    final ImmutableList.Builder<VehicleContext> vehicleBuilder =
+      ImmutableList.builder();
+    for (final VehicleStateObject vso : state.getVehicles()) {
+      final double speed = vso.getDto().getSpeed();
+      if (!legs.containsKey(speed)) {
+        legs.put(speed, new Legs(speed));
+      }
+      vehicleBuilder.add(new VehicleContext(vso, legs.get(speed)));
+    }
+    vehicles = vehicleBuilder.build();
+  }
+
+  /**
+   * Evaluates the specified route for the vehicle with the specified index.
+   * @param vehicle The index of the vehicle.
+   * @param route The route of the vehicle, it may be incomplete (i.e. not all
+   *          parcels need to be delivered).
+   * @return The evaluation of the route.
+   */
+  public RouteEvaluation evaluate(int vehicle, List<Parcel> route) {
+    return new RouteEvaluation(vehicles.get(vehicle),
+      ImmutableList.copyOf(route));
+  }
+
+  /**
+   * Computes the cost of the specified schedule.
+   * @param schedule One route for each vehicle.
+   * @return The sum of the costs of all routes.
+   */
+  public double computeCost(List<? extends List<Parcel>> schedule) {
+    checkArgument(schedule.size() == vehicles.size(),
+      "Exactly one route per vehicle is required, found %s routes for %s "
+        + "vehicles.",
+      schedule.size(), vehicles.size());
+    double cost = 0d;
+    for (int i = 0; i < schedule.size(); i++) {
+      cost += evaluate(i, schedule.get(i)).getCost();
+    }
+    return cost;
+  }
+
+  /**
+   * @return The state that is evaluated.
+   */
+  public GlobalStateObject getState() {
+    return state;
+  }
+
+  int numVehicles() {
+    return vehicles.size();
+  }
+
+  int indexOf(Point p) {
+    final Integer i = pointIndex.get(p);
+    checkArgument(i != null, "Unknown location: %s.", p);
+    return i;
+  }
+
+  static void addPoint(Map<Point, Integer> index, Point p) {
+    if (!index.containsKey(p)) {
+      index.put(p, index.size());
+    }
+  }
+
+  static Point startLocation(VehicleStateObject vso) {
+    if (vso.getConnection().isPresent()) {
+      return vso.getConnection().get().to();
+    }
+    return vso.getLocation();
+  }
+
+  static long rounded(double travelTime) {
+    return DoubleMath.roundToLong(travelTime, RoundingMode.CEILING);
+  }
+
+  /**
+   * Lazily computed travel times between all pairs of locations for a single
+   * vehicle speed. Every leg is computed with the same path query as
+   * {@link Solvers#computeStats}: when several paths have the minimal cost
+   * their travel times can differ, so any other path search (e.g. a batched
+   * one) could disagree with the statistics.
+   */
+  final class Legs {
+    final Measure<Double, Velocity> speed;
+    // a row of the travel time matrix is allocated when a leg from its
+    // location is requested for the first time
+    private final AtomicReferenceArray<Row> rows;
+
+    Legs(double spd) {
+      speed = Measure.valueOf(spd, state.getSpeedUnit());
+      rows = new AtomicReferenceArray<>(points.length);
+    }
+
+    double travelTime(int from, int to) {
+      final Row row = row(from);
+      long bits = row.travelTimes.get(to);
+      if (bits == UNKNOWN) {
+        bits = compute(row, from, to);
+      }
+      return Double.longBitsToDouble(bits);
+    }
+
+    long roundedTravelTime(int from, int to) {
+      final Row row = row(from);
+      if (row.travelTimes.get(to) == UNKNOWN) {
+        compute(row, from, to);
+      }
+      return row.roundedTravelTimes.get(to);
+    }
+
+    // when rows are allocated concurrently only one of them is kept
+    private Row row(int from) {
+      final Row existing = rows.get(from);
+      if (existing != null) {
+        return existing;
+      }
+      rows.compareAndSet(from, null, new Row(points.length));
+      return rows.get(from);
+    }
+
+    private long compute(Row row, int from, int to) {
+      final RoadPath path = state.getRoadModelSnapshot().getPathTo(
+        points[from], points[to], state.getTimeUnit(), speed, heuristic);
+      return row.store(to, path.getTravelTime());
+    }
+  }
+
+  static final class Row {
+    final AtomicLongArray travelTimes;
+    final AtomicLongArray roundedTravelTimes;
+
+    Row(int size) {
+      travelTimes = new AtomicLongArray(size);
+      roundedTravelTimes = new AtomicLongArray(size);
+      for (int i = 0; i < size; i++) {
+        travelTimes.set(i, UNKNOWN);
+      }
+    }
+
+    // concurrent computations of the same leg store identical values, the
+    // rounded value is written first such that it is visible as soon as the
+    // travel time is
+    long store(int index, double travelTime) {
+      final long bits = Double.doubleToLongBits(travelTime);
+      roundedTravelTimes.set(index, rounded(travelTime));
+      travelTimes.set(index, bits);
+      return bits;
+    }
+  }
+
+  /**
+   * The properties of a vehicle that are independent of its route.
+   */
+  final class VehicleContext {
+    final VehicleStateObject vso;
+    final Legs legs;
+    final int start;
+    final int depot;
+    final long startTime;
+    final double exitTravelTime;
+    final int firstInsertion;
+
+    VehicleContext(VehicleStateObject v, Legs l) {
+      vso = v;
+      legs = l;
+      start = indexOf(startLocation(vso));
+      depot = indexOf(vso.getDto().getStartPosition());
+
+      // a vehicle on a connection first has to move to the connection exit
+      if (vso.getConnection().isPresent()) {
+        final Connection<? extends ConnectionData> conn =
+          vso.getConnection().get();
+        final double connectionPercentage =
+          Point.distance(vso.getLocation(), conn.to())
+            / Point.distance(conn.from(), conn.to());
+        exitTravelTime = state.getRoadModelSnapshot().getPathTo(conn.from(),
+          conn.to(), state.getTimeUnit(), legs.speed, heuristic)
+          .getTravelTime() * connectionPercentage;
+      } else {
+        exitTravelTime = 0d;
+      }
+      startTime = (long) (state.getTime() + exitTravelTime);
+      firstInsertion = vso.getDestination().isPresent()
+        || vso.getRemainingServiceTime() > 0 ? 1 : 0;
+    }
+  }
+
+  /**
+   * The evaluation of a single route. Node <code>0</code> is the start
+   * location of the vehicle, node <code>k</code> (with
+   * <code>1 &lt;= k &lt;= n</code>) is the stop at position <code>k-1</code>
+   * in the route and node <code>n+1</code> is the depot.
+   */
+  public final class RouteEvaluation {
+    final VehicleContext vehicle;
+    final ImmutableList<Parcel> route;
+    final int size;
+
+    final int[] loc;
+    final long[] begin;
+    final long[] end;
+    final long[] duration;
+    final long[] arrival;
+    final long[] departure;
+    final long[] waitPrefix;
+    final long[] latePrefix;
+    final double[] travelPrefix;
+    // the maximum delay of the arrival at a node that does not increase the
+    // tardiness or overtime of that node or any later node
+    final long[] slack;
+    final long overTime;
+    final double cost;
+
+    RouteEvaluation(VehicleContext v, ImmutableList<Parcel> r) {
+      vehicle = v;
+      route = r;
+      size = route.size();
+      final int nodes = size + 2;
+      loc = new int[nodes];
+      begin = new long[nodes];
+      end = new long[nodes];
+      duration = new long[nodes];
+      arrival = new long[nodes];
+      departure = new long[nodes];
+      waitPrefix = new long[nodes];
+      latePrefix = new long[nodes];
+      travelPrefix = new double[nodes];
+      slack = new long[nodes];
+
+      final Legs legs = vehicle.legs;
+      final VehicleStateObject vso = vehicle.vso;
+      loc[0] = vehicle.start;
+      arrival[0] = vehicle.startTime;
+      departure[0] = vehicle.startTime;
+      travelPrefix[0] = vehicle.exitTravelTime;
+
+      final Set<Parcel> seen = new HashSet<>();
+      for (int k = 1; k <= size; k++) {
+        final Parcel p = route.get(k - 1);
+        final boolean isDelivery =
+          vso.getContents().contains(p) || seen.contains(p);
+        seen.add(p);
+        final TimeWindow tw = isDelivery
+          ? p.getDeliveryTimeWindow()
+          : p.getPickupTimeWindow();
+        begin[k] = tw.begin();
+        end[k] = tw.end();
+        duration[k] = isDelivery
+          ? p.getDeliveryDuration()
+          : p.getPickupDuration();
+
+        if (k == 1 && vso.getRemainingServiceTime() > 0) {
+          // the vehicle is already servicing at its current location
+          loc[k] = loc[k - 1];
+          arrival[k] = departure[k - 1];
+          travelPrefix[k] = travelPrefix[k - 1];
+          departure[k] = Math.max(arrival[k] + vso.getRemainingServiceTime(),
+            begin[k]);
+          waitPrefix[k] = waitPrefix[k - 1];
+        } else {
+          loc[k] = isDelivery
+            ? indexOf(p.getDeliveryLocation())
+            : indexOf(p.getPickupLocation());
+          arrival[k] = departure[k - 1]
+            + legs.roundedTravelTime(loc[k - 1], loc[k]);
+          travelPrefix[k] = travelPrefix[k - 1]
+            + legs.travelTime(loc[k - 1], loc[k]);
+          final long start = Math.max(arrival[k], begin[k]);
+          departure[k] = start + duration[k];
+          waitPrefix[k] = waitPrefix[k - 1] + start - arrival[k];
+        }
+        latePrefix[k] = latePrefix[k - 1] + Math.max(0, departure[k] - end[k]);
+      }
+
+      final int d = size + 1;
+      loc[d] = vehicle.depot;
+      end[d] = vso.getDto().getAvailabilityTimeWindow().end();
+      arrival[d] = departure[size] + legs.roundedTravelTime(loc[size], loc[d]);
+      departure[d] = arrival[d];
+      travelPrefix[d] = travelPrefix[size] + legs.travelTime(loc[size], loc[d]);
+      waitPrefix[d] = waitPrefix[size];
+      latePrefix[d] = latePrefix[size];
+      overTime = Math.max(0, arrival[d] - end[d]);
+
+      slack[d] = Math.max(0, end[d] - arrival[d]);
+      for (int k = size; k > 0; k--) {
+        final long wait = waitPrefix[k] - waitPrefix[k - 1];
+        slack[k] = wait
+          + Math.min(Math.max(0, end[k] - departure[k]), slack[k + 1]);
+      }
+      cost = travelTimeWeight * travelPrefix[d]
+        + tardinessWeight * latePrefix[d]
+        + overTimeWeight * overTime;
+    }
+
+    /**
+     * @return The weighted cost of the route.
+     */
+    public double getCost() {
+      return cost;
+    }
+
+    /**
+     * @return The total travel time of the route, including the travel time to
+     *         the depot.
+     */
+    public double getTravelTime() {
+      return travelPrefix[size + 1];
+    }
+
+    /**
+     * @return The sum of the pickup and delivery tardiness of the route.
+     */
+    public long getTardiness() {
+      return latePrefix[size + 1];
+    }
+
+    /**
+     * @return The overtime of the vehicle.
+     */
+    public long getOverTime() {
+      return overTime;
+    }
+
+    /**
+     * @return The evaluated route.
+     */
+    public ImmutableList<Parcel> getRoute() {
+      return route;
+    }
+
+    ScheduleEvaluator evaluator() {
+      return ScheduleEvaluator.this;
+    }
+
+    /**
+     * Computes the change in cost when the pickup of the specified parcel is
+     * inserted at position <code>i</code> and its delivery at position
+     * <code>j</code> of the route. The positions refer to the route before the
+     * insertion, i.e. the delivery is inserted after the pickup when
+     * <code>i == j</code>.
+     * @param p The parcel to insert.
+     * @param i The position of the pickup.
+     * @param j The position of the delivery.
+     * @return The cost delta.
+     */
+    public double insertionCost(Parcel p, int i, int j) {
+      checkArgument(i >= vehicle.firstInsertion && i <= j && j <= size,
+        "Invalid insertion positions.");
+      return insertionCost(p, indexOf(p.getPickupLocation()),
+        indexOf(p.getDeliveryLocation()), i, j);
+    }
+
+    double insertionCost(Parcel p, int pickupLoc, int deliveryLoc, int i,
+        int j) {
+      final Legs legs = vehicle.legs;
+      final TimeWindow ptw = p.getPickupTimeWindow();
+      final TimeWindow dtw = p.getDeliveryTimeWindow();
+
+      final long pickupDeparture = Math.max(departure[i]
+        + legs.roundedTravelTime(loc[i], pickupLoc), ptw.begin())
+        + p.getPickupDuration();
+      final long pickupLate = Math.max(0, pickupDeparture - ptw.end());
+
+      long late = -1;
+      double travel;
+      if (i == j) {
+        final long deliveryDeparture = Math.max(pickupDeparture
+          + legs.roundedTravelTime(pickupLoc, deliveryLoc), dtw.begin())
+          + p.getDeliveryDuration();
+        final long delay = deliveryDeparture
+          + legs.roundedTravelTime(deliveryLoc, loc[i + 1]) - arrival[i + 1];
+        travel = legs.travelTime(loc[i], pickupLoc)
+          + legs.travelTime(pickupLoc, deliveryLoc)
+          + legs.travelTime(deliveryLoc, loc[i + 1])
+          - legs.travelTime(loc[i], loc[i + 1]);
+        if (delay >= 0 && delay <= slack[i + 1]) {
+          late = pickupLate + Math.max(0, deliveryDeparture - dtw.end());
+        }
+      } else {
+        final long pickupDelay = pickupDeparture
+          + legs.roundedTravelTime(pickupLoc, loc[i + 1]) - arrival[i + 1];
+        travel = legs.travelTime(loc[i], pickupLoc)
+          + legs.travelTime(pickupLoc, loc[i + 1])
+          - legs.travelTime(loc[i], loc[i + 1])
+          + legs.travelTime(loc[j], deliveryLoc)
+          + legs.travelTime(deliveryLoc, loc[j + 1])
+          - legs.travelTime(loc[j], loc[j + 1]);
+        if (pickupDelay >= 0 && pickupDelay <= slack[i + 1]) {
+          // the delay is partially absorbed by the waiting times in between
+          final long shift = Math.max(0,
+            pickupDelay - (waitPrefix[j] - waitPrefix[i]));
+          final long deliveryDeparture = Math.max(departure[j] + shift
+            + legs.roundedTravelTime(loc[j], deliveryLoc), dtw.begin())
+            + p.getDeliveryDuration();
+          final long delay = deliveryDeparture
+            + legs.roundedTravelTime(deliveryLoc, loc[j + 1]) - arrival[j + 1];
+          if (delay >= 0 && delay <= slack[j + 1]) {
+            late = pickupLate + Math.max(0, deliveryDeparture - dtw.end());
+          }
+        }
+      }
+      if (late >= 0) {
+        return travelTimeWeight * travel + tardinessWeight * late;
+      }
+      // the insertion changes the tardiness of later stops, simulate the
+      // remainder of the route
+      final Walk walk = new Walk(i);
+      walk.visit(pickupLoc, ptw, p.getPickupDuration());
+      for (int k = i + 1; k <= j; k++) {
+        walk.visitNode(k);
+      }
+      walk.visit(deliveryLoc, dtw, p.getDeliveryDuration());
+      for (int k = j + 1; k <= size; k++) {
+        walk.visitNode(k);
+      }
+      return walk.finish() - cost;
+    }
+
+    /**
+     * Computes the change in cost when the delivery of the specified parcel is
+     * inserted at position <code>i</code> of the route. This is used for
+     * parcels that are already in cargo or that are picked up at the start of
+     * the route.
+     * @param p The parcel to insert.
+     * @param i The position of the delivery.
+     * @return The cost delta.
+     */
+    public double deliveryInsertionCost(Parcel p, int i) {
+      checkArgument(i >= vehicle.firstInsertion && i <= size,
+        "Invalid insertion position.");
+      return deliveryInsertionCost(p, indexOf(p.getDeliveryLocation()), i);
+    }
+
+    double deliveryInsertionCost(Parcel p, int deliveryLoc, int i) {
+      final Legs legs = vehicle.legs;
+      final TimeWindow dtw = p.getDeliveryTimeWindow();
+      final long deliveryDeparture = Math.max(departure[i]
+        + legs.roundedTravelTime(loc[i], deliveryLoc), dtw.begin())
+        + p.getDeliveryDuration();
+      final long delay = deliveryDeparture
+        + legs.roundedTravelTime(deliveryLoc, loc[i + 1]) - arrival[i + 1];
+      if (delay >= 0 && delay <= slack[i + 1]) {
+        return travelTimeWeight * (legs.travelTime(loc[i], deliveryLoc)
+          + legs.travelTime(deliveryLoc, loc[i + 1])
+          - legs.travelTime(loc[i], loc[i + 1]))
+          + tardinessWeight * Math.max(0, deliveryDeparture - dtw.end());
+      }
+      final Walk walk = new Walk(i);
+      walk.visit(deliveryLoc, dtw, p.getDeliveryDuration());
+      for (int k = i + 1; k <= size; k++) {
+        walk.visitNode(k);
+      }
+      return walk.finish() - cost;
+    }
+
+    /**
+     * Computes the change in cost when the parcel that is picked up at
+     * position <code>i</code> and delivered at position <code>j</code> is
+     * removed from the route.
+     * @param i The position of the pickup.
+     * @param j The position of the delivery.
+     * @return The cost delta.
+     */
+    public double removalCost(int i, int j) {
+      checkArgument(i >= vehicle.firstInsertion && i < j && j < size,
+        "Invalid removal positions.");
+      checkArgument(route.get(i).equals(route.get(j)),
+        "The positions must refer to the same parcel.");
+      return removal(i + 1, j + 1);
+    }
+
+    /**
+     * Computes the change in cost when the stop at position <code>i</code> is
+     * removed from the route. This is used for deliveries of parcels that are
+     * already in cargo, the parcel must occur only once in the route.
+     * @param i The position of the stop.
+     * @return The cost delta.
+     */
+    public double removalCost(int i) {
+      checkArgument(i >= vehicle.firstInsertion && i < size,
+        "Invalid removal position.");
+      return removal(i + 1, i + 1);
+    }
+
+    // a and b are node indices, a == b when a single stop is removed
+    private double removal(int a, int b) {
+      final Legs legs = vehicle.legs;
+      final int d = size + 1;
+      long removedLate = latePrefix[a] - latePrefix[a - 1];
+      double travel;
+      double suffix;
+      if (b <= a + 1) {
+        if (b > a) {
+          removedLate += latePrefix[b] - latePrefix[b - 1];
+        }
+        travel = legs.travelTime(loc[a - 1], loc[b + 1])
+          - (travelPrefix[b + 1] - travelPrefix[a - 1]);
+        suffix = suffixCost(b + 1, departure[a - 1]
+          + legs.roundedTravelTime(loc[a - 1], loc[b + 1]));
+      } else {
+        removedLate += latePrefix[b] - latePrefix[b - 1];
+        travel = legs.travelTime(loc[a - 1], loc[a + 1])
+          - (travelPrefix[a + 1] - travelPrefix[a - 1])
+          + legs.travelTime(loc[b - 1], loc[b + 1])
+          - (travelPrefix[b + 1] - travelPrefix[b - 1]);
+        final long arrivalA = departure[a - 1]
+          + legs.roundedTravelTime(loc[a - 1], loc[a + 1]);
+        final long arrivalB = departure[b - 1]
+          + legs.roundedTravelTime(loc[b - 1], loc[b + 1]);
+        if (arrivalA == arrival[a + 1] || Math.max(arrivalA, begin[a + 1])
+          + duration[a + 1] == departure[a + 1]) {
+          // the part in between the two stops is unaffected
+          suffix = suffixCost(b + 1, arrivalB);
+        } else if (arrivalA < arrival[a + 1] && arrivalB <= arrival[b + 1]
+          && overTime == 0
+          && latePrefix[d] - latePrefix[a - 1] == removedLate) {
+          // all later stops are visited earlier and none of them is late
+          suffix = 0d;
+        } else {
+          suffix = Double.NaN;
+        }
+      }
+      if (!Double.isNaN(suffix)) {
+        return travelTimeWeight * travel - tardinessWeight * removedLate
+          + suffix;
+      }
+      final Walk walk = new Walk(a - 1);
+      for (int k = a + 1; k <= size; k++) {
+        if (k != b) {
+          walk.visitNode(k);
+        }
+      }
+      return walk.finish() - cost;
+    }
+
+    // the change in tardiness and overtime cost of node k and all later nodes
+    // when the arrival at k changes, NaN if it can not be computed in constant
+    // time
+    private double suffixCost(int k, long newArrival) {
+      final int d = size + 1;
+      if (k == d) {
+        return overTimeWeight * (Math.max(0, newArrival - end[d]) - overTime);
+      }
+      final long delay = newArrival - arrival[k];
+      if (delay >= 0) {
+        return delay <= slack[k] ? 0d : Double.NaN;
+      }
+      // an earlier arrival has no effect when it is absorbed by waiting or
+      // when none of the remaining stops is late
+      final boolean absorbed =
+        Math.max(newArrival, begin[k]) + duration[k] == departure[k];
+      if (absorbed || overTime == 0 && latePrefix[d] == latePrefix[k - 1]) {
+        return 0d;
+      }
+      return Double.NaN;
+    }
+
+    /**
+     * Simulates a route starting from the departure at a node of this route.
+     */
+    final class Walk {
+      int location;
+      long time;
+      double travel;
+      long late;
+
+      Walk(int node) {
+        location = loc[node];
+        time = departure[node];
+        travel = travelPrefix[node];
+        late = latePrefix[node];
+      }
+
+      void visit(int l, TimeWindow tw, long dur) {
+        visit(l, tw.begin(), tw.end(), dur);
+      }
+
+      void visitNode(int k) {
+        visit(loc[k], begin[k], end[k], duration[k]);
+      }
+
+      void visit(int l, long b, long e, long dur) {
+        time += vehicle.legs.roundedTravelTime(location, l);
+        travel += vehicle.legs.travelTime(location, l);
+        location = l;
+        time = Math.max(time, b) + dur;
+        if (time > e) {
+          late += time - e;
+        }
+      }
+
+      double finish() {
+        final int d = size + 1;
+        time += vehicle.legs.roundedTravelTime(location, loc[d]);
+        travel += vehicle.legs.travelTime(location, loc[d]);
+        return travelTimeWeight * travel
+          + tardinessWeight * late
+          + overTimeWeight * Math.max(0, time - end[d]);
+      }
+    }
+  }
+}
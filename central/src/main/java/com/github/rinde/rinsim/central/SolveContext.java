@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The context of a single computation of a {@link Solver}. It carries a
+ * cancellation token, an optional deadline and progress callbacks.
+ * Cancellation does not rely on thread interrupts: a cancelled computation
+ * stops at the next {@link #checkpoint()}, even when an interrupt was
+ * swallowed somewhere in the solver code. A {@link ContextAwareSolver} should
+ * call {@link #checkpoint()} regularly, it should return its best schedule so
+ * far when the deadline has passed and it can report intermediate schedules
+ * via {@link #reportProgress(GlobalStateObject, ImmutableList)}.
+ * <p>
+ * Instances are thread safe, a context is typically cancelled from a different
+ * thread than the thread that performs the computation. No locks are held
+ * while listeners are notified, so cancelling never waits for a listener.
+ * @author Rinde van Lon
+ */
+public final class SolveContext {
+  static final String CANCELLED_MSG = "The computation is cancelled.";
+
+  private final AtomicBoolean cancelled;
+  // released once cancelled, allows sleep() to wake up early
+  private final CountDownLatch cancelledLatch;
+  private final boolean hasDeadline;
+  private final long deadline;
+  private final List<ProgressListener> listeners;
+
+  SolveContext(boolean withDeadline, long deadlineNanos) {
+    cancelled = new AtomicBoolean();
+    cancelledLatch = new CountDownLatch(1);
+    hasDeadline = withDeadline;
+    deadline = deadlineNanos;
+    listeners = new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * @return A new context without deadline.
+   */
+  public static SolveContext create() {
+    return new SolveContext(false, 0L);
+  }
+
+  /**
+   * Creates a new context with a deadline.
+   * @param timeout The time from now until the deadline, must be
+   *          non-negative.
+   * @param unit The unit of the timeout.
+   * @return A new context.
+   */
+  public static SolveContext create(long timeout, TimeUnit unit) {
+    checkArgument(timeout >= 0, "Timeout must be non-negative, found %s.",
+      timeout);
+    return new SolveContext(true, System.nanoTime() + unit.toNanos(timeout));
+  }
+
+  /**
+   * Cancels the computation, it will stop at the next {@link #checkpoint()}.
+   * This method does not wait for a progress report that is in progress: a
+   * listener that was already being notified may still finish after this
+   * method has returned, no listener is notified afterwards.
+   */
+  public void cancel() {
+    if (cancelled.compareAndSet(false, true)) {
+      cancelledLatch.countDown();
+    }
+  }
+
+  /**
+   * @return <code>true</code> if {@link #cancel()} has been called.
+   */
+  public boolean isCancelled() {
+    return cancelled.get();
+  }
+
+  /**
+   * @return <code>true</code> if this context has a deadline and it has
+   *         passed.
+   */
+  public boolean isExpired() {
+    return hasDeadline && System.nanoTime() - deadline >= 0;
+  }
+
+  /**
+   * @return <code>true</code> if the computation should stop as soon as
+   *         possible, either because it is cancelled or because the deadline
+   *         has passed.
+   */
+  public boolean shouldStop() {
+    return isCancelled() || isExpired();
+  }
+
+  /**
+   * Returns the time until the deadline.
+   * @param unit The unit of the returned time.
+   * @return The remaining time, <code>0</code> if the deadline has passed or
+   *         {@link Long#MAX_VALUE} if there is no deadline.
+   */
+  public long getRemainingTime(TimeUnit unit) {
+    if (!hasDeadline) {
+      return Long.MAX_VALUE;
+    }
+    return unit.convert(Math.max(0L, deadline - System.nanoTime()),
+      TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Checks whether the computation may continue. The interrupted status of
+   * the current thread is cleared, as is the case for
+   * {@link Thread#interrupted()}.
+   * @throws InterruptedException If the computation is cancelled or if the
+   *           current thread is interrupted.
+   */
+  public void checkpoint() throws InterruptedException {
+    if (Thread.interrupted() || isCancelled()) {
+      throw new InterruptedException(CANCELLED_MSG);
+    }
+  }
+
+  /**
+   * Waits for the specified time, or until the deadline if that is earlier.
+   * @param time The time to wait.
+   * @param unit The unit of the time.
+   * @throws InterruptedException If the computation is cancelled while
+   *           waiting or if the current thread is interrupted.
+   */
+  public void sleep(long time, TimeUnit unit) throws InterruptedException {
+    checkpoint();
+    final long nanos = Math.min(unit.toNanos(time),
+      getRemainingTime(TimeUnit.NANOSECONDS));
+    if (cancelledLatch.await(nanos, TimeUnit.NANOSECONDS)) {
+      throw new InterruptedException(CANCELLED_MSG);
+    }
+  }
+
+  /**
+   * Adds a listener that is notified of intermediate schedules.
+   * @param listener The listener to add.
+   */
+  public void addProgressListener(ProgressListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Notifies all listeners of an intermediate schedule, unless the
+   * computation is cancelled. Cancellation is checked again before each
+   * listener, a concurrent call to {@link #cancel()} therefore lets at most the
+   * listener that is being notified finish its report.
+   * @param state The state for which the schedule is computed.
+   * @param schedule A feasible schedule for the state, one route per vehicle.
+   */
+  public void reportProgress(GlobalStateObject state,
+      ImmutableList<ImmutableList<Parcel>> schedule) {
+    for (final ProgressListener l : listeners) {
+      if (isCancelled()) {
+        return;
+      }
+      l.onProgress(state, schedule);
+    }
+  }
+
+  /**
+   * Listener for intermediate schedules of a computation.
+   * @author Rinde van Lon
+   */
+  public interface ProgressListener {
+    /**
+     * Is called when a solver reports an intermediate schedule. It is called
+     * on the thread of the computation.
+     * @param state The state for which the schedule is computed.
+     * @param schedule A feasible schedule for the state.
+     */
+    void onProgress(GlobalStateObject state,
+        ImmutableList<ImmutableList<Parcel>> schedule);
+  }
+}
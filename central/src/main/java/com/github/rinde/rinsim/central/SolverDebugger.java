@@ -27,7 +27,7 @@ import com.google.common.collect.ImmutableList;
  * Allows keeping track of the inputs and outputs of a {@link Solver}.
  * @author Rinde van Lon
  */
-public final class SolverDebugger implements Solver {
+public final class SolverDebugger implements ContextAwareSolver {
   private final List<GlobalStateObject> inputs;
   private final List<ImmutableList<ImmutableList<Parcel>>> outputs;
   private final Solver delegate;
@@ -43,12 +43,18 @@ public final class SolverDebugger implements Solver {
   @Override
   public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state)
       throws InterruptedException {
+    return solve(state, SolveContext.create());
+  }
+
+  @Override
+  public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state,
+      SolveContext context) throws InterruptedException {
     if (print) {
       System.out.println(state);
     }
     inputs.add(state);
-    final ImmutableList<ImmutableList<Parcel>> result = delegate
-      .solve(state);
+    final ImmutableList<ImmutableList<Parcel>> result =
+      Solvers.solve(delegate, state, context);
     outputs.add(result);
     if (print) {
       System.out.println(result);
@@ -256,7 +256,7 @@ public final class SolverValidator {
     return routes;
   }
 
-  private static class ValidatedSolver implements Solver {
+  private static class ValidatedSolver implements ContextAwareSolver {
     private final Solver delegateSolver;
 
     ValidatedSolver(Solver delegate) {
@@ -266,8 +266,14 @@ public final class SolverValidator {
     @Override
     public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state)
         throws InterruptedException {
-      return validateOutputs(delegateSolver.solve(validateInputs(state)),
-        state);
+      return solve(state, SolveContext.create());
+    }
+
+    @Override
+    public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state,
+        SolveContext context) throws InterruptedException {
+      return validateOutputs(
+        Solvers.solve(delegateSolver, validateInputs(state), context), state);
     }
   }
 
@@ -310,7 +310,46 @@ public final class Solvers {
 
   public static Callable<ImmutableList<ImmutableList<Parcel>>> createSolverCallable(
       Solver solver, GlobalStateObject state) {
-    return new SolverCallable(solver, state);
+    return createSolverCallable(solver, state, SolveContext.create());
+  }
+
+  /**
+   * Creates a {@link Callable} that solves the specified state using
+   * {@link #solve(Solver, GlobalStateObject, SolveContext)}.
+   * @param solver The solver to use.
+   * @param state The state to solve.
+   * @param context The context of the computation.
+   * @return A new callable.
+   */
+  public static Callable<ImmutableList<ImmutableList<Parcel>>> createSolverCallable(
+      Solver solver, GlobalStateObject state, SolveContext context) {
+    return new SolverCallable(solver, state, context);
+  }
+
+  /**
+   * Solves the specified state within the specified context. A
+   * {@link ContextAwareSolver} receives the context, for other solvers
+   * cancellation is only checked before and after the computation.
+   * @param solver The solver to use.
+   * @param state The state to solve.
+   * @param context The context of the computation.
+   * @return The schedule computed by the solver.
+   * @throws InterruptedException When the computation is cancelled or
+   *           interrupted.
+   */
+  public static ImmutableList<ImmutableList<Parcel>> solve(Solver solver,
+      GlobalStateObject state, SolveContext context)
+      throws InterruptedException {
+    context.checkpoint();
+    final ImmutableList<ImmutableList<Parcel>> result;
+    if (solver instanceof ContextAwareSolver) {
+      result = ((ContextAwareSolver) solver).solve(state, context);
+    } else {
+      result = solver.solve(state);
+    }
+    // the result of a cancelled computation is no longer needed
+    context.checkpoint();
+    return result;
   }
 
   public static MeasureableSolver timeMeasurementDecorator(Solver s) {
@@ -769,7 +808,7 @@ public final class Solvers {
   }
 
   static class TimeMeasurementSolverDecorator
-      implements MeasureableSolver {
+      implements MeasureableSolver, ContextAwareSolver {
     private final Solver delegate;
     private final List<SolverTimeMeasurement> measurements;
 
@@ -786,9 +825,15 @@ public final class Solvers {
     @Override
     public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state)
         throws InterruptedException {
+      return solve(state, SolveContext.create());
+    }
 
+    @Override
+    public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state,
+        SolveContext context) throws InterruptedException {
       final long start = System.nanoTime();
-      final ImmutableList<ImmutableList<Parcel>> result = delegate.solve(state);
+      final ImmutableList<ImmutableList<Parcel>> result =
+        Solvers.solve(delegate, state, context);
       final long duration = System.nanoTime() - start;
 
       measurements.add(SolverTimeMeasurement.create(state, duration));
@@ -800,15 +845,17 @@ public final class Solvers {
       implements Callable<ImmutableList<ImmutableList<Parcel>>> {
     final Solver solver;
     final GlobalStateObject snapshot;
+    final SolveContext context;
 
-    SolverCallable(Solver sol, GlobalStateObject snap) {
+    SolverCallable(Solver sol, GlobalStateObject snap, SolveContext ctx) {
       solver = sol;
       snapshot = snap;
+      context = ctx;
     }
 
     @Override
     public ImmutableList<ImmutableList<Parcel>> call() throws Exception {
-      return solver.solve(snapshot);
+      return solve(solver, snapshot, context);
     }
   }
 
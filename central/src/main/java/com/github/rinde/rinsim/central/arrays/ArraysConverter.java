@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central.arrays;
+
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Duration;
+import javax.measure.quantity.Velocity;
+import javax.measure.unit.Unit;
+
+import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
+import com.github.rinde.rinsim.central.arrays.ArraysSolvers.ArraysObject;
+import com.github.rinde.rinsim.central.arrays.ArraysSolvers.MVArraysObject;
+import com.github.rinde.rinsim.central.arrays.ArraysSolvers.ParcelIndexObj;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.road.RoadModelSnapshot;
+import com.github.rinde.rinsim.core.model.road.RoadModels;
+import com.github.rinde.rinsim.geom.Connection;
+import com.github.rinde.rinsim.geom.GeomHeuristic;
+import com.github.rinde.rinsim.geom.GeomHeuristics;
+import com.github.rinde.rinsim.geom.Point;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.math.DoubleMath;
+
+/**
+ * Converts consecutive {@link GlobalStateObject}s into {@link ArraysObject}s
+ * and {@link MVArraysObject}s. In contrast to
+ * {@link ArraysSolvers#toSingleVehicleArrays(GlobalStateObject, Unit)} and
+ * {@link ArraysSolvers#toMultiVehicleArrays(GlobalStateObject, Unit)}, travel
+ * times are computed using the shortest paths in the
+ * {@link GlobalStateObject#getRoadModelSnapshot()} (which for a plane is the
+ * Euclidean distance) and they are remembered between conversions: only the
+ * travel times from and to locations that were not part of the previous state
+ * are computed. The travel times are invalidated when the snapshot (compared
+ * by identity) or the speed of the first vehicle changes.
+ * <p>
+ * A vehicle that is on a connection is considered to be at the end of the
+ * connection, the time it needs to get there is added to all travel times from
+ * its location. Instances are thread safe, but conversions are executed
+ * sequentially.
+ * @author Rinde van Lon
+ */
+public final class ArraysConverter {
+  static final GeomHeuristic HEURISTIC = GeomHeuristics.euclidean();
+  private static final int INITIAL_CAPACITY = 16;
+
+  final Unit<Duration> outputTimeUnit;
+  // the slot of each location in the travel time matrix
+  final Map<Point, Integer> slots;
+  final Deque<Integer> freeSlots;
+  // row major, matrix[from * capacity + to] is the rounded travel time
+  int[] matrix;
+  int capacity;
+  int usedSlots;
+  long computedTravelTimes;
+  Optional<RoadModelSnapshot> snapshot;
+  Optional<Measure<Double, Velocity>> speed;
+
+  ArraysConverter(Unit<Duration> timeUnit) {
+    outputTimeUnit = timeUnit;
+    slots = new HashMap<>();
+    freeSlots = new ArrayDeque<>();
+    capacity = INITIAL_CAPACITY;
+    matrix = new int[capacity * capacity];
+    snapshot = Optional.absent();
+    speed = Optional.absent();
+  }
+
+  /**
+   * Creates a new converter.
+   * @param outputTimeUnit The {@link Unit} to use as time in the resulting
+   *          objects.
+   * @return A new instance.
+   */
+  public static ArraysConverter create(Unit<Duration> outputTimeUnit) {
+    return new ArraysConverter(outputTimeUnit);
+  }
+
+  /**
+   * Converts the {@link GlobalStateObject} into an {@link ArraysObject}, see
+   * {@link ArraysSolvers#toSingleVehicleArrays(GlobalStateObject, Unit)}.
+   * @param state The state to convert.
+   * @return An {@link ArraysObject} using the output time unit of this
+   *         converter.
+   */
+  public synchronized ArraysObject toSingleVehicleArrays(
+      GlobalStateObject state) {
+    return ArraysSolvers.toSingleVehicleArrays(state, outputTimeUnit, this);
+  }
+
+  /**
+   * Converts the {@link GlobalStateObject} into an {@link MVArraysObject}, see
+   * {@link ArraysSolvers#toMultiVehicleArrays(GlobalStateObject, Unit)}.
+   * @param state The state to convert.
+   * @return An {@link MVArraysObject} using the output time unit of this
+   *         converter.
+   */
+  public synchronized MVArraysObject toMultiVehicleArrays(
+      GlobalStateObject state) {
+    return ArraysSolvers.toMultiVehicleArrays(state, outputTimeUnit, this);
+  }
+
+  /**
+   * Computes the travel time matrix for the specified locations. The first
+   * location is the location of the first vehicle, its row contains the
+   * travel times of that vehicle.
+   */
+  int[][] toTravelTimeMatrix(GlobalStateObject state, List<Point> points,
+      Measure<Double, Velocity> spd) {
+    if (!snapshot.isPresent() || snapshot.get() != state
+      .getRoadModelSnapshot() || !speed.get().equals(spd)) {
+      clear();
+      snapshot = Optional.of(state.getRoadModelSnapshot());
+      speed = Optional.of(spd);
+    }
+    final VehicleStateObject vehicle = state.getVehicles().get(0);
+    final List<Point> keys = new ArrayList<>(points);
+    keys.set(0, startLocation(vehicle));
+    update(new LinkedHashSet<>(keys));
+
+    final int n = points.size();
+    final int[] indices = new int[n];
+    for (int i = 0; i < n; i++) {
+      indices[i] = slots.get(keys.get(i));
+    }
+    final int[][] travelTime = new int[n][n];
+    travelTime[0] = toVehicleTravelTimes(state, vehicle, points);
+    for (int i = 1; i < n; i++) {
+      final int offset = indices[i] * capacity;
+      for (int j = 0; j < n; j++) {
+        travelTime[i][j] = matrix[offset + indices[j]];
+      }
+    }
+    return travelTime;
+  }
+
+  int[][] toVehicleTravelTimes(GlobalStateObject state, ArraysObject sva) {
+    final int[][] vehicleTravelTimes = new int[state.getVehicles().size()][];
+    for (int i = 0; i < vehicleTravelTimes.length; i++) {
+      final VehicleStateObject cur = state.getVehicles().get(i);
+      vehicleTravelTimes[i] =
+        toVehicleTravelTimes(state, cur, sva.location2index);
+      if (cur.getDestination().isPresent()) {
+        // only add travel time for current dest
+        final Parcel dest = cur.getDestination().get();
+        final ParcelIndexObj pio = sva.parcel2index.get(dest);
+        final int index = cur.getContents().contains(dest) ? pio.deliveryIndex
+          : pio.pickupIndex;
+        for (int j = 1; j < vehicleTravelTimes[i].length; j++) {
+          if (j != index) {
+            vehicleTravelTimes[i][j] = Integer.MAX_VALUE;
+          }
+        }
+      }
+    }
+    return vehicleTravelTimes;
+  }
+
+  // the travel times from the vehicle to all but the first location, these are
+  // not cached since vehicles usually move between conversions
+  int[] toVehicleTravelTimes(GlobalStateObject state, VehicleStateObject vso,
+      List<Point> points) {
+    final Measure<Double, Velocity> spd =
+      Measure.valueOf(vso.getDto().getSpeed(), state.getSpeedUnit());
+    final RoadModelSnapshot ss = state.getRoadModelSnapshot();
+    final double exitTravelTime;
+    if (vso.getConnection().isPresent()) {
+      // the vehicle is bound to its connection, which is not necessarily the
+      // shortest path between the endpoints of that connection
+      final Connection<?> conn = vso.getConnection().get();
+      final double connectionPercentage =
+        Point.distance(vso.getLocation(), conn.to())
+          / Point.distance(conn.from(), conn.to());
+      exitTravelTime = RoadModels.computeTravelTime(spd,
+        Measure.valueOf(conn.getLength() * connectionPercentage,
+          state.getDistUnit()),
+        outputTimeUnit);
+    } else {
+      exitTravelTime = 0d;
+    }
+    final int[] travelTimes = new int[points.size()];
+    if (points.size() > 1) {
+      final double[] row = ss.getTravelTimes(
+        ImmutableList.of(startLocation(vso)),
+        points.subList(1, points.size()), outputTimeUnit, spd, HEURISTIC)[0];
+      computedTravelTimes += row.length;
+      for (int j = 0; j < row.length; j++) {
+        travelTimes[j + 1] = round(exitTravelTime + row[j]);
+      }
+    }
+    return travelTimes;
+  }
+
+  /**
+   * Frees the slots of the locations that are no longer used and computes the
+   * travel times from and to the new locations.
+   */
+  void update(Set<Point> locations) {
+    final Iterator<Map.Entry<Point, Integer>> it = slots.entrySet().iterator();
+    while (it.hasNext()) {
+      final Map.Entry<Point, Integer> entry = it.next();
+      if (!locations.contains(entry.getKey())) {
+        freeSlots.push(entry.getValue());
+        it.remove();
+      }
+    }
+    final List<Point> known = new ArrayList<>(slots.keySet());
+    final List<Point> added = new ArrayList<>();
+    for (final Point p : locations) {
+      if (!slots.containsKey(p)) {
+        added.add(p);
+        slots.put(p, allocateSlot());
+      }
+    }
+    if (added.isEmpty()) {
+      return;
+    }
+    final List<Point> all = new ArrayList<>(known);
+    all.addAll(added);
+    final double[][] from = snapshot.get().getTravelTimes(added, all,
+      outputTimeUnit, speed.get(), HEURISTIC);
+    for (int i = 0; i < added.size(); i++) {
+      final int offset = slots.get(added.get(i)) * capacity;
+      for (int j = 0; j < all.size(); j++) {
+        matrix[offset + slots.get(all.get(j))] = round(from[i][j]);
+      }
+    }
+    computedTravelTimes += added.size() * all.size();
+    if (!known.isEmpty()) {
+      final double[][] to = snapshot.get().getTravelTimes(known, added,
+        outputTimeUnit, speed.get(), HEURISTIC);
+      for (int i = 0; i < known.size(); i++) {
+        final int offset = slots.get(known.get(i)) * capacity;
+        for (int j = 0; j < added.size(); j++) {
+          matrix[offset + slots.get(added.get(j))] = round(to[i][j]);
+        }
+      }
+      computedTravelTimes += known.size() * added.size();
+    }
+  }
+
+  int allocateSlot() {
+    if (!freeSlots.isEmpty()) {
+      return freeSlots.pop();
+    }
+    if (usedSlots == capacity) {
+      final int newCapacity = capacity * 2;
+      final int[] newMatrix = new int[newCapacity * newCapacity];
+      for (int i = 0; i < capacity; i++) {
+        System.arraycopy(matrix, i * capacity, newMatrix, i * newCapacity,
+          capacity);
+      }
+      matrix = newMatrix;
+      capacity = newCapacity;
+    }
+    return usedSlots++;
+  }
+
+  void clear() {
+    slots.clear();
+    freeSlots.clear();
+    usedSlots = 0;
+  }
+
+  static int round(double travelTime) {
+    return DoubleMath.roundToInt(travelTime, RoundingMode.CEILING);
+  }
+
+  static Point startLocation(VehicleStateObject vso) {
+    if (vso.getConnection().isPresent()) {
+      return vso.getConnection().get().to();
+    }
+    return vso.getLocation();
+  }
+}
@@ -52,10 +52,6 @@ import com.google.common.math.DoubleMath;
  */
 public final class ArraysSolvers {
 
-  // TODO create a Converter class which uses the Units as constructor
-  // parameters. All methods can then easily access them, making most of the
-  // code much cleaner.
-
   private ArraysSolvers() {}
 
   /**
@@ -130,6 +126,12 @@ public final class ArraysSolvers {
    */
   public static ArraysObject toSingleVehicleArrays(GlobalStateObject state,
       Unit<Duration> outputTimeUnit) {
+    return toSingleVehicleArrays(state, outputTimeUnit, null);
+  }
+
+  // uses the travel times of the converter if one is specified
+  static ArraysObject toSingleVehicleArrays(GlobalStateObject state,
+      Unit<Duration> outputTimeUnit, @Nullable ArraysConverter converter) {
 
     final UnitConverter timeConverter = state.getTimeUnit()
       .getConverterTo(outputTimeUnit);
@@ -240,8 +242,10 @@ public final class ArraysSolvers {
       index2parcelBuilder
         .build();
 
-    final int[][] travelTime = ArraysSolvers.toTravelTimeMatrix(pointList,
-      state.getDistUnit(), speed, outputTimeUnit, RoundingMode.CEILING);
+    final int[][] travelTime = converter == null
+      ? toTravelTimeMatrix(pointList, state.getDistUnit(), speed,
+        outputTimeUnit, RoundingMode.CEILING)
+      : converter.toTravelTimeMatrix(state, pointList, speed);
 
     @Nullable
     SolutionObject[] sol = null;
@@ -354,13 +358,20 @@ public final class ArraysSolvers {
    */
   public static MVArraysObject toMultiVehicleArrays(GlobalStateObject state,
       Unit<Duration> outputTimeUnit) {
+    return toMultiVehicleArrays(state, outputTimeUnit, null);
+  }
+
+  // uses the travel times of the converter if one is specified
+  static MVArraysObject toMultiVehicleArrays(GlobalStateObject state,
+      Unit<Duration> outputTimeUnit, @Nullable ArraysConverter converter) {
     final ArraysObject singleVehicleArrays = toSingleVehicleArrays(state,
-      outputTimeUnit);
+      outputTimeUnit, converter);
     checkArgument(!state.getVehicles().isEmpty(),
       "We need at least one vehicle");
 
-    final int[][] vehicleTravelTimes = toVehicleTravelTimes(state,
-      singleVehicleArrays, outputTimeUnit);
+    final int[][] vehicleTravelTimes = converter == null
+      ? toVehicleTravelTimes(state, singleVehicleArrays, outputTimeUnit)
+      : converter.toVehicleTravelTimes(state, singleVehicleArrays);
     final int[][] inventories = toInventoriesArray(state, singleVehicleArrays);
     final int[] remainingServiceTimes = toRemainingServiceTimes(state,
       outputTimeUnit);
@@ -18,7 +18,9 @@ package com.github.rinde.rinsim.central.arrays;
 import javax.measure.quantity.Duration;
 import javax.measure.unit.Unit;
 
+import com.github.rinde.rinsim.central.ContextAwareSolver;
 import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.SolveContext;
 import com.github.rinde.rinsim.central.Solver;
 import com.github.rinde.rinsim.central.arrays.ArraysSolvers.MVArraysObject;
 import com.github.rinde.rinsim.core.model.pdp.Parcel;
@@ -29,10 +31,10 @@ import com.google.common.collect.ImmutableList;
  * interface.
  * @author Rinde van Lon
  */
-public class MultiVehicleSolverAdapter implements Solver {
+public class MultiVehicleSolverAdapter implements ContextAwareSolver {
 
   private final MultiVehicleArraysSolver solver;
-  private final Unit<Duration> outputTimeUnit;
+  private final ArraysConverter converter;
 
   /**
    * @param s The solver to use.
@@ -41,14 +43,26 @@ public class MultiVehicleSolverAdapter implements Solver {
   public MultiVehicleSolverAdapter(MultiVehicleArraysSolver s,
       Unit<Duration> timeUnit) {
     solver = s;
-    outputTimeUnit = timeUnit;
+    converter = ArraysConverter.create(timeUnit);
   }
 
   @Override
   public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state) {
-    final MVArraysObject o = ArraysSolvers.toMultiVehicleArrays(state,
-      outputTimeUnit);
+    final MVArraysObject o = converter.toMultiVehicleArrays(state);
+    return solve(o);
+  }
+
+  @Override
+  public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state,
+      SolveContext context) throws InterruptedException {
+    final MVArraysObject o = converter.toMultiVehicleArrays(state);
+    // the arrays solver can not be cancelled, it is skipped when the
+    // computation is cancelled during the conversion
+    context.checkpoint();
+    return solve(o);
+  }
 
+  ImmutableList<ImmutableList<Parcel>> solve(MVArraysObject o) {
     final SolutionObject[] sols = solver.solve(o.travelTime, o.releaseDates,
       o.dueDates, o.servicePairs, o.serviceTimes, o.vehicleTravelTimes,
       o.inventories, o.remainingServiceTimes, o.currentDestinations,
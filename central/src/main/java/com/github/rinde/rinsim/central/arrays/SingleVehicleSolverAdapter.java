@@ -22,11 +22,14 @@ import java.util.Collection;
 import javax.measure.quantity.Duration;
 import javax.measure.unit.Unit;
 
+import com.github.rinde.rinsim.central.ContextAwareSolver;
 import com.github.rinde.rinsim.central.GlobalStateObject;
 import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
+import com.github.rinde.rinsim.central.SolveContext;
 import com.github.rinde.rinsim.central.Solver;
 import com.github.rinde.rinsim.central.arrays.ArraysSolvers.ArraysObject;
 import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
 /**
@@ -34,10 +37,10 @@ import com.google.common.collect.ImmutableList;
  * {@link Solver} interface.
  * @author Rinde van Lon
  */
-public class SingleVehicleSolverAdapter implements Solver {
+public class SingleVehicleSolverAdapter implements ContextAwareSolver {
 
   private final SingleVehicleArraysSolver solver;
-  private final Unit<Duration> outputTimeUnit;
+  private final ArraysConverter converter;
 
   /**
    * @param s The solver to use.
@@ -46,11 +49,36 @@ public class SingleVehicleSolverAdapter implements Solver {
   public SingleVehicleSolverAdapter(SingleVehicleArraysSolver s,
       Unit<Duration> timeUnit) {
     solver = s;
-    outputTimeUnit = timeUnit;
+    converter = ArraysConverter.create(timeUnit);
   }
 
   @Override
   public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state) {
+    final Optional<ImmutableList<ImmutableList<Parcel>>> trivial =
+      trivialSolution(state);
+    if (trivial.isPresent()) {
+      return trivial.get();
+    }
+    return solve(converter.toSingleVehicleArrays(state));
+  }
+
+  @Override
+  public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state,
+      SolveContext context) throws InterruptedException {
+    final Optional<ImmutableList<ImmutableList<Parcel>>> trivial =
+      trivialSolution(state);
+    if (trivial.isPresent()) {
+      return trivial.get();
+    }
+    final ArraysObject ao = converter.toSingleVehicleArrays(state);
+    // the arrays solver can not be cancelled, it is skipped when the
+    // computation is cancelled during the conversion
+    context.checkpoint();
+    return solve(ao);
+  }
+
+  static Optional<ImmutableList<ImmutableList<Parcel>>> trivialSolution(
+      GlobalStateObject state) {
     checkArgument(
       state.getVehicles().size() == 1,
       "This solver can only deal with the single vehicle problem, found %s "
@@ -73,22 +101,22 @@ public class SingleVehicleSolverAdapter implements Solver {
     if (numLocations == 2) {
       // there are no orders
       final ImmutableList<Parcel> empty = ImmutableList.of();
-      return ImmutableList.of(empty);
+      return Optional.of(ImmutableList.of(empty));
     } else if (state.getAvailableParcels().size() + inCargo.size() == 1) {
       // if there is only one order, the solution is trivial
       if (!state.getAvailableParcels().isEmpty()) {
         // parcels on the map require two visits (one for pickup, one
         // for delivery)
         final Parcel dto = state.getAvailableParcels().iterator().next();
-        return ImmutableList.of(ImmutableList.of(dto, dto));
+        return Optional.of(ImmutableList.of(ImmutableList.of(dto, dto)));
       } // else
-      return ImmutableList.of(ImmutableList.copyOf(inCargo));
+      return Optional.of(ImmutableList.of(ImmutableList.copyOf(inCargo)));
     }
     // else, we are going to look for the optimal solution
+    return Optional.absent();
+  }
 
-    final ArraysObject ao = ArraysSolvers.toSingleVehicleArrays(state,
-      outputTimeUnit);
-
+  ImmutableList<ImmutableList<Parcel>> solve(ArraysObject ao) {
     final SolutionObject[] curSols = ao.currentSolutions;
     final SolutionObject sol = solver.solve(ao.travelTime, ao.releaseDates,
       ao.dueDates, ao.servicePairs, ao.serviceTimes, curSols == null ? null
@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central.rt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.rinde.rinsim.central.AnytimeSolver;
+import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.util.StochasticSupplier;
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Runs an {@link AnytimeSolver} as a {@link RealtimeSolver}. Upon receiving a
+ * new snapshot any ongoing computation is cancelled and a new computation is
+ * started on the shared executor:
+ * <ol>
+ * <li>A schedule is constructed, warm started from the routes in the snapshot
+ * or, if these are not available, from the most recently published schedule.
+ * This schedule is published right away.</li>
+ * <li>The schedule is improved step by step until no further improvement is
+ * found. An improved schedule is published only when its cost is strictly
+ * lower than the cost of the previously published schedule.</li>
+ * </ol>
+ * The computation respects a time budget per tick: in every period of
+ * {@link Builder#withTickLength(long)} milliseconds of wall clock time at
+ * most {@link Builder#withTickBudget(long)} milliseconds are spent computing,
+ * the remainder of the period is left to the simulation such that the
+ * real-time clock does not miss its deadlines. Since the budget is checked in
+ * between improvement steps, it can be exceeded by the duration of a single
+ * step.
+ * @author Rinde van Lon
+ */
+public final class RtAnytimeSolver implements RealtimeSolver {
+  static final Logger LOGGER = LoggerFactory.getLogger(RtAnytimeSolver.class);
+  static final String R_BRACE = ")";
+  static final String COMMA = ",";
+
+  final AnytimeSolver solver;
+  final Builder settings;
+  Optional<Scheduler> scheduler;
+  Optional<ListenableFuture<Object>> currentFuture;
+  // the most recently published schedule, it is written by the computation
+  // thread
+  volatile Optional<ImmutableList<ImmutableList<Parcel>>> lastSchedule;
+
+  RtAnytimeSolver(AnytimeSolver s, Builder b) {
+    solver = s;
+    settings = b;
+    scheduler = Optional.absent();
+    currentFuture = Optional.absent();
+    lastSchedule = Optional.absent();
+  }
+
+  @Override
+  public void init(Scheduler s) {
+    scheduler = Optional.of(s);
+  }
+
+  @Override
+  public void problemChanged(final GlobalStateObject snapshot) {
+    checkState(scheduler.isPresent(), "Not yet initialized.");
+    cancel();
+    currentFuture = Optional.of(
+      scheduler.get().getSharedExecutor().submit(new Callable<Object>() {
+        @Override
+        public Object call() throws InterruptedException {
+          return compute(snapshot);
+        }
+      }));
+
+    Futures.addCallback(currentFuture.get(), new FutureCallback<Object>() {
+      @Override
+      public void onSuccess(@Nullable Object result) {
+        scheduler.get().doneForNow();
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        if (t instanceof CancellationException) {
+          LOGGER.trace("Solver execution got cancelled");
+          return;
+        }
+        scheduler.get().reportException(t);
+      }
+    });
+  }
+
+  ImmutableList<ImmutableList<Parcel>> compute(GlobalStateObject snapshot)
+      throws InterruptedException {
+    final TickBudget budget =
+      new TickBudget(settings.getTickLength(), settings.getTickBudget());
+    ImmutableList<ImmutableList<Parcel>> schedule =
+      solver.construct(snapshot, initialRoutes(snapshot));
+    double cost = solver.computeCost(snapshot, schedule);
+    publish(snapshot, schedule);
+    while (true) {
+      budget.await();
+      final ImmutableList<ImmutableList<Parcel>> next =
+        solver.improveStep(snapshot, schedule);
+      if (next == schedule) {
+        break;
+      }
+      final double nextCost = solver.computeCost(snapshot, next);
+      if (nextCost >= cost) {
+        LOGGER.warn("{} returned a schedule that is not better, {} >= {}.",
+          solver, nextCost, cost);
+        break;
+      }
+      schedule = next;
+      cost = nextCost;
+      publish(snapshot, schedule);
+    }
+    return schedule;
+  }
+
+  List<? extends List<Parcel>> initialRoutes(GlobalStateObject snapshot) {
+    final ImmutableList.Builder<ImmutableList<Parcel>> routes =
+      ImmutableList.builder();
+    for (final VehicleStateObject vso : snapshot.getVehicles()) {
+      if (!vso.getRoute().isPresent()) {
+        if (lastSchedule.isPresent() && lastSchedule.get().size() == snapshot
+          .getVehicles().size()) {
+          return lastSchedule.get();
+        }
+        return ImmutableList.of();
+      }
+      routes.add(vso.getRoute().get());
+    }
+    return routes.build();
+  }
+
+  void publish(GlobalStateObject snapshot,
+      ImmutableList<ImmutableList<Parcel>> schedule)
+      throws InterruptedException {
+    // a cancelled computation should not overwrite the schedule of a newer
+    // snapshot
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedException();
+    }
+    lastSchedule = Optional.of(schedule);
+    scheduler.get().updateSchedule(snapshot, schedule);
+  }
+
+  @Override
+  public void cancel() {
+    if (isComputing()) {
+      LOGGER.trace("attempt to cancel running Solver..");
+      currentFuture.get().cancel(true);
+      scheduler.get().doneForNow();
+    }
+  }
+
+  @Override
+  public boolean isComputing() {
+    return currentFuture.isPresent() && !currentFuture.get().isDone();
+  }
+
+  @Override
+  public void receiveSnapshot(GlobalStateObject snapshot) {}
+
+  @Override
+  public String toString() {
+    return Joiner.on("").join(getClass().getSimpleName(), "(", solver, COMMA,
+      settings, R_BRACE);
+  }
+
+  /**
+   * @return A new {@link Builder} with default settings.
+   */
+  @CheckReturnValue
+  public static Builder builder() {
+    return Builder.create(Builder.DEFAULT_TICK_LENGTH,
+      Builder.DEFAULT_TICK_BUDGET);
+  }
+
+  /**
+   * Limits the computation time within periods of wall clock time.
+   */
+  static final class TickBudget {
+    final long tickLength;
+    final long budget;
+    long periodStart;
+
+    TickBudget(long tickLengthMs, long budgetMs) {
+      tickLength = TimeUnit.MILLISECONDS.toNanos(tickLengthMs);
+      budget = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+      periodStart = System.nanoTime();
+    }
+
+    // sleeps until the next period if the budget of the current period is
+    // used up
+    void await() throws InterruptedException {
+      final long elapsed = System.nanoTime() - periodStart;
+      if (elapsed >= tickLength) {
+        periodStart += elapsed - elapsed % tickLength;
+      } else if (elapsed >= budget) {
+        // rounded up, sleeping with nanosecond precision may return early
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(tickLength - elapsed) + 1);
+        periodStart += tickLength;
+      }
+    }
+  }
+
+  /**
+   * A builder for {@link RtAnytimeSolver} instances.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class Builder {
+    static final long DEFAULT_TICK_LENGTH = 1000L;
+    static final long DEFAULT_TICK_BUDGET = 500L;
+
+    Builder() {}
+
+    abstract long getTickLength();
+
+    abstract long getTickBudget();
+
+    /**
+     * Sets the length of a tick of the real-time clock in milliseconds, this
+     * should be equal to the tick length of the
+     * {@link com.github.rinde.rinsim.core.model.time.TimeModel}. The default
+     * is {@value #DEFAULT_TICK_LENGTH}.
+     * @param tickLength The tick length, must be positive.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withTickLength(long tickLength) {
+      checkArgument(tickLength > 0, "Tick length must be positive, found %s.",
+        tickLength);
+      return create(tickLength, Math.min(tickLength, getTickBudget()));
+    }
+
+    /**
+     * Sets the maximum computation time per tick in milliseconds. The default
+     * is {@value #DEFAULT_TICK_BUDGET}, the budget can not exceed the tick
+     * length.
+     * @param budget The budget, must be positive.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withTickBudget(long budget) {
+      checkArgument(budget > 0 && budget <= getTickLength(),
+        "Budget must be positive and at most the tick length (%s), found %s.",
+        getTickLength(), budget);
+      return create(getTickLength(), budget);
+    }
+
+    /**
+     * @param solver The anytime solver to run.
+     * @return A new real-time solver.
+     */
+    public RealtimeSolver build(AnytimeSolver solver) {
+      return new RtAnytimeSolver(solver, this);
+    }
+
+    /**
+     * @param solverSupplier The supplier of the anytime solvers to run.
+     * @return A {@link StochasticSupplier} that creates
+     *         {@link RtAnytimeSolver} instances using the settings of this
+     *         builder.
+     */
+    public StochasticSupplier<RealtimeSolver> buildSupplier(
+        StochasticSupplier<? extends AnytimeSolver> solverSupplier) {
+      return new Sup(this, solverSupplier);
+    }
+
+    static Builder create(long tickLength, long budget) {
+      return new AutoValue_RtAnytimeSolver_Builder(tickLength, budget);
+    }
+  }
+
+  static class Sup implements StochasticSupplier<RealtimeSolver> {
+    final Builder builder;
+    final StochasticSupplier<? extends AnytimeSolver> solver;
+
+    Sup(Builder b, StochasticSupplier<? extends AnytimeSolver> s) {
+      builder = b;
+      solver = s;
+    }
+
+    @Override
+    public RealtimeSolver get(long seed) {
+      return builder.build(solver.get(seed));
+    }
+
+    @Override
+    public String toString() {
+      return Joiner.on("").join(RtAnytimeSolver.class.getSimpleName(),
+        ".supplier(", solver, COMMA, builder, R_BRACE);
+    }
+  }
+}
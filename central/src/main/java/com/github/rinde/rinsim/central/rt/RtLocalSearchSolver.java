@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central.rt;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.LocalSearchSolver;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.util.StochasticSupplier;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Real-time version of {@link LocalSearchSolver}. Upon receiving a new
+ * snapshot any ongoing computation is cancelled and a new schedule is
+ * constructed using cheapest insertion. This schedule is published right away
+ * such that vehicles can start moving, after which it is improved using local
+ * search. The improved schedule is published only when it is strictly better.
+ * @author Rinde van Lon
+ */
+public final class RtLocalSearchSolver implements RealtimeSolver {
+  static final Logger LOGGER =
+    LoggerFactory.getLogger(RtLocalSearchSolver.class);
+  private static final String R_BRACE = ")";
+
+  Optional<Scheduler> scheduler;
+  Optional<ListenableFuture<Object>> currentFuture;
+  final LocalSearchSolver solver;
+
+  RtLocalSearchSolver(LocalSearchSolver s) {
+    solver = s;
+    scheduler = Optional.absent();
+    currentFuture = Optional.absent();
+  }
+
+  @Override
+  public void init(Scheduler s) {
+    scheduler = Optional.of(s);
+  }
+
+  @Override
+  public void problemChanged(final GlobalStateObject snapshot) {
+    checkState(scheduler.isPresent(), "Not yet initialized.");
+    cancel();
+    currentFuture = Optional.of(
+      scheduler.get().getSharedExecutor().submit(new Callable<Object>() {
+        @Override
+        public Object call() throws InterruptedException {
+          final ImmutableList<ImmutableList<Parcel>> schedule =
+            solver.construct(snapshot);
+          publish(snapshot, schedule);
+          final ImmutableList<ImmutableList<Parcel>> improved =
+            solver.improve(snapshot, schedule);
+          if (improved != schedule) {
+            publish(snapshot, improved);
+          }
+          return improved;
+        }
+      }));
+
+    Futures.addCallback(currentFuture.get(), new FutureCallback<Object>() {
+      @Override
+      public void onSuccess(@Nullable Object result) {
+        scheduler.get().doneForNow();
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        if (t instanceof CancellationException) {
+          LOGGER.trace("Solver execution got cancelled");
+          return;
+        }
+        scheduler.get().reportException(t);
+      }
+    });
+  }
+
+  void publish(GlobalStateObject snapshot,
+      ImmutableList<ImmutableList<Parcel>> schedule)
+      throws InterruptedException {
+    // a cancelled computation should not overwrite the schedule of a newer
+    // snapshot
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedException();
+    }
+    scheduler.get().updateSchedule(snapshot, schedule);
+  }
+
+  @Override
+  public void cancel() {
+    if (isComputing()) {
+      LOGGER.trace("attempt to cancel running Solver..");
+      currentFuture.get().cancel(true);
+      scheduler.get().doneForNow();
+    }
+  }
+
+  @Override
+  public boolean isComputing() {
+    return currentFuture.isPresent() && !currentFuture.get().isDone();
+  }
+
+  @Override
+  public void receiveSnapshot(GlobalStateObject snapshot) {}
+
+  @Override
+  public String toString() {
+    return Joiner.on("").join(getClass().getSimpleName(), "(", solver,
+      R_BRACE);
+  }
+
+  /**
+   * Creates a new instance.
+   * @param solver The solver to use.
+   * @return A new real-time solver.
+   */
+  public static RealtimeSolver create(LocalSearchSolver solver) {
+    return new RtLocalSearchSolver(solver);
+  }
+
+  /**
+   * Creates a supplier of {@link RtLocalSearchSolver} instances.
+   * @param builder The builder that defines the settings of the solvers.
+   * @return A new supplier.
+   */
+  public static StochasticSupplier<RealtimeSolver> supplier(
+      LocalSearchSolver.Builder builder) {
+    return new Sup(builder);
+  }
+
+  static class Sup implements StochasticSupplier<RealtimeSolver> {
+    final LocalSearchSolver.Builder builder;
+
+    Sup(LocalSearchSolver.Builder b) {
+      builder = b;
+    }
+
+    @Override
+    public RealtimeSolver get(long seed) {
+      return create(builder.build());
+    }
+
+    @Override
+    public String toString() {
+      return Joiner.on("").join(RtLocalSearchSolver.class.getSimpleName(),
+        ".supplier(", builder, R_BRACE);
+    }
+  }
+}
@@ -41,7 +41,13 @@ public final class RtStAdapters {
    * computations are currently taking place by calling
    * {@link Scheduler#doneForNow()}.
    * <p>
-   * TODO talk about interrupt in solver
+   * A computation is cancelled by interrupting its thread and by cancelling
+   * its {@link com.github.rinde.rinsim.central.SolveContext}. A
+   * {@link com.github.rinde.rinsim.central.ContextAwareSolver} receives this
+   * context, it should check it regularly and it can report intermediate
+   * schedules to it, these are published via
+   * {@link Scheduler#updateSchedule(GlobalStateObject, ImmutableList)}.
+   * Other solvers should respond to thread interrupts.
    *
    * @param solver The solver to adapt.
    * @return The adapted solver.
@@ -61,7 +67,13 @@ public final class RtStAdapters {
    * computations are currently taking place by calling
    * {@link Scheduler#doneForNow()}.
    * <p>
-   * TODO talk about interrupt in solver
+   * A computation is cancelled by interrupting its thread and by cancelling
+   * its {@link com.github.rinde.rinsim.central.SolveContext}. A
+   * {@link com.github.rinde.rinsim.central.ContextAwareSolver} receives this
+   * context, it should check it regularly and it can report intermediate
+   * schedules to it, these are published via
+   * {@link Scheduler#updateSchedule(GlobalStateObject, ImmutableList)}.
+   * Other solvers should respond to thread interrupts.
    *
    * @param solver The solver supplier to adapt.
    * @return The adapted solver supplier.
@@ -15,18 +15,24 @@
  */
 package com.github.rinde.rinsim.central.rt;
 
+import java.util.concurrent.TimeUnit;
+
+import com.github.rinde.rinsim.central.ContextAwareSolver;
 import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.SolveContext;
 import com.github.rinde.rinsim.central.Solver;
+import com.github.rinde.rinsim.central.Solvers;
 import com.github.rinde.rinsim.core.model.pdp.Parcel;
 import com.github.rinde.rinsim.util.StochasticSupplier;
 import com.google.common.collect.ImmutableList;
 
 /**
  * Solver decorator that sleeps before calling the delegate solver. Handy for
- * testing 'long' computations.
+ * testing 'long' computations. The sleep is cut short when the
+ * {@link SolveContext} is cancelled or when its deadline passes.
  * @author Rinde van Lon
  */
-public class SleepySolver implements Solver {
+public class SleepySolver implements ContextAwareSolver {
   final Solver delegate;
   final long sleepTime;
 
@@ -38,8 +44,14 @@ public class SleepySolver implements Solver {
   @Override
   public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state)
       throws InterruptedException {
-    Thread.sleep(sleepTime);
-    return delegate.solve(state);
+    return solve(state, SolveContext.create());
+  }
+
+  @Override
+  public ImmutableList<ImmutableList<Parcel>> solve(GlobalStateObject state,
+      SolveContext context) throws InterruptedException {
+    context.sleep(sleepTime, TimeUnit.MILLISECONDS);
+    return Solvers.solve(delegate, state, context);
   }
 
   /**
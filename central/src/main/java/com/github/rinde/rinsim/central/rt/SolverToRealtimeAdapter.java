@@ -25,6 +25,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.SolveContext;
+import com.github.rinde.rinsim.central.SolveContext.ProgressListener;
 import com.github.rinde.rinsim.central.Solver;
 import com.github.rinde.rinsim.central.Solvers;
 import com.github.rinde.rinsim.core.model.pdp.Parcel;
@@ -42,11 +44,13 @@ final class SolverToRealtimeAdapter implements RealtimeSolver {
 
   Optional<Scheduler> scheduler;
   Optional<ListenableFuture<ImmutableList<ImmutableList<Parcel>>>> currentFuture;
+  Optional<SolveContext> currentContext;
   final Solver solver;
 
   SolverToRealtimeAdapter(Solver s) {
     solver = s;
     currentFuture = Optional.absent();
+    currentContext = Optional.absent();
     scheduler = Optional.absent();
   }
 
@@ -59,9 +63,24 @@ final class SolverToRealtimeAdapter implements RealtimeSolver {
   public void problemChanged(final GlobalStateObject snapshot) {
     checkState(scheduler.isPresent(), "Not yet initialized.");
     cancel();
+    final SolveContext context = SolveContext.create();
+    // intermediate schedules are published right away, a cancelled context
+    // does not report progress anymore. A report that passed this check just
+    // before cancel() may still arrive, it is tagged with its own (older)
+    // state and is replaced by the schedules of the newer snapshot
+    context.addProgressListener(new ProgressListener() {
+      @Override
+      public void onProgress(GlobalStateObject state,
+          ImmutableList<ImmutableList<Parcel>> schedule) {
+        if (!context.isCancelled()) {
+          scheduler.get().updateSchedule(state, schedule);
+        }
+      }
+    });
+    currentContext = Optional.of(context);
     currentFuture = Optional.of(
       scheduler.get().getSharedExecutor().submit(
-        Solvers.createSolverCallable(solver, snapshot)));
+        Solvers.createSolverCallable(solver, snapshot, context)));
 
     Futures.addCallback(currentFuture.get(),
       new FutureCallback<ImmutableList<ImmutableList<Parcel>>>() {
@@ -94,6 +113,10 @@ final class SolverToRealtimeAdapter implements RealtimeSolver {
   public void cancel() {
     if (isComputing()) {
       LOGGER.trace("attempt to cancel running Solver..");
+      // solvers that swallow the interrupt still stop at their next
+      // checkpoint, the context is cancelled first so that no new progress
+      // reports of this computation are started after this point
+      currentContext.get().cancel();
       currentFuture.get().cancel(true);
       scheduler.get().doneForNow();
     }
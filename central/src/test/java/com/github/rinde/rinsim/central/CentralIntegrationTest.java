@@ -103,4 +103,18 @@ public class CentralIntegrationTest {
       .repeat(3)
       .perform();
   }
+
+  /**
+   * Test of {@link LocalSearchSolver} on a scenario using the {@link Solver}
+   * interface.
+   */
+  @Test
+  public void testLocalSearchSolver() {
+    Experiment.builder()
+      .addScenario(scenario)
+      .addConfiguration(
+        Central.solverConfiguration(SolverValidator.wrap(LocalSearchSolver
+          .supplier())))
+      .perform();
+  }
 }
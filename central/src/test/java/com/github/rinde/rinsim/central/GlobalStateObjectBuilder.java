@@ -147,6 +147,8 @@ public class GlobalStateObjectBuilder {
     static final Point DEFAULT_LOCATION = new Point(0, 0);
     VehicleDTO dto;
     Point location;
+    @Nullable
+    Connection<?> connection;
     Set<Parcel> contents;
     long remainingServiceTime;
 
@@ -158,6 +160,7 @@ public class GlobalStateObjectBuilder {
     VSOBuilder() {
       dto = VehicleDTO.builder().build();
       location = DEFAULT_LOCATION;
+      connection = null;
       contents = new LinkedHashSet<>();
       remainingServiceTime = 0L;
       destination = null;
@@ -174,6 +177,11 @@ public class GlobalStateObjectBuilder {
       return this;
     }
 
+    public VSOBuilder setConnection(@Nullable Connection<?> conn) {
+      connection = conn;
+      return this;
+    }
+
     public VSOBuilder addToContents(Parcel p) {
       contents.add(p);
       return this;
@@ -195,11 +203,10 @@ public class GlobalStateObjectBuilder {
     }
 
     public VehicleStateObject build() {
-      final Optional<Connection<?>> absent = Optional.absent();
       return VehicleStateObject.create(
         dto,
         location,
-        absent,
+        Optional.fromNullable(connection),
         ImmutableSet.copyOf(contents),
         remainingServiceTime,
         destination,
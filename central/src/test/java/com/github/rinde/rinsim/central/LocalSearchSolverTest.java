@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import static com.github.rinde.rinsim.central.GlobalStateObjectBuilder.globalBuilder;
+import static com.github.rinde.rinsim.central.GlobalStateObjectBuilder.vehicleBuilder;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Test;
+
+import com.github.rinde.rinsim.central.GlobalStateObject.VehicleStateObject;
+import com.github.rinde.rinsim.central.GlobalStateObjectBuilder.VSOBuilder;
+import com.github.rinde.rinsim.central.ScheduleEvaluator.RouteEvaluation;
+import com.github.rinde.rinsim.central.Solvers.ExtendedStats;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.pdp.VehicleDTO;
+import com.github.rinde.rinsim.geom.GeomHeuristics;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for {@link LocalSearchSolver} and {@link ScheduleEvaluator}.
+ * @author Rinde van Lon
+ */
+public class LocalSearchSolverTest {
+  static final long HOUR = 60 * 60 * 1000L;
+  static final double EPSILON = 1e-6;
+
+  /**
+   * The cost computed by the evaluator must equal the cost derived from
+   * {@link Solvers#computeStats(GlobalStateObject, ImmutableList)}.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testEvaluatorMatchesComputeStats() throws InterruptedException {
+    for (int i = 0; i < 20; i++) {
+      final GlobalStateObject state = randomState(i, 4, 12);
+      final ImmutableList<ImmutableList<Parcel>> schedule =
+        RandomSolver.create(i).solve(state);
+      final ExtendedStats stats = Solvers.computeStats(state, schedule);
+      final ScheduleEvaluator evaluator = evaluator(state);
+      assertEquals(stats.totalTravelTime + stats.pickupTardiness
+        + stats.deliveryTardiness + stats.overTime,
+        evaluator.computeCost(schedule), EPSILON);
+    }
+  }
+
+  /**
+   * The incrementally computed insertion costs must equal the difference in
+   * cost of the complete routes.
+   */
+  @Test
+  public void testInsertionCost() {
+    for (int s = 0; s < 10; s++) {
+      final GlobalStateObject state = randomState(s, 3, 8);
+      final ScheduleEvaluator evaluator = evaluator(state);
+      final List<Parcel> available =
+        new ArrayList<>(GlobalStateObjects.unassignedParcels(state));
+      for (final VehicleStateObject vso : state.getVehicles()) {
+        available.removeAll(vso.getDestination().asSet());
+      }
+      for (int v = 0; v < state.getVehicles().size(); v++) {
+        // the first half of the parcels forms a route, the others are
+        // inserted
+        final VehicleStateObject vso = state.getVehicles().get(v);
+        final List<Parcel> route = new ArrayList<>();
+        final List<Parcel> bound = new ArrayList<>(vso.getContents());
+        route.addAll(vso.getDestination().asSet());
+        bound.addAll(vso.getDestination().asSet());
+        route.addAll(bound);
+        for (final Parcel p : available.subList(0, available.size() / 2)) {
+          route.add(p);
+          route.add(p);
+        }
+        final RouteEvaluation eval = evaluator.evaluate(v, route);
+        for (final Parcel p : available.subList(available.size() / 2,
+          available.size())) {
+          for (int i = eval.vehicle.firstInsertion; i <= route.size(); i++) {
+            for (int j = i; j <= route.size(); j++) {
+              final List<Parcel> newRoute = new ArrayList<>(route);
+              newRoute.add(j, p);
+              newRoute.add(i, p);
+              assertEquals(evaluator.evaluate(v, newRoute).getCost()
+                - eval.getCost(), eval.insertionCost(p, i, j), EPSILON);
+            }
+          }
+        }
+
+        // deliveries of parcels that are bound to the vehicle
+        for (final Parcel p : bound) {
+          final List<Parcel> reduced = new ArrayList<>(route);
+          reduced.remove(reduced.lastIndexOf(p));
+          final RouteEvaluation reducedEval = evaluator.evaluate(v, reduced);
+          for (int i = eval.vehicle.firstInsertion; i <= reduced.size(); i++) {
+            final List<Parcel> newRoute = new ArrayList<>(reduced);
+            newRoute.add(i, p);
+            assertEquals(evaluator.evaluate(v, newRoute).getCost()
+              - reducedEval.getCost(), reducedEval.deliveryInsertionCost(p, i),
+              EPSILON);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that the produced schedules are valid, that the local search does
+   * not make the constructed schedule worse and that the result does not
+   * depend on the number of threads.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testSolve() throws InterruptedException {
+    final LocalSearchSolver single =
+      LocalSearchSolver.builder().withThreads(1).build();
+    final Solver multi = SolverValidator.wrap(
+      LocalSearchSolver.builder().withThreads(4).build());
+    for (int i = 0; i < 10; i++) {
+      final GlobalStateObject state = randomState(i, 3, 15);
+      final ImmutableList<ImmutableList<Parcel>> constructed =
+        SolverValidator.validateOutputs(single.construct(state), state);
+      final ImmutableList<ImmutableList<Parcel>> solved =
+        SolverValidator.validateOutputs(single.solve(state), state);
+      assertThat(single.computeCost(state, solved))
+        .isAtMost(single.computeCost(state, constructed));
+      assertEquals(solved, multi.solve(state));
+    }
+  }
+
+  /**
+   * Improving an optimal schedule returns the same instance.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testImproveLocalOptimum() throws InterruptedException {
+    final LocalSearchSolver solver =
+      LocalSearchSolver.builder().withThreads(1).build();
+    final GlobalStateObject state = randomState(7, 2, 6);
+    final ImmutableList<ImmutableList<Parcel>> solved = solver.solve(state);
+    assertThat(solver.improve(state, solved)).isSameAs(solved);
+  }
+
+  /**
+   * Warm starting from a complete schedule keeps the schedule, warm starting
+   * from the schedule of a different state produces a valid schedule.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testConstructWarmStart() throws InterruptedException {
+    final LocalSearchSolver solver =
+      LocalSearchSolver.builder().withThreads(1).build();
+    for (int i = 0; i < 10; i++) {
+      final GlobalStateObject state = randomState(i, 3, 10);
+      final ImmutableList<ImmutableList<Parcel>> schedule =
+        RandomSolver.create(i).solve(state);
+      assertEquals(schedule, solver.construct(state, schedule));
+
+      // the schedule of a state with fewer parcels is completed, parcels
+      // that are not in the state are dropped
+      final GlobalStateObject other = randomState(i, 3, 14);
+      SolverValidator.validateOutputs(solver.construct(other, schedule),
+        other);
+      SolverValidator.validateOutputs(solver.construct(state,
+        RandomSolver.create(i).solve(other)), state);
+    }
+  }
+
+  /**
+   * A single improvement step is never worse, repeated steps end in the same
+   * local optimum as {@link LocalSearchSolver#improve}.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testImproveStep() throws InterruptedException {
+    final LocalSearchSolver solver =
+      LocalSearchSolver.builder().withThreads(1).build();
+    final GlobalStateObject state = randomState(5, 3, 10);
+    ImmutableList<ImmutableList<Parcel>> schedule = solver.construct(state);
+    final ImmutableList<ImmutableList<Parcel>> optimum =
+      solver.improve(state, schedule);
+    while (true) {
+      final ImmutableList<ImmutableList<Parcel>> next =
+        solver.improveStep(state, schedule);
+      if (next == schedule) {
+        break;
+      }
+      assertThat(solver.computeCost(state, next))
+        .isLessThan(solver.computeCost(state, schedule));
+      schedule = next;
+    }
+    assertEquals(optimum, schedule);
+  }
+
+  /**
+   * Every improvement is reported as progress, an expired context returns
+   * the constructed schedule and a cancelled context stops the computation.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testSolveContext() throws InterruptedException {
+    final LocalSearchSolver solver =
+      LocalSearchSolver.builder().withThreads(1).build();
+    final GlobalStateObject state = randomState(3, 3, 10);
+    final List<ImmutableList<ImmutableList<Parcel>>> progress =
+      new ArrayList<>();
+    final SolveContext context = SolveContext.create();
+    context.addProgressListener(new SolveContext.ProgressListener() {
+      @Override
+      public void onProgress(GlobalStateObject s,
+          ImmutableList<ImmutableList<Parcel>> schedule) {
+        progress.add(schedule);
+      }
+    });
+    final ImmutableList<ImmutableList<Parcel>> solved =
+      solver.solve(state, context);
+    assertThat(progress.size()).isGreaterThan(1);
+    assertEquals(solver.construct(state), progress.get(0));
+    assertEquals(solved, progress.get(progress.size() - 1));
+    for (int i = 1; i < progress.size(); i++) {
+      assertThat(solver.computeCost(state, progress.get(i)))
+        .isLessThan(solver.computeCost(state, progress.get(i - 1)));
+    }
+
+    assertEquals(progress.get(0),
+      solver.solve(state, SolveContext.create(0, TimeUnit.MILLISECONDS)));
+
+    final SolveContext cancelled = SolveContext.create();
+    cancelled.cancel();
+    try {
+      solver.solve(state, cancelled);
+      fail();
+    } catch (final InterruptedException e) {
+      assertThat(e.getMessage()).contains("cancelled");
+    }
+  }
+
+  static ScheduleEvaluator evaluator(GlobalStateObject state) {
+    return new ScheduleEvaluator(state, GeomHeuristics.euclidean(), 1d, 1d,
+      1d);
+  }
+
+  static Point randomPoint(RandomGenerator rng) {
+    return new Point(rng.nextDouble() * 10, rng.nextDouble() * 10);
+  }
+
+  static Parcel randomParcel(RandomGenerator rng) {
+    final long pickup = (long) (rng.nextDouble() * 3 * HOUR);
+    final long delivery = pickup + (long) (rng.nextDouble() * HOUR);
+    return Parcel.builder(randomPoint(rng), randomPoint(rng))
+      .pickupTimeWindow(TimeWindow.create(pickup, pickup + HOUR / 2))
+      .deliveryTimeWindow(TimeWindow.create(delivery, delivery + HOUR / 2))
+      .serviceDuration(5 * 60 * 1000L)
+      .build();
+  }
+
+  /**
+   * Creates a random state in which some vehicles have parcels in cargo and a
+   * destination.
+   */
+  static GlobalStateObject randomState(long seed, int vehicles, int parcels) {
+    final RandomGenerator rng = new MersenneTwister(seed);
+    final GlobalStateObjectBuilder builder = globalBuilder()
+      .setTime(HOUR / 4)
+      .setPlaneTravelTimes(new Point(0, 0), new Point(10, 10));
+    for (int v = 0; v < vehicles; v++) {
+      final VSOBuilder vb = vehicleBuilder()
+        .setLocation(randomPoint(rng))
+        .setVehicleDTO(VehicleDTO.builder()
+          .startPosition(new Point(5, 5))
+          .speed(30d + v * 10)
+          .availabilityTimeWindow(TimeWindow.create(0, 4 * HOUR))
+          .build());
+      for (int c = 0; c < v % 3; c++) {
+        vb.addToContents(randomParcel(rng));
+      }
+      if (v % 2 == 1) {
+        final Parcel dest = randomParcel(rng);
+        builder.addAvailableParcel(dest);
+        vb.setDestination(dest).setLocation(dest.getPickupLocation())
+          .setRemainingServiceTime(v % 4 == 1 ? 60 * 1000L : 0L);
+      }
+      builder.addVehicle(vb.build());
+    }
+    for (int p = 0; p < parcels; p++) {
+      builder.addAvailableParcel(randomParcel(rng));
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import static com.github.rinde.rinsim.central.LocalSearchSolverTest.randomState;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.measure.unit.SI;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Test;
+
+import com.github.rinde.rinsim.central.ScheduleEvaluator.RouteEvaluation;
+import com.github.rinde.rinsim.central.Solvers.ExtendedStats;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.pdp.VehicleDTO;
+import com.github.rinde.rinsim.core.model.road.RoadModelSnapshotTestUtil;
+import com.github.rinde.rinsim.geom.GeomHeuristic;
+import com.github.rinde.rinsim.geom.GeomHeuristics;
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.MultiAttributeData;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.geom.TableGraph;
+import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for the public API of {@link ScheduleEvaluator}.
+ * @author Rinde van Lon
+ */
+public class ScheduleEvaluatorTest {
+  static final double EPSILON = 1e-6;
+  static final long HOUR = 60 * 60 * 1000L;
+  static final int GRID_SIZE = 6;
+  static final double VEHICLE_SPEED = 6d;
+
+  /**
+   * The default evaluator is shared and its route statistics equal the
+   * statistics computed by {@link Solvers#computeStats}.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testStatistics() throws InterruptedException {
+    for (int s = 0; s < 10; s++) {
+      final GlobalStateObject state = randomState(s, 3, 10);
+      assertThat(state.evaluator()).isSameAs(state.evaluator());
+      assertThat(state.evaluator().getState()).isSameAs(state);
+
+      final ImmutableList<ImmutableList<Parcel>> schedule =
+        RandomSolver.create(s).solve(state);
+      final ExtendedStats stats = Solvers.computeStats(state, schedule);
+      double travelTime = 0d;
+      long tardiness = 0L;
+      long overTime = 0L;
+      for (int v = 0; v < schedule.size(); v++) {
+        final RouteEvaluation eval =
+          state.evaluator().evaluate(v, schedule.get(v));
+        assertEquals(schedule.get(v), eval.getRoute());
+        assertEquals(eval.getTravelTime() + eval.getTardiness()
+          + eval.getOverTime(), eval.getCost(), EPSILON);
+        travelTime += eval.getTravelTime();
+        tardiness += eval.getTardiness();
+        overTime += eval.getOverTime();
+      }
+      assertEquals(stats.totalTravelTime, travelTime, EPSILON);
+      assertEquals(stats.pickupTardiness + stats.deliveryTardiness, tardiness,
+        EPSILON);
+      assertEquals(stats.overTime, overTime, EPSILON);
+      assertEquals(stats.totalTravelTime + stats.pickupTardiness
+        + stats.deliveryTardiness + stats.overTime,
+        state.evaluator().computeCost(schedule), EPSILON);
+    }
+  }
+
+  /**
+   * On a graph where many paths have the same cost but a different travel
+   * time, the evaluator must use the same paths as {@link Solvers#computeStats}
+   * for every leg.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testStatisticsGraphWithTies() throws InterruptedException {
+    final Graph<MultiAttributeData> graph = createGrid();
+    final List<Point> nodes = new ArrayList<>(graph.getNodes());
+    final GeomHeuristic heuristic = GeomHeuristics.time(VEHICLE_SPEED);
+    for (int s = 0; s < 10; s++) {
+      final RandomGenerator rng = new MersenneTwister(s);
+      final GlobalStateObjectBuilder builder =
+        GlobalStateObjectBuilder.globalBuilder()
+          .setSnapshot(RoadModelSnapshotTestUtil
+            .createGraphRoadModelSnapshot(graph, SI.KILOMETER));
+      for (int v = 0; v < 2; v++) {
+        builder.addVehicle(GlobalStateObjectBuilder.vehicleBuilder()
+          .setLocation(randomNode(nodes, rng))
+          .setVehicleDTO(VehicleDTO.builder()
+            .startPosition(randomNode(nodes, rng))
+            .speed(VEHICLE_SPEED)
+            .availabilityTimeWindow(TimeWindow.create(0, 8 * HOUR))
+            .build())
+          .build());
+      }
+      for (int p = 0; p < 8; p++) {
+        final long pickup = (long) (rng.nextDouble() * 4 * HOUR);
+        builder.addAvailableParcel(Parcel
+          .builder(randomNode(nodes, rng), randomNode(nodes, rng))
+          .pickupTimeWindow(TimeWindow.create(pickup, pickup + HOUR))
+          .deliveryTimeWindow(TimeWindow.create(pickup, pickup + 2 * HOUR))
+          .serviceDuration(60 * 1000L)
+          .build());
+      }
+      final GlobalStateObject state = builder.build();
+      final ImmutableList<ImmutableList<Parcel>> schedule =
+        RandomSolver.create(s).solve(state);
+      final ExtendedStats stats =
+        Solvers.computeStats(state, schedule, heuristic);
+      final ScheduleEvaluator evaluator =
+        state.evaluator(heuristic, 1d, 1d, 1d);
+      assertEquals(stats.totalTravelTime + stats.pickupTardiness
+        + stats.deliveryTardiness + stats.overTime,
+        evaluator.computeCost(schedule), EPSILON);
+    }
+  }
+
+  /**
+   * The incrementally computed removal costs must equal the difference in
+   * cost of the complete routes.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testRemovalCost() throws InterruptedException {
+    for (int s = 0; s < 20; s++) {
+      final GlobalStateObject state = randomState(s, 3, 12);
+      final ScheduleEvaluator evaluator = state.evaluator();
+      final ImmutableList<ImmutableList<Parcel>> schedule =
+        RandomSolver.create(s).solve(state);
+      for (int v = 0; v < schedule.size(); v++) {
+        final List<Parcel> route = schedule.get(v);
+        final RouteEvaluation eval = evaluator.evaluate(v, route);
+        final int first = state.getVehicles().get(v).getDestination()
+          .isPresent() ? 1 : 0;
+        for (int i = first; i < route.size(); i++) {
+          final Parcel p = route.get(i);
+          final int j = route.lastIndexOf(p);
+          final List<Parcel> newRoute = new ArrayList<>(route);
+          final double delta;
+          if (j > i) {
+            newRoute.remove(j);
+            newRoute.remove(i);
+            delta = eval.removalCost(i, j);
+          } else if (route.indexOf(p) == i) {
+            newRoute.remove(i);
+            delta = eval.removalCost(i);
+          } else {
+            continue;
+          }
+          assertEquals(evaluator.evaluate(v, newRoute).getCost()
+            - eval.getCost(), delta, EPSILON);
+        }
+      }
+    }
+  }
+
+  /**
+   * Removing stops of different parcels is not allowed.
+   */
+  @Test
+  public void testRemovalDifferentParcels() {
+    final GlobalStateObject state = randomState(3, 1, 4);
+    final List<Parcel> parcels = state.getAvailableParcels().asList();
+    final Parcel p = parcels.get(0);
+    final Parcel q = parcels.get(1);
+    final RouteEvaluation eval =
+      state.evaluator().evaluate(0, ImmutableList.of(p, q, q, p));
+    try {
+      eval.removalCost(0, 1);
+      fail();
+    } catch (final IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("same parcel");
+    }
+  }
+
+  static Point randomNode(List<Point> nodes, RandomGenerator rng) {
+    return nodes.get(rng.nextInt(nodes.size()));
+  }
+
+  // a grid with connections of equal length and a maximum speed of 2, 4 or 8,
+  // the costs of paths are exact sums and many paths have the same cost, but
+  // connections faster than the vehicles make their travel times differ
+  static Graph<MultiAttributeData> createGrid() {
+    final Graph<MultiAttributeData> graph = new TableGraph<>();
+    for (int x = 0; x < GRID_SIZE; x++) {
+      for (int y = 0; y < GRID_SIZE; y++) {
+        final Point p = new Point(x, y);
+        if (x > 0) {
+          addConnections(graph, new Point(x - 1, y), p);
+        }
+        if (y > 0) {
+          addConnections(graph, new Point(x, y - 1), p);
+        }
+      }
+    }
+    return graph;
+  }
+
+  static void addConnections(Graph<MultiAttributeData> graph, Point a,
+      Point b) {
+    final double speed = 2 << (int) (a.x * 3 + a.y * 7 + b.x) % 3;
+    graph.addConnection(a, b, MultiAttributeData.builder()
+      .setLength(1d).setMaxSpeed(speed).build());
+    graph.addConnection(b, a, MultiAttributeData.builder()
+      .setLength(1d).setMaxSpeed(speed).build());
+  }
+}
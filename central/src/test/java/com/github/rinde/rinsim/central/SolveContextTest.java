@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for {@link SolveContext}.
+ * @author Rinde van Lon
+ */
+public class SolveContextTest {
+
+  /**
+   * A cancelled context fails at the next checkpoint and no longer reports
+   * progress.
+   */
+  @Test
+  public void testCancel() {
+    final SolveContext context = SolveContext.create();
+    final List<ImmutableList<ImmutableList<Parcel>>> progress =
+      new ArrayList<>();
+    context.addProgressListener(new SolveContext.ProgressListener() {
+      @Override
+      public void onProgress(GlobalStateObject state,
+          ImmutableList<ImmutableList<Parcel>> schedule) {
+        progress.add(schedule);
+      }
+    });
+    final ImmutableList<ImmutableList<Parcel>> schedule = ImmutableList.of();
+    try {
+      context.checkpoint();
+    } catch (final InterruptedException e) {
+      fail();
+    }
+    context.reportProgress(null, schedule);
+    assertThat(progress).containsExactly(schedule);
+    assertThat(context.shouldStop()).isFalse();
+
+    context.cancel();
+    assertThat(context.isCancelled()).isTrue();
+    assertThat(context.shouldStop()).isTrue();
+    try {
+      context.checkpoint();
+      fail();
+    } catch (final InterruptedException e) {
+      assertThat(e.getMessage()).contains("cancelled");
+    }
+    context.reportProgress(null, schedule);
+    assertThat(progress).hasSize(1);
+  }
+
+  /**
+   * Cancelling does not wait for a progress report that is in progress, the
+   * listener that is being notified may finish but the remaining listeners
+   * are skipped.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testCancelDuringProgress() throws InterruptedException {
+    final SolveContext context = SolveContext.create();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch reported = new CountDownLatch(1);
+    final AtomicBoolean finished = new AtomicBoolean();
+    final AtomicBoolean secondCalled = new AtomicBoolean();
+    context.addProgressListener(new SolveContext.ProgressListener() {
+      @Override
+      public void onProgress(GlobalStateObject state,
+          ImmutableList<ImmutableList<Parcel>> schedule) {
+        started.countDown();
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+        finished.set(true);
+      }
+    });
+    context.addProgressListener(new SolveContext.ProgressListener() {
+      @Override
+      public void onProgress(GlobalStateObject state,
+          ImmutableList<ImmutableList<Parcel>> schedule) {
+        secondCalled.set(true);
+      }
+    });
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          context.reportProgress(null,
+            ImmutableList.<ImmutableList<Parcel>>of());
+          reported.countDown();
+        }
+      });
+      started.await();
+      // would deadlock if cancel waited for the listener
+      context.cancel();
+      assertThat(finished.get()).isFalse();
+      release.countDown();
+      assertThat(reported.await(1, TimeUnit.SECONDS)).isTrue();
+      assertThat(finished.get()).isTrue();
+      assertThat(secondCalled.get()).isFalse();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * An interrupt of the current thread fails the checkpoint and is cleared.
+   */
+  @Test
+  public void testInterrupt() {
+    final SolveContext context = SolveContext.create();
+    Thread.currentThread().interrupt();
+    try {
+      context.checkpoint();
+      fail();
+    } catch (final InterruptedException e) {
+      assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+  }
+
+  /**
+   * The deadline limits the remaining time and the sleep duration.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testDeadline() throws InterruptedException {
+    final SolveContext none = SolveContext.create();
+    assertThat(none.isExpired()).isFalse();
+    assertThat(none.getRemainingTime(TimeUnit.MILLISECONDS))
+      .isEqualTo(Long.MAX_VALUE);
+
+    final SolveContext context = SolveContext.create(20, TimeUnit.MILLISECONDS);
+    assertThat(context.getRemainingTime(TimeUnit.MILLISECONDS)).isAtMost(20L);
+    final long start = System.nanoTime();
+    context.sleep(1, TimeUnit.MINUTES);
+    assertThat(System.nanoTime() - start)
+      .isLessThan(TimeUnit.SECONDS.toNanos(1));
+    assertThat(context.isExpired()).isTrue();
+    assertThat(context.shouldStop()).isTrue();
+    assertThat(context.isCancelled()).isFalse();
+    assertThat(context.getRemainingTime(TimeUnit.MILLISECONDS)).isEqualTo(0L);
+  }
+
+  /**
+   * Cancelling a context from a different thread ends a sleep.
+   */
+  @Test
+  public void testCancelSleep() {
+    final SolveContext context = SolveContext.create();
+    final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor();
+    executor.schedule(new Runnable() {
+      @Override
+      public void run() {
+        context.cancel();
+      }
+    }, 20, TimeUnit.MILLISECONDS);
+    final long start = System.nanoTime();
+    try {
+      context.sleep(1, TimeUnit.MINUTES);
+      fail();
+    } catch (final InterruptedException e) {
+      assertThat(System.nanoTime() - start)
+        .isLessThan(TimeUnit.SECONDS.toNanos(10));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * The timeout can not be negative.
+   */
+  @Test
+  public void testNegativeTimeout() {
+    try {
+      SolveContext.create(-1, TimeUnit.SECONDS);
+      fail();
+    } catch (final IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("non-negative");
+    }
+  }
+}
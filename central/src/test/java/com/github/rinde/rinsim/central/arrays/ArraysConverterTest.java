@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central.arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import javax.measure.unit.SI;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.GlobalStateObjectBuilder;
+import com.github.rinde.rinsim.central.arrays.ArraysSolvers.ArraysObject;
+import com.github.rinde.rinsim.central.arrays.ArraysSolvers.MVArraysObject;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.pdp.VehicleDTO;
+import com.github.rinde.rinsim.core.model.road.RoadModelSnapshot;
+import com.github.rinde.rinsim.core.model.road.RoadModelSnapshotTestUtil;
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.LengthData;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.geom.TableGraph;
+import com.github.rinde.rinsim.util.TimeWindow;
+
+/**
+ * Tests for {@link ArraysConverter}.
+ * @author Rinde van Lon
+ */
+public class ArraysConverterTest {
+  static final TimeWindow DAY = TimeWindow.create(0, 8 * 60 * 60 * 1000L);
+
+  /**
+   * On a plane the converter should produce the same travel times as
+   * {@link ArraysSolvers}, also when parcels are added and removed.
+   */
+  @Test
+  public void testPlaneIncremental() {
+    final ArraysConverter converter = ArraysConverter.create(SI.SECOND);
+    // the travel times are only reused when the snapshot is the same instance
+    final RoadModelSnapshot snapshot = RoadModelSnapshotTestUtil
+      .createPlaneRoadModelSnapshot(new Point(0, 0), new Point(10, 10),
+        SI.KILOMETER);
+    final GlobalStateObject state = createPlaneState(snapshot, 8);
+    assertEqualTravelTimes(state, converter.toMultiVehicleArrays(state));
+    final long initial = converter.computedTravelTimes;
+
+    final GlobalStateObject larger = createPlaneState(snapshot, 9);
+    assertEqualTravelTimes(larger, converter.toMultiVehicleArrays(larger));
+    // only the travel times of the two new locations and of the vehicles are
+    // computed
+    final ArraysConverter fresh = ArraysConverter.create(SI.SECOND);
+    fresh.toMultiVehicleArrays(larger);
+    assertThat(converter.computedTravelTimes - initial)
+      .isLessThan(fresh.computedTravelTimes / 2);
+
+    final GlobalStateObject smaller = createPlaneState(snapshot, 5);
+    assertEqualTravelTimes(smaller, converter.toMultiVehicleArrays(smaller));
+    assertEqualTravelTimes(larger, converter.toMultiVehicleArrays(larger));
+  }
+
+  /**
+   * On a graph the travel times follow the shortest paths in the graph.
+   */
+  @Test
+  public void testGraph() {
+    final Point a = new Point(0, 0);
+    final Point b = new Point(10, 0);
+    final Point c = new Point(10, 10);
+    final Graph<LengthData> graph = new TableGraph<>();
+    graph.addConnection(a, b);
+    graph.addConnection(b, c);
+    graph.addConnection(c, a);
+
+    final GlobalStateObject state = GlobalStateObjectBuilder.globalBuilder()
+      .setSnapshot(RoadModelSnapshotTestUtil
+        .createGraphRoadModelSnapshot(graph, SI.KILOMETER))
+      .addVehicle(GlobalStateObjectBuilder.vehicleBuilder()
+        .setLocation(a)
+        .setVehicleDTO(VehicleDTO.builder()
+          .startPosition(a)
+          .speed(60d)
+          .availabilityTimeWindow(DAY)
+          .build())
+        .build())
+      .addAvailableParcel(Parcel.builder(b, c).timeWindows(DAY).build())
+      .buildUnsafe();
+
+    final ArraysObject ao =
+      ArraysConverter.create(SI.SECOND).toSingleVehicleArrays(state);
+    assertThat(ao.location2index).containsExactly(a, b, c, a).inOrder();
+    // 10 km at 60 km/h
+    assertThat(ao.travelTime[0][1]).isEqualTo(600);
+    assertThat(ao.travelTime[1][2]).isEqualTo(600);
+    // 10 * sqrt(2) km
+    assertThat(ao.travelTime[2][3]).isEqualTo(849);
+    // there is no direct connection from c to b
+    assertThat(ao.travelTime[2][1]).isEqualTo(1449);
+    assertThat(ao.travelTime[1][0]).isEqualTo(1449);
+    assertThat(ao.travelTime[3][0]).isEqualTo(0);
+  }
+
+  /**
+   * A vehicle on a connection has to follow that connection to its end, also
+   * when there is a shorter path between the endpoints of the connection.
+   */
+  @Test
+  public void testVehicleOnConnection() {
+    final Point a = new Point(0, 0);
+    final Point b = new Point(10, 0);
+    final Point c = new Point(5, 1);
+    final Graph<LengthData> graph = new TableGraph<>();
+    graph.addConnection(a, b, LengthData.create(30d));
+    graph.addConnection(a, c);
+    graph.addConnection(c, b);
+    graph.addConnection(b, c);
+    graph.addConnection(c, a);
+
+    final GlobalStateObject state = GlobalStateObjectBuilder.globalBuilder()
+      .setSnapshot(RoadModelSnapshotTestUtil
+        .createGraphRoadModelSnapshot(graph, SI.KILOMETER))
+      .addVehicle(GlobalStateObjectBuilder.vehicleBuilder()
+        .setLocation(new Point(5, 0))
+        .setConnection(graph.getConnection(a, b))
+        .setVehicleDTO(VehicleDTO.builder()
+          .startPosition(a)
+          .speed(60d)
+          .availabilityTimeWindow(DAY)
+          .build())
+        .build())
+      .addAvailableParcel(Parcel.builder(b, c).timeWindows(DAY).build())
+      .buildUnsafe();
+
+    final ArraysObject ao =
+      ArraysConverter.create(SI.SECOND).toSingleVehicleArrays(state);
+    assertThat(ao.location2index.get(1)).isEqualTo(b);
+    // the remaining 15 km of the connection at 60 km/h
+    assertThat(ao.travelTime[0][1]).isEqualTo(900);
+    // followed by sqrt(26) km from b to c
+    assertThat(ao.travelTime[0][2]).isEqualTo(1206);
+  }
+
+  static void assertEqualTravelTimes(GlobalStateObject state,
+      MVArraysObject actual) {
+    final MVArraysObject expected =
+      ArraysSolvers.toMultiVehicleArrays(state, SI.SECOND);
+    assertThat(actual.location2index).isEqualTo(expected.location2index);
+    assertThat(actual.travelTime).isEqualTo(expected.travelTime);
+    assertThat(actual.vehicleTravelTimes)
+      .isEqualTo(expected.vehicleTravelTimes);
+  }
+
+  static GlobalStateObject createPlaneState(RoadModelSnapshot snapshot,
+      int numParcels) {
+    final GlobalStateObjectBuilder builder = GlobalStateObjectBuilder
+      .globalBuilder()
+      .setSnapshot(snapshot);
+    for (int v = 0; v < 2; v++) {
+      builder.addVehicle(GlobalStateObjectBuilder.vehicleBuilder()
+        .setLocation(new Point(5, 5 - v))
+        .setVehicleDTO(VehicleDTO.builder()
+          .startPosition(new Point(5, 5))
+          .speed(50d)
+          .availabilityTimeWindow(DAY)
+          .build())
+        .build());
+    }
+    for (int i = 0; i < numParcels; i++) {
+      builder.addAvailableParcel(
+        Parcel.builder(new Point(i % 4 * 3, i / 4 * 3),
+          new Point(10 - i, i % 3 * 4))
+          .timeWindows(DAY)
+          .build());
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.central.rt;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.central.GlobalStateObject;
+import com.github.rinde.rinsim.central.GlobalStateObjectBuilder;
+import com.github.rinde.rinsim.central.LocalSearchSolver;
+import com.github.rinde.rinsim.central.SolverValidator;
+import com.github.rinde.rinsim.central.rt.RtAnytimeSolver.TickBudget;
+import com.github.rinde.rinsim.core.model.pdp.Parcel;
+import com.github.rinde.rinsim.core.model.pdp.VehicleDTO;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.TimeWindow;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests for {@link RtAnytimeSolver}.
+ * @author Rinde van Lon
+ */
+public class RtAnytimeSolverTest {
+
+  /**
+   * Published schedules must be strictly improving, the last one is a local
+   * optimum. A snapshot with the routes of the optimum is warm started from
+   * these routes.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testPublishAndWarmStart() throws InterruptedException {
+    final LocalSearchSolver solver =
+      LocalSearchSolver.builder().withThreads(1).build();
+    final RecordingScheduler scheduler = new RecordingScheduler();
+    final RealtimeSolver rts = RtAnytimeSolver.builder()
+      .withTickLength(100)
+      .withTickBudget(100)
+      .build(solver);
+    rts.init(scheduler);
+
+    final GlobalStateObject state = createState();
+    rts.problemChanged(state);
+    assertThat(rts.isComputing()).isFalse();
+    assertThat(scheduler.doneForNowCalls).isEqualTo(1);
+    assertThat(scheduler.schedules).isNotEmpty();
+    double cost = Double.POSITIVE_INFINITY;
+    for (final ImmutableList<ImmutableList<Parcel>> schedule
+      : scheduler.schedules) {
+      SolverValidator.validateOutputs(schedule, state);
+      final double c = solver.computeCost(state, schedule);
+      assertThat(c).isLessThan(cost);
+      cost = c;
+    }
+    final ImmutableList<ImmutableList<Parcel>> optimum =
+      scheduler.getCurrentSchedule();
+    assertThat(optimum).isEqualTo(solver.solve(state));
+
+    scheduler.schedules.clear();
+    rts.problemChanged(state.withRoutes(optimum));
+    assertThat(scheduler.schedules).containsExactly(optimum);
+    assertThat(scheduler.doneForNowCalls).isEqualTo(2);
+  }
+
+  /**
+   * The budget sleeps until the end of the period when it is used up.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testTickBudget() throws InterruptedException {
+    final long start = System.nanoTime();
+    final TickBudget budget = new TickBudget(50, 10);
+    budget.await();
+    assertThat(System.nanoTime() - start)
+      .isLessThan(TimeUnit.MILLISECONDS.toNanos(10));
+    Thread.sleep(15);
+    budget.await();
+    assertThat(System.nanoTime() - start)
+      .isAtLeast(TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  /**
+   * The budget can not exceed the tick length.
+   */
+  @Test
+  public void testInvalidBudget() {
+    try {
+      RtAnytimeSolver.builder()
+        .withTickLength(10)
+        .withTickBudget(20)
+        .build(LocalSearchSolver.builder().withThreads(1).build());
+      fail();
+    } catch (final IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("at most the tick length");
+    }
+  }
+
+  /**
+   * A solver that is adapted using {@link RtStAdapters} publishes its
+   * progress.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testAdapterProgress() throws InterruptedException {
+    final LocalSearchSolver solver =
+      LocalSearchSolver.builder().withThreads(1).build();
+    final RecordingScheduler scheduler = new RecordingScheduler();
+    final RealtimeSolver rts = RtStAdapters.toRealtime(solver);
+    rts.init(scheduler);
+
+    final GlobalStateObject state = createState();
+    rts.problemChanged(state);
+    assertThat(scheduler.doneForNowCalls).isEqualTo(1);
+    assertThat(scheduler.schedules.size()).isGreaterThan(2);
+    assertThat(scheduler.schedules.get(0)).isEqualTo(solver.construct(state));
+    assertThat(scheduler.getCurrentSchedule()).isEqualTo(solver.solve(state));
+  }
+
+  /**
+   * Cancelling an adapted solver cancels its context, which ends the sleep of
+   * a {@link SleepySolver} right away.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testAdapterCancel() throws InterruptedException {
+    final ListeningExecutorService executor = MoreExecutors
+      .listeningDecorator(Executors.newSingleThreadExecutor());
+    final RecordingScheduler scheduler = new RecordingScheduler(executor);
+    final RealtimeSolver rts = RtStAdapters.toRealtime(SleepySolver.create(
+      TimeUnit.MINUTES.toMillis(1),
+      LocalSearchSolver.builder().withThreads(1).build()));
+    rts.init(scheduler);
+    rts.problemChanged(createState());
+    assertThat(rts.isComputing()).isTrue();
+    rts.cancel();
+    assertThat(rts.isComputing()).isFalse();
+    assertThat(scheduler.doneForNowCalls).isEqualTo(1);
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(scheduler.schedules).isEmpty();
+  }
+
+  static GlobalStateObject createState() {
+    final GlobalStateObjectBuilder builder = GlobalStateObjectBuilder
+      .globalBuilder()
+      .setPlaneTravelTimes(new Point(0, 0), new Point(10, 10));
+    for (int v = 0; v < 2; v++) {
+      builder.addVehicle(GlobalStateObjectBuilder.vehicleBuilder()
+        .setLocation(new Point(5, 5))
+        .setVehicleDTO(VehicleDTO.builder()
+          .startPosition(new Point(5, 5))
+          .speed(50d)
+          .availabilityTimeWindow(TimeWindow.create(0, 8 * 60 * 60 * 1000L))
+          .build())
+        .build());
+    }
+    for (int i = 0; i < 8; i++) {
+      builder.addAvailableParcel(
+        Parcel.builder(new Point(i % 4 * 3, i / 4 * 7),
+          new Point(10 - i, i % 3 * 4)).build());
+    }
+    return builder.build();
+  }
+
+  static class RecordingScheduler extends Scheduler {
+    final List<ImmutableList<ImmutableList<Parcel>>> schedules;
+    final ListeningExecutorService executor;
+    int doneForNowCalls;
+
+    RecordingScheduler() {
+      this(MoreExecutors.newDirectExecutorService());
+    }
+
+    RecordingScheduler(ListeningExecutorService exec) {
+      schedules = new ArrayList<>();
+      executor = exec;
+    }
+
+    @Override
+    public void updateSchedule(GlobalStateObject state,
+        ImmutableList<ImmutableList<Parcel>> routes) {
+      schedules.add(routes);
+    }
+
+    @Override
+    public ImmutableList<ImmutableList<Parcel>> getCurrentSchedule() {
+      return schedules.get(schedules.size() - 1);
+    }
+
+    @Override
+    public void doneForNow() {
+      doneForNowCalls++;
+    }
+
+    @Override
+    public ListeningExecutorService getSharedExecutor() {
+      return executor;
+    }
+
+    @Override
+    public void reportException(Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 
 import org.junit.Test;
 
+import com.github.rinde.rinsim.central.LocalSearchSolver;
 import com.github.rinde.rinsim.central.RandomSolver;
 import com.github.rinde.rinsim.central.rt.RtCentral.VehicleChecker;
 import com.github.rinde.rinsim.core.Simulator;
@@ -57,11 +58,78 @@ public class RtCentralTest {
    */
   @Test
   public void testConfig() {
+    final ExperimentResults er = Experiment.builder()
+      .addScenario(createScenario())
+      .withThreads(1)
+      .addConfiguration(
+        RtCentral.solverConfigurationAdapt(RandomSolver.supplier(), ""))
+      .usePostProcessor(PostProcessors
+        .statisticsPostProcessor(Gendreau06ObjectiveFunction.instance()))
+      .perform();
+
+    final double objVal = Gendreau06ObjectiveFunction.instance()
+      .computeCost(
+        (StatisticsDTO) er.getResults().asList().get(0).getResultObject());
+    assertThat(objVal).isWithin(0.0001).of(495.4718);
+  }
+
+  /**
+   * Tests that {@link RtLocalSearchSolver} delivers all parcels and performs
+   * better than the random solver.
+   */
+  @Test
+  public void testLocalSearchSolver() {
+    final ExperimentResults er = Experiment.builder()
+      .addScenario(createScenario())
+      .withThreads(1)
+      .addConfiguration(RtCentral.solverConfiguration(
+        RtLocalSearchSolver.supplier(
+          LocalSearchSolver.builder().withThreads(2)),
+        ""))
+      .usePostProcessor(PostProcessors
+        .statisticsPostProcessor(Gendreau06ObjectiveFunction.instance()))
+      .perform();
+
+    final StatisticsDTO stats =
+      (StatisticsDTO) er.getResults().asList().get(0).getResultObject();
+    assertThat(stats.totalDeliveries).isEqualTo(stats.totalParcels);
+    assertThat(Gendreau06ObjectiveFunction.instance().computeCost(stats))
+      .isLessThan(495.4718);
+  }
+
+  /**
+   * Tests that {@link RtAnytimeSolver} delivers all parcels and performs better
+   * than the random solver.
+   */
+  @Test
+  public void testAnytimeSolver() {
+    final ExperimentResults er = Experiment.builder()
+      .addScenario(createScenario())
+      .withThreads(1)
+      .addConfiguration(RtCentral.solverConfiguration(
+        RtAnytimeSolver.builder()
+          .withTickLength(100)
+          .withTickBudget(50)
+          .buildSupplier(LocalSearchSolver.builder().withThreads(2)
+            .buildSupplier()),
+        ""))
+      .usePostProcessor(PostProcessors
+        .statisticsPostProcessor(Gendreau06ObjectiveFunction.instance()))
+      .perform();
+
+    final StatisticsDTO stats =
+      (StatisticsDTO) er.getResults().asList().get(0).getResultObject();
+    assertThat(stats.totalDeliveries).isEqualTo(stats.totalParcels);
+    assertThat(Gendreau06ObjectiveFunction.instance().computeCost(stats))
+      .isLessThan(495.4718);
+  }
+
+  static Scenario createScenario() {
     final List<TimedEvent> events = Gendreau06Parser.parse(
       new File("../scenario-util/files/test/gendreau06/req_rapide_1_240_24"))
       .getEvents().subList(0, 20);
 
-    final Scenario s = Scenario.builder(Gendreau06Parser.parse(
+    return Scenario.builder(Gendreau06Parser.parse(
       new File("../scenario-util/files/test/gendreau06/req_rapide_1_240_24")))
       .removeModelsOfType(TimeModel.AbstractBuilder.class)
       .addModel(TimeModel.builder()
@@ -71,20 +139,6 @@ public class RtCentralTest {
       .addEvents(events)
       .addEvent(TimeOutEvent.create(3 * 60 * 60 * 1000))
       .build();
-
-    final ExperimentResults er = Experiment.builder()
-      .addScenario(s)
-      .withThreads(1)
-      .addConfiguration(
-        RtCentral.solverConfigurationAdapt(RandomSolver.supplier(), ""))
-      .usePostProcessor(PostProcessors
-        .statisticsPostProcessor(Gendreau06ObjectiveFunction.instance()))
-      .perform();
-
-    final double objVal = Gendreau06ObjectiveFunction.instance()
-      .computeCost(
-        (StatisticsDTO) er.getResults().asList().get(0).getResultObject());
-    assertThat(objVal).isWithin(0.0001).of(495.4718);
   }
 
   /**
@@ -19,15 +19,17 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
-import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.github.rinde.rinsim.core.model.Model.AbstractModel;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 
@@ -47,6 +49,9 @@ import com.google.common.collect.ImmutableSetMultimap;
 public final class ModelManager implements ModelProvider {
   private final ImmutableSet<Model<?>> models;
   private final ImmutableSetMultimap<Class<?>, Model<?>> registry;
+  // the models are fixed after construction, therefore the target models of
+  // a class never change once they are resolved
+  private final ConcurrentMap<Class<?>, ImmutableList<Model<?>>> targetModels;
   private final Optional<UserInterface> userInterface;
 
   @SuppressWarnings("unchecked")
@@ -78,6 +83,7 @@ public final class ModelManager implements ModelProvider {
     }
 
     registry = builder.build();
+    targetModels = new ConcurrentHashMap<>();
     for (final Model<?> m : models) {
       doRegister(m);
     }
@@ -86,19 +92,37 @@ public final class ModelManager implements ModelProvider {
   @SuppressWarnings("unchecked")
   <T> boolean doRegister(T object) {
     boolean success = false;
-    final Set<Class<?>> modelSupportedTypes = registry.keySet();
-    for (final Class<?> modelSupportedType : modelSupportedTypes) {
-      if (modelSupportedType.isAssignableFrom(object.getClass())) {
-        final Collection<Model<?>> assignableModels = registry
-          .get(modelSupportedType);
-        for (final Model<?> m : assignableModels) {
-          success |= ((Model<T>) m).register(object);
-        }
-      }
+    for (final Model<?> m : getTargetModels(object.getClass())) {
+      success |= ((Model<T>) m).register(object);
     }
     return success;
   }
 
+  /**
+   * Resolves the models that support the specified class, the result is
+   * computed once per class.
+   * @param clazz The class of the objects to (un)register.
+   * @return The models whose supported type is assignable from the class, in
+   *         registry order.
+   */
+  ImmutableList<Model<?>> getTargetModels(Class<?> clazz) {
+    final ImmutableList<Model<?>> cached = targetModels.get(clazz);
+    if (cached != null) {
+      return cached;
+    }
+    final ImmutableList.Builder<Model<?>> builder = ImmutableList.builder();
+    for (final Class<?> modelSupportedType : registry.keySet()) {
+      if (modelSupportedType.isAssignableFrom(clazz)) {
+        builder.addAll(registry.get(modelSupportedType));
+      }
+    }
+    final ImmutableList<Model<?>> resolved = builder.build();
+    // concurrent resolutions of the same class have equal results
+    final ImmutableList<Model<?>> previous =
+      targetModels.putIfAbsent(clazz, resolved);
+    return previous == null ? resolved : previous;
+  }
+
   /**
    * Registers the given object.
    * @param object The object to register.
@@ -131,16 +155,8 @@ public final class ModelManager implements ModelProvider {
   public <T> void unregister(T object) {
     checkArgument(!(object instanceof Model), "can not unregister a model");
     boolean result = false;
-    final Set<Class<?>> modelSupportedTypes = registry.keySet();
-    for (final Class<?> modelSupportedType : modelSupportedTypes) {
-      // check if object is from a known type
-      if (modelSupportedType.isAssignableFrom(object.getClass())) {
-        final Collection<Model<?>> assignableModels = registry
-          .get(modelSupportedType);
-        for (final Model<?> m : assignableModels) {
-          result |= ((Model<T>) m).unregister(object);
-        }
-      }
+    for (final Model<?> m : getTargetModels(object.getClass())) {
+      result |= ((Model<T>) m).unregister(object);
     }
     checkArgument(result, "Object %s with type %s can not be unregistered.",
       object, object.getClass());
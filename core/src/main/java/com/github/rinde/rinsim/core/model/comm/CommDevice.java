@@ -23,9 +23,13 @@ import static com.google.common.base.Verify.verifyNotNull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.annotation.Nullable;
 
+import org.apache.commons.math3.random.RandomGenerator;
+
 import com.github.rinde.rinsim.geom.Point;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Optional;
@@ -47,10 +51,15 @@ public final class CommDevice {
   private final CommUser user;
   private final double reliability;
   private final Optional<Double> maxRange;
+  private final int latency;
+  private final Optional<Integer> bandwidth;
   private final Predicate<CommUser> rangePredicate;
 
   private final List<Message> unreadMessages;
   private final List<Message> outbox;
+  // only used in parallel delivery
+  private final Queue<Delivery> inbox;
+  private Optional<RandomGenerator> senderRandomGenerator;
   private int receivedCount;
   private boolean registered;
 
@@ -59,6 +68,8 @@ public final class CommDevice {
     user = builder.user;
     reliability = builder.deviceReliability;
     maxRange = builder.deviceMaxRange;
+    latency = builder.deviceLatency;
+    bandwidth = builder.deviceBandwidth;
     if (maxRange.isPresent()) {
       rangePredicate = new RangePredicate(user, maxRange.get());
     } else {
@@ -66,6 +77,8 @@ public final class CommDevice {
     }
     unreadMessages = new ArrayList<>();
     outbox = new ArrayList<>();
+    inbox = new ConcurrentLinkedQueue<>();
+    senderRandomGenerator = Optional.absent();
     receivedCount = 0;
     model.addDevice(this, user);
     registered = true;
@@ -92,6 +105,9 @@ public final class CommDevice {
    * @return An immutable list of {@link Message}s.
    */
   public ImmutableList<Message> getUnreadMessages() {
+    if (unreadMessages.isEmpty()) {
+      return ImmutableList.of();
+    }
     final ImmutableList<Message> msgs = ImmutableList.copyOf(unreadMessages);
     unreadMessages.clear();
     return msgs;
@@ -112,6 +128,22 @@ public final class CommDevice {
     return maxRange;
   }
 
+  /**
+   * @return The latency of this device in ticks, see
+   *         {@link CommDeviceBuilder#setLatency(int)}.
+   */
+  public int getLatency() {
+    return latency;
+  }
+
+  /**
+   * @return The maximum number of messages that this device sends per tick,
+   *         or {@link Optional#absent()} if the bandwidth is unlimited.
+   */
+  public Optional<Integer> getBandwidth() {
+    return bandwidth;
+  }
+
   /**
    * Attempts to send a message with the specified contents to the specified
    * recipient. The actual sending of a message is done at the end of the
@@ -217,12 +249,65 @@ public final class CommDevice {
   }
 
   void sendMessages() {
-    if (!getMaxRange().isPresent() || user.getPosition().isPresent()) {
-      for (final Message msg : outbox) {
-        model.send(msg, reliability);
+    if (canSend()) {
+      final int n = numSendable();
+      for (int i = 0; i < n; i++) {
+        model.send(outbox.get(i), this);
       }
-      clearOutbox();
+      removeSent(n);
+    }
+  }
+
+  // the number of messages at the head of the outbox that can be sent in the
+  // current tick
+  int numSendable() {
+    if (bandwidth.isPresent()) {
+      return Math.min(bandwidth.get(), outbox.size());
+    }
+    return outbox.size();
+  }
+
+  void removeSent(int n) {
+    if (n == outbox.size()) {
+      outbox.clear();
+    } else {
+      outbox.subList(0, n).clear();
+    }
+  }
+
+  boolean canSend() {
+    return !getMaxRange().isPresent() || user.getPosition().isPresent();
+  }
+
+  // may be called concurrently by different senders
+  void post(int senderIndex, Message m, int linkLatency) {
+    inbox.add(new Delivery(senderIndex, m, linkLatency));
+  }
+
+  // messages of a single sender are posted by the same thread, sorting by
+  // sender is therefore sufficient to restore the sequential order
+  void receiveInbox() {
+    if (inbox.isEmpty()) {
+      return;
     }
+    final List<Delivery> deliveries = new ArrayList<>(inbox);
+    inbox.clear();
+    Collections.sort(deliveries);
+    for (final Delivery d : deliveries) {
+      model.deliver(this, d.message, d.latency);
+    }
+  }
+
+  boolean hasSenderRandomGenerator() {
+    return senderRandomGenerator.isPresent();
+  }
+
+  void setSenderRandomGenerator(RandomGenerator rng) {
+    senderRandomGenerator = Optional.of(rng);
+  }
+
+  RandomGenerator getSenderRandomGenerator() {
+    return senderRandomGenerator.get();
   }
 
   void unregister() {
@@ -276,4 +361,21 @@ public final class CommDevice {
       return false;
     }
   }
+
+  static final class Delivery implements Comparable<Delivery> {
+    final int senderIndex;
+    final Message message;
+    final int latency;
+
+    Delivery(int index, Message m, int l) {
+      senderIndex = index;
+      message = m;
+      latency = l;
+    }
+
+    @Override
+    public int compareTo(@Nullable Delivery o) {
+      return Integer.compare(senderIndex, verifyNotNull(o).senderIndex);
+    }
+  }
 }
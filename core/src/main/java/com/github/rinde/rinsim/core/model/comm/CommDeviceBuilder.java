@@ -31,6 +31,8 @@ public final class CommDeviceBuilder {
   final CommModel model;
   double deviceReliability;
   Optional<Double> deviceMaxRange;
+  int deviceLatency;
+  Optional<Integer> deviceBandwidth;
   private boolean used;
 
   CommDeviceBuilder(CommModel m, CommUser u) {
@@ -39,6 +41,8 @@ public final class CommDeviceBuilder {
     used = false;
     deviceReliability = model.getDefaultReliability();
     deviceMaxRange = model.getDefaultMaxRange();
+    deviceLatency = model.getDefaultLatency();
+    deviceBandwidth = model.getDefaultBandwidth();
   }
 
   /**
@@ -66,6 +70,33 @@ public final class CommDeviceBuilder {
     return this;
   }
 
+  /**
+   * Sets the latency of the device to be constructed in ticks. A message is
+   * delivered after the maximum of the latencies of the sending and the
+   * receiving device, a latency of <code>0</code> means that messages are
+   * delivered at the end of the tick in which they are sent.
+   * @param ticks The latency to set, must be non-negative.
+   * @return This, as per the builder pattern.
+   */
+  public CommDeviceBuilder setLatency(int ticks) {
+    CommModel.checkLatency(ticks);
+    deviceLatency = ticks;
+    return this;
+  }
+
+  /**
+   * Sets the bandwidth of the device to be constructed, this is the maximum
+   * number of messages that the device sends per tick. Messages that exceed
+   * the bandwidth stay in the outbox until a later tick.
+   * @param messagesPerTick The bandwidth to set, must be positive.
+   * @return This, as per the builder pattern.
+   */
+  public CommDeviceBuilder setBandwidth(int messagesPerTick) {
+    CommModel.checkBandwidth(messagesPerTick);
+    deviceBandwidth = Optional.of(messagesPerTick);
+    return this;
+  }
+
   /**
    * @return A new {@link CommDevice} instance.
    */
@@ -18,11 +18,18 @@ package com.github.rinde.rinsim.core.model.comm;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.apache.commons.math3.random.RandomGenerator;
 
@@ -36,12 +43,17 @@ import com.github.rinde.rinsim.core.model.time.TimeLapse;
 import com.github.rinde.rinsim.event.Event;
 import com.github.rinde.rinsim.event.EventAPI;
 import com.github.rinde.rinsim.event.EventDispatcher;
+import com.github.rinde.rinsim.util.ForkJoinPools;
 import com.github.rinde.rinsim.util.LinkedHashBiMap;
+import com.github.rinde.rinsim.util.SplitMix64;
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * This model supports sending messages between {@link CommUser}s. A
@@ -57,6 +69,13 @@ import com.google.common.collect.Maps;
  * <li><i>Dependency:</i> {@link RandomProvider}.</li>
  * </ul>
  * See {@link ModelBuilder} for more information about model properties.
+ * <p>
+ * By default all messages are delivered sequentially at the end of each tick.
+ * Alternatively, messages can be delivered in parallel, see
+ * {@link Builder#withParallelDelivery(int)}. Optionally, devices can have a
+ * latency and a bandwidth, see {@link Builder#withDefaultDeviceLatency(int)}
+ * and {@link Builder#withDefaultDeviceBandwidth(int)}. Messages that are in
+ * transit are kept in a {@link TimingWheel} keyed by their delivery tick.
  * @author Rinde van Lon
  */
 public final class CommModel extends AbstractModel<CommUser>
@@ -85,16 +104,26 @@ public final class CommModel extends AbstractModel<CommUser>
 
   private final double defaultReliability;
   private final Optional<Double> defaultMaxRange;
+  private final int defaultLatency;
+  private final Optional<Integer> defaultBandwidth;
   private final BiMap<CommUser, CommDevice> usersDevices;
   private ImmutableBiMap<CommUser, CommDevice> usersDevicesSnapshot;
   private final RandomGenerator randomGenerator;
   private final BiMap<CommUser, CommDevice> unregisteredUsersDevices;
   private boolean usersHasChanged;
   private final EventDispatcher eventDispatcher;
+  private final Optional<ExecutorService> deliveryExecutor;
+  private final int deliveryShards;
+  private final long deviceStreamSeed;
+  private long deviceCount;
+  private final TimingWheel<Entry<CommDevice, Message>> inTransit;
 
   CommModel(RandomGenerator rng, Builder b) {
     defaultReliability = b.defaultReliability();
     defaultMaxRange = b.defaultMaxRange();
+    defaultLatency = b.defaultLatency();
+    defaultBandwidth = b.defaultBandwidth();
+    inTransit = new TimingWheel<>();
     usersHasChanged = false;
     usersDevices = Maps.synchronizedBiMap(
       LinkedHashBiMap.<CommUser, CommDevice>create());
@@ -102,6 +131,22 @@ public final class CommModel extends AbstractModel<CommUser>
     usersDevicesSnapshot = ImmutableBiMap.of();
     eventDispatcher = new EventDispatcher(EventTypes.values());
     randomGenerator = rng;
+    deviceCount = 0L;
+    if (b.deliveryThreads() == 0) {
+      deliveryExecutor = Optional.absent();
+      deliveryShards = 0;
+      deviceStreamSeed = 0L;
+    } else {
+      if (b.deliveryThreads() == 1) {
+        deliveryExecutor = Optional.<ExecutorService>of(
+          MoreExecutors.newDirectExecutorService());
+      } else {
+        deliveryExecutor = Optional.<ExecutorService>of(
+          ForkJoinPools.shared(b.deliveryThreads()));
+      }
+      deliveryShards = b.deliveryThreads() * Builder.SHARDS_PER_THREAD;
+      deviceStreamSeed = rng.nextLong();
+    }
   }
 
   /**
@@ -175,6 +220,31 @@ public final class CommModel extends AbstractModel<CommUser>
     return defaultMaxRange;
   }
 
+  /**
+   * @return The default latency in ticks for all {@link CommDevice}s in this
+   *         model.
+   */
+  public int getDefaultLatency() {
+    return defaultLatency;
+  }
+
+  /**
+   * @return The default bandwidth in messages per tick for all
+   *         {@link CommDevice}s in this model, or {@link Optional#absent()} if
+   *         there is an unlimited bandwidth by default.
+   */
+  public Optional<Integer> getDefaultBandwidth() {
+    return defaultBandwidth;
+  }
+
+  /**
+   * @return The number of messages that have been sent but that are not yet
+   *         delivered due to latency.
+   */
+  public int getInTransitCount() {
+    return inTransit.size();
+  }
+
   @Override
   @Nonnull
   public <U> U get(Class<U> clazz) {
@@ -187,12 +257,73 @@ public final class CommModel extends AbstractModel<CommUser>
 
   @Override
   public void afterTick(TimeLapse timeLapse) {
+    for (final Entry<CommDevice, Message> entry : inTransit.advance()) {
+      // messages to unregistered devices are lost
+      if (entry.getKey().isRegistered()) {
+        entry.getKey().receive(entry.getValue());
+      }
+    }
+    if (deliveryExecutor.isPresent()) {
+      deliverInParallel();
+      return;
+    }
     final Set<CommDevice> devices = usersDevices.values();
     for (final CommDevice device : devices) {
       device.sendMessages();
     }
   }
 
+  // Senders are partitioned in shards of consecutive devices, each shard
+  // posts the messages of its senders in the inboxes of the recipients. When
+  // all shards are done, each device moves its inbox to its unread messages
+  // ordered by sender.
+  void deliverInParallel() {
+    final ImmutableBiMap<CommUser, CommDevice> devices = getUsersAndDevices();
+    final ImmutableList<CommDevice> senders = devices.values().asList();
+    final int numShards = Math.min(senders.size(), deliveryShards);
+    final List<Callable<Object>> sendTasks = new ArrayList<>();
+    final List<Callable<Object>> receiveTasks = new ArrayList<>();
+    for (int i = 0; i < numShards; i++) {
+      final int from = i * senders.size() / numShards;
+      final int to = (i + 1) * senders.size() / numShards;
+      sendTasks.add(new Callable<Object>() {
+        @Override
+        @Nullable
+        public Object call() {
+          for (int j = from; j < to; j++) {
+            sendInParallel(j, senders.get(j), devices);
+          }
+          return null;
+        }
+      });
+      receiveTasks.add(new Callable<Object>() {
+        @Override
+        @Nullable
+        public Object call() {
+          for (int j = from; j < to; j++) {
+            senders.get(j).receiveInbox();
+          }
+          return null;
+        }
+      });
+    }
+    invokeAll(sendTasks);
+    invokeAll(receiveTasks);
+  }
+
+  void invokeAll(List<Callable<Object>> tasks) {
+    try {
+      for (final Future<Object> f : deliveryExecutor.get().invokeAll(tasks)) {
+        f.get();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (final ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
   /**
    * @return An immutable copy of the bimap containing all {@link CommUser}s and
    *         {@link CommDevice}s.
@@ -207,33 +338,91 @@ public final class CommModel extends AbstractModel<CommUser>
     return usersDevicesSnapshot;
   }
 
-  void send(Message msg, double senderReliability) {
+  void send(Message msg, CommDevice sender) {
     // direct
     if (msg.to().isPresent()) {
       if (usersDevices.containsKey(msg.to().get())) {
         final CommDevice recipient = usersDevices.get(msg.to().get());
-        doSend(msg, msg.to().get(), recipient, senderReliability);
+        doSend(msg, msg.to().get(), recipient, sender);
       }
     } else {
       // broadcast
       for (final Entry<CommUser, CommDevice> entry : usersDevices.entrySet()) {
         if (msg.from() != entry.getKey()) {
-          doSend(msg, entry.getKey(), entry.getValue(), senderReliability);
+          doSend(msg, entry.getKey(), entry.getValue(), sender);
         }
       }
     }
   }
 
   private void doSend(Message msg, CommUser to, CommDevice recipient,
-      double sendReliability) {
+      CommDevice sender) {
 
     if (msg.predicate().apply(to)
-      && hasSucces(sendReliability, recipient.getReliability())) {
+      && hasSucces(sender.getReliability(), recipient.getReliability())) {
+      deliver(recipient, msg, linkLatency(sender, recipient));
+    }
+  }
+
+  // may be called concurrently for different recipients
+  void deliver(CommDevice recipient, Message msg, int latency) {
+    if (latency == 0) {
       recipient.receive(msg);
+    } else {
+      synchronized (inTransit) {
+        inTransit.add(inTransit.getCurrentTick() + latency,
+          Maps.immutableEntry(recipient, msg));
+      }
+    }
+  }
+
+  static int linkLatency(CommDevice sender, CommDevice recipient) {
+    return Math.max(sender.getLatency(), recipient.getLatency());
+  }
+
+  // may be called concurrently for different senders, the state of the model
+  // is only read
+  void sendInParallel(int senderIndex, CommDevice sender,
+      ImmutableBiMap<CommUser, CommDevice> devices) {
+    if (!sender.canSend()) {
+      return;
+    }
+    final List<Message> outbox = sender.getOutbox();
+    final int n = sender.numSendable();
+    for (int i = 0; i < n; i++) {
+      final Message msg = outbox.get(i);
+      if (msg.to().isPresent()) {
+        final CommDevice recipient = devices.get(msg.to().get());
+        if (recipient != null) {
+          post(senderIndex, sender, msg, msg.to().get(), recipient);
+        }
+      } else {
+        for (final Entry<CommUser, CommDevice> entry : devices.entrySet()) {
+          if (msg.from() != entry.getKey()) {
+            post(senderIndex, sender, msg, entry.getKey(), entry.getValue());
+          }
+        }
+      }
+    }
+    sender.removeSent(n);
+  }
+
+  private static void post(int senderIndex, CommDevice sender, Message msg,
+      CommUser to, CommDevice recipient) {
+    if (msg.predicate().apply(to)
+      && hasSucces(sender.getSenderRandomGenerator(), sender.getReliability(),
+        recipient.getReliability())) {
+      recipient.post(senderIndex, msg, linkLatency(sender, recipient));
     }
   }
 
   void addDevice(CommDevice device, CommUser user) {
+    if (deliveryExecutor.isPresent() && !device.hasSenderRandomGenerator()) {
+      // each device draws from its own stream such that the outcome does not
+      // depend on the order in which senders are processed
+      device.setSenderRandomGenerator(SplitMix64.create(
+        SplitMix64.valueAt(deviceStreamSeed, deviceCount++)));
+    }
     usersDevices.put(user, device);
     usersHasChanged = true;
     if (eventDispatcher.hasListenerFor(EventTypes.ADD_COMM_USER)) {
@@ -243,11 +432,15 @@ public final class CommModel extends AbstractModel<CommUser>
   }
 
   boolean hasSucces(double senderReliability, double receiverReliability) {
+    return hasSucces(randomGenerator, senderReliability, receiverReliability);
+  }
+
+  static boolean hasSucces(RandomGenerator rng, double senderReliability,
+      double receiverReliability) {
     if (senderReliability == 1d && receiverReliability == 1d) {
       return true;
     }
-    return randomGenerator.nextDouble() < senderReliability
-      * receiverReliability;
+    return rng.nextDouble() < senderReliability * receiverReliability;
   }
 
   /**
@@ -266,6 +459,16 @@ public final class CommModel extends AbstractModel<CommUser>
     checkArgument(maxRange >= 0d);
   }
 
+  static void checkLatency(int latency) {
+    checkArgument(latency >= 0, "Latency must be non-negative, found %s.",
+      latency);
+  }
+
+  static void checkBandwidth(int bandwidth) {
+    checkArgument(bandwidth > 0, "Bandwidth must be positive, found %s.",
+      bandwidth);
+  }
+
   /**
    * A builder for creating a {@link CommModel}.
    * @author Rinde van Lon
@@ -273,6 +476,7 @@ public final class CommModel extends AbstractModel<CommUser>
   @AutoValue
   public abstract static class Builder
       extends AbstractModelBuilder<CommModel, CommUser> {
+    static final int SHARDS_PER_THREAD = 4;
     private static final long serialVersionUID = -6598454973114403967L;
     private static final double DEFAULT_RELIABILITY = 1d;
 
@@ -283,13 +487,19 @@ public final class CommModel extends AbstractModel<CommUser>
 
     static Builder create() {
       return new AutoValue_CommModel_Builder(DEFAULT_RELIABILITY,
-        Optional.<Double>absent());
+        Optional.<Double>absent(), 0, Optional.<Integer>absent(), 0);
     }
 
     abstract double defaultReliability();
 
     abstract Optional<Double> defaultMaxRange();
 
+    abstract int defaultLatency();
+
+    abstract Optional<Integer> defaultBandwidth();
+
+    abstract int deliveryThreads();
+
     /**
      * Returns a copy of this builder with the reliability of the device to be
      * constructed set to the specified value. The reliability is applied for
@@ -302,7 +512,8 @@ public final class CommModel extends AbstractModel<CommUser>
     @CheckReturnValue
     public Builder withDefaultDeviceReliability(double reliability) {
       checkReliability(reliability);
-      return new AutoValue_CommModel_Builder(reliability, defaultMaxRange());
+      return new AutoValue_CommModel_Builder(reliability, defaultMaxRange(),
+        defaultLatency(), defaultBandwidth(), deliveryThreads());
     }
 
     /**
@@ -317,7 +528,71 @@ public final class CommModel extends AbstractModel<CommUser>
     public Builder withDefaultDeviceMaxRange(double maxRange) {
       checkMaxRange(maxRange);
       return new AutoValue_CommModel_Builder(defaultReliability(),
-        Optional.of(maxRange));
+        Optional.of(maxRange), defaultLatency(), defaultBandwidth(),
+        deliveryThreads());
+    }
+
+    /**
+     * Returns a copy of this builder with the default latency for all devices
+     * set to the specified number of ticks. A message is delivered after the
+     * maximum of the latencies of the sending and the receiving device. The
+     * reliability and range are evaluated at the moment of sending, a message
+     * is lost when its recipient is unregistered at the moment of delivery.
+     * The default latency is <code>0</code>, which means that messages are
+     * delivered at the end of the tick in which they are sent.
+     * @param ticks The latency to set, must be non-negative.
+     * @return A new instance of {@link Builder} with latency set to the
+     *         specified value.
+     */
+    @CheckReturnValue
+    public Builder withDefaultDeviceLatency(int ticks) {
+      checkLatency(ticks);
+      return new AutoValue_CommModel_Builder(defaultReliability(),
+        defaultMaxRange(), ticks, defaultBandwidth(), deliveryThreads());
+    }
+
+    /**
+     * Returns a copy of this builder with the default bandwidth for all
+     * devices set to the specified number of messages per tick. A broadcast
+     * counts as a single message. Messages that exceed the bandwidth of a
+     * device stay in its outbox until a later tick. By default the bandwidth
+     * is unlimited.
+     * @param messagesPerTick The bandwidth to set, must be positive.
+     * @return A new instance of {@link Builder} with bandwidth set to the
+     *         specified value.
+     */
+    @CheckReturnValue
+    public Builder withDefaultDeviceBandwidth(int messagesPerTick) {
+      checkBandwidth(messagesPerTick);
+      return new AutoValue_CommModel_Builder(defaultReliability(),
+        defaultMaxRange(), defaultLatency(), Optional.of(messagesPerTick),
+        deliveryThreads());
+    }
+
+    /**
+     * Returns a copy of this builder that constructs a model that delivers
+     * messages in parallel using the specified number of threads. The senders
+     * are partitioned among the threads, messages are collected in the inbox
+     * of each recipient and are added to its unread messages in the order of
+     * registration of their senders. Consequently, the unread messages of a
+     * device are in the same order as in sequential delivery.
+     * <p>
+     * The reliability of each device is drawn from its own random stream. As
+     * a result, delivery is deterministic and independent of the number of
+     * threads, it does however differ from sequential delivery when devices
+     * are unreliable. Note that in parallel delivery
+     * {@link CommUser#getPosition()} may be called concurrently and must
+     * therefore be thread safe. By default messages are delivered
+     * sequentially.
+     * @param threads The number of threads, must be positive.
+     * @return A new instance of {@link Builder} with parallel delivery.
+     */
+    @CheckReturnValue
+    public Builder withParallelDelivery(int threads) {
+      checkArgument(threads > 0, "Number of threads must be positive, found %s.",
+        threads);
+      return new AutoValue_CommModel_Builder(defaultReliability(),
+        defaultMaxRange(), defaultLatency(), defaultBandwidth(), threads);
     }
 
     @Override
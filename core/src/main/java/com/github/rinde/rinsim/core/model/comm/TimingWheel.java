@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.comm;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A hierarchical timing wheel that stores items by the tick at which they are
+ * due. Each level consists of {@link #SLOTS} slots, a slot at level
+ * <code>l</code> spans <code>SLOTS<sup>l</sup></code> ticks. An item is
+ * stored at the level of the highest group of bits in which its tick differs
+ * from the current tick, when the current tick reaches the start of the span
+ * of a slot the items in that slot are moved to a lower level. Adding an item
+ * takes constant time, and since an item moves down at most once per level
+ * removing all due items takes amortized constant time per item.
+ * <p>
+ * Items that are due at the same tick are returned in the order in which they
+ * were added. Instances are not thread safe.
+ * @author Rinde van Lon
+ * @param <T> The type of items.
+ */
+final class TimingWheel<T> {
+  static final int SLOT_BITS = 6;
+  static final int SLOTS = 1 << SLOT_BITS;
+  static final int MASK = SLOTS - 1;
+  static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+  // slots are created lazily
+  private final List<List<List<Timer<T>>>> levels;
+  private long currentTick;
+  private int size;
+
+  TimingWheel() {
+    levels = new ArrayList<>(LEVELS);
+    for (int i = 0; i < LEVELS; i++) {
+      final List<List<Timer<T>>> slots = new ArrayList<>(SLOTS);
+      for (int j = 0; j < SLOTS; j++) {
+        slots.add(null);
+      }
+      levels.add(slots);
+    }
+    currentTick = 0L;
+    size = 0;
+  }
+
+  /**
+   * @return The current tick, initially <code>0</code>.
+   */
+  long getCurrentTick() {
+    return currentTick;
+  }
+
+  /**
+   * @return The number of items in this wheel.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds an item that is due at the specified tick.
+   * @param tick The tick, must be later than the current tick.
+   * @param item The item to add.
+   */
+  void add(long tick, T item) {
+    checkArgument(tick > currentTick,
+      "Tick must be later than the current tick (%s), found %s.", currentTick,
+      tick);
+    insert(new Timer<>(tick, item));
+    size++;
+  }
+
+  /**
+   * Advances the current tick by one and removes all items that are due at
+   * the new current tick.
+   * @return The removed items in the order in which they were added.
+   */
+  ImmutableList<T> advance() {
+    currentTick++;
+    // the highest level first, such that cascaded items can be cascaded
+    // further in the same advance
+    for (int level = highestCascadeLevel(); level > 0; level--) {
+      final List<Timer<T>> timers = takeSlot(level, slotIndex(currentTick,
+        level));
+      for (final Timer<T> t : timers) {
+        insert(t);
+      }
+    }
+    final List<Timer<T>> due = takeSlot(0, slotIndex(currentTick, 0));
+    if (due.isEmpty()) {
+      return ImmutableList.of();
+    }
+    final ImmutableList.Builder<T> items = ImmutableList.builder();
+    for (final Timer<T> t : due) {
+      items.add(t.item);
+    }
+    size -= due.size();
+    return items.build();
+  }
+
+  // the highest level at which a slot starts at the current tick
+  private int highestCascadeLevel() {
+    if (currentTick == 0L) {
+      return LEVELS - 1;
+    }
+    return Math.min(LEVELS - 1,
+      Long.numberOfTrailingZeros(currentTick) / SLOT_BITS);
+  }
+
+  private void insert(Timer<T> t) {
+    final long diff = t.tick ^ currentTick;
+    final int level = diff == 0L ? 0
+      : (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+    final int index = slotIndex(t.tick, level);
+    final List<List<Timer<T>>> slots = levels.get(level);
+    List<Timer<T>> slot = slots.get(index);
+    if (slot == null) {
+      slot = new ArrayList<>();
+      slots.set(index, slot);
+    }
+    slot.add(t);
+  }
+
+  private List<Timer<T>> takeSlot(int level, int index) {
+    final List<List<Timer<T>>> slots = levels.get(level);
+    final List<Timer<T>> slot = slots.get(index);
+    if (slot == null || slot.isEmpty()) {
+      return ImmutableList.of();
+    }
+    slots.set(index, new ArrayList<Timer<T>>());
+    return slot;
+  }
+
+  static int slotIndex(long tick, int level) {
+    return (int) (tick >>> (level * SLOT_BITS)) & MASK;
+  }
+
+  static final class Timer<T> {
+    final long tick;
+    final T item;
+
+    Timer(long t, T i) {
+      tick = t;
+      item = i;
+    }
+  }
+}
@@ -16,12 +16,10 @@
 package com.github.rinde.rinsim.core.model.road;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Verify.verifyNotNull;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newLinkedHashMap;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -57,9 +55,11 @@ import com.google.common.collect.Sets;
 public abstract class AbstractRoadModel<T> extends GenericRoadModel {
 
   /**
-   * A mapping of {@link RoadUser} to location.
+   * A mapping of {@link RoadUser} to location. Each road user gets a dense id
+   * when it is added, lookups are lock free. Iterating over this map is done
+   * on a snapshot.
    */
-  protected volatile Map<RoadUser, T> objLocs;
+  protected final Map<RoadUser, T> objLocs;
 
   /**
    * A mapping of {@link MovingRoadUser}s to {@link DestinationPath}s.
@@ -71,6 +71,8 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
    */
   protected final RoadUnits unitConversion;
 
+  private final RoadUserTypeIndex typeIndex;
+
   /**
    * Create a new instance.
    * @param distanceUnit The distance unit used to interpret all supplied
@@ -81,8 +83,9 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
       Unit<Velocity> speedUnit) {
     super();
     unitConversion = new RoadUnits(distanceUnit, speedUnit);
-    objLocs = Collections.synchronizedMap(new LinkedHashMap<RoadUser, T>());
+    objLocs = new DenseLocationMap<>();
     objDestinations = newLinkedHashMap();
+    typeIndex = new RoadUserTypeIndex();
   }
 
   /**
@@ -182,6 +185,7 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
     checkArgument(!objLocs.containsKey(newObj), "Object is already added: %s.",
       newObj);
     objLocs.put(newObj, point2LocObj(pos));
+    typeIndex.add(newObj);
     eventDispatcher.dispatchEvent(new RoadModelEvent(
       RoadEventType.ADD_ROAD_USER, this, newObj));
   }
@@ -193,6 +197,7 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
     checkArgument(objLocs.containsKey(existingObj),
       "Object %s does not exist.", existingObj);
     objLocs.put(newObj, objLocs.get(existingObj));
+    typeIndex.add(newObj);
     eventDispatcher.dispatchEvent(new RoadModelEvent(
       RoadEventType.ADD_ROAD_USER, this, newObj));
   }
@@ -203,6 +208,7 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
       "RoadUser: %s does not exist.", roadUser);
     objLocs.remove(roadUser);
     objDestinations.remove(roadUser);
+    typeIndex.remove(roadUser);
     eventDispatcher.dispatchEvent(new RoadModelEvent(
       RoadEventType.REMOVE_ROAD_USER, this, roadUser));
   }
@@ -211,6 +217,7 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
   public void clear() {
     objLocs.clear();
     objDestinations.clear();
+    typeIndex.clear();
   }
 
   @Override
@@ -220,10 +227,8 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
 
   @Override
   public boolean containsObjectAt(RoadUser obj, Point p) {
-    if (containsObject(obj)) {
-      return objLocs.get(obj).equals(p);
-    }
-    return false;
+    final T loc = objLocs.get(obj);
+    return loc != null && loc.equals(p);
   }
 
   @Override
@@ -234,15 +239,9 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
 
   @Override
   public Map<RoadUser, Point> getObjectsAndPositions() {
-    final Map<RoadUser, T> copiedMap;
-    synchronized (objLocs) {
-      copiedMap = new LinkedHashMap<>();
-      copiedMap.putAll(objLocs);
-      // it is save to release the lock now
-    }
-
+    // the entry set is a snapshot
     final Map<RoadUser, Point> theMap = new LinkedHashMap<>();
-    for (final java.util.Map.Entry<RoadUser, T> entry : copiedMap.entrySet()) {
+    for (final java.util.Map.Entry<RoadUser, T> entry : objLocs.entrySet()) {
       theMap.put(entry.getKey(), locObj2point(entry.getValue()));
     }
     return theMap;
@@ -250,9 +249,9 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
 
   @Override
   public Point getPosition(RoadUser roadUser) {
-    checkArgument(containsObject(roadUser), "RoadUser does not exist: %s.",
-      roadUser);
-    return locObj2point(objLocs.get(roadUser));
+    final T loc = objLocs.get(roadUser);
+    checkArgument(loc != null, "RoadUser does not exist: %s.", roadUser);
+    return locObj2point(loc);
   }
 
   @Override
@@ -262,11 +261,7 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
 
   @Override
   public Set<RoadUser> getObjects() {
-    synchronized (objLocs) {
-      final Set<RoadUser> copy = new LinkedHashSet<>();
-      copy.addAll(objLocs.keySet());
-      return copy;
-    }
+    return new LinkedHashSet<>(objLocs.keySet());
   }
 
   @Override
@@ -274,27 +269,26 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
     return Sets.filter(getObjects(), predicate);
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public <Y extends RoadUser> Set<Y> getObjectsAt(RoadUser roadUser,
       Class<Y> type) {
     final Set<Y> result = new HashSet<>();
-    for (final RoadUser ru : getObjects(new SameLocationPredicate(roadUser,
-      type, self))) {
-      result.add((Y) ru);
+    for (final Y ru : getObjectsOfType(type)) {
+      if (self.equalPosition(ru, roadUser)) {
+        result.add(ru);
+      }
     }
     return result;
   }
 
+  /**
+   * {@inheritDoc} The objects of a type are indexed from the first invocation
+   * for that type onwards, the returned set is an immutable copy in order of
+   * insertion.
+   */
   @Override
-  @SuppressWarnings("unchecked")
   public <Y extends RoadUser> Set<Y> getObjectsOfType(final Class<Y> type) {
-    return (Set<Y>) getObjects(new Predicate<RoadUser>() {
-      @Override
-      public boolean apply(@Nullable RoadUser input) {
-        return type.isInstance(input);
-      }
-    });
+    return typeIndex.get(type, objLocs.keySet());
   }
 
   @Override
@@ -344,26 +338,6 @@ public abstract class AbstractRoadModel<T> extends GenericRoadModel {
     return unitConversion.getExSpeedUnit();
   }
 
-  @SuppressWarnings("null")
-  private static class SameLocationPredicate implements Predicate<RoadUser> {
-    private final RoadUser reference;
-    private final RoadModel model;
-    private final Class<?> type;
-
-    SameLocationPredicate(final RoadUser pReference, final Class<?> pType,
-        final RoadModel pModel) {
-      reference = pReference;
-      type = pType;
-      model = pModel;
-    }
-
-    @Override
-    public boolean apply(@Nullable RoadUser input) {
-      return type.isInstance(input)
-        && model.equalPosition(verifyNotNull(input), reference);
-    }
-  }
-
   /**
    * Simple class for storing destinations and paths leading to them.
    * @author Rinde van Lon
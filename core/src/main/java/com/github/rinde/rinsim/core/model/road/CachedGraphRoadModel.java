@@ -15,25 +15,17 @@
  */
 package com.github.rinde.rinsim.core.model.road;
 
-import static com.google.common.base.Preconditions.checkArgument;
-
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
 
 import com.github.rinde.rinsim.geom.Graph;
 import com.github.rinde.rinsim.geom.Point;
 import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Table;
 import com.google.common.collect.Tables;
 
 /**
  * Special {@link GraphRoadModelImpl} that caches all
- * {@link #getShortestPathTo(Point, Point)} invocations. Further, it keeps track
- * of all {@link RoadUser}s and their types, such that
- * {@link #getObjectsOfType(Class)} is now O(1).
+ * {@link #getShortestPathTo(Point, Point)} invocations.
  *
  * @author Rinde van Lon
  */
@@ -42,12 +34,10 @@ public class CachedGraphRoadModel extends GraphRoadModelImpl {
   // TODO add cache specific unit tests
 
   private Table<Point, Point, List<Point>> pathTable;
-  private final Multimap<Class<?>, RoadUser> classObjectMap;
 
   CachedGraphRoadModel(Graph<?> g, RoadModelBuilders.CachedGraphRMB b) {
     super(g, b);
     pathTable = HashBasedTable.create();
-    classObjectMap = LinkedHashMultimap.create();
   }
 
   /**
@@ -75,40 +65,4 @@ public class CachedGraphRoadModel extends GraphRoadModelImpl {
     pathTable.put(from, to, path);
     return path;
   }
-
-  @Override
-  public void addObjectAt(RoadUser newObj, Point pos) {
-    super.addObjectAt(newObj, pos);
-    classObjectMap.put(newObj.getClass(), newObj);
-  }
-
-  @Override
-  public void addObjectAtSamePosition(RoadUser newObj, RoadUser existingObj) {
-    super.addObjectAtSamePosition(newObj, existingObj);
-    classObjectMap.put(newObj.getClass(), newObj);
-  }
-
-  @Override
-  public void clear() {
-    super.clear();
-    classObjectMap.clear();
-  }
-
-  /**
-   * O(1) using a direct lookup. {@inheritDoc}
-   */
-  @SuppressWarnings("unchecked")
-  @Override
-  public <Y extends RoadUser> Set<Y> getObjectsOfType(final Class<Y> type) {
-    checkArgument(type != null, "type can not be null");
-    final Set<Y> set = new LinkedHashSet<>();
-    set.addAll((Set<Y>) classObjectMap.get(type));
-    return set;
-  }
-
-  @Override
-  public void removeObject(RoadUser o) {
-    super.removeObject(o);
-    classObjectMap.remove(o.getClass(), o);
-  }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.road;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.Nullable;
+
+/**
+ * Map of {@link RoadUser}s to locations that assigns each road user a dense
+ * id. The locations are stored in an array indexed by id, such that lookups
+ * only need the lock free id map and a snapshot of all locations is a bulk
+ * copy of the arrays. Modifications are synchronized, reads are not. The
+ * locations are written using an {@link AtomicReferenceArray} such that
+ * concurrent readers observe a new location of a road user as soon as it is
+ * put. Iteration is in order of insertion and is done on a snapshot, the entry
+ * set does not reflect later modifications.
+ * <p>
+ * Removal leaves an empty slot in the arrays, the arrays are compacted when
+ * more than half of the slots are empty.
+ * @author Rinde van Lon
+ * @param <T> The type of location.
+ */
+final class DenseLocationMap<T> extends AbstractMap<RoadUser, T> {
+  static final int INITIAL_CAPACITY = 16;
+
+  private final ConcurrentMap<RoadUser, Integer> ids;
+  private volatile Slots slots;
+  // the number of used slots, including empty slots of removed road users
+  private volatile int end;
+  private int removed;
+
+  DenseLocationMap() {
+    ids = new ConcurrentHashMap<>();
+    slots = new Slots(INITIAL_CAPACITY);
+    end = 0;
+    removed = 0;
+  }
+
+  @Override
+  public int size() {
+    return ids.size();
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return key != null && ids.containsKey(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  @Nullable
+  public T get(@Nullable Object key) {
+    if (key == null) {
+      return null;
+    }
+    while (true) {
+      final Integer id = ids.get(key);
+      if (id == null) {
+        return null;
+      }
+      final Slots s = slots;
+      final int i = id;
+      if (i < s.users.length && isSame(s.users[i], key)) {
+        final Object loc = s.locations.get(i);
+        if (loc != null) {
+          return (T) loc;
+        }
+      }
+      // the road user was moved by a concurrent compaction or is being
+      // removed, try again
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  @Nullable
+  public synchronized T put(RoadUser key, T value) {
+    checkNotNull(key);
+    checkNotNull(value);
+    final Integer id = ids.get(key);
+    if (id != null) {
+      return (T) slots.locations.getAndSet(id, value);
+    }
+    Slots s = slots;
+    if (end == s.users.length) {
+      s = s.copy(end, s.users.length * 2);
+      slots = s;
+    }
+    s.users[end] = key;
+    s.locations.set(end, value);
+    ids.put(key, end);
+    end++;
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  @Nullable
+  public synchronized T remove(@Nullable Object key) {
+    if (key == null) {
+      return null;
+    }
+    final Integer id = ids.remove(key);
+    if (id == null) {
+      return null;
+    }
+    final Slots s = slots;
+    final Object prev = s.locations.getAndSet(id, null);
+    s.users[id] = null;
+    removed++;
+    if (removed > INITIAL_CAPACITY && removed * 2 > end) {
+      compact();
+    }
+    return (T) prev;
+  }
+
+  @Override
+  public synchronized void clear() {
+    ids.clear();
+    slots = new Slots(INITIAL_CAPACITY);
+    end = 0;
+    removed = 0;
+  }
+
+  @Override
+  public Set<Map.Entry<RoadUser, T>> entrySet() {
+    return Collections.unmodifiableMap(snapshot()).entrySet();
+  }
+
+  /**
+   * @return A copy of this map in order of insertion.
+   */
+  @SuppressWarnings("unchecked")
+  Map<RoadUser, T> snapshot() {
+    // end is read first such that all slots before it are visible
+    final int n = end;
+    final Slots s = slots;
+    final int size = Math.min(n, s.users.length);
+    final RoadUser[] users = Arrays.copyOf(s.users, size);
+    final Map<RoadUser, T> copy = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      final Object loc = s.locations.get(i);
+      if (users[i] != null && loc != null) {
+        copy.put(users[i], (T) loc);
+      }
+    }
+    return copy;
+  }
+
+  // the new slots are published before the ids are updated, concurrent
+  // readers that use an outdated id detect the mismatch and retry
+  private void compact() {
+    final Slots old = slots;
+    final Slots s = new Slots(Math.max(INITIAL_CAPACITY, 2 * ids.size()));
+    int j = 0;
+    for (int i = 0; i < end; i++) {
+      if (old.users[i] != null) {
+        s.users[j] = old.users[i];
+        s.locations.set(j, old.locations.get(i));
+        j++;
+      }
+    }
+    slots = s;
+    end = j;
+    removed = 0;
+    for (int i = 0; i < j; i++) {
+      ids.put(s.users[i], i);
+    }
+  }
+
+  static boolean isSame(@Nullable RoadUser user, Object key) {
+    return user != null && (user == key || user.equals(key));
+  }
+
+  static final class Slots {
+    final RoadUser[] users;
+    final AtomicReferenceArray<Object> locations;
+
+    Slots(int capacity) {
+      users = new RoadUser[capacity];
+      locations = new AtomicReferenceArray<>(capacity);
+    }
+
+    Slots copy(int size, int capacity) {
+      final Slots s = new Slots(capacity);
+      System.arraycopy(users, 0, s.users, 0, size);
+      for (int i = 0; i < size; i++) {
+        s.locations.set(i, locations.get(i));
+      }
+      return s;
+    }
+  }
+}
@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 
+import java.util.List;
 import java.util.Queue;
 
 import javax.measure.Measure;
@@ -233,12 +234,25 @@ public class DynamicGraphRoadModelImpl
   @Override
   public RoadPath getPathTo(Point from, Point to, Unit<Duration> timeUnit,
       Measure<Double, Velocity> speed, GeomHeuristic heuristic) {
+    countPathQuery();
     if (!snapshot.isPresent()) {
       updateSnapshot();
     }
     return snapshot.get().getPathTo(from, to, timeUnit, speed, heuristic);
   }
 
+  @Override
+  public double[][] getTravelTimes(List<Point> from, List<Point> to,
+      Unit<Duration> timeUnit, Measure<Double, Velocity> speed,
+      GeomHeuristic heuristic) {
+    countPathQueries(from.size());
+    if (!snapshot.isPresent()) {
+      updateSnapshot();
+    }
+    return snapshot.get().getTravelTimes(from, to, timeUnit, speed,
+      heuristic);
+  }
+
   @Override
   public Measure<Double, Length> getDistanceOfPath(Iterable<Point> path)
       throws IllegalArgumentException {
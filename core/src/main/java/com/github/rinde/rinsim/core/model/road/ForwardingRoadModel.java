@@ -220,6 +220,13 @@ public class ForwardingRoadModel<T extends GenericRoadModel>
     return delegate().getPathTo(from, to, timeUnit, speed, heuristic);
   }
 
+  @Override
+  public double[][] getTravelTimes(List<Point> from, List<Point> to,
+      Unit<Duration> timeUnit, Measure<Double, Velocity> speed,
+      GeomHeuristic heuristic) {
+    return delegate().getTravelTimes(from, to, timeUnit, speed, heuristic);
+  }
+
   @Override
   public RoadPath getPathTo(MovingRoadUser object, Point destination,
       Unit<Duration> timeUnit, Measure<Double, Velocity> maxSpeed,
@@ -233,6 +240,11 @@ public class ForwardingRoadModel<T extends GenericRoadModel>
     return delegate().getDistanceOfPath(path);
   }
 
+  @Override
+  public long getPathQueryCount() {
+    return delegate().getPathQueryCount();
+  }
+
   @Override
   public EventAPI getEventAPI() {
     return delegate().getEventAPI();
@@ -74,6 +74,7 @@ public abstract class GenericRoadModel extends AbstractModel<RoadUser>
    */
   protected GenericRoadModel self = this;
   private boolean initialized;
+  private long pathQueries;
 
   /**
    * Initializes the model, optionally adding more event types to the
@@ -114,4 +115,29 @@ public abstract class GenericRoadModel extends AbstractModel<RoadUser>
    */
   protected abstract boolean doRegister(RoadUser object);
 
+  /**
+   * Should be called by implementations for every path that is computed, the
+   * number of computed paths is available via {@link #getPathQueryCount()}.
+   */
+  protected final void countPathQuery() {
+    pathQueries++;
+  }
+
+  /**
+   * Should be called by implementations that compute several paths at once.
+   * @param n The number of computed paths.
+   */
+  protected final void countPathQueries(int n) {
+    pathQueries += n;
+  }
+
+  /**
+   * The number of paths that have been computed by this model. The counter is
+   * updated without synchronization, reading it from another thread than the
+   * simulation thread may return a slightly outdated value.
+   * @return The number of computed paths.
+   */
+  public long getPathQueryCount() {
+    return pathQueries;
+  }
 }
@@ -368,6 +368,7 @@ public class GraphRoadModelImpl extends AbstractRoadModel<Loc>
 
   @Override
   public List<Point> getShortestPathTo(Point from, Point to) {
+    countPathQuery();
     final List<Point> path = new ArrayList<>();
     Point start = from;
     if (isOnConnection(from)) {
@@ -402,9 +403,18 @@ public class GraphRoadModelImpl extends AbstractRoadModel<Loc>
   @Override
   public RoadPath getPathTo(Point from, Point to, Unit<Duration> timeUnit,
       Measure<Double, Velocity> speed, GeomHeuristic heuristic) {
+    countPathQuery();
     return snapshot.getPathTo(from, to, timeUnit, speed, heuristic);
   }
 
+  @Override
+  public double[][] getTravelTimes(List<Point> from, List<Point> to,
+      Unit<Duration> timeUnit, Measure<Double, Velocity> speed,
+      GeomHeuristic heuristic) {
+    countPathQueries(from.size());
+    return snapshot.getTravelTimes(from, to, timeUnit, speed, heuristic);
+  }
+
   @Override
   public RoadPath getPathTo(MovingRoadUser object, Point destination,
       Unit<Duration> timeUnit, Measure<Double, Velocity> maxSpeed,
@@ -70,6 +70,14 @@ abstract class GraphRoadModelSnapshot
     return RoadPath.create(path, cost, travelTime);
   }
 
+  @Override
+  public double[][] getTravelTimes(List<Point> from, List<Point> to,
+      Unit<Duration> timeUnit, Measure<Double, Velocity> speed,
+      GeomHeuristic heuristic) {
+    return TravelTimes.compute(getGraph(), from, to, getModelDistanceUnit(),
+      timeUnit, speed, heuristic);
+  }
+
   @Override
   public Measure<Double, Length> getDistanceOfPath(Iterable<Point> path)
       throws IllegalArgumentException {
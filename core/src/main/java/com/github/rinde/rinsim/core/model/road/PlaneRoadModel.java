@@ -194,12 +194,14 @@ public class PlaneRoadModel extends AbstractRoadModel<Point> {
       "to must be within the predefined boundary of the plane, to is %s,"
         + " boundary: min %s, max %s.",
       to, min, max);
+    countPathQuery();
     return asList(from, to);
   }
 
   @Override
   public RoadPath getPathTo(Point from, Point to, Unit<Duration> timeUnit,
       Measure<Double, Velocity> speed, GeomHeuristic heuristic) {
+    countPathQuery();
     return RoadPath.create(
       asList(from, to),
       heuristic.calculateCost(planeGraph, from, to),
@@ -207,6 +209,21 @@ public class PlaneRoadModel extends AbstractRoadModel<Point> {
         speed, timeUnit));
   }
 
+  @Override
+  public double[][] getTravelTimes(List<Point> from, List<Point> to,
+      Unit<Duration> timeUnit, Measure<Double, Velocity> speed,
+      GeomHeuristic heuristic) {
+    countPathQueries(from.size());
+    final double[][] travelTimes = new double[from.size()][to.size()];
+    for (int i = 0; i < from.size(); i++) {
+      for (int j = 0; j < to.size(); j++) {
+        travelTimes[i][j] = heuristic.calculateTravelTime(planeGraph,
+          from.get(i), to.get(j), getDistanceUnit(), speed, timeUnit);
+      }
+    }
+    return travelTimes;
+  }
+
   @Override
   public RoadPath getPathTo(MovingRoadUser object, Point destination,
       Unit<Duration> timeUnit, Measure<Double, Velocity> speed,
@@ -15,6 +15,8 @@
  */
 package com.github.rinde.rinsim.core.model.road;
 
+import java.util.List;
+
 import javax.measure.Measure;
 import javax.measure.quantity.Duration;
 import javax.measure.quantity.Length;
@@ -43,6 +45,13 @@ abstract class PlaneRoadModelSnapshot
     return getModel().getPathTo(from, to, timeUnit, speed, heuristic);
   }
 
+  @Override
+  public double[][] getTravelTimes(List<Point> from, List<Point> to,
+      Unit<Duration> timeUnit, Measure<Double, Velocity> speed,
+      GeomHeuristic heuristic) {
+    return getModel().getTravelTimes(from, to, timeUnit, speed, heuristic);
+  }
+
   @Override
   public Measure<Double, Length> getDistanceOfPath(Iterable<Point> path)
       throws IllegalArgumentException {
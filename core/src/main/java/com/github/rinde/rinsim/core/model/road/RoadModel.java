@@ -470,6 +470,27 @@ public interface RoadModel extends Model<RoadUser> {
       Unit<Duration> timeUnit, Measure<Double, Velocity> maxSpeed,
       GeomHeuristic heuristic);
 
+  /**
+   * Computes the travel times between all pairs of the specified starting and
+   * ending points. The travel time of a pair is equal to the travel time of
+   * {@link #getPathTo(Point, Point, Unit, Measure, GeomHeuristic)} for that
+   * pair, but the computation is shared: implementations perform at most one
+   * search per starting point, independent searches may run in parallel.
+   * @param from The starting points.
+   * @param to The ending points.
+   * @param timeUnit The time unit to use for the calculations.
+   * @param maxSpeed The speed of the {@link RoadUser} that requests the travel
+   *          times.
+   * @param heuristic The heuristic to use to determine the optimal paths.
+   * @return A matrix with a row for every starting point and a column for every
+   *         ending point, <code>result[i][j]</code> is the travel time from
+   *         <code>from.get(i)</code> to <code>to.get(j)</code> in the given time
+   *         unit.
+   */
+  double[][] getTravelTimes(List<Point> from, List<Point> to,
+      Unit<Duration> timeUnit, Measure<Double, Velocity> maxSpeed,
+      GeomHeuristic heuristic);
+
   /**
    * Determines the distance of the given path, indicated by a list of
    * connecting points.
@@ -15,6 +15,8 @@
  */
 package com.github.rinde.rinsim.core.model.road;
 
+import java.util.List;
+
 import javax.measure.Measure;
 import javax.measure.quantity.Duration;
 import javax.measure.quantity.Length;
@@ -48,6 +50,23 @@ public interface RoadModelSnapshot {
   RoadPath getPathTo(Point from, Point to, Unit<Duration> timeUnit,
       Measure<Double, Velocity> speed, GeomHeuristic heuristic);
 
+  /**
+   * Similar to
+   * {@link RoadModel#getTravelTimes(List, List, Unit, Measure, GeomHeuristic)},
+   * but on a static view of the {@link RoadModel}.
+   * @param from The starting points.
+   * @param to The ending points.
+   * @param timeUnit The unit of time.
+   * @param speed The maximum speed of the {@link RoadUser} that will travel on
+   *          the paths.
+   * @param heuristic The heuristic to use for finding optimal paths.
+   * @return A matrix with a row for every starting point and a column for every
+   *         ending point, containing the travel times of the optimal paths.
+   */
+  double[][] getTravelTimes(List<Point> from, List<Point> to,
+      Unit<Duration> timeUnit, Measure<Double, Velocity> speed,
+      GeomHeuristic heuristic);
+
   /**
    * Similar to {@link RoadModel#getDistanceOfPath(Iterable)}, but on a static
    * view of the {@link RoadModel}.
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.road;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Index of {@link RoadUser}s by type. A type is indexed the first time it is
+ * queried, from then on the set of road users that are an instance of the
+ * type is maintained while road users are added and removed. Since the index
+ * is based on {@link Class#isInstance(Object)} it covers superclasses and
+ * interfaces. The sets are in order of insertion. For each concrete class the
+ * sets to which its instances belong are cached, such that adding or removing
+ * a road user takes a single lookup.
+ * @author Rinde van Lon
+ */
+final class RoadUserTypeIndex {
+  private final Map<Class<?>, Set<RoadUser>> index;
+  // invalidated when a new type is indexed
+  private final Map<Class<?>, List<Set<RoadUser>>> targets;
+
+  RoadUserTypeIndex() {
+    index = new HashMap<>();
+    targets = new HashMap<>();
+  }
+
+  synchronized void add(RoadUser roadUser) {
+    for (final Set<RoadUser> set : targetsOf(roadUser.getClass())) {
+      set.add(roadUser);
+    }
+  }
+
+  synchronized void remove(RoadUser roadUser) {
+    for (final Set<RoadUser> set : targetsOf(roadUser.getClass())) {
+      set.remove(roadUser);
+    }
+  }
+
+  synchronized void clear() {
+    for (final Set<RoadUser> set : index.values()) {
+      set.clear();
+    }
+  }
+
+  /**
+   * Returns the road users of the specified type. If the type is not yet
+   * indexed, the index is initialized from the specified road users.
+   * @param type The type of road users.
+   * @param all All road users in order of insertion.
+   * @param <Y> The type of road users.
+   * @return An immutable copy of the indexed set.
+   */
+  @SuppressWarnings("unchecked")
+  synchronized <Y extends RoadUser> ImmutableSet<Y> get(Class<Y> type,
+      Iterable<RoadUser> all) {
+    Set<RoadUser> set = index.get(type);
+    if (set == null) {
+      set = new LinkedHashSet<>();
+      for (final RoadUser ru : all) {
+        if (type.isInstance(ru)) {
+          set.add(ru);
+        }
+      }
+      index.put(type, set);
+      targets.clear();
+    }
+    return (ImmutableSet<Y>) ImmutableSet.copyOf(set);
+  }
+
+  private List<Set<RoadUser>> targetsOf(Class<?> clazz) {
+    List<Set<RoadUser>> sets = targets.get(clazz);
+    if (sets == null) {
+      sets = new ArrayList<>();
+      for (final Entry<Class<?>, Set<RoadUser>> entry : index.entrySet()) {
+        if (entry.getKey().isAssignableFrom(clazz)) {
+          sets.add(entry.getValue());
+        }
+      }
+      targets.put(clazz, sets);
+    }
+    return sets;
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.road;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.measure.Measure;
+import javax.measure.quantity.Duration;
+import javax.measure.quantity.Length;
+import javax.measure.quantity.Velocity;
+import javax.measure.unit.Unit;
+
+import com.github.rinde.rinsim.geom.GeomHeuristic;
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.PathNotFoundException;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.util.ForkJoinPools;
+import com.google.common.base.Throwables;
+
+/**
+ * Computes travel time matrices on a graph using a single multi-target
+ * Dijkstra search per source. The searches of different sources are
+ * independent and are executed in parallel.
+ * @author Rinde van Lon
+ */
+final class TravelTimes {
+  private TravelTimes() {}
+
+  /**
+   * Computes the travel times from every source to every target. The travel
+   * time of a pair is the travel time of a path with minimal cost according
+   * to the heuristic, which equals the travel time of the path found by
+   * {@link com.github.rinde.rinsim.geom.Graphs#shortestPath(Graph, Point,
+   * Point, GeomHeuristic)} unless there are several paths with minimal cost.
+   * @param graph The graph, must not be modified during the computation.
+   * @param from The sources, must be nodes in the graph.
+   * @param to The targets.
+   * @param distUnit The distance unit of the graph.
+   * @param timeUnit The time unit of the travel times.
+   * @param speed The travel speed.
+   * @param heuristic The heuristic that defines the cost of a path.
+   * @return A matrix with a row per source and a column per target.
+   * @throws PathNotFoundException If a target can not be reached.
+   */
+  static double[][] compute(final Graph<?> graph, final List<Point> from,
+      final List<Point> to, final Unit<Length> distUnit,
+      final Unit<Duration> timeUnit, final Measure<Double, Velocity> speed,
+      final GeomHeuristic heuristic) {
+    final double[][] matrix = new double[from.size()][];
+    if (from.size() == 1) {
+      matrix[0] = fromSource(graph, from.get(0), to, distUnit, timeUnit,
+        speed, heuristic);
+      return matrix;
+    }
+    final List<Callable<double[]>> tasks = new ArrayList<>();
+    for (final Point source : from) {
+      tasks.add(new Callable<double[]>() {
+        @Override
+        public double[] call() {
+          return fromSource(graph, source, to, distUnit, timeUnit, speed,
+            heuristic);
+        }
+      });
+    }
+    try {
+      final List<Future<double[]>> rows =
+        ForkJoinPools.shared().invokeAll(tasks);
+      for (int i = 0; i < matrix.length; i++) {
+        matrix[i] = rows.get(i).get();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (final ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+    return matrix;
+  }
+
+  static double[] fromSource(Graph<?> graph, Point source, List<Point> to,
+      Unit<Length> distUnit, Unit<Duration> timeUnit,
+      Measure<Double, Velocity> speed, GeomHeuristic heuristic) {
+    final double[] row = new double[to.size()];
+    // the indices of the targets that are not yet reached
+    final Map<Point, List<Integer>> pending = new HashMap<>();
+    for (int i = 0; i < to.size(); i++) {
+      final Point target = to.get(i);
+      if (!target.equals(source)) {
+        List<Integer> indices = pending.get(target);
+        if (indices == null) {
+          indices = new ArrayList<>();
+          pending.put(target, indices);
+        }
+        indices.add(i);
+      }
+    }
+    if (pending.isEmpty()) {
+      return row;
+    }
+    checkArgument(graph.containsNode(source), "from should be valid node. %s",
+      source);
+
+    final Map<Point, Double> costs = new HashMap<>();
+    final Set<Point> settled = new HashSet<>();
+    final PriorityQueue<Label> queue = new PriorityQueue<>();
+    long sequence = 0L;
+    costs.put(source, 0d);
+    queue.add(new Label(source, 0d, 0d, sequence++));
+    while (!queue.isEmpty() && !pending.isEmpty()) {
+      final Label label = queue.poll();
+      if (!settled.add(label.point)) {
+        continue;
+      }
+      final List<Integer> indices = pending.remove(label.point);
+      if (indices != null) {
+        for (final int i : indices) {
+          row[i] = label.travelTime;
+        }
+      }
+      for (final Point next : graph.getOutgoingConnections(label.point)) {
+        if (settled.contains(next)) {
+          continue;
+        }
+        final double cost =
+          label.cost + heuristic.calculateCost(graph, label.point, next);
+        final Double known = costs.get(next);
+        if (known == null || cost < known) {
+          costs.put(next, cost);
+          queue.add(new Label(next, cost,
+            label.travelTime + heuristic.calculateTravelTime(graph,
+              label.point, next, distUnit, speed, timeUnit),
+            sequence++));
+        }
+      }
+    }
+    if (!pending.isEmpty()) {
+      throw new PathNotFoundException("Cannot reach "
+        + pending.keySet().iterator().next() + " from " + source);
+    }
+    return row;
+  }
+
+  // ties are broken by insertion order to make the search deterministic
+  static final class Label implements Comparable<Label> {
+    final Point point;
+    final double cost;
+    final double travelTime;
+    final long sequence;
+
+    Label(Point p, double c, double tt, long seq) {
+      point = p;
+      cost = c;
+      travelTime = tt;
+      sequence = seq;
+    }
+
+    @Override
+    public int compareTo(Label o) {
+      final int c = Double.compare(cost, o.cost);
+      if (c != 0) {
+        return c;
+      }
+      return Long.compare(sequence, o.sequence);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.time;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations in nanoseconds with a bounded relative error, in
+ * the style of an HDR histogram. Values smaller than {@link #SUB_BUCKETS} are
+ * counted exactly, larger values are counted in buckets whose width is at
+ * most <code>1/32</code> of their lower bound. The bucket array grows lazily
+ * up to the largest recorded value such that a histogram of short durations
+ * takes little memory. Instances are not thread safe.
+ * @author Rinde van Lon
+ */
+final class LatencyHistogram {
+  static final int SUB_BUCKET_BITS = 6;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  static final int LONG_BITS = 64;
+  static final int INITIAL_SIZE = SUB_BUCKETS;
+
+  int[] counts;
+  long count;
+  long total;
+  long max;
+
+  LatencyHistogram() {
+    counts = new int[INITIAL_SIZE];
+  }
+
+  void record(long nanos) {
+    final long value = Math.max(0L, nanos);
+    final int index = index(value);
+    if (index >= counts.length) {
+      counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+    }
+    counts[index]++;
+    count++;
+    total += value;
+    max = Math.max(max, value);
+  }
+
+  long getCount() {
+    return count;
+  }
+
+  long getTotal() {
+    return total;
+  }
+
+  long getMax() {
+    return max;
+  }
+
+  /**
+   * @param quantile The quantile in the range <code>[0,1]</code>.
+   * @return The highest value that is equivalent to the value at the
+   *         quantile, it is never larger than the maximum recorded value.
+   */
+  long getValueAtQuantile(double quantile) {
+    if (count == 0) {
+      return 0L;
+    }
+    final long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(lowestValue(i + 1) - 1, max);
+      }
+    }
+    return max;
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int shift =
+      LONG_BITS - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  static long lowestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    final int shift = index / HALF_SUB_BUCKETS - 1;
+    return (long) (index - shift * HALF_SUB_BUCKETS) << shift;
+  }
+}
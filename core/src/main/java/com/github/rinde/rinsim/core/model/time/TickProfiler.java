@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.time;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.CheckReturnValue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.rinde.rinsim.core.model.DependencyProvider;
+import com.github.rinde.rinsim.core.model.Model.AbstractModelVoid;
+import com.github.rinde.rinsim.core.model.ModelBuilder.AbstractModelBuilder;
+import com.github.rinde.rinsim.core.model.ModelProvider;
+import com.github.rinde.rinsim.core.model.ModelReceiver;
+import com.github.rinde.rinsim.core.model.comm.CommModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel;
+import com.github.rinde.rinsim.core.model.road.GenericRoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.event.Event;
+import com.github.rinde.rinsim.event.EventAPI;
+import com.github.rinde.rinsim.event.Listener;
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.AtomicLongMap;
+
+/**
+ * Instruments the {@link TimeModel} to find out where the time of a tick is
+ * spent. For every {@link TickListener} the durations of its
+ * {@link TickListener#tick(TimeLapse)} and
+ * {@link TickListener#afterTick(TimeLapse)} calls are recorded in histograms.
+ * Further, it counts the dispatched events of all types of the clock, of the
+ * {@link RoadModel}, of the {@link PDPModel} and of the {@link CommModel}.
+ * Models outside of this module are not known to the profiler, their events
+ * can be counted using {@link #countEvents(EventAPI, Enum...)}. Finally, it
+ * keeps track of the number of paths computed by the {@link RoadModel}. The
+ * recorded data is available via {@link #getSnapshot()} and, optionally, it
+ * is logged periodically, see {@link Builder#withDumpInterval(long)}.
+ * <p>
+ * The overhead consists of two calls to {@link System#nanoTime()} and a map
+ * lookup per listener per phase. When the profiler is not added to the
+ * simulator the {@link TimeModel} is not affected at all. The profiler is not
+ * thread safe, {@link #getSnapshot()} should be called from the thread that
+ * ticks the clock or when the clock is not ticking.
+ * <p>
+ * <b>Model properties</b>
+ * <ul>
+ * <li><i>Provides:</i> {@link TickProfiler}.</li>
+ * <li><i>Dependencies:</i> {@link Clock}.</li>
+ * </ul>
+ * @author Rinde van Lon
+ */
+public final class TickProfiler extends AbstractModelVoid
+    implements ModelReceiver {
+  static final Logger LOGGER = LoggerFactory.getLogger(TickProfiler.class);
+  static final double MEDIAN = .5;
+  static final double P90 = .9;
+  static final double P99 = .99;
+  static final int DUMP_SIZE = 10;
+  static final double NANOS_PER_MICRO = 1000d;
+  static final String TIMING_FORMAT = "n=%d mean=%.1fus p50=%.1fus "
+    + "p99=%.1fus max=%.1fus";
+
+  final TimeModel timeModel;
+  final long dumpInterval;
+  final Map<TickListener, LatencyHistogram> tickTimes;
+  final Map<TickListener, LatencyHistogram> afterTickTimes;
+  final AtomicLongMap<Enum<?>> eventCounts;
+  final Listener eventCounter;
+  Optional<GenericRoadModel> roadModel;
+  long ticks;
+
+  TickProfiler(TimeModel tm, long interval) {
+    timeModel = tm;
+    dumpInterval = interval;
+    tickTimes = new IdentityHashMap<>();
+    afterTickTimes = new IdentityHashMap<>();
+    eventCounts = AtomicLongMap.create();
+    roadModel = Optional.absent();
+    eventCounter = new Listener() {
+      @Override
+      public void handleEvent(Event e) {
+        eventCounts.incrementAndGet(e.getEventType());
+      }
+    };
+    countEvents(tm.getEventAPI());
+    tm.profiler = this;
+  }
+
+  @Override
+  public void registerModelProvider(ModelProvider mp) {
+    final RoadModel rm = mp.tryGetModel(RoadModel.class);
+    if (rm != null) {
+      countEvents(rm.getEventAPI());
+      if (rm instanceof GenericRoadModel) {
+        roadModel = Optional.of((GenericRoadModel) rm);
+      }
+    }
+    final PDPModel pm = mp.tryGetModel(PDPModel.class);
+    if (pm != null) {
+      countEvents(pm.getEventAPI());
+    }
+    final CommModel cm = mp.tryGetModel(CommModel.class);
+    if (cm != null) {
+      countEvents(cm.getEventAPI());
+    }
+  }
+
+  /**
+   * Counts the events of the specified types that are dispatched by the
+   * specified {@link EventAPI}.
+   * @param eventAPI The source of the events.
+   * @param types The event types to count, if no types are specified all
+   *          events are counted.
+   */
+  public void countEvents(EventAPI eventAPI, Enum<?>... types) {
+    eventAPI.addListener(eventCounter, types);
+  }
+
+  /**
+   * @return A snapshot of all data that is recorded so far.
+   */
+  public Snapshot getSnapshot() {
+    return Snapshot.create(timeModel.getCurrentTime(), ticks,
+      summarize(tickTimes), summarize(afterTickTimes),
+      ImmutableMap.copyOf(eventCounts.asMap()),
+      roadModel.isPresent() ? roadModel.get().getPathQueryCount() : 0L);
+  }
+
+  @Override
+  public <U> U get(Class<U> clazz) {
+    return clazz.cast(this);
+  }
+
+  void recordTick(TickListener listener, long nanos) {
+    histogram(tickTimes, listener).record(nanos);
+  }
+
+  void recordAfterTick(TickListener listener, long nanos) {
+    histogram(afterTickTimes, listener).record(nanos);
+  }
+
+  void tickDone() {
+    ticks++;
+    if (dumpInterval > 0 && ticks % dumpInterval == 0) {
+      dump(getSnapshot());
+    }
+  }
+
+  static void dump(Snapshot snapshot) {
+    if (!LOGGER.isInfoEnabled()) {
+      return;
+    }
+    LOGGER.info("Profile after {} ticks at time {}: {} path queries, "
+      + "events {}.", snapshot.getTicks(), snapshot.getTime(),
+      snapshot.getPathQueries(), snapshot.getEventCounts());
+    int i = 0;
+    for (final Entry<TickListener, Timing> entry : snapshot.getTickTimes()
+      .entrySet()) {
+      if (i++ == DUMP_SIZE) {
+        break;
+      }
+      final Timing after = snapshot.getAfterTickTimes().get(entry.getKey());
+      LOGGER.info(" {} tick: {}, afterTick: {}", entry.getKey(),
+        format(entry.getValue()), after == null ? "-" : format(after));
+    }
+  }
+
+  static String format(Timing t) {
+    return String.format(Locale.ENGLISH, TIMING_FORMAT, t.getCount(),
+      t.getMeanNanos() / NANOS_PER_MICRO,
+      t.getMedianNanos() / NANOS_PER_MICRO,
+      t.getP99Nanos() / NANOS_PER_MICRO,
+      t.getMaxNanos() / NANOS_PER_MICRO);
+  }
+
+  static LatencyHistogram histogram(Map<TickListener, LatencyHistogram> map,
+      TickListener listener) {
+    LatencyHistogram h = map.get(listener);
+    if (h == null) {
+      h = new LatencyHistogram();
+      map.put(listener, h);
+    }
+    return h;
+  }
+
+  // ordered by decreasing total time
+  static ImmutableMap<TickListener, Timing> summarize(
+      Map<TickListener, LatencyHistogram> map) {
+    final List<Entry<TickListener, LatencyHistogram>> entries =
+      new ArrayList<>(map.entrySet());
+    Collections.sort(entries, TotalComparator.INSTANCE);
+    final ImmutableMap.Builder<TickListener, Timing> builder =
+      ImmutableMap.builder();
+    for (final Entry<TickListener, LatencyHistogram> entry : entries) {
+      builder.put(entry.getKey(), Timing.create(entry.getValue()));
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return A new {@link Builder} instance.
+   */
+  @CheckReturnValue
+  public static Builder builder() {
+    return Builder.create(0L);
+  }
+
+  enum TotalComparator
+    implements Comparator<Entry<TickListener, LatencyHistogram>> {
+    INSTANCE;
+
+    @Override
+    public int compare(Entry<TickListener, LatencyHistogram> o1,
+        Entry<TickListener, LatencyHistogram> o2) {
+      return Long.compare(o2.getValue().getTotal(), o1.getValue().getTotal());
+    }
+  }
+
+  /**
+   * Summary of the durations of the calls of a single phase of a
+   * {@link TickListener}. All durations are in nanoseconds, quantiles have a
+   * relative error of at most 1/32.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class Timing {
+
+    Timing() {}
+
+    /**
+     * @return The number of calls.
+     */
+    public abstract long getCount();
+
+    /**
+     * @return The total duration of all calls.
+     */
+    public abstract long getTotalNanos();
+
+    /**
+     * @return The maximum duration of a call.
+     */
+    public abstract long getMaxNanos();
+
+    /**
+     * @return The median duration of a call.
+     */
+    public abstract long getMedianNanos();
+
+    /**
+     * @return The 90th percentile of the duration of a call.
+     */
+    public abstract long getP90Nanos();
+
+    /**
+     * @return The 99th percentile of the duration of a call.
+     */
+    public abstract long getP99Nanos();
+
+    /**
+     * @return The mean duration of a call.
+     */
+    public double getMeanNanos() {
+      return getCount() == 0 ? 0d : (double) getTotalNanos() / getCount();
+    }
+
+    static Timing create(LatencyHistogram h) {
+      return new AutoValue_TickProfiler_Timing(h.getCount(), h.getTotal(),
+        h.getMax(), h.getValueAtQuantile(MEDIAN), h.getValueAtQuantile(P90),
+        h.getValueAtQuantile(P99));
+    }
+  }
+
+  /**
+   * Immutable snapshot of the data recorded by a {@link TickProfiler}.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class Snapshot {
+
+    Snapshot() {}
+
+    /**
+     * @return The time of the clock at the moment of the snapshot.
+     */
+    public abstract long getTime();
+
+    /**
+     * @return The number of profiled ticks.
+     */
+    public abstract long getTicks();
+
+    /**
+     * @return The durations of the {@link TickListener#tick(TimeLapse)} calls
+     *         per listener, ordered by decreasing total duration.
+     */
+    public abstract ImmutableMap<TickListener, Timing> getTickTimes();
+
+    /**
+     * @return The durations of the {@link TickListener#afterTick(TimeLapse)}
+     *         calls per listener, ordered by decreasing total duration.
+     */
+    public abstract ImmutableMap<TickListener, Timing> getAfterTickTimes();
+
+    /**
+     * @return The number of dispatched events per event type.
+     */
+    public abstract ImmutableMap<Enum<?>, Long> getEventCounts();
+
+    /**
+     * @return The number of paths computed by the {@link RoadModel}, or
+     *         <code>0</code> if there is no road model.
+     */
+    public abstract long getPathQueries();
+
+    static Snapshot create(long time, long ticks,
+        ImmutableMap<TickListener, Timing> tick,
+        ImmutableMap<TickListener, Timing> afterTick,
+        ImmutableMap<Enum<?>, Long> events, long pathQueries) {
+      return new AutoValue_TickProfiler_Snapshot(time, ticks, tick, afterTick,
+        events, pathQueries);
+    }
+  }
+
+  /**
+   * Builder for {@link TickProfiler} instances.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class Builder
+      extends AbstractModelBuilder<TickProfiler, Void> {
+    private static final long serialVersionUID = -6467393296372011470L;
+
+    Builder() {
+      setDependencies(Clock.class);
+      setProvidingTypes(TickProfiler.class);
+    }
+
+    abstract long getDumpInterval();
+
+    /**
+     * Logs a summary of the profile every time the specified number of ticks
+     * has passed. The summary is logged at info level and contains the event
+     * counts and the listeners with the largest total tick duration. By
+     * default nothing is logged.
+     * @param ticks The number of ticks between two summaries, or
+     *          <code>0</code> to disable logging.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withDumpInterval(long ticks) {
+      checkArgument(ticks >= 0, "The interval can not be negative: %s.",
+        ticks);
+      return create(ticks);
+    }
+
+    @Override
+    public TickProfiler build(DependencyProvider dependencyProvider) {
+      final Clock clock = dependencyProvider.get(Clock.class);
+      checkArgument(clock instanceof TimeModel,
+        "%s can only profile a %s, found %s.",
+        TickProfiler.class.getSimpleName(), TimeModel.class.getSimpleName(),
+        clock);
+      return new TickProfiler((TimeModel) clock, getDumpInterval());
+    }
+
+    static Builder create(long interval) {
+      return new AutoValue_TickProfiler_Builder(interval);
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.OverridingMethodsMustInvokeSuper;
 import javax.measure.quantity.Duration;
 import javax.measure.unit.SI;
@@ -68,6 +69,8 @@ public abstract class TimeModel extends AbstractModel<TickListener>
   final TimeLapse timeLapse;
   final EventDispatcher eventDispatcher;
   volatile boolean isTicking;
+  @Nullable
+  TickProfiler profiler;
   private volatile Set<TickListener> tickListeners;
 
   TimeModel(AbstractBuilder<?> builder, Enum<?>... additionalEventTypes) {
@@ -134,14 +137,19 @@ public abstract class TimeModel extends AbstractModel<TickListener>
   }
 
   final void tickImpl() {
-    for (final TickListener t : tickListeners) {
-      timeLapse.reset();
-      t.tick(timeLapse);
-    }
-    // in the after tick the TimeLapse can no longer be consumed
-    timeLapse.consumeAll();
-    for (final TickListener t : tickListeners) {
-      t.afterTick(timeLapse);
+    final TickProfiler prof = profiler;
+    if (prof != null) {
+      profiledTickImpl(prof);
+    } else {
+      for (final TickListener t : tickListeners) {
+        timeLapse.reset();
+        t.tick(timeLapse);
+      }
+      // in the after tick the TimeLapse can no longer be consumed
+      timeLapse.consumeAll();
+      for (final TickListener t : tickListeners) {
+        t.afterTick(timeLapse);
+      }
     }
     // advance time
     timeLapse.next();
@@ -152,6 +160,23 @@ public abstract class TimeModel extends AbstractModel<TickListener>
     }
   }
 
+  // same as the loops in tickImpl() but measures the duration of every call
+  void profiledTickImpl(TickProfiler prof) {
+    for (final TickListener t : tickListeners) {
+      timeLapse.reset();
+      final long start = System.nanoTime();
+      t.tick(timeLapse);
+      prof.recordTick(t, System.nanoTime() - start);
+    }
+    timeLapse.consumeAll();
+    for (final TickListener t : tickListeners) {
+      final long start = System.nanoTime();
+      t.afterTick(timeLapse);
+      prof.recordAfterTick(t, System.nanoTime() - start);
+    }
+    prof.tickDone();
+  }
+
   /**
    * @return true if time is ticking, false otherwise.
    */
@@ -48,7 +48,6 @@ import com.google.common.collect.SetMultimap;
 public class CategoryMap<C, V> implements SetMultimap<C, V> {
 
   // TODO use Guava test tools
-  // TODO do a benchmark to compare performance with ordinary multimap
 
   // TODO use ForwardingMultimap<K, V>
 
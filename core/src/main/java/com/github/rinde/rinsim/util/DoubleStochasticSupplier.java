@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+/**
+ * A {@link StochasticSupplier} of {@link Double}s that can supply many values
+ * at once without boxing. See
+ * {@link StochasticSuppliers#getDoubles(StochasticSupplier, long, int)} for
+ * batch sampling of any supplier of doubles.
+ * @author Rinde van Lon
+ */
+public interface DoubleStochasticSupplier extends StochasticSupplier<Double> {
+
+  /**
+   * Supplies a value for every seed, the value at position <code>i</code>
+   * must be equal to the value returned by {@link #get(long)} for
+   * <code>seeds[i]</code>.
+   * @param seeds The random seeds to use.
+   * @param values The array to fill, must have the same length as
+   *          <code>seeds</code>.
+   */
+  void get(long[] seeds, double[] values);
+
+  /**
+   * Fills the array with consecutive values of a single random stream that is
+   * seeded once using the specified seed. The values therefore differ from
+   * those returned by {@link #get(long)} but, like these, they only depend on
+   * the seed. This is the cheapest way to draw many values from a supplier
+   * when no value needs to be reproducible on its own.
+   * @param seed The random seed of the stream.
+   * @param values The array to fill.
+   */
+  void get(long seed, double[] values);
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Provides {@link ForkJoinPool}s that are shared by all parallel computations
+ * in a JVM, there is at most one pool per parallelism level. This is similar
+ * to the common pool of Java 8, which is not available on Java 7. Sharing
+ * pools prevents that every instance of a parallel component creates its own
+ * threads, which would oversubscribe the processors when many simulations run
+ * in parallel. The worker threads are daemon threads and idle workers are
+ * reclaimed automatically, the shared pools ignore
+ * {@link ForkJoinPool#shutdown()} and {@link ForkJoinPool#shutdownNow()}.
+ * @author Rinde van Lon
+ */
+public final class ForkJoinPools {
+  private static final ConcurrentMap<Integer, ForkJoinPool> POOLS =
+    new ConcurrentHashMap<>();
+
+  private ForkJoinPools() {}
+
+  /**
+   * @return The shared pool with a parallelism equal to the number of
+   *         available processors.
+   */
+  public static ForkJoinPool shared() {
+    return shared(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Returns the shared pool with the specified parallelism, it is created
+   * when it is requested for the first time.
+   * @param parallelism The parallelism level, must be positive.
+   * @return The shared pool.
+   */
+  public static ForkJoinPool shared(int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be positive, found %s.",
+      parallelism);
+    final ForkJoinPool pool = POOLS.get(parallelism);
+    if (pool != null) {
+      return pool;
+    }
+    final ForkJoinPool created = new SharedPool(parallelism);
+    final ForkJoinPool existing = POOLS.putIfAbsent(parallelism, created);
+    return existing == null ? created : existing;
+  }
+
+  static final class SharedPool extends ForkJoinPool {
+    SharedPool(int parallelism) {
+      super(parallelism);
+    }
+
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return Collections.emptyList();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**
+ * A random generator based on the SplitMix64 algorithm by Steele, Lea and
+ * Flood. Its state is a single counter that is incremented by a constant for
+ * every value, each value is a bijective mix of the counter. As a consequence
+ * seeding takes constant time and the value at any position of the stream can
+ * be computed directly using {@link #valueAt(long, long)}, which makes it
+ * well suited for creating many short lived generators from different seeds.
+ * <p>
+ * Instances are not thread safe, but since they are cheap to create each
+ * thread can simply use its own instance. This generator is not suitable for
+ * cryptographic purposes.
+ * @author Rinde van Lon
+ */
+public final class SplitMix64 extends BitsStreamGenerator {
+  private static final long serialVersionUID = -3307213155004880484L;
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  private static final long MIX_1 = 0xbf58476d1ce4e5b9L;
+  private static final long MIX_2 = 0x94d049bb133111ebL;
+  private static final int SHIFT_1 = 30;
+  private static final int SHIFT_2 = 27;
+  private static final int SHIFT_3 = 31;
+  private static final int LONG_BITS = 64;
+  private static final int DOUBLE_BITS = 53;
+  private static final double DOUBLE_UNIT = 1d / (1L << DOUBLE_BITS);
+  private static final int INT_BITS = 32;
+
+  private long state;
+
+  SplitMix64(long seed) {
+    state = seed;
+  }
+
+  /**
+   * Creates a new generator.
+   * @param seed The seed of the generator.
+   * @return A new instance.
+   */
+  public static SplitMix64 create(long seed) {
+    return new SplitMix64(seed);
+  }
+
+  /**
+   * Computes the value at the specified position of the stream of a generator
+   * with the specified seed, without creating a generator. The value is equal
+   * to the value returned by the <code>index + 1</code>-th invocation of
+   * {@link #nextLong()} of a newly created generator with the same seed.
+   * @param seed The seed of the generator.
+   * @param index The position in the stream, starting at <code>0</code>.
+   * @return The value.
+   */
+  public static long valueAt(long seed, long index) {
+    return mix(seed + (index + 1) * GOLDEN_GAMMA);
+  }
+
+  /**
+   * Computes the value at the specified position of the stream of a generator
+   * with the specified seed as a double in the range <code>[0,1)</code>. The
+   * value is equal to the value returned by the <code>index + 1</code>-th
+   * invocation of {@link #nextDouble()} of a newly created generator with the
+   * same seed.
+   * @param seed The seed of the generator.
+   * @param index The position in the stream, starting at <code>0</code>.
+   * @return The value.
+   */
+  public static double doubleAt(long seed, long index) {
+    return toDouble(valueAt(seed, index));
+  }
+
+  /**
+   * Creates a new generator that is seeded using the next value of this
+   * generator. The streams of both generators are statistically independent.
+   * @return A new instance.
+   */
+  public SplitMix64 split() {
+    return new SplitMix64(mix(nextLong()));
+  }
+
+  @Override
+  public void setSeed(int seed) {
+    setSeed((long) seed);
+  }
+
+  @Override
+  public void setSeed(int[] seed) {
+    long s = 0L;
+    for (final int i : seed) {
+      s = mix(s + GOLDEN_GAMMA) ^ i;
+    }
+    setSeed(s);
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    state = seed;
+    clear();
+  }
+
+  @Override
+  public long nextLong() {
+    state += GOLDEN_GAMMA;
+    return mix(state);
+  }
+
+  @Override
+  public double nextDouble() {
+    return toDouble(nextLong());
+  }
+
+  @Override
+  public int nextInt() {
+    return (int) (nextLong() >>> INT_BITS);
+  }
+
+  @Override
+  protected int next(int bits) {
+    return (int) (nextLong() >>> (LONG_BITS - bits));
+  }
+
+  static long mix(long value) {
+    long z = value;
+    z = (z ^ z >>> SHIFT_1) * MIX_1;
+    z = (z ^ z >>> SHIFT_2) * MIX_2;
+    return z ^ z >>> SHIFT_3;
+  }
+
+  static double toDouble(long value) {
+    return (value >>> (LONG_BITS - DOUBLE_BITS)) * DOUBLE_UNIT;
+  }
+}
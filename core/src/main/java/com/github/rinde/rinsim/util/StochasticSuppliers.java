@@ -36,13 +36,41 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.math.DoubleMath;
 import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
 import com.google.common.reflect.TypeToken;
 
 /**
  * Utility class for {@link StochasticSupplier}.
+ * <p>
+ * The suppliers that are created by {@link #uniformDouble(double, double)},
+ * {@link #uniformInt(int, int)}, {@link #uniformLong(int, int)} and
+ * {@link #normal()} reseed a shared {@link MersenneTwister} for every value,
+ * access to this generator is synchronized. The <code>fast</code> variants
+ * ({@link #fastUniformDouble(double, double)},
+ * {@link #fastUniformInt(int, int)}, {@link #fastUniformLong(long, long)} and
+ * {@link #fastNormal()}) are based on {@link SplitMix64} instead, they are
+ * stateless, seeding takes constant time and they can be used concurrently
+ * without contention. Note that for the same seed the values of a
+ * <code>fast</code> variant differ from the values of its counterpart.
+ * <p>
+ * Many values can be drawn at once using
+ * {@link #getDoubles(StochasticSupplier, long, int)} and
+ * {@link #getLongs(StochasticSupplier, long, int)}. The suppliers created by
+ * this class implement {@link DoubleStochasticSupplier} or
+ * {@link LongStochasticSupplier} such that these batches are drawn without
+ * boxing from a single random stream, the generator is seeded only once per
+ * batch. Batches with a seed per value
+ * ({@link #getDoubles(StochasticSupplier, long[], double[])} and
+ * {@link #getLongs(StochasticSupplier, long[], long[])}) produce exactly the
+ * values of {@link StochasticSupplier#get(long)}, these still reseed the
+ * generator for every value but acquire its lock only once.
  * @author Rinde van Lon
  */
 public final class StochasticSuppliers {
+  static final String LENGTH_MSG =
+    "The number of seeds (%s) must be equal to the number of values (%s).";
+  static final String NEGATIVE_MSG =
+    "The number of values may not be negative: %s.";
 
   private StochasticSuppliers() {}
 
@@ -129,6 +157,15 @@ public final class StochasticSuppliers {
     return new Builder();
   }
 
+  /**
+   * @return Builder for constructing {@link StochasticSupplier}s that produce
+   *         normal (Gaussian) distributed numbers using {@link SplitMix64}.
+   *         The suppliers are stateless and thread safe.
+   */
+  public static Builder fastNormal() {
+    return new Builder().splitMix();
+  }
+
   /**
    * Creates a {@link StochasticSupplier} that produces uniformly distributed
    * {@link Double}s.
@@ -165,6 +202,50 @@ public final class StochasticSuppliers {
     return intToLong(uniformInt(lower, upper));
   }
 
+  /**
+   * Creates a {@link StochasticSupplier} that produces uniformly distributed
+   * {@link Double}s using {@link SplitMix64}. The supplier is stateless and
+   * thread safe.
+   * @param lower The (inclusive) lower bound of the uniform distribution.
+   * @param upper The (exclusive) upper bound of the uniform distribution.
+   * @return The supplier.
+   */
+  public static StochasticSupplier<Double> fastUniformDouble(double lower,
+      double upper) {
+    checkArgument(lower < upper,
+      "Lower bound (%s) must be smaller than upper bound (%s).", lower, upper);
+    return new FastUniformDoubleSS(lower, upper);
+  }
+
+  /**
+   * Creates a {@link StochasticSupplier} that produces uniformly distributed
+   * {@link Integer}s using {@link SplitMix64}. The supplier is stateless and
+   * thread safe.
+   * @param lower The (inclusive) lower bound of the uniform distribution.
+   * @param upper The (inclusive) upper bound of the uniform distribution.
+   * @return The supplier.
+   */
+  public static StochasticSupplier<Integer> fastUniformInt(int lower,
+      int upper) {
+    return new LongToIntAdapter(fastUniformLong(lower, upper));
+  }
+
+  /**
+   * Creates a {@link StochasticSupplier} that produces uniformly distributed
+   * {@link Long}s using {@link SplitMix64}. The supplier is stateless and
+   * thread safe.
+   * @param lower The (inclusive) lower bound of the uniform distribution.
+   * @param upper The (inclusive) upper bound of the uniform distribution.
+   * @return The supplier.
+   */
+  public static StochasticSupplier<Long> fastUniformLong(long lower,
+      long upper) {
+    checkArgument(lower <= upper,
+      "Lower bound (%s) must be smaller than or equal to upper bound (%s).",
+      lower, upper);
+    return new FastUniformLongSS(lower, upper);
+  }
+
   /**
    * Convert a {@link StochasticSupplier} of {@link Integer} to a supplier of
    * {@link Long}.
@@ -205,6 +286,125 @@ public final class StochasticSuppliers {
     return MersenneTwisterSS.create();
   }
 
+  /**
+   * @return A {@link StochasticSupplier} of {@link SplitMix64}.
+   */
+  public static StochasticSupplier<SplitMix64> splitMix64() {
+    return SplitMix64SS.create();
+  }
+
+  /**
+   * Creates the seeds that are used for drawing a batch of values using a
+   * single seed. These are the first <code>n</code> values of
+   * {@link MersenneTwister#nextLong()} of a generator with the specified seed,
+   * which is equal to how the generators in RinSim usually draw a sequence of
+   * values from a {@link StochasticSupplier}.
+   * @param seed The seed.
+   * @param n The number of seeds to create.
+   * @return An array of seeds.
+   */
+  public static long[] seeds(long seed, int n) {
+    checkArgument(n >= 0, "The number of seeds may not be negative: %s.", n);
+    final MersenneTwister rng = new MersenneTwister(seed);
+    final long[] seeds = new long[n];
+    for (int i = 0; i < n; i++) {
+      seeds[i] = rng.nextLong();
+    }
+    return seeds;
+  }
+
+  /**
+   * Draws a batch of values from the supplier. If the supplier is a
+   * {@link DoubleStochasticSupplier} the values are drawn from a single
+   * random stream using {@link DoubleStochasticSupplier#get(long, double[])},
+   * otherwise the value at position <code>i</code> is equal to
+   * <code>supplier.get(seeds(seed, n)[i])</code>. In both cases the values
+   * only depend on the supplier and the seed.
+   * @param supplier The supplier to draw from.
+   * @param seed The seed of the batch.
+   * @param n The number of values to draw.
+   * @return An array with the values.
+   * @see #seeds(long, int)
+   */
+  public static double[] getDoubles(StochasticSupplier<Double> supplier,
+      long seed, int n) {
+    checkArgument(n >= 0, NEGATIVE_MSG, n);
+    final double[] values = new double[n];
+    if (supplier instanceof DoubleStochasticSupplier) {
+      ((DoubleStochasticSupplier) supplier).get(seed, values);
+    } else {
+      getDoubles(supplier, seeds(seed, n), values);
+    }
+    return values;
+  }
+
+  /**
+   * Draws a value for every seed, the value at position <code>i</code> is
+   * equal to <code>supplier.get(seeds[i])</code>.
+   * @param supplier The supplier to draw from.
+   * @param seeds The seeds to use.
+   * @param values The array to fill, must have the same length as
+   *          <code>seeds</code>.
+   */
+  public static void getDoubles(StochasticSupplier<Double> supplier,
+      long[] seeds, double[] values) {
+    checkArgument(seeds.length == values.length, LENGTH_MSG, seeds.length,
+      values.length);
+    if (supplier instanceof DoubleStochasticSupplier) {
+      ((DoubleStochasticSupplier) supplier).get(seeds, values);
+    } else {
+      for (int i = 0; i < seeds.length; i++) {
+        values[i] = supplier.get(seeds[i]);
+      }
+    }
+  }
+
+  /**
+   * Draws a batch of values from the supplier. If the supplier is a
+   * {@link LongStochasticSupplier} the values are drawn from a single random
+   * stream using {@link LongStochasticSupplier#get(long, long[])}, otherwise
+   * the value at position <code>i</code> is equal to
+   * <code>supplier.get(seeds(seed, n)[i])</code>. In both cases the values
+   * only depend on the supplier and the seed.
+   * @param supplier The supplier to draw from.
+   * @param seed The seed of the batch.
+   * @param n The number of values to draw.
+   * @return An array with the values.
+   * @see #seeds(long, int)
+   */
+  public static long[] getLongs(StochasticSupplier<Long> supplier, long seed,
+      int n) {
+    checkArgument(n >= 0, NEGATIVE_MSG, n);
+    final long[] values = new long[n];
+    if (supplier instanceof LongStochasticSupplier) {
+      ((LongStochasticSupplier) supplier).get(seed, values);
+    } else {
+      getLongs(supplier, seeds(seed, n), values);
+    }
+    return values;
+  }
+
+  /**
+   * Draws a value for every seed, the value at position <code>i</code> is
+   * equal to <code>supplier.get(seeds[i])</code>.
+   * @param supplier The supplier to draw from.
+   * @param seeds The seeds to use.
+   * @param values The array to fill, must have the same length as
+   *          <code>seeds</code>.
+   */
+  public static void getLongs(StochasticSupplier<Long> supplier, long[] seeds,
+      long[] values) {
+    checkArgument(seeds.length == values.length, LENGTH_MSG, seeds.length,
+      values.length);
+    if (supplier instanceof LongStochasticSupplier) {
+      ((LongStochasticSupplier) supplier).get(seeds, values);
+    } else {
+      for (int i = 0; i < seeds.length; i++) {
+        values[i] = supplier.get(seeds[i]);
+      }
+    }
+  }
+
   /**
    * Builder for creating {@link StochasticSupplier}s that return a number with
    * a normal distribution.
@@ -219,6 +419,7 @@ public final class StochasticSuppliers {
     private double lowerBound;
     private double upperBound;
     private OutOfBoundStrategy outOfBoundStrategy;
+    private boolean useSplitMix;
 
     Builder() {
       mean = 0;
@@ -228,6 +429,11 @@ public final class StochasticSuppliers {
       outOfBoundStrategy = OutOfBoundStrategy.REDRAW;
     }
 
+    Builder splitMix() {
+      useSplitMix = true;
+      return this;
+    }
+
     /**
      * Set the mean of the normal distribution.
      * @param m The mean. Default value: <code>0</code>.
@@ -406,6 +612,10 @@ public final class StochasticSuppliers {
     public StochasticSupplier<Double> buildDouble() {
       checkArgument(mean + std >= lowerBound);
       checkArgument(mean + std <= upperBound);
+      if (useSplitMix) {
+        return new FastNormalSS(mean, std, lowerBound, upperBound,
+          outOfBoundStrategy);
+      }
       final RealDistribution distribution = new NormalDistribution(mean, std);
       if (Doubles.isFinite(lowerBound) || Doubles.isFinite(upperBound)) {
         return new BoundedDoubleDistSS(distribution, upperBound,
@@ -463,7 +673,7 @@ public final class StochasticSuppliers {
   }
 
   private static class IntToLongAdapter extends
-      AbstractStochasticSupplier<Long> {
+      AbstractStochasticSupplier<Long> implements LongStochasticSupplier {
     private static final long serialVersionUID = 3638307177262422449L;
     private final StochasticSupplier<Integer> supplier;
 
@@ -475,6 +685,26 @@ public final class StochasticSuppliers {
     public Long get(long seed) {
       return Long.valueOf(supplier.get(seed));
     }
+
+    @Override
+    public void get(long[] seeds, long[] values) {
+      if (supplier instanceof IntegerDistributionSS) {
+        ((IntegerDistributionSS) supplier).get(seeds, values);
+      } else {
+        for (int i = 0; i < seeds.length; i++) {
+          values[i] = supplier.get(seeds[i]);
+        }
+      }
+    }
+
+    @Override
+    public void get(long seed, long[] values) {
+      if (supplier instanceof IntegerDistributionSS) {
+        ((IntegerDistributionSS) supplier).get(seed, values);
+      } else {
+        get(seeds(seed, values.length), values);
+      }
+    }
   }
 
   private static class DoubleToIntAdapter extends
@@ -493,7 +723,7 @@ public final class StochasticSuppliers {
   }
 
   private static class DoubleToLongAdapter extends
-      AbstractStochasticSupplier<Long> {
+      AbstractStochasticSupplier<Long> implements LongStochasticSupplier {
     private static final long serialVersionUID = -8846720318135533333L;
     private final StochasticSupplier<Double> supplier;
 
@@ -505,6 +735,195 @@ public final class StochasticSuppliers {
     public Long get(long seed) {
       return DoubleMath.roundToLong(supplier.get(seed), RoundingMode.HALF_UP);
     }
+
+    @Override
+    public void get(long[] seeds, long[] values) {
+      final double[] doubles = new double[seeds.length];
+      getDoubles(supplier, seeds, doubles);
+      round(doubles, values);
+    }
+
+    @Override
+    public void get(long seed, long[] values) {
+      round(getDoubles(supplier, seed, values.length), values);
+    }
+
+    static void round(double[] doubles, long[] values) {
+      for (int i = 0; i < doubles.length; i++) {
+        values[i] = DoubleMath.roundToLong(doubles[i], RoundingMode.HALF_UP);
+      }
+    }
+  }
+
+  private static class LongToIntAdapter extends
+      AbstractStochasticSupplier<Integer> {
+    private static final long serialVersionUID = -2310357541389735853L;
+    private final StochasticSupplier<Long> supplier;
+
+    LongToIntAdapter(StochasticSupplier<Long> supp) {
+      supplier = supp;
+    }
+
+    @Override
+    public Integer get(long seed) {
+      return Ints.checkedCast(supplier.get(seed));
+    }
+  }
+
+  private static class FastUniformDoubleSS extends
+      AbstractStochasticSupplier<Double> implements DoubleStochasticSupplier {
+    private static final long serialVersionUID = 3914420329651460722L;
+    private final double lowerBound;
+    private final double range;
+
+    FastUniformDoubleSS(double lower, double upper) {
+      lowerBound = lower;
+      range = upper - lower;
+    }
+
+    @Override
+    public Double get(long seed) {
+      return sample(seed);
+    }
+
+    @Override
+    public void get(long[] seeds, double[] values) {
+      for (int i = 0; i < seeds.length; i++) {
+        values[i] = sample(seeds[i]);
+      }
+    }
+
+    @Override
+    public void get(long seed, double[] values) {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = lowerBound + range * SplitMix64.doubleAt(seed, i);
+      }
+    }
+
+    double sample(long seed) {
+      return lowerBound + range * SplitMix64.doubleAt(seed, 0);
+    }
+  }
+
+  private static class FastUniformLongSS extends
+      AbstractStochasticSupplier<Long> implements LongStochasticSupplier {
+    private static final long serialVersionUID = -4409569347836880384L;
+    private final long lowerBound;
+    private final long upperBound;
+    // the number of possible values, not positive when it does not fit in a
+    // long
+    private final long range;
+
+    FastUniformLongSS(long lower, long upper) {
+      lowerBound = lower;
+      upperBound = upper;
+      range = upper - lower + 1;
+    }
+
+    @Override
+    public Long get(long seed) {
+      return sample(seed);
+    }
+
+    @Override
+    public void get(long[] seeds, long[] values) {
+      for (int i = 0; i < seeds.length; i++) {
+        values[i] = sample(seeds[i]);
+      }
+    }
+
+    @Override
+    public void get(long seed, long[] values) {
+      final SplitMix64 rng = SplitMix64.create(seed);
+      for (int i = 0; i < values.length; i++) {
+        values[i] = sample(rng);
+      }
+    }
+
+    long sample(long seed) {
+      return sample(SplitMix64.create(seed));
+    }
+
+    long sample(SplitMix64 rng) {
+      if (range <= 0) {
+        // more than half of all longs are valid
+        long val;
+        do {
+          val = rng.nextLong();
+        } while (val < lowerBound || val > upperBound);
+        return val;
+      }
+      // rejection of the values in the incomplete last interval ensures that
+      // all values are equally likely
+      long bits;
+      long val;
+      do {
+        bits = rng.nextLong() >>> 1;
+        val = bits % range;
+      } while (bits - val + (range - 1) < 0);
+      return lowerBound + val;
+    }
+  }
+
+  private static class FastNormalSS extends
+      AbstractStochasticSupplier<Double> implements DoubleStochasticSupplier {
+    private static final long serialVersionUID = 6165484609378716384L;
+    private final double mean;
+    private final double std;
+    private final double lowerBound;
+    private final double upperBound;
+    private final OutOfBoundStrategy outOfBoundStrategy;
+
+    FastNormalSS(double m, double sd, double lower, double upper,
+        OutOfBoundStrategy strategy) {
+      mean = m;
+      std = sd;
+      lowerBound = lower;
+      upperBound = upper;
+      outOfBoundStrategy = strategy;
+    }
+
+    @Override
+    public Double get(long seed) {
+      return sample(seed);
+    }
+
+    @Override
+    public void get(long[] seeds, double[] values) {
+      for (int i = 0; i < seeds.length; i++) {
+        values[i] = sample(seeds[i]);
+      }
+    }
+
+    @Override
+    public void get(long seed, double[] values) {
+      final SplitMix64 rng = SplitMix64.create(seed);
+      for (int i = 0; i < values.length; i++) {
+        values[i] = sample(rng);
+      }
+    }
+
+    double sample(long seed) {
+      return sample(SplitMix64.create(seed));
+    }
+
+    double sample(SplitMix64 rng) {
+      double val = mean + std * rng.nextGaussian();
+      if (outOfBoundStrategy == OutOfBoundStrategy.REDRAW) {
+        while (!isInBounds(val)) {
+          val = mean + std * rng.nextGaussian();
+        }
+      } else if (val < lowerBound) {
+        val = lowerBound;
+      } else if (val >= upperBound) {
+        val = upperBound;
+      }
+      return val;
+    }
+
+    boolean isInBounds(double val) {
+      return val >= lowerBound && val < upperBound;
+    }
   }
 
   private static class IntegerDistributionSS extends
@@ -518,13 +937,33 @@ public final class StochasticSuppliers {
 
     @Override
     public Integer get(long seed) {
-      distribution.reseedRandomGenerator(seed);
-      return distribution.sample();
+      synchronized (distribution) {
+        distribution.reseedRandomGenerator(seed);
+        return distribution.sample();
+      }
+    }
+
+    void get(long[] seeds, long[] values) {
+      synchronized (distribution) {
+        for (int i = 0; i < seeds.length; i++) {
+          distribution.reseedRandomGenerator(seeds[i]);
+          values[i] = distribution.sample();
+        }
+      }
+    }
+
+    void get(long seed, long[] values) {
+      synchronized (distribution) {
+        distribution.reseedRandomGenerator(seed);
+        for (int i = 0; i < values.length; i++) {
+          values[i] = distribution.sample();
+        }
+      }
     }
   }
 
   private static class BoundedDoubleDistSS extends
-      AbstractStochasticSupplier<Double> {
+      AbstractStochasticSupplier<Double> implements DoubleStochasticSupplier {
     private static final long serialVersionUID = -6738290534532097051L;
     private final RealDistribution distribution;
     private final double lowerBound;
@@ -543,7 +982,38 @@ public final class StochasticSuppliers {
 
     @Override
     public Double get(long seed) {
+      synchronized (distribution) {
+        return sample(seed);
+      }
+    }
+
+    @Override
+    public void get(long[] seeds, double[] values) {
+      synchronized (distribution) {
+        for (int i = 0; i < seeds.length; i++) {
+          values[i] = sample(seeds[i]);
+        }
+      }
+    }
+
+    @Override
+    public void get(long seed, double[] values) {
+      synchronized (distribution) {
+        distribution.reseedRandomGenerator(seed);
+        for (int i = 0; i < values.length; i++) {
+          values[i] = sample();
+        }
+      }
+    }
+
+    // the caller must hold the lock on the distribution
+    double sample(long seed) {
       distribution.reseedRandomGenerator(seed);
+      return sample();
+    }
+
+    // the caller must hold the lock on the distribution
+    double sample() {
       double val = distribution.sample();
       if (outOfBoundStrategy == OutOfBoundStrategy.REDRAW) {
         while (!isInBounds(val)) {
@@ -563,7 +1033,7 @@ public final class StochasticSuppliers {
   }
 
   private static class DoubleDistributionSS extends
-      AbstractStochasticSupplier<Double> {
+      AbstractStochasticSupplier<Double> implements DoubleStochasticSupplier {
     private static final long serialVersionUID = -5853417575632121095L;
     private final RealDistribution distribution;
 
@@ -573,8 +1043,30 @@ public final class StochasticSuppliers {
 
     @Override
     public Double get(long seed) {
-      distribution.reseedRandomGenerator(seed);
-      return distribution.sample();
+      synchronized (distribution) {
+        distribution.reseedRandomGenerator(seed);
+        return distribution.sample();
+      }
+    }
+
+    @Override
+    public void get(long[] seeds, double[] values) {
+      synchronized (distribution) {
+        for (int i = 0; i < seeds.length; i++) {
+          distribution.reseedRandomGenerator(seeds[i]);
+          values[i] = distribution.sample();
+        }
+      }
+    }
+
+    @Override
+    public void get(long seed, double[] values) {
+      synchronized (distribution) {
+        distribution.reseedRandomGenerator(seed);
+        for (int i = 0; i < values.length; i++) {
+          values[i] = distribution.sample();
+        }
+      }
     }
   }
 
@@ -687,4 +1179,18 @@ public final class StochasticSuppliers {
       return new AutoValue_StochasticSuppliers_MersenneTwisterSS();
     }
   }
+
+  @AutoValue
+  abstract static class SplitMix64SS implements
+      StochasticSupplier<SplitMix64> {
+
+    @Override
+    public SplitMix64 get(long seed) {
+      return SplitMix64.create(seed);
+    }
+
+    static SplitMix64SS create() {
+      return new AutoValue_StochasticSuppliers_SplitMix64SS();
+    }
+  }
 }
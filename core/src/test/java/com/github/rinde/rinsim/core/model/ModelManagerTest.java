@@ -379,6 +379,26 @@ public class ModelManagerTest {
 
   }
 
+  /**
+   * The target models of a class are resolved once and include the models of
+   * its super types.
+   */
+  @Test
+  public void targetModelsCached() {
+    final ModelB mB = new ModelB();
+    final SpecialModelB mSB = new SpecialModelB();
+    final ModelC mC = new ModelC();
+    final ModelManager mm =
+      new ModelManager(ImmutableSet.<Model<?>>of(mB, mSB, mC));
+
+    assertThat(mm.getTargetModels(SpecialB.class)).containsExactly(mB, mSB)
+      .inOrder();
+    assertThat(mm.getTargetModels(SpecialB.class))
+      .isSameAs(mm.getTargetModels(SpecialB.class));
+    assertThat(mm.getTargetModels(ObjectB.class)).containsExactly(mB);
+    assertThat(mm.getTargetModels(ObjectA.class)).isEmpty();
+  }
+
   /**
    * Test for anonymous model.
    */
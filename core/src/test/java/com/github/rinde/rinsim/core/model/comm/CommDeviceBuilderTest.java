@@ -98,4 +98,33 @@ public class CommDeviceBuilderTest {
     setUp();
     assertEquals(Optional.absent(), builder.build().getMaxRange());
   }
+
+  /**
+   * Test for input validation of latency and bandwidth.
+   */
+  @Test
+  public void testSetLatencyAndBandwidth() {
+    boolean fail = false;
+    try {
+      builder.setLatency(-1);
+    } catch (final IllegalArgumentException e) {
+      fail = true;
+    }
+    assertTrue(fail);
+    fail = false;
+    try {
+      builder.setBandwidth(0);
+    } catch (final IllegalArgumentException e) {
+      fail = true;
+    }
+    assertTrue(fail);
+
+    final CommDevice device = builder.setLatency(3).setBandwidth(2).build();
+    assertEquals(3, device.getLatency());
+    assertEquals(Optional.of(2), device.getBandwidth());
+    setUp();
+    assertEquals(0, builder.build().getLatency());
+    setUp();
+    assertEquals(Optional.absent(), builder.build().getBandwidth());
+  }
 }
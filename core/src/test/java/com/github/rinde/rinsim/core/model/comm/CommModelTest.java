@@ -23,6 +23,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -547,6 +548,183 @@ public class CommModelTest {
       model.getUsersAndDevices().inverse().get(event.getDevice()));
   }
 
+  /**
+   * Tests that parallel delivery preserves the order of registration of the
+   * senders.
+   */
+  @Test
+  public void testParallelBroadcastReceiveOrdering() {
+    model = CommModel.builder()
+      .withParallelDelivery(2)
+      .build(fakeDependencies());
+    model.register(agent1);
+    model.register(agent2);
+    model.register(agent3);
+    model.register(agent4);
+    model.register(agent5);
+    testBroadcastReceiveOrdering();
+  }
+
+  /**
+   * Tests that parallel delivery with unreliable devices is deterministic and
+   * independent of the number of threads.
+   */
+  @Test
+  public void testParallelDeliveryDeterministic() {
+    final List<List<Integer>> expected = deliverInParallel(1);
+    assertThat(deliverInParallel(1)).isEqualTo(expected);
+    assertThat(deliverInParallel(3)).isEqualTo(expected);
+    assertThat(deliverInParallel(8)).isEqualTo(expected);
+
+    int received = 0;
+    for (final List<Integer> senders : expected) {
+      received += senders.size();
+    }
+    // every device broadcasts to and receives from 19 devices
+    assertThat(received).isGreaterThan(0);
+    assertThat(received).isLessThan(20 * 19);
+  }
+
+  /**
+   * Tests that the number of threads must be positive.
+   */
+  @Test
+  public void testParallelDeliveryInvalidThreads() {
+    thrown.expect(IllegalArgumentException.class);
+    CommModel.builder().withParallelDelivery(0).build(fakeDependencies());
+  }
+
+  /**
+   * Tests that messages are delivered after the maximum latency of the sender
+   * and the recipient.
+   */
+  @Test
+  public void testLatency() {
+    model = CommModel.builder()
+      .withDefaultDeviceLatency(1)
+      .build(fakeDependencies());
+    model.register(agent1);
+    model.register(agent2);
+    final Agent slow = new LatencyAgent(new Point(0, 0), 3);
+    model.register(slow);
+
+    agent1.device().send(Contents.YO, agent2);
+    agent1.device().send(Contents.HELLO_WORLD, slow);
+    model.afterTick(TimeLapseFactory.create(0, 100));
+    assertThat(agent1.device().getOutbox()).isEmpty();
+    assertThat(model.getInTransitCount()).isEqualTo(2);
+    assertThat(agent2.device().getUnreadCount()).isEqualTo(0);
+
+    model.afterTick(TimeLapseFactory.create(100, 200));
+    assertThat(model.getInTransitCount()).isEqualTo(1);
+    assertThat(agent2.device().getUnreadCount()).isEqualTo(1);
+    assertThat(slow.device().getUnreadCount()).isEqualTo(0);
+
+    model.afterTick(TimeLapseFactory.create(200, 300));
+    assertThat(slow.device().getUnreadCount()).isEqualTo(0);
+    model.afterTick(TimeLapseFactory.create(300, 400));
+    assertThat(model.getInTransitCount()).isEqualTo(0);
+    assertThat(slow.device().getUnreadMessages().get(0).getContents())
+      .isEqualTo(Contents.HELLO_WORLD);
+  }
+
+  /**
+   * Tests that messages in transit to an unregistered device are lost.
+   */
+  @Test
+  public void testLatencyUnregisteredRecipient() {
+    model = CommModel.builder()
+      .withDefaultDeviceLatency(2)
+      .withParallelDelivery(2)
+      .build(fakeDependencies());
+    model.register(agent1);
+    model.register(agent2);
+    agent1.device().send(Contents.YO, agent2);
+    model.afterTick(TimeLapseFactory.create(0, 100));
+    model.unregister(agent2);
+    model.afterTick(TimeLapseFactory.create(100, 200));
+    model.afterTick(TimeLapseFactory.create(200, 300));
+    assertThat(model.getInTransitCount()).isEqualTo(0);
+    assertThat(agent2.device().getReceivedCount()).isEqualTo(0);
+  }
+
+  /**
+   * Tests that a device sends at most its bandwidth in messages per tick.
+   */
+  @Test
+  public void testBandwidth() {
+    model = CommModel.builder()
+      .withDefaultDeviceBandwidth(2)
+      .build(fakeDependencies());
+    model.register(agent1);
+    model.register(agent2);
+    model.register(agent3);
+    agent1.device().broadcast(Contents.YO);
+    agent1.device().send(Contents.HELLO_WORLD, agent2);
+    agent1.device().send(Contents.YO, agent3);
+
+    model.afterTick(TimeLapseFactory.create(0, 100));
+    assertThat(agent1.device().getOutbox()).hasSize(1);
+    assertThat(agent2.device().getUnreadCount()).isEqualTo(2);
+    assertThat(agent3.device().getUnreadCount()).isEqualTo(1);
+
+    model.afterTick(TimeLapseFactory.create(100, 200));
+    assertThat(agent1.device().getOutbox()).isEmpty();
+    assertThat(agent3.device().getUnreadCount()).isEqualTo(2);
+  }
+
+  /**
+   * Tests input validation of latency and bandwidth.
+   */
+  @Test
+  public void testLatencyAndBandwidthInputValidation() {
+    boolean fail = false;
+    try {
+      CommModel.builder().withDefaultDeviceLatency(-1)
+        .build(fakeDependencies());
+    } catch (final IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("non-negative");
+      fail = true;
+    }
+    assertThat(fail).isTrue();
+    fail = false;
+    try {
+      CommModel.builder().withDefaultDeviceBandwidth(0)
+        .build(fakeDependencies());
+    } catch (final IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("positive");
+      fail = true;
+    }
+    assertThat(fail).isTrue();
+  }
+
+  static List<List<Integer>> deliverInParallel(int threads) {
+    final CommModel cm = CommModel.builder()
+      .withDefaultDeviceReliability(.7)
+      .withParallelDelivery(threads)
+      .build(fakeDependencies());
+    final List<Agent> agents = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      final Agent a = new Agent(new Point(i % 5, i / 5), .7);
+      agents.add(a);
+      cm.register(a);
+    }
+    for (final Agent a : agents) {
+      a.device().broadcast(Contents.YO);
+    }
+    cm.afterTick(TimeLapseFactory.create(0, 100));
+
+    final List<List<Integer>> received = new ArrayList<>();
+    for (final Agent a : agents) {
+      final List<Integer> senders = new ArrayList<>();
+      for (final Message m : a.device().getUnreadMessages()) {
+        senders.add(agents.indexOf(m.getSender()));
+      }
+      received.add(senders);
+    }
+    return received;
+  }
+
   static DependencyProvider fakeDependencies() {
     return FakeDependencyProvider.builder()
       .add(RandomModel.builder())
@@ -623,6 +801,20 @@ public class CommModelTest {
     }
   }
 
+  static class LatencyAgent extends Agent {
+    final int latency;
+
+    LatencyAgent(@Nullable Point p, int l) {
+      super(p);
+      latency = l;
+    }
+
+    @Override
+    public void setCommDevice(CommDeviceBuilder builder) {
+      commDevice = Optional.of(builder.setLatency(latency).build());
+    }
+  }
+
   static class IdleCommUser implements CommUser {
     @Override
     public Optional<Point> getPosition() {
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.comm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link TimingWheel}.
+ * @author Rinde van Lon
+ */
+public class TimingWheelTest {
+
+  /**
+   * Items are returned at their tick in the order in which they were added,
+   * also when they are cascaded from higher levels.
+   */
+  @Test
+  public void testAdvance() {
+    final TimingWheel<Integer> wheel = new TimingWheel<>();
+    final int horizon = 20000;
+    final List<List<Integer>> expected = new ArrayList<>();
+    for (int i = 0; i <= horizon; i++) {
+      expected.add(new ArrayList<Integer>());
+    }
+    final Random rng = new Random(123);
+    int item = 0;
+    for (int tick = 0; tick < horizon; tick++) {
+      for (int j = 0; j < 3; j++) {
+        final int delay = 1 + rng.nextInt(Math.min(5000, horizon - tick));
+        wheel.add(wheel.getCurrentTick() + delay, item);
+        expected.get(tick + delay).add(item);
+        item++;
+      }
+      assertThat(wheel.advance()).containsExactlyElementsIn(
+        expected.get(tick + 1)).inOrder();
+    }
+    assertThat(wheel.size()).isEqualTo(0);
+  }
+
+  /**
+   * Items far in the future are returned at their tick.
+   */
+  @Test
+  public void testFarFuture() {
+    final TimingWheel<String> wheel = new TimingWheel<>();
+    final long tick = 1L << 20;
+    wheel.add(tick, "far");
+    wheel.add(tick + 1, "further");
+    for (long t = 1; t < tick; t++) {
+      assertThat(wheel.advance()).isEmpty();
+    }
+    assertThat(wheel.advance()).containsExactly("far");
+    assertThat(wheel.advance()).containsExactly("further");
+    assertThat(wheel.size()).isEqualTo(0);
+  }
+
+  /**
+   * Items can not be added at or before the current tick.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddPast() {
+    new TimingWheel<String>().add(0L, "now");
+  }
+}
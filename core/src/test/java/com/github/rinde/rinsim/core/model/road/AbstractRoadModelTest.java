@@ -519,6 +519,40 @@ public abstract class AbstractRoadModelTest<T extends GenericRoadModel> {
 
   }
 
+  /**
+   * The objects of a type include instances of subclasses and implementors of
+   * interfaces, and are maintained when objects are added and removed.
+   */
+  @Test
+  public void getObjectsOfTypeHierarchy() {
+    final TestRoadUser a = new TestRoadUser();
+    final TestRoadUser2 b = new TestRoadUser2();
+    final SpeedyRoadUser c = new SpeedyRoadUser(1);
+    model.addObjectAt(a, NE);
+    model.addObjectAt(b, SE);
+    assertThat(model.getObjectsOfType(TrivialRoadUser.class))
+      .containsExactly(a, b).inOrder();
+    assertThat(model.getObjectsOfType(SpeedyRoadUser.class)).isEmpty();
+
+    model.addObjectAt(c, SW);
+    model.removeObject(a);
+    model.addObjectAtSamePosition(a, c);
+    assertThat(model.getObjectsOfType(TrivialRoadUser.class))
+      .containsExactly(b, a).inOrder();
+    assertThat(model.getObjectsOfType(SpeedyRoadUser.class))
+      .containsExactly(c);
+    assertThat(model.getObjectsOfType(MovingRoadUser.class))
+      .containsExactly(b, c, a).inOrder();
+    assertThat(model.getObjectsOfType(RoadUser.class))
+      .containsExactly(b, c, a).inOrder();
+    assertThat(model.getObjectsAt(c, TestRoadUser.class)).containsExactly(a);
+
+    model.clear();
+    assertThat(model.getObjectsOfType(TrivialRoadUser.class)).isEmpty();
+    model.addObjectAt(b, SE);
+    assertThat(model.getObjectsOfType(RoadUser.class)).containsExactly(b);
+  }
+
   /**
    * Tests whether decoration works correctly.
    */
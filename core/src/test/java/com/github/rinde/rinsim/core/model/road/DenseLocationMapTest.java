@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.road;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Tests for {@link DenseLocationMap}.
+ * @author Rinde van Lon
+ */
+public class DenseLocationMapTest {
+
+  /**
+   * The map behaves as a linked hash map, also after removals trigger a
+   * compaction of the arrays.
+   */
+  @Test
+  public void testInsertionOrderAndCompaction() {
+    final DenseLocationMap<Point> map = new DenseLocationMap<>();
+    final Map<RoadUser, Point> expected = new LinkedHashMap<>();
+    final List<RoadUser> users = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      final RoadUser ru = new TestRoadUser();
+      users.add(ru);
+      assertThat(map.put(ru, new Point(i, 0))).isNull();
+      expected.put(ru, new Point(i, 0));
+    }
+    assertThat(map.put(users.get(3), new Point(3, 3)))
+      .isEqualTo(new Point(3, 0));
+    expected.put(users.get(3), new Point(3, 3));
+
+    for (int i = 0; i < 100; i += 3) {
+      assertThat(map.remove(users.get(i))).isEqualTo(expected.get(users
+        .get(i)));
+      expected.remove(users.get(i));
+    }
+    for (int i = 1; i < 60; i += 3) {
+      map.remove(users.get(i));
+      expected.remove(users.get(i));
+    }
+    assertThat(map.remove(users.get(0))).isNull();
+
+    final RoadUser last = new TestRoadUser();
+    map.put(last, new Point(-1, -1));
+    expected.put(last, new Point(-1, -1));
+
+    assertThat(map).hasSize(expected.size());
+    assertThat(map.snapshot()).containsExactlyEntriesIn(expected).inOrder();
+    for (final RoadUser ru : users) {
+      assertThat(map.containsKey(ru)).isEqualTo(expected.containsKey(ru));
+      assertThat(map.get(ru)).isEqualTo(expected.get(ru));
+    }
+
+    map.clear();
+    assertThat(map).isEmpty();
+    assertThat(map.get(last)).isNull();
+  }
+
+  /**
+   * A reader that does not synchronize observes a location that is put for
+   * an existing road user by another thread.
+   * @throws InterruptedException Should not happen.
+   */
+  @Test
+  public void testConcurrentPutExisting() throws InterruptedException {
+    final DenseLocationMap<Point> map = new DenseLocationMap<>();
+    final RoadUser ru = new TestRoadUser();
+    map.put(ru, new Point(0, 0));
+    final int moves = 10000;
+    final Thread writer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 1; i <= moves; i++) {
+          map.put(ru, new Point(i, 0));
+        }
+      }
+    });
+    writer.start();
+    final long deadline =
+      System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    boolean observed = false;
+    while (!observed && System.nanoTime() < deadline) {
+      observed = map.get(ru).x == moves;
+    }
+    writer.join();
+    assertThat(observed).isTrue();
+  }
+
+  static class TestRoadUser implements RoadUser {
+    @Override
+    public void initRoadUser(RoadModel model) {}
+  }
+}
@@ -31,6 +31,7 @@ import java.util.Set;
 
 import javax.measure.Measure;
 import javax.measure.converter.UnitConverter;
+import javax.measure.quantity.Velocity;
 import javax.measure.unit.NonSI;
 import javax.measure.unit.SI;
 
@@ -51,6 +52,7 @@ import com.github.rinde.rinsim.geom.LengthData;
 import com.github.rinde.rinsim.geom.ListenableGraph;
 import com.github.rinde.rinsim.geom.MultiAttributeData;
 import com.github.rinde.rinsim.geom.MultimapGraph;
+import com.github.rinde.rinsim.geom.PathNotFoundException;
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.geom.TableGraph;
 import com.google.common.base.VerifyException;
@@ -620,6 +622,78 @@ public class GraphRoadModelTest
     assertEquals(new Point(0, 1), moveModel.getPosition(shortestPathAgent));
   }
 
+  /**
+   * The batched travel times should equal the travel times of the individual
+   * paths.
+   */
+  @Test
+  public void getTravelTimes() {
+    final List<Point> from = asList(SW, SE);
+    final List<Point> to = asList(SE, NE, NW, SE);
+    final long queries = model.getPathQueryCount();
+    final double[][] travelTimes = model.getTravelTimes(from, to,
+      SI.SECOND, Measure.valueOf(10d, SI.METERS_PER_SECOND),
+      GeomHeuristics.euclidean());
+    assertEquals(queries + from.size(), model.getPathQueryCount());
+    assertEquals(from.size(), travelTimes.length);
+    for (int i = 0; i < from.size(); i++) {
+      assertEquals(to.size(), travelTimes[i].length);
+      for (int j = 0; j < to.size(); j++) {
+        final double expected = from.get(i).equals(to.get(j)) ? 0d
+          : model.getPathTo(from.get(i), to.get(j), SI.SECOND,
+            Measure.valueOf(10d, SI.METERS_PER_SECOND),
+            GeomHeuristics.euclidean()).getTravelTime();
+        assertEquals(expected, travelTimes[i][j], EPSILON);
+      }
+    }
+    assertEquals(0d, travelTimes[1][0], EPSILON);
+  }
+
+  /**
+   * Unreachable points should yield an exception.
+   */
+  @Test(expected = PathNotFoundException.class)
+  public void getTravelTimesUnreachable() {
+    model.getTravelTimes(asList(SE, NW), asList(NE, SW), SI.SECOND,
+      Measure.valueOf(10d, SI.METERS_PER_SECOND), GeomHeuristics.euclidean());
+  }
+
+  /**
+   * The batched travel times should follow the heuristic.
+   */
+  @Test
+  public void getTravelTimesHeuristic() {
+    final Point origin = new Point(0, 0);
+    final Point destination = new Point(0, 10);
+    final Point midway = new Point(5, 5);
+    final Graph<MultiAttributeData> graph = new TableGraph<>();
+    graph.addConnection(origin, destination,
+      MultiAttributeData.builder().setLength(10).setMaxSpeed(1).build());
+    graph.addConnection(origin, midway,
+      MultiAttributeData.builder().setLength(10).setMaxSpeed(10).build());
+    graph.addConnection(midway, destination,
+      MultiAttributeData.builder().setLength(10).setMaxSpeed(10).build());
+    final RoadModel rm = RoadModelBuilders.staticGraph(graph)
+      .withDistanceUnit(SI.KILOMETER).withSpeedUnit(NonSI.KILOMETERS_PER_HOUR)
+      .build(mock(DependencyProvider.class));
+
+    final Measure<Double, Velocity> speed =
+      Measure.valueOf(10d, NonSI.KILOMETERS_PER_HOUR);
+    final List<Point> from = asList(origin, midway);
+    final List<Point> to = asList(destination, midway);
+    final double[][] fastest = rm.getTravelTimes(from, to, NonSI.HOUR, speed,
+      GeomHeuristics.time(10));
+    final double[][] shortest = rm.getTravelTimes(from, to, NonSI.HOUR, speed,
+      GeomHeuristics.euclidean());
+    assertEquals(2d, fastest[0][0], EPSILON);
+    assertEquals(1d, shortest[0][0], EPSILON);
+    assertEquals(1d, fastest[0][1], EPSILON);
+    assertEquals(1d, shortest[1][0], EPSILON);
+    assertEquals(0d, shortest[1][1], EPSILON);
+    assertEquals(rm.getPathTo(origin, destination, NonSI.HOUR, speed,
+      GeomHeuristics.time(10)).getTravelTime(), fastest[0][0], EPSILON);
+  }
+
   @Test
   public void getConnectionTest() {
     final TestRoadUser driver = new TestRoadUser();
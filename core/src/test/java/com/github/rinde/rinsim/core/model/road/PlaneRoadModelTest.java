@@ -22,13 +22,18 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
+import java.util.List;
 import java.util.Queue;
 
+import javax.measure.Measure;
+import javax.measure.unit.SI;
+
 import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.junit.Test;
 
 import com.github.rinde.rinsim.core.model.DependencyProvider;
+import com.github.rinde.rinsim.geom.GeomHeuristics;
 import com.github.rinde.rinsim.geom.Point;
 
 /**
@@ -218,4 +223,26 @@ public class PlaneRoadModelTest extends AbstractRoadModelTest<PlaneRoadModel> {
       .getShortestPathTo(new Point(0, 0), new Point(5, 5)));
   }
 
+  /**
+   * The batched travel times should equal the travel times of the individual
+   * paths.
+   */
+  @Test
+  public void getTravelTimes() {
+    final List<Point> points =
+      asList(new Point(0, 0), new Point(5, 5), new Point(10, 0));
+    final double[][] travelTimes = model.getTravelTimes(points, points,
+      SI.SECOND, Measure.valueOf(1d, SI.METERS_PER_SECOND),
+      GeomHeuristics.euclidean());
+    for (int i = 0; i < points.size(); i++) {
+      for (int j = 0; j < points.size(); j++) {
+        assertEquals(model.getPathTo(points.get(i), points.get(j), SI.SECOND,
+          Measure.valueOf(1d, SI.METERS_PER_SECOND),
+          GeomHeuristics.euclidean()).getTravelTime(), travelTimes[i][j],
+          EPSILON);
+      }
+    }
+    // 10 km at 1 m/s
+    assertEquals(10000d, travelTimes[0][2], EPSILON);
+  }
 }
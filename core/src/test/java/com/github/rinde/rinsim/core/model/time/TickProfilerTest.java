@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.core.model.time;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.model.comm.CommDeviceBuilder;
+import com.github.rinde.rinsim.core.model.comm.CommModel;
+import com.github.rinde.rinsim.core.model.comm.CommUser;
+import com.github.rinde.rinsim.core.model.road.GenericRoadModel.RoadEventType;
+import com.github.rinde.rinsim.core.model.road.MovingRoadUser;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModelBuilders;
+import com.github.rinde.rinsim.core.model.time.Clock.ClockEventType;
+import com.github.rinde.rinsim.core.model.time.TickProfiler.Snapshot;
+import com.github.rinde.rinsim.core.model.time.TickProfiler.Timing;
+import com.github.rinde.rinsim.geom.Point;
+import com.google.common.base.Optional;
+
+/**
+ * Tests for {@link TickProfiler}.
+ * @author Rinde van Lon
+ */
+public class TickProfilerTest {
+
+  /**
+   * The profile must contain the durations of all listeners, the road model
+   * events and the path queries.
+   */
+  @Test
+  public void testProfile() {
+    final Simulator sim = Simulator.builder()
+      .addModel(RoadModelBuilders.plane())
+      .addModel(CommModel.builder())
+      .addModel(TickProfiler.builder().withDumpInterval(5))
+      .build();
+    final SlowListener slow = new SlowListener();
+    final Mover mover = new Mover();
+    sim.register(slow);
+    sim.register(mover);
+    sim.register(new StaticCommUser());
+    sim.getModelProvider().getModel(RoadModel.class)
+      .addObjectAt(mover, new Point(0, 0));
+    for (int i = 0; i < 10; i++) {
+      sim.tick();
+    }
+
+    final Snapshot snapshot =
+      sim.getModelProvider().getModel(TickProfiler.class).getSnapshot();
+    assertThat(snapshot.getTicks()).isEqualTo(10L);
+    assertThat(snapshot.getTickTimes()).containsKey(slow);
+    assertThat(snapshot.getTickTimes()).containsKey(mover);
+    long previous = Long.MAX_VALUE;
+    for (final Timing t : snapshot.getTickTimes().values()) {
+      assertThat(t.getTotalNanos()).isAtMost(previous);
+      previous = t.getTotalNanos();
+    }
+    assertThat(snapshot.getTickTimes().get(slow).getCount()).isEqualTo(10L);
+    assertThat(snapshot.getTickTimes().get(slow).getMedianNanos())
+      .isAtLeast(SlowListener.DURATION / 2);
+    assertThat(snapshot.getTickTimes().get(slow).getMaxNanos())
+      .isAtLeast(snapshot.getTickTimes().get(slow).getP99Nanos());
+    assertThat(snapshot.getAfterTickTimes().get(mover).getCount())
+      .isEqualTo(10L);
+    assertThat(snapshot.getEventCounts())
+      .containsEntry(RoadEventType.MOVE, 10L);
+    assertThat(snapshot.getEventCounts())
+      .containsEntry(CommModel.EventTypes.ADD_COMM_USER, 1L);
+    assertThat(snapshot.getEventCounts())
+      .doesNotContainKey(ClockEventType.STARTED);
+    assertThat(snapshot.getPathQueries()).isEqualTo(1L);
+  }
+
+  /**
+   * Buckets must be contiguous and quantiles must have a small relative
+   * error.
+   */
+  @Test
+  public void testHistogram() {
+    for (long v = 0; v < 100000; v++) {
+      final int index = LatencyHistogram.index(v);
+      assertThat(LatencyHistogram.lowestValue(index)).isAtMost(v);
+      assertThat(LatencyHistogram.lowestValue(index + 1)).isGreaterThan(v);
+    }
+    final LatencyHistogram h = new LatencyHistogram();
+    for (long v = 1; v <= 100000; v++) {
+      h.record(v);
+    }
+    assertThat(h.getCount()).isEqualTo(100000L);
+    assertThat(h.getMax()).isEqualTo(100000L);
+    assertThat((double) h.getValueAtQuantile(.5)).isWithin(50000d / 32)
+      .of(50000d);
+    assertThat((double) h.getValueAtQuantile(.99)).isWithin(99000d / 32)
+      .of(99000d);
+    assertThat(h.getValueAtQuantile(1d)).isEqualTo(100000L);
+  }
+
+  static class SlowListener implements TickListener {
+    static final long DURATION = TimeUnit.MICROSECONDS.toNanos(200);
+
+    @Override
+    public void tick(TimeLapse timeLapse) {
+      final long start = System.nanoTime();
+      while (System.nanoTime() - start < DURATION) {
+        // busy wait
+      }
+    }
+
+    @Override
+    public void afterTick(TimeLapse timeLapse) {}
+  }
+
+  static class StaticCommUser implements CommUser {
+    @Override
+    public Optional<Point> getPosition() {
+      return Optional.of(new Point(0, 0));
+    }
+
+    @Override
+    public void setCommDevice(CommDeviceBuilder builder) {
+      builder.build();
+    }
+  }
+
+  static class Mover implements MovingRoadUser, TickListener {
+    RoadModel roadModel;
+
+    @Override
+    public void initRoadUser(RoadModel model) {
+      roadModel = model;
+    }
+
+    @Override
+    public double getSpeed() {
+      return 1d;
+    }
+
+    @Override
+    public void tick(TimeLapse timeLapse) {
+      roadModel.moveTo(this, new Point(10, 10), timeLapse);
+    }
+
+    @Override
+    public void afterTick(TimeLapse timeLapse) {}
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ForkJoinPools}.
+ * @author Rinde van Lon
+ */
+public class ForkJoinPoolsTest {
+
+  /**
+   * There is one pool per parallelism level and it can not be shut down.
+   */
+  @Test
+  public void testShared() {
+    final ForkJoinPool pool = ForkJoinPools.shared(3);
+    assertThat(pool.getParallelism()).isEqualTo(3);
+    assertThat(ForkJoinPools.shared(3)).isSameAs(pool);
+    assertThat(ForkJoinPools.shared(2)).isNotSameAs(pool);
+    assertThat(ForkJoinPools.shared().getParallelism())
+      .isEqualTo(Runtime.getRuntime().availableProcessors());
+
+    pool.shutdown();
+    assertThat(pool.shutdownNow()).isEmpty();
+    assertThat(pool.isShutdown()).isFalse();
+  }
+
+  /**
+   * The parallelism must be positive.
+   */
+  @Test
+  public void testInvalidParallelism() {
+    try {
+      ForkJoinPools.shared(0);
+      fail();
+    } catch (final IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("positive");
+    }
+  }
+}
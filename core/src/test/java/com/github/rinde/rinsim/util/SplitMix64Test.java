@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SplitMix64}.
+ * @author Rinde van Lon
+ */
+public class SplitMix64Test {
+
+  /**
+   * The random access methods must be equal to the stream.
+   */
+  @Test
+  public void testValueAt() {
+    final SplitMix64 rng = SplitMix64.create(123L);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(SplitMix64.valueAt(123L, i), rng.nextLong());
+    }
+    final SplitMix64 rng2 = SplitMix64.create(-5L);
+    for (int i = 0; i < 100; i++) {
+      final double d = SplitMix64.doubleAt(-5L, i);
+      assertEquals(d, rng2.nextDouble(), 0d);
+      assertThat(d).isAtLeast(0d);
+      assertThat(d).isLessThan(1d);
+    }
+  }
+
+  /**
+   * Reseeding restarts the stream, a split generator has a different stream.
+   */
+  @Test
+  public void testSetSeedAndSplit() {
+    final SplitMix64 rng = SplitMix64.create(7L);
+    final double first = rng.nextGaussian();
+    final long second = rng.nextLong();
+    rng.setSeed(7L);
+    assertEquals(first, rng.nextGaussian(), 0d);
+    assertEquals(second, rng.nextLong());
+
+    rng.setSeed(7L);
+    final SplitMix64 split = rng.split();
+    assertNotEquals(SplitMix64.valueAt(7L, 1), split.nextLong());
+    assertNotEquals(rng.nextLong(), split.nextLong());
+  }
+
+  /**
+   * The fast suppliers must return the same values when used concurrently.
+   * @throws InterruptedException Should not happen.
+   * @throws ExecutionException Should not happen.
+   */
+  @Test
+  public void testConcurrentSuppliers()
+      throws InterruptedException, ExecutionException {
+    final StochasticSupplier<Double> sup =
+      StochasticSuppliers.fastNormal().bounds(-1, 1).buildDouble();
+    final List<Double> expected = new ArrayList<>();
+    for (long seed = 0; seed < 1000; seed++) {
+      expected.add(sup.get(seed));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    final List<Future<List<Double>>> futures = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(executor.submit(new Callable<List<Double>>() {
+        @Override
+        public List<Double> call() {
+          final List<Double> values = new ArrayList<>();
+          for (long seed = 0; seed < 1000; seed++) {
+            values.add(sup.get(seed));
+          }
+          return values;
+        }
+      }));
+    }
+    for (final Future<List<Double>> f : futures) {
+      assertEquals(expected, f.get());
+    }
+    executor.shutdown();
+  }
+}
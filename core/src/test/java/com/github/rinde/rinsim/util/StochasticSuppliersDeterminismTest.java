@@ -16,6 +16,10 @@
 package com.github.rinde.rinsim.util;
 
 import static com.github.rinde.rinsim.util.StochasticSuppliers.constant;
+import static com.github.rinde.rinsim.util.StochasticSuppliers.fastNormal;
+import static com.github.rinde.rinsim.util.StochasticSuppliers.fastUniformDouble;
+import static com.github.rinde.rinsim.util.StochasticSuppliers.fastUniformInt;
+import static com.github.rinde.rinsim.util.StochasticSuppliers.fastUniformLong;
 import static com.github.rinde.rinsim.util.StochasticSuppliers.normal;
 import static com.github.rinde.rinsim.util.StochasticSuppliers.uniformDouble;
 import static com.github.rinde.rinsim.util.StochasticSuppliers.uniformInt;
@@ -50,7 +54,12 @@ public class StochasticSuppliersDeterminismTest {
       {constant(100L)},
       {normal().buildDouble()},
       {normal().bounds(-1, 1).buildInteger()},
-      {normal().mean(100).std(50).buildLong()}
+      {normal().mean(100).std(50).buildLong()},
+      {fastUniformDouble(0.5, 5.5)},
+      {fastUniformInt(0, 10)},
+      {fastUniformLong(Long.MIN_VALUE, Long.MAX_VALUE)},
+      {fastNormal().buildDouble()},
+      {fastNormal().bounds(-1, 1).buildInteger()}
     });
   }
 
@@ -17,11 +17,15 @@ package com.github.rinde.rinsim.util;
 
 import static com.github.rinde.rinsim.util.StochasticSuppliers.checked;
 import static com.github.rinde.rinsim.util.StochasticSuppliers.constant;
+import static com.github.rinde.rinsim.util.StochasticSuppliers.fastNormal;
+import static com.github.rinde.rinsim.util.StochasticSuppliers.fastUniformInt;
 import static com.github.rinde.rinsim.util.StochasticSuppliers.uniformInt;
 import static com.google.common.collect.Lists.newArrayList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.math3.distribution.IntegerDistribution;
@@ -62,6 +66,121 @@ public class StochasticSuppliersTest {
     assertTrue(chiSquare(expectations, observations, .01));
   }
 
+  /**
+   * Tests whether the SplitMix64 based suppliers have the correct
+   * distribution.
+   */
+  @Test
+  public void testFastUniformAndNormal() {
+    final RandomGenerator rng = new MersenneTwister(123L);
+    final StochasticSupplier<Integer> sup = fastUniformInt(2, 10);
+    final IntegerDistribution id = new UniformIntegerDistribution(2, 10);
+
+    final Multiset<Integer> ms = TreeMultiset.create();
+    for (int i = 0; i < 1000; i++) {
+      ms.add(sup.get(rng.nextLong()));
+    }
+    assertEquals(9, ms.elementSet().size());
+    final List<Integer> observations = newArrayList();
+    final List<Double> expectations = newArrayList();
+    for (final Multiset.Entry<Integer> entry : ms.entrySet()) {
+      observations.add(entry.getCount());
+      expectations.add(id.probability(entry.getElement()));
+    }
+    assertTrue(chiSquare(expectations, observations, .01));
+
+    final StochasticSupplier<Double> normal =
+      fastNormal().mean(10).std(2).bounds(5, 15).buildDouble();
+    final SummaryStatistics ss = new SummaryStatistics();
+    for (int i = 0; i < 10000; i++) {
+      ss.addValue(normal.get(rng.nextLong()));
+    }
+    assertTrue(ss.getMin() >= 5);
+    assertTrue(ss.getMax() < 15);
+    assertEquals(10, ss.getMean(), .1);
+    assertEquals(2, ss.getStandardDeviation(), .2);
+  }
+
+  /**
+   * Batches with a seed per value must be equal to drawing the values one by
+   * one.
+   */
+  @Test
+  public void testBatches() {
+    final List<StochasticSupplier<Double>> doubleSups = doubleSuppliers();
+    final long[] seeds = StochasticSuppliers.seeds(123L, 100);
+    for (final StochasticSupplier<Double> sup : doubleSups) {
+      final double[] values = new double[seeds.length];
+      StochasticSuppliers.getDoubles(sup, seeds, values);
+      for (int i = 0; i < seeds.length; i++) {
+        assertEquals(sup.get(seeds[i]), values[i], 0d);
+      }
+    }
+
+    for (final StochasticSupplier<Long> sup : longSuppliers()) {
+      final long[] values = new long[seeds.length];
+      StochasticSuppliers.getLongs(sup, seeds, values);
+      for (int i = 0; i < seeds.length; i++) {
+        assertEquals(sup.get(seeds[i]).longValue(), values[i]);
+      }
+    }
+  }
+
+  /**
+   * Batches with a single seed are drawn from one stream, they only depend on
+   * the seed.
+   */
+  @Test
+  public void testStreamBatches() {
+    for (final StochasticSupplier<Double> sup : doubleSuppliers()) {
+      final double[] values = StochasticSuppliers.getDoubles(sup, 123L, 100);
+      assertTrue(Arrays.equals(values,
+        StochasticSuppliers.getDoubles(sup, 123L, 100)));
+      assertFalse(Arrays.equals(values,
+        StochasticSuppliers.getDoubles(sup, 124L, 100)));
+    }
+    for (final StochasticSupplier<Long> sup : longSuppliers()) {
+      final long[] values = StochasticSuppliers.getLongs(sup, 123L, 100);
+      assertTrue(Arrays.equals(values,
+        StochasticSuppliers.getLongs(sup, 123L, 100)));
+    }
+
+    // the stream is seeded once: the values are consecutive draws
+    final RandomGenerator rng = new MersenneTwister(123L);
+    final double[] values = StochasticSuppliers.getDoubles(
+      StochasticSuppliers.uniformDouble(-1, 1), 123L, 100);
+    for (final double v : values) {
+      assertEquals(-1d + 2d * rng.nextDouble(), v, 1e-15);
+    }
+
+    // suppliers without batch support use a seed per value
+    final StochasticSupplier<Double> boxed = StochasticSuppliers.fromIterable(
+      Arrays.asList(1d, 2d, 3d));
+    assertTrue(Arrays.equals(new double[] {1d, 2d, 3d},
+      StochasticSuppliers.getDoubles(boxed, 123L, 3)));
+  }
+
+  static List<StochasticSupplier<Double>> doubleSuppliers() {
+    return newArrayList(
+      StochasticSuppliers.uniformDouble(-1, 1),
+      StochasticSuppliers.normal().buildDouble(),
+      StochasticSuppliers.normal().bounds(-1, 1).buildDouble(),
+      StochasticSuppliers.normal().bounds(-1, 1).roundWhenOutOfBounds()
+        .buildDouble(),
+      StochasticSuppliers.fastUniformDouble(-1, 1),
+      fastNormal().bounds(-1, 1).buildDouble(),
+      checked(StochasticSuppliers.uniformDouble(0, 1),
+        Range.closed(0d, 1d)));
+  }
+
+  static List<StochasticSupplier<Long>> longSuppliers() {
+    return newArrayList(
+      StochasticSuppliers.uniformLong(-10, 10),
+      StochasticSuppliers.normal().mean(100).std(50).buildLong(),
+      StochasticSuppliers.fastUniformLong(-10, 10),
+      constant(5L));
+  }
+
   boolean chiSquare(List<? extends Number> expectations,
       List<? extends Number> observations, double confidence) {
     final double chi = TestUtils.chiSquareTest(Doubles.toArray(expectations),
@@ -52,6 +52,10 @@ class DryRunComputer implements Computer {
     } else if (originalComputer == Computers.DISTRIBUTED) {
       printStream.println("Using distributed computing using JPPF.");
       printStream.println("numBatches = " + builder.numBatches);
+    } else if (originalComputer == Computers.PROCESSES) {
+      printStream.println("Using local computation in worker processes.");
+      printStream.println("numProcesses = " + builder.numThreads);
+      printStream.println("jvmArgs = " + builder.processJvmArgs);
     } else {
       errorStream.println("Found unknown computer: " + originalComputer);
     }
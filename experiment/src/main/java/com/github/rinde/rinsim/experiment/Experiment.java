@@ -119,6 +119,12 @@ public final class Experiment {
       public Computer get() {
         return new JppfComputer();
       }
+    },
+    PROCESSES {
+      @Override
+      public Computer get() {
+        return new ProcessComputer();
+      }
     };
   }
 
@@ -260,6 +266,7 @@ public final class Experiment {
     int numBatches;
     int compositeTaskSize;
     long warmupPeriodMs;
+    ImmutableList<String> processJvmArgs;
 
     private Supplier<Computer> computerType;
 
@@ -277,6 +284,7 @@ public final class Experiment {
       numBatches = 1;
       compositeTaskSize = 1;
       computerType = Computers.LOCAL;
+      processJvmArgs = ImmutableList.of();
       postProc = PostProcessors.defaultPostProcessor();
       experimentOrdering = DEFAULT_EXPERIMENT_ORDERING;
     }
@@ -602,6 +610,38 @@ public final class Experiment {
       return this;
     }
 
+    /**
+     * When this method is called the experiment will be performed by worker
+     * JVMs that are started on this machine, the number of workers is set by
+     * {@link #withThreads(int)}. Each worker has its own heap, which avoids
+     * that a single heap and garbage collector limit the scalability on
+     * machines with many cores. No external service is needed. When a worker
+     * crashes, for example due to running out of memory, it is restarted and
+     * its simulation is retried as if
+     * {@link PostProcessor.FailureStrategy#RETRY} was returned. A simulation
+     * that crashes its worker repeatedly aborts the experiment.
+     * <p>
+     * <b>Requirements:</b> {@link MASConfiguration}, {@link PostProcessor}
+     * (if used) and the objects created by the post-processor must implement
+     * {@link java.io.Serializable}. The workers use the class path of this JVM.
+     * <p>
+     * <b>Incompatible settings</b><br>
+     * The following settings will be ignored when computing in worker
+     * processes:
+     * <ul>
+     * <li>{@link #showGui(boolean)}</li>
+     * <li>{@link #showGui(ModelBuilder)}</li>
+     * </ul>
+     * @param jvmArgs The arguments of the worker JVMs, e.g.
+     *          <code>-Xmx2g</code>.
+     * @return This, as per the builder pattern.
+     */
+    public Builder computeLocalProcesses(String... jvmArgs) {
+      computerType = Computers.PROCESSES;
+      processJvmArgs = ImmutableList.copyOf(jvmArgs);
+      return this;
+    }
+
     /**
      * This setting will perform the experiment locally (this is the default).
      * @return This, as per the builder pattern.
@@ -32,6 +32,7 @@ import java.util.Set;
 import javax.annotation.Nullable;
 
 import org.jppf.JPPFException;
+import org.jppf.classloader.AbstractJPPFClassLoader;
 import org.jppf.client.JPPFClient;
 import org.jppf.client.JPPFJob;
 import org.jppf.client.event.TaskResultEvent;
@@ -40,17 +41,17 @@ import org.jppf.node.protocol.AbstractTask;
 import org.jppf.node.protocol.Task;
 import org.jppf.task.storage.DataProvider;
 import org.jppf.task.storage.MemoryMapDataProvider;
+import org.jppf.utils.JPPFCallable;
 
 import com.github.rinde.rinsim.experiment.Experiment.Builder;
 import com.github.rinde.rinsim.experiment.Experiment.SimArgs;
 import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
 import com.github.rinde.rinsim.experiment.PostProcessor.FailureStrategy;
+import com.github.rinde.rinsim.experiment.ScenarioCache.ScenarioRef;
 import com.github.rinde.rinsim.scenario.Scenario;
-import com.github.rinde.rinsim.scenario.ScenarioIO;
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
-import com.google.common.base.Supplier;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.HashBiMap;
@@ -75,10 +76,24 @@ final class JppfComputer implements Computer {
 
   @Override
   public ExperimentResults compute(Builder builder, Set<SimArgs> inputs) {
+    // the scenarios are published until all results are received or until
+    // the computation fails
+    final List<ScenarioRef> published = new ArrayList<>();
+    try {
+      return compute(builder, inputs, published);
+    } finally {
+      for (final ScenarioRef ref : published) {
+        ScenarioCache.unpublish(ref);
+      }
+    }
+  }
+
+  ExperimentResults compute(Builder builder, Set<SimArgs> inputs,
+      List<ScenarioRef> published) {
     final IdMap<MASConfiguration> configMap = new IdMap<>("c",
       MASConfiguration.class);
-    final IdMap<ScenarioProvider> scenarioMap = new IdMap<>("s",
-      ScenarioProvider.class);
+    final IdMap<ScenarioRef> scenarioMap = new IdMap<>("s",
+      ScenarioRef.class);
 
     final List<ResultListener> listeners =
       new ArrayList<>(builder.resultListeners);
@@ -89,7 +104,8 @@ final class JppfComputer implements Computer {
 
     // create tasks
     final List<SimulationTask> tasks = new ArrayList<>();
-    constructTasks(inputs, tasks, configMap, scenarioMap, ppMap, scenariosMap);
+    constructTasks(inputs, tasks, configMap, scenarioMap, ppMap, scenariosMap,
+      published);
 
     // this sorts tasks using this chain: scenario, configuration, objective
     // function, postprocessor, seed
@@ -123,7 +139,7 @@ final class JppfComputer implements Computer {
         for (final SimulationTask t : compositeTasks) {
           final MASConfiguration config = configMap.getValue(t
             .getConfigurationId());
-          final ScenarioProvider scenario = scenarioMap.getValue(t
+          final ScenarioRef scenario = scenarioMap.getValue(t
             .getScenarioId());
           job.getDataProvider().setParameter(t.getPostProcessorId(),
             ppMap.getValue(t.getPostProcessorId()));
@@ -170,16 +186,24 @@ final class JppfComputer implements Computer {
       Set<SimArgs> inputs,
       List<SimulationTask> tasks,
       IdMap<MASConfiguration> configMap,
-      IdMap<ScenarioProvider> scenarioMap,
+      IdMap<ScenarioRef> scenarioMap,
       IdMap<PostProcessor<?>> ppMap,
-      Map<String, Scenario> scenariosMap) {
+      Map<String, Scenario> scenariosMap,
+      List<ScenarioRef> published) {
 
+    // scenarios are sent to the nodes by reference, a node fetches a scenario
+    // from this JVM only if it is not in its cache
+    final Map<Scenario, ScenarioRef> refs = new LinkedHashMap<>();
     for (final SimArgs args : inputs) {
       final String configId = configMap.storeAndGenerateId(
         args.getMasConfig());
-      final String scenId = scenarioMap.storeAndGenerateId(
-        new ScenarioProvider(ScenarioIO.write(args.getScenario()),
-          args.getScenario().getClass()));
+      if (!refs.containsKey(args.getScenario())) {
+        final ScenarioRef ref = ScenarioCache.publish(args.getScenario());
+        refs.put(args.getScenario(), ref);
+        published.add(ref);
+      }
+      final String scenId =
+        scenarioMap.storeAndGenerateId(refs.get(args.getScenario()));
       scenariosMap.put(scenId, args.getScenario());
 
       final String postProcId =
@@ -313,47 +337,50 @@ final class JppfComputer implements Computer {
   }
 
   /**
-   * This class provides instances of {@link Scenario}. This class equals
-   * another if the provided scenarios are equal.
-   *
-   * @author Rinde van Lon
+   * Fetches scenarios from the client using {@link Task#compute(JPPFCallable)}.
+   * JPPF can only send the callable to the client when it is loaded by a JPPF
+   * class loader, otherwise the classes are available locally and the node
+   * runs in the client JVM, in that case the scenario is looked up directly.
    */
-  static final class ScenarioProvider implements Supplier<Scenario>,
-      Serializable {
-    private static final long serialVersionUID = 1738175155810322872L;
-
-    private final String serializedScenario;
-    private final Class<?> scenarioClass;
-    @Nullable
-    private transient Scenario localCache;
+  static class ClientFetcher implements ScenarioCache.Fetcher {
+    final Task<?> task;
 
-    ScenarioProvider(String serialScen, Class<?> clz) {
-      serializedScenario = serialScen;
-      scenarioClass = clz;
+    ClientFetcher(Task<?> t) {
+      task = t;
     }
 
-    @SuppressWarnings("null")
     @Override
-    public Scenario get() {
-      if (localCache == null) {
-        localCache = (Scenario) ScenarioIO.read(
-          serializedScenario, scenarioClass);
+    public String fetch(String digest) throws Exception {
+      final FetchScenario callable = new FetchScenario(digest);
+      if (!isRemote(callable)) {
+        return callable.call();
       }
-      return localCache;
+      final String serialized = task.compute(callable);
+      checkState(serialized != null,
+        "The client did not return scenario %s.", digest);
+      return serialized;
     }
 
-    @Override
-    public int hashCode() {
-      return serializedScenario.hashCode();
+    static boolean isRemote(JPPFCallable<?> callable) {
+      return callable.getClass()
+        .getClassLoader() instanceof AbstractJPPFClassLoader;
+    }
+  }
+
+  /**
+   * Is executed in the client JVM.
+   */
+  static final class FetchScenario implements JPPFCallable<String> {
+    private static final long serialVersionUID = -2374212406853463389L;
+    final String digest;
+
+    FetchScenario(String dig) {
+      digest = dig;
     }
 
     @Override
-    public boolean equals(@Nullable Object other) {
-      if (other == null || other.getClass() != getClass()) {
-        return false;
-      }
-      final ScenarioProvider sp = (ScenarioProvider) other;
-      return Objects.equal(serializedScenario, sp.serializedScenario);
+    public String call() {
+      return ScenarioCache.lookup(digest);
     }
   }
 
@@ -430,14 +457,15 @@ final class JppfComputer implements Computer {
         "Probable problem: your MASConfiguration/PostProcessor may not be "
           + "fully serializable.");
 
-      final Supplier<Scenario> scenario = getDataProvider().getParameter(
+      final ScenarioRef scenario = getDataProvider().getParameter(
         scenarioId);
       final MASConfiguration configuration = getDataProvider().getParameter(
         configurationId);
       final PostProcessor<?> postProcessor = getDataProvider().getParameter(
         postProcessorId);
 
-      final Scenario s = scenario.get();
+      final Scenario s =
+        ScenarioCache.node().get(scenario, new ClientFetcher(this));
       final SimArgs simArgs =
         SimArgs.create(s, configuration, seed, repetition,
           false, postProcessor, null);
@@ -0,0 +1,584 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Verify.verifyNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.rinde.rinsim.experiment.Experiment.Builder;
+import com.github.rinde.rinsim.experiment.Experiment.SimArgs;
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.experiment.PostProcessor.FailureStrategy;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Computes the simulations in worker JVMs that are started on this machine.
+ * Every worker has its own heap and garbage collector. Simulations are sent to
+ * the workers over a local socket, a worker computes one simulation at a time.
+ * When a worker crashes it is restarted and its simulation is retried as if
+ * the {@link PostProcessor} returned {@link FailureStrategy#RETRY}.
+ * @author Rinde van Lon
+ */
+final class ProcessComputer implements Computer {
+  static final Logger LOGGER = LoggerFactory.getLogger(ProcessComputer.class);
+  static final long THREAD_SLEEP_TIME_MS = 10L;
+  static final long POLL_TIME_MS = 100L;
+  static final long CONNECT_TIMEOUT_MS = 60000L;
+  static final int MAX_CRASHES = 3;
+
+  ProcessComputer() {}
+
+  @Override
+  public ExperimentResults compute(Builder builder, Set<SimArgs> inputs) {
+    final Map<Scenario, ScenarioProvider> providers = new HashMap<>();
+    final List<Job> jobs = new ArrayList<>();
+    for (final SimArgs args : inputs) {
+      checkSerializable(args.getMasConfig(), MASConfiguration.class);
+      checkSerializable(args.getPostProcessor(), PostProcessor.class);
+      if (!providers.containsKey(args.getScenario())) {
+        providers.put(args.getScenario(),
+          new ScenarioProvider(ScenarioIO.write(args.getScenario()),
+            args.getScenario().getClass()));
+      }
+      jobs.add(new Job(jobs.size(), providers.get(args.getScenario()), args));
+    }
+
+    final Collector collector = new Collector(jobs, builder.resultListeners);
+    final int numWorkers = Math.max(1, Math.min(builder.numThreads,
+      jobs.size()));
+    final List<Dispatcher> dispatchers = new ArrayList<>();
+    try (ServerSocket server =
+      new ServerSocket(0, numWorkers, InetAddress.getLoopbackAddress())) {
+      final List<String> command =
+        createWorkerCommand(builder.processJvmArgs, server.getLocalPort());
+      for (int i = 0; i < numWorkers; i++) {
+        final Dispatcher d = new Dispatcher(i, server, command, collector);
+        dispatchers.add(d);
+        d.start();
+      }
+
+      while (!collector.isFinished()) {
+        Thread.sleep(THREAD_SLEEP_TIME_MS);
+      }
+      if (collector.hasError()) {
+        killAll(dispatchers);
+      }
+      for (final Dispatcher d : dispatchers) {
+        d.join();
+      }
+    } catch (final InterruptedException e) {
+      LOGGER.trace("Interrupt, stopping the worker processes.");
+      collector.stop();
+      killAll(dispatchers);
+      return ExperimentResults.create(builder,
+        ImmutableSet.<SimulationResult>of());
+    } catch (final IOException e) {
+      killAll(dispatchers);
+      throw new IllegalStateException("Could not start the worker processes.",
+        e);
+    }
+
+    if (collector.hasError()) {
+      final Throwable error = collector.getFirstError();
+      LOGGER.info("Found error, shutting down. {}", error);
+      if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      }
+      throw new IllegalStateException(error);
+    }
+
+    final ExperimentResults er =
+      ExperimentResults.create(builder, collector.buildResults());
+    for (final ResultListener rl : builder.resultListeners) {
+      rl.doneComputing(er);
+    }
+    return er;
+  }
+
+  static void checkSerializable(Object value, Class<?> clazz) {
+    checkArgument(value instanceof Serializable,
+      "When computing in worker processes, instances of %s must implement "
+        + "Serializable, found: '%s' of class: %s.",
+      clazz, value, value.getClass());
+  }
+
+  static List<String> createWorkerCommand(List<String> jvmArgs, int port) {
+    final List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + File.separator + "bin"
+      + File.separator + "java");
+    command.addAll(jvmArgs);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(ProcessComputer.class.getName());
+    command.add(Integer.toString(port));
+    return command;
+  }
+
+  static void killAll(List<Dispatcher> dispatchers) {
+    for (final Dispatcher d : dispatchers) {
+      d.kill();
+    }
+  }
+
+  /**
+   * Entry point of a worker process. Connects to the specified port on the
+   * loopback address, computes the received simulations and sends back the
+   * results until the connection is closed.
+   * @param args The port to connect to.
+   * @throws IOException If the connection fails.
+   * @throws ClassNotFoundException If a received class can not be found.
+   */
+  // CHECKSTYLE:OFF the entry point of the worker processes
+  public static void main(String[] args)
+      throws IOException, ClassNotFoundException {
+    checkArgument(args.length == 1,
+      "Expected the port as the only argument, found %s arguments.",
+      args.length);
+    final int port = Integer.parseInt(args[0]);
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      final ObjectOutputStream out = new ObjectOutputStream(
+        new BufferedOutputStream(socket.getOutputStream()));
+      out.flush();
+      final ObjectInputStream in = new ObjectInputStream(
+        new BufferedInputStream(socket.getInputStream()));
+      Object received = in.readObject();
+      while (received instanceof Job) {
+        out.writeObject(perform((Job) received));
+        // results are not needed anymore after sending
+        out.reset();
+        out.flush();
+        received = in.readObject();
+      }
+    }
+  }
+  // CHECKSTYLE:ON
+
+  static byte[] perform(Job job) {
+    Response response;
+    try {
+      response = new Response(Experiment.perform(job.toSimArgs()), null);
+    } catch (final RuntimeException e) {
+      response = new Response(null, e);
+    }
+    try {
+      return serialize(response);
+    } catch (final IOException e) {
+      try {
+        return serialize(new Response(null, new IllegalArgumentException(
+          "When computing in worker processes, the results of the "
+            + "PostProcessor and the exceptions of the simulation must be "
+            + "Serializable, found: " + response, e)));
+      } catch (final IOException e2) {
+        throw new IllegalStateException(e2);
+      }
+    }
+  }
+
+  static byte[] serialize(Response response) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(response);
+    }
+    return bytes.toByteArray();
+  }
+
+  static Response deserialize(byte[] bytes)
+      throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in =
+      new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (Response) in.readObject();
+    }
+  }
+
+  /**
+   * This class provides instances of {@link Scenario}. This class equals
+   * another if the provided scenarios are equal.
+   *
+   * @author Rinde van Lon
+   */
+  static final class ScenarioProvider implements Supplier<Scenario>,
+      Serializable {
+    private static final long serialVersionUID = 1738175155810322872L;
+
+    private final String serializedScenario;
+    private final Class<?> scenarioClass;
+    @Nullable
+    private transient Scenario localCache;
+
+    ScenarioProvider(String serialScen, Class<?> clz) {
+      serializedScenario = serialScen;
+      scenarioClass = clz;
+    }
+
+    @SuppressWarnings("null")
+    @Override
+    public Scenario get() {
+      if (localCache == null) {
+        localCache = (Scenario) ScenarioIO.read(
+          serializedScenario, scenarioClass);
+      }
+      return localCache;
+    }
+
+    @Override
+    public int hashCode() {
+      return serializedScenario.hashCode();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (other == null || other.getClass() != getClass()) {
+        return false;
+      }
+      final ScenarioProvider sp = (ScenarioProvider) other;
+      return Objects.equal(serializedScenario, sp.serializedScenario);
+    }
+  }
+
+
+  static final class Job implements Serializable {
+    private static final long serialVersionUID = -2815006353651384233L;
+    final int id;
+    final ScenarioProvider scenario;
+    final MASConfiguration configuration;
+    final PostProcessor<?> postProcessor;
+    final long seed;
+    final int repetition;
+    final transient SimArgs simArgs;
+
+    Job(int i, ScenarioProvider scen, SimArgs args) {
+      id = i;
+      scenario = scen;
+      configuration = args.getMasConfig();
+      postProcessor = args.getPostProcessor();
+      seed = args.getRandomSeed();
+      repetition = args.getRepetition();
+      simArgs = args;
+    }
+
+    SimArgs toSimArgs() {
+      return SimArgs.create(scenario.get(), configuration, seed, repetition,
+        false, postProcessor, null);
+    }
+  }
+
+  static final class Response implements Serializable {
+    private static final long serialVersionUID = 4383478963245917720L;
+    @Nullable
+    final Object result;
+    @Nullable
+    final RuntimeException failure;
+
+    Response(@Nullable Object res, @Nullable RuntimeException fail) {
+      result = res;
+      failure = fail;
+    }
+
+    @Override
+    public String toString() {
+      return failure == null ? String.valueOf(result) : failure.toString();
+    }
+  }
+
+  /**
+   * Collects the results of all dispatchers, manages the queue of jobs.
+   */
+  static class Collector {
+    final BlockingQueue<Job> queue;
+    final List<SimulationResult> results;
+    final List<ResultListener> resultListeners;
+    final List<Throwable> throwables;
+    final Map<Integer, Integer> crashes;
+    final int expectedResults;
+    volatile boolean stopped;
+
+    Collector(List<Job> jobs, List<ResultListener> listeners) {
+      queue = new LinkedBlockingQueue<>(jobs);
+      results = new ArrayList<>();
+      resultListeners = listeners;
+      throwables = Collections.synchronizedList(new ArrayList<Throwable>());
+      crashes = new HashMap<>();
+      expectedResults = jobs.size();
+    }
+
+    Optional<Job> nextJob() throws InterruptedException {
+      return Optional.fromNullable(
+        queue.poll(POLL_TIME_MS, TimeUnit.MILLISECONDS));
+    }
+
+    synchronized void receive(Job job, Response response) {
+      if (isFinished()) {
+        return;
+      }
+      if (response.failure != null) {
+        throwables.add(response.failure);
+        return;
+      }
+      final SimulationResult res =
+        SimulationResult.create(job.simArgs, verifyNotNull(response.result));
+      notifyListeners(res);
+      if (res.getResultObject() == FailureStrategy.RETRY) {
+        queue.add(job);
+      } else {
+        results.add(res);
+      }
+    }
+
+    synchronized void crashed(Job job, Exception cause) {
+      if (isFinished()) {
+        return;
+      }
+      final int num = crashes.containsKey(job.id) ? crashes.get(job.id) + 1 : 1;
+      crashes.put(job.id, num);
+      if (num >= MAX_CRASHES) {
+        throwables.add(new IllegalStateException("A worker process crashed "
+          + num + " times while computing: " + job.simArgs, cause));
+        return;
+      }
+      LOGGER.warn("A worker process crashed while computing {}, retrying.",
+        job.simArgs, cause);
+      notifyListeners(
+        SimulationResult.create(job.simArgs, FailureStrategy.RETRY));
+      queue.add(job);
+    }
+
+    void notifyListeners(SimulationResult res) {
+      for (final ResultListener rl : resultListeners) {
+        try {
+          rl.receive(res);
+        } catch (final RuntimeException e) {
+          System.err
+            .println("ResultListener " + rl + " failed to receive result.");
+          e.printStackTrace(System.err);
+        }
+      }
+    }
+
+    void stop() {
+      stopped = true;
+    }
+
+    synchronized boolean isFinished() {
+      return stopped || hasError() || results.size() == expectedResults;
+    }
+
+    boolean hasError() {
+      return !throwables.isEmpty();
+    }
+
+    Throwable getFirstError() {
+      return throwables.get(0);
+    }
+
+    synchronized ImmutableSet<SimulationResult> buildResults() {
+      return ImmutableSet.copyOf(results);
+    }
+  }
+
+  /**
+   * Sends jobs to a single worker process, restarts the process when it
+   * crashes.
+   */
+  static class Dispatcher extends Thread {
+    final ServerSocket server;
+    final ImmutableList<String> command;
+    final Collector collector;
+    volatile Optional<WorkerProcess> worker;
+
+    Dispatcher(int id, ServerSocket ss, List<String> cmd, Collector c) {
+      super("RinSim-exp-process-" + id);
+      server = ss;
+      command = ImmutableList.copyOf(cmd);
+      collector = c;
+      worker = Optional.absent();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (!collector.isFinished()) {
+          final Optional<Job> job = collector.nextJob();
+          if (job.isPresent()) {
+            dispatch(job.get());
+          }
+        }
+      } catch (final InterruptedException e) {
+        LOGGER.trace("{} is interrupted.", getName());
+      } finally {
+        stopWorker();
+      }
+    }
+
+    void dispatch(Job job) throws InterruptedException {
+      try {
+        collector.receive(job, getWorker().compute(job));
+      } catch (IOException | ClassNotFoundException e) {
+        kill();
+        collector.crashed(job, e);
+      }
+    }
+
+    synchronized WorkerProcess getWorker()
+        throws IOException, InterruptedException {
+      if (!worker.isPresent()) {
+        worker = Optional.of(WorkerProcess.start(server, command));
+      }
+      return worker.get();
+    }
+
+    synchronized void kill() {
+      if (worker.isPresent()) {
+        worker.get().kill();
+        worker = Optional.absent();
+      }
+    }
+
+    synchronized void stopWorker() {
+      if (worker.isPresent()) {
+        worker.get().stop();
+        worker = Optional.absent();
+      }
+    }
+  }
+
+  static final class WorkerProcess {
+    final Process process;
+    final Socket socket;
+    final ObjectOutputStream out;
+    final ObjectInputStream in;
+
+    WorkerProcess(Process p, Socket s) throws IOException {
+      process = p;
+      socket = s;
+      out = new ObjectOutputStream(
+        new BufferedOutputStream(socket.getOutputStream()));
+      out.flush();
+      in = new ObjectInputStream(
+        new BufferedInputStream(socket.getInputStream()));
+    }
+
+    static WorkerProcess start(ServerSocket server, List<String> command)
+        throws IOException, InterruptedException {
+      // connections are accepted one at a time such that each connection
+      // belongs to the process that was started last
+      synchronized (server) {
+        final Process p = new ProcessBuilder(command).inheritIO().start();
+        try {
+          return new WorkerProcess(p, accept(server, p));
+        } catch (final IOException e) {
+          p.destroy();
+          throw e;
+        }
+      }
+    }
+
+    static Socket accept(ServerSocket server, Process p)
+        throws IOException, InterruptedException {
+      server.setSoTimeout((int) POLL_TIME_MS);
+      final long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+      while (System.currentTimeMillis() < deadline) {
+        try {
+          return server.accept();
+        } catch (final SocketTimeoutException e) {
+          if (hasExited(p)) {
+            throw new IOException("The worker process exited with code "
+              + p.exitValue() + " before connecting.", e);
+          }
+          if (Thread.interrupted()) {
+            throw new InterruptedException();
+          }
+        }
+      }
+      throw new IOException("The worker process did not connect within "
+        + CONNECT_TIMEOUT_MS + " ms.");
+    }
+
+    static boolean hasExited(Process p) {
+      try {
+        p.exitValue();
+        return true;
+      } catch (final IllegalThreadStateException e) {
+        return false;
+      }
+    }
+
+    Response compute(Job job) throws IOException, ClassNotFoundException {
+      // the stream is not reset such that every scenario, configuration and
+      // post-processor is sent only once to each worker
+      out.writeObject(job);
+      out.flush();
+      return deserialize((byte[]) in.readObject());
+    }
+
+    void stop() {
+      try {
+        out.writeObject(null);
+        out.flush();
+        socket.close();
+        process.waitFor();
+      } catch (final IOException e) {
+        LOGGER.warn("Could not stop the worker process.", e);
+        process.destroy();
+      } catch (final InterruptedException e) {
+        process.destroy();
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    void kill() {
+      process.destroy();
+      try {
+        socket.close();
+      } catch (final IOException e) {
+        LOGGER.trace("Could not close the socket.", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Verify.verifyNotNull;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.Nullable;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.experiment.Experiment.SimArgs;
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.pdptw.common.ObjectiveFunction;
+import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A {@link ResultListener} that summarizes the results of an experiment while
+ * they are received. For every combination of scenario and configuration, a
+ * cell, a {@link RunningStatistics} is kept of each metric. A metric is a
+ * function that extracts a number from a result object. Since the memory that
+ * is used by a summary does not depend on the number of values, the memory
+ * use of this listener is independent of the number of repetitions.
+ * <p>
+ * To avoid that all result objects are kept until the end of the experiment,
+ * the result objects can be reduced to their metric values right after the
+ * simulation using {@link #postProcessor(PostProcessor)}. Summaries can be
+ * exported using {@link #getSummaries()} and combined with the summaries of
+ * other experiments, possibly computed in other JVMs, using
+ * {@link #merge(Map)}.
+ * <p>
+ * Result objects that are of neither the result type nor of type
+ * {@link MetricValues}, such as failures, are ignored.
+ * @author Rinde van Lon
+ * @param <T> The type of result objects.
+ */
+public final class ResultAggregator<T> implements ResultListener {
+  static final String UNKNOWN_METRIC = "Unknown metric: %s.";
+
+  final Class<T> resultType;
+  final ImmutableMap<String, Function<? super T, ? extends Number>> metrics;
+  final double compression;
+  final Map<Cell, Map<String, RunningStatistics>> summaries;
+  int ignored;
+
+  ResultAggregator(Builder<T> b) {
+    resultType = b.type;
+    metrics = ImmutableMap.copyOf(b.metricMap);
+    compression = b.compression;
+    summaries = new LinkedHashMap<>();
+  }
+
+  @Override
+  public void startComputing(int numberOfSimulations,
+      ImmutableSet<MASConfiguration> configurations,
+      ImmutableSet<Scenario> scenarios, int repetitions,
+      int seedRepetitions) {}
+
+  @Override
+  public synchronized void receive(SimulationResult result) {
+    final Object obj = result.getResultObject();
+    final ImmutableMap<String, Double> values;
+    if (obj instanceof MetricValues) {
+      values = ((MetricValues) obj).getValues();
+    } else if (resultType.isInstance(obj)) {
+      values = evaluate(metrics, resultType.cast(obj));
+    } else {
+      ignored++;
+      return;
+    }
+    final Map<String, RunningStatistics> cell = getOrCreate(Cell.create(
+      result.getSimArgs().getScenario(), result.getSimArgs().getMasConfig()));
+    for (final Entry<String, Double> entry : values.entrySet()) {
+      checkArgument(cell.containsKey(entry.getKey()), UNKNOWN_METRIC,
+        entry.getKey());
+      cell.get(entry.getKey()).add(entry.getValue());
+    }
+  }
+
+  @Override
+  public void doneComputing(ExperimentResults results) {}
+
+  /**
+   * @return The names of the metrics.
+   */
+  public ImmutableSet<String> getMetrics() {
+    return metrics.keySet();
+  }
+
+  /**
+   * @return The cells for which at least one result has been received.
+   */
+  public synchronized ImmutableSet<Cell> getCells() {
+    return ImmutableSet.copyOf(summaries.keySet());
+  }
+
+  /**
+   * @return The number of received result objects that are ignored.
+   */
+  public synchronized int getIgnoredResults() {
+    return ignored;
+  }
+
+  /**
+   * Get the summary of a metric in a cell.
+   * @param scenario The scenario of the cell.
+   * @param config The configuration of the cell.
+   * @param metric The name of the metric.
+   * @return A copy of the summary, it is empty if no results have been
+   *         received for the cell.
+   */
+  public synchronized RunningStatistics getSummary(Scenario scenario,
+      MASConfiguration config, String metric) {
+    checkArgument(metrics.containsKey(metric), UNKNOWN_METRIC, metric);
+    final Map<String, RunningStatistics> cell =
+      summaries.get(Cell.create(scenario, config));
+    if (cell == null) {
+      return RunningStatistics.create(compression);
+    }
+    return RunningStatistics.copyOf(cell.get(metric));
+  }
+
+  /**
+   * Get the summary of a metric over all cells.
+   * @param metric The name of the metric.
+   * @return A new summary.
+   */
+  public synchronized RunningStatistics getTotal(String metric) {
+    checkArgument(metrics.containsKey(metric), UNKNOWN_METRIC, metric);
+    final RunningStatistics total = RunningStatistics.create(compression);
+    for (final Map<String, RunningStatistics> cell : summaries.values()) {
+      total.merge(cell.get(metric));
+    }
+    return total;
+  }
+
+  /**
+   * @return A copy of all summaries, for each cell a map of metric names to
+   *         their summaries. The returned map is {@link Serializable} when the
+   *         scenarios and configurations are.
+   */
+  public synchronized ImmutableMap<Cell, ImmutableMap<String,
+      RunningStatistics>> getSummaries() {
+    final ImmutableMap.Builder<Cell, ImmutableMap<String,
+        RunningStatistics>> builder = ImmutableMap.builder();
+    for (final Entry<Cell, Map<String, RunningStatistics>> entry : summaries
+      .entrySet()) {
+      final ImmutableMap.Builder<String, RunningStatistics> cell =
+        ImmutableMap.builder();
+      for (final Entry<String, RunningStatistics> stats : entry.getValue()
+        .entrySet()) {
+        cell.put(stats.getKey(), RunningStatistics.copyOf(stats.getValue()));
+      }
+      builder.put(entry.getKey(), cell.build());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Merges summaries into the summaries of this aggregator.
+   * @param other The summaries as returned by {@link #getSummaries()} of an
+   *          aggregator with the same metrics.
+   */
+  public synchronized void merge(
+      Map<Cell, ? extends Map<String, RunningStatistics>> other) {
+    for (final Entry<Cell, ? extends Map<String, RunningStatistics>> entry
+      : other.entrySet()) {
+      checkArgument(entry.getValue().keySet().equals(metrics.keySet()),
+        "The metrics %s do not match %s.", entry.getValue().keySet(),
+        metrics.keySet());
+      final Map<String, RunningStatistics> cell = getOrCreate(entry.getKey());
+      for (final Entry<String, RunningStatistics> stats : entry.getValue()
+        .entrySet()) {
+        cell.get(stats.getKey()).merge(stats.getValue());
+      }
+    }
+  }
+
+  /**
+   * Creates a {@link PostProcessor} that reduces the result of the specified
+   * post-processor to the values of the metrics of this aggregator. When
+   * computing with JPPF or in worker processes, the metric functions should be
+   * {@link Serializable}.
+   * @param delegate The post-processor that creates the result objects.
+   * @return A new post-processor.
+   */
+  public PostProcessor<MetricValues> postProcessor(
+      PostProcessor<? extends T> delegate) {
+    return new MetricsPostProcessor<>(delegate, metrics);
+  }
+
+  Map<String, RunningStatistics> getOrCreate(Cell cell) {
+    Map<String, RunningStatistics> stats = summaries.get(cell);
+    if (stats == null) {
+      stats = new LinkedHashMap<>();
+      for (final String metric : metrics.keySet()) {
+        stats.put(metric, RunningStatistics.create(compression));
+      }
+      summaries.put(cell, stats);
+    }
+    return stats;
+  }
+
+  static <T> ImmutableMap<String, Double> evaluate(
+      ImmutableMap<String, Function<? super T, ? extends Number>> metrics,
+      T result) {
+    final ImmutableMap.Builder<String, Double> values = ImmutableMap.builder();
+    for (final Entry<String, Function<? super T, ? extends Number>> entry
+      : metrics.entrySet()) {
+      values.put(entry.getKey(),
+        verifyNotNull(entry.getValue().apply(result)).doubleValue());
+    }
+    return values.build();
+  }
+
+  /**
+   * Create a builder for aggregating result objects of the specified type.
+   * @param resultType The type of result objects.
+   * @param <T> The type of result objects.
+   * @return A new builder without metrics.
+   */
+  public static <T> Builder<T> builder(Class<T> resultType) {
+    return new Builder<>(resultType);
+  }
+
+  /**
+   * Create a builder for aggregating {@link StatisticsDTO} result objects, as
+   * created by
+   * {@link PostProcessors#statisticsPostProcessor(ObjectiveFunction)}. The
+   * builder contains a metric for each of the numerical fields of
+   * {@link StatisticsDTO} that measure the quality of a solution, named after
+   * the field.
+   * @return A new builder.
+   */
+  public static Builder<StatisticsDTO> statisticsBuilder() {
+    final Builder<StatisticsDTO> b = builder(StatisticsDTO.class);
+    for (final StatisticsMetric m : StatisticsMetric.values()) {
+      b.addMetric(m.fieldName, m);
+    }
+    return b;
+  }
+
+  /**
+   * Creates a metric that computes the cost of {@link StatisticsDTO} objects.
+   * @param objFunc The objective function to use.
+   * @return A new function, it is {@link Serializable} if the objective
+   *         function is.
+   */
+  public static Function<StatisticsDTO, Double> objective(
+      ObjectiveFunction objFunc) {
+    return new ObjectiveMetric(objFunc);
+  }
+
+  /**
+   * Builder for {@link ResultAggregator}s.
+   * @author Rinde van Lon
+   * @param <T> The type of result objects.
+   */
+  public static final class Builder<T> {
+    final Class<T> type;
+    final Map<String, Function<? super T, ? extends Number>> metricMap;
+    double compression;
+
+    Builder(Class<T> t) {
+      type = t;
+      metricMap = new LinkedHashMap<>();
+      compression = TDigest.DEFAULT_COMPRESSION;
+    }
+
+    /**
+     * Adds a metric.
+     * @param name The name of the metric, must be unique.
+     * @param metric The function that extracts the value from a result object,
+     *          must not return <code>null</code> or {@link Double#NaN}.
+     * @return This, as per the builder pattern.
+     */
+    public Builder<T> addMetric(String name,
+        Function<? super T, ? extends Number> metric) {
+      checkArgument(!metricMap.containsKey(name),
+        "A metric with name %s already exists.", name);
+      metricMap.put(name, metric);
+      return this;
+    }
+
+    /**
+     * Sets the compression of the quantile sketches, see
+     * {@link RunningStatistics#create(double)}.
+     * @param comp The compression.
+     * @return This, as per the builder pattern.
+     */
+    public Builder<T> withCompression(double comp) {
+      checkArgument(comp >= 1d, "Compression must be at least 1, found %s.",
+        comp);
+      compression = comp;
+      return this;
+    }
+
+    /**
+     * @return A new {@link ResultAggregator}.
+     */
+    public ResultAggregator<T> build() {
+      checkArgument(!metricMap.isEmpty(), "At least one metric is required.");
+      return new ResultAggregator<>(this);
+    }
+  }
+
+  /**
+   * A combination of a scenario and a configuration.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class Cell implements Serializable {
+    private static final long serialVersionUID = 4373407893232914405L;
+
+    Cell() {}
+
+    /**
+     * @return The scenario.
+     */
+    public abstract Scenario getScenario();
+
+    /**
+     * @return The configuration.
+     */
+    public abstract MASConfiguration getConfiguration();
+
+    /**
+     * Create a new cell.
+     * @param scenario The scenario.
+     * @param config The configuration.
+     * @return A new instance.
+     */
+    public static Cell create(Scenario scenario, MASConfiguration config) {
+      return new AutoValue_ResultAggregator_Cell(scenario, config);
+    }
+  }
+
+  /**
+   * The values of the metrics of a single result object, see
+   * {@link ResultAggregator#postProcessor(PostProcessor)}.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class MetricValues implements Serializable {
+    private static final long serialVersionUID = -3190735129722431474L;
+
+    MetricValues() {}
+
+    /**
+     * @return A map of metric names to values.
+     */
+    public abstract ImmutableMap<String, Double> getValues();
+
+    static MetricValues create(ImmutableMap<String, Double> values) {
+      return new AutoValue_ResultAggregator_MetricValues(values);
+    }
+  }
+
+  static class MetricsPostProcessor<T>
+      implements PostProcessor<MetricValues>, Serializable {
+    private static final long serialVersionUID = 1209283647374891264L;
+    final PostProcessor<? extends T> delegate;
+    final ImmutableMap<String, Function<? super T, ? extends Number>> metrics;
+
+    MetricsPostProcessor(PostProcessor<? extends T> del,
+        ImmutableMap<String, Function<? super T, ? extends Number>> m) {
+      delegate = del;
+      metrics = m;
+    }
+
+    @Override
+    public MetricValues collectResults(Simulator sim, SimArgs args) {
+      return MetricValues.create(
+        evaluate(metrics, delegate.collectResults(sim, args)));
+    }
+
+    @Override
+    public FailureStrategy handleFailure(Exception e, Simulator sim,
+        SimArgs args) {
+      return delegate.handleFailure(e, sim, args);
+    }
+
+    @Override
+    public String toString() {
+      return ResultAggregator.class.getSimpleName() + ".postProcessor("
+        + delegate + ")";
+    }
+  }
+
+  static class ObjectiveMetric
+      implements Function<StatisticsDTO, Double>, Serializable {
+    private static final long serialVersionUID = -8545212737101264934L;
+    final ObjectiveFunction objectiveFunction;
+
+    ObjectiveMetric(ObjectiveFunction objFunc) {
+      objectiveFunction = objFunc;
+    }
+
+    @Override
+    public Double apply(@Nullable StatisticsDTO input) {
+      return objectiveFunction.computeCost(verifyNotNull(input));
+    }
+  }
+
+  enum StatisticsMetric implements Function<StatisticsDTO, Double> {
+    TOTAL_DISTANCE("totalDistance") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return verifyNotNull(input).totalDistance;
+      }
+    },
+    TOTAL_TRAVEL_TIME("totalTravelTime") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return verifyNotNull(input).totalTravelTime;
+      }
+    },
+    TOTAL_DELIVERIES("totalDeliveries") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return (double) verifyNotNull(input).totalDeliveries;
+      }
+    },
+    PICKUP_TARDINESS("pickupTardiness") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return (double) verifyNotNull(input).pickupTardiness;
+      }
+    },
+    DELIVERY_TARDINESS("deliveryTardiness") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return (double) verifyNotNull(input).deliveryTardiness;
+      }
+    },
+    OVER_TIME("overTime") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return (double) verifyNotNull(input).overTime;
+      }
+    },
+    SIMULATION_TIME("simulationTime") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return (double) verifyNotNull(input).simulationTime;
+      }
+    },
+    COMPUTATION_TIME("computationTime") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return (double) verifyNotNull(input).computationTime;
+      }
+    },
+    MOVED_VEHICLES("movedVehicles") {
+      @Override
+      public Double apply(@Nullable StatisticsDTO input) {
+        return (double) verifyNotNull(input).movedVehicles;
+      }
+    };
+
+    final String fieldName;
+
+    StatisticsMetric(String name) {
+      fieldName = name;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Serializable;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Summary statistics of a stream of values that use constant memory and that
+ * can be merged. The mean and variance are computed using the online algorithm
+ * of Welford, summaries are combined using the parallel variant of Chan et al.
+ * Quantiles are estimated using a t-digest sketch. As a consequence, the
+ * summary of a stream is (up to rounding and the error of the quantile
+ * estimates) equal to the merge of the summaries of any partition of that
+ * stream, which allows to compute summaries on different JVMs.
+ * <p>
+ * Instances are not thread safe.
+ * @author Rinde van Lon
+ */
+public final class RunningStatistics implements Serializable {
+  private static final long serialVersionUID = -5094212389045416346L;
+  private static final double MEDIAN = .5;
+
+  private long count;
+  private double mean;
+  private double sumSquaredDeviations;
+  private final TDigest digest;
+
+  RunningStatistics(TDigest dig) {
+    digest = dig;
+  }
+
+  /**
+   * Creates new empty statistics with the default accuracy of the quantile
+   * estimates.
+   * @return A new instance.
+   */
+  public static RunningStatistics create() {
+    return new RunningStatistics(new TDigest(TDigest.DEFAULT_COMPRESSION));
+  }
+
+  /**
+   * Creates new empty statistics.
+   * @param compression The compression of the quantile sketch, larger values
+   *          give more accurate quantile estimates but use more memory. The
+   *          default is <code>100</code>, the memory use is in the order of
+   *          <code>10 * compression</code> doubles.
+   * @return A new instance.
+   */
+  public static RunningStatistics create(double compression) {
+    return new RunningStatistics(new TDigest(compression));
+  }
+
+  /**
+   * Creates a copy of the specified statistics.
+   * @param stats The statistics to copy.
+   * @return A new instance.
+   */
+  public static RunningStatistics copyOf(RunningStatistics stats) {
+    final RunningStatistics copy =
+      new RunningStatistics(new TDigest(stats.digest));
+    copy.count = stats.count;
+    copy.mean = stats.mean;
+    copy.sumSquaredDeviations = stats.sumSquaredDeviations;
+    return copy;
+  }
+
+  /**
+   * Adds a value.
+   * @param value The value to add, may not be {@link Double#NaN}.
+   */
+  public void add(double value) {
+    digest.add(value);
+    count++;
+    final double delta = value - mean;
+    mean += delta / count;
+    sumSquaredDeviations += delta * (value - mean);
+  }
+
+  /**
+   * Adds all values that are summarized by the specified statistics to this
+   * instance.
+   * @param other The statistics to merge into this instance, it is not
+   *          modified.
+   */
+  public void merge(RunningStatistics other) {
+    checkArgument(other != this, "Statistics can not be merged with itself.");
+    if (other.count == 0) {
+      return;
+    }
+    digest.merge(other.digest);
+    final long total = count + other.count;
+    final double delta = other.mean - mean;
+    mean += delta * other.count / total;
+    sumSquaredDeviations += other.sumSquaredDeviations
+      + delta * delta * count * other.count / total;
+    count = total;
+  }
+
+  /**
+   * @return The number of values.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return The mean of the values or {@link Double#NaN} if there are none.
+   */
+  public double getMean() {
+    return count == 0 ? Double.NaN : mean;
+  }
+
+  /**
+   * @return The sample variance of the values or {@link Double#NaN} if there
+   *         are less than two values.
+   */
+  public double getVariance() {
+    return count < 2 ? Double.NaN : sumSquaredDeviations / (count - 1);
+  }
+
+  /**
+   * @return The sample standard deviation of the values or
+   *         {@link Double#NaN} if there are less than two values.
+   */
+  public double getStandardDeviation() {
+    return Math.sqrt(getVariance());
+  }
+
+  /**
+   * @return The smallest value or {@link Double#NaN} if there are none.
+   */
+  public double getMin() {
+    return count == 0 ? Double.NaN : digest.min;
+  }
+
+  /**
+   * @return The largest value or {@link Double#NaN} if there are none.
+   */
+  public double getMax() {
+    return count == 0 ? Double.NaN : digest.max;
+  }
+
+  /**
+   * Estimates a quantile of the values.
+   * @param q The quantile, must be in <code>[0,1]</code>.
+   * @return The estimate or {@link Double#NaN} if there are no values.
+   */
+  public double getQuantile(double q) {
+    return digest.quantile(q);
+  }
+
+  /**
+   * @return The estimated median of the values or {@link Double#NaN} if there
+   *         are none.
+   */
+  public double getMedian() {
+    return getQuantile(MEDIAN);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+      .add("count", count)
+      .add("mean", getMean())
+      .add("sd", getStandardDeviation())
+      .add("min", getMin())
+      .add("median", getMedian())
+      .add("max", getMax())
+      .toString();
+  }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verifyNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * A content addressed cache of scenarios. A scenario is identified by the
+ * SHA-256 digest of its serialized form, see {@link ScenarioRef}. Parsed
+ * scenarios are kept in memory, serialized scenarios are kept on disk in a
+ * directory with a bounded size. When a scenario is in neither, it is fetched
+ * using a {@link Fetcher} and stored.
+ * <p>
+ * The directory and its maximum size of the cache returned by {@link #node()}
+ * can be set using the system properties {@value #DIR_PROPERTY} and
+ * {@value #MAX_BYTES_PROPERTY}. By default a directory in
+ * <code>java.io.tmpdir</code> with a maximum size of 1 GB is used.
+ * @author Rinde van Lon
+ */
+final class ScenarioCache {
+  static final Logger LOGGER = LoggerFactory.getLogger(ScenarioCache.class);
+  static final String DIR_PROPERTY = "rinsim.experiment.scenariocache.dir";
+  static final String MAX_BYTES_PROPERTY =
+    "rinsim.experiment.scenariocache.maxbytes";
+  static final String DEFAULT_DIR_NAME = "rinsim-scenario-cache";
+  static final long DEFAULT_MAX_BYTES = 1073741824L;
+  static final int MAX_MEMORY_ENTRIES = 16;
+  static final String EXTENSION = ".json";
+  static final String TEMP_EXTENSION = ".tmp";
+
+  // the scenarios that can be fetched from this JVM
+  private static final Map<String, String> PUBLISHED = new HashMap<>();
+  private static final Multiset<String> PUBLISH_COUNT = HashMultiset.create();
+  @Nullable
+  private static ScenarioCache nodeCache;
+
+  final File directory;
+  final long maxBytes;
+  final Cache<String, Scenario> memory;
+
+  ScenarioCache(File dir, long maxDiskBytes) {
+    checkArgument(maxDiskBytes > 0, "The maximum size must be positive.");
+    directory = dir;
+    maxBytes = maxDiskBytes;
+    memory = CacheBuilder.newBuilder()
+      .maximumSize(MAX_MEMORY_ENTRIES)
+      .build();
+  }
+
+  /**
+   * @return The cache of this JVM, it is configured using the system
+   *         properties.
+   */
+  static synchronized ScenarioCache node() {
+    if (nodeCache == null) {
+      final File dir = new File(System.getProperty(DIR_PROPERTY,
+        new File(System.getProperty("java.io.tmpdir"), DEFAULT_DIR_NAME)
+          .getPath()));
+      final Long max = Longs.tryParse(System.getProperty(MAX_BYTES_PROPERTY,
+        Long.toString(DEFAULT_MAX_BYTES)));
+      checkArgument(max != null, "Invalid value for %s.", MAX_BYTES_PROPERTY);
+      nodeCache = new ScenarioCache(dir, max);
+    }
+    return nodeCache;
+  }
+
+  static String digest(String serializedScenario) {
+    return Hashing.sha256()
+      .hashString(serializedScenario, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * Makes the scenario available for fetching using {@link #lookup(String)},
+   * until it is unpublished as often as it is published.
+   * @param scenario The scenario.
+   * @return A reference to the scenario.
+   */
+  static ScenarioRef publish(Scenario scenario) {
+    final String serialized = ScenarioIO.write(scenario);
+    final ScenarioRef ref =
+      new ScenarioRef(digest(serialized), scenario.getClass());
+    synchronized (PUBLISHED) {
+      PUBLISHED.put(ref.digest, serialized);
+      PUBLISH_COUNT.add(ref.digest);
+    }
+    return ref;
+  }
+
+  static void unpublish(ScenarioRef ref) {
+    synchronized (PUBLISHED) {
+      PUBLISH_COUNT.remove(ref.digest);
+      if (!PUBLISH_COUNT.contains(ref.digest)) {
+        PUBLISHED.remove(ref.digest);
+      }
+    }
+  }
+
+  static String lookup(String digest) {
+    synchronized (PUBLISHED) {
+      final String serialized = PUBLISHED.get(digest);
+      checkState(serialized != null,
+        "Scenario %s is not published in this JVM, when using JPPF the "
+          + "classes of the experiment should be loaded from the client.",
+        digest);
+      return serialized;
+    }
+  }
+
+  /**
+   * Retrieves the referenced scenario from memory, from disk or, if it is not
+   * cached, using the fetcher. Concurrent requests for the same scenario wait
+   * for a single load, requests for different scenarios do not wait for each
+   * other.
+   * @param ref The reference to the scenario.
+   * @param fetcher Is used when the scenario is not cached.
+   * @return The scenario.
+   */
+  Scenario get(final ScenarioRef ref, final Fetcher fetcher) {
+    try {
+      return memory.get(ref.digest, new Callable<Scenario>() {
+        @Override
+        public Scenario call() {
+          return load(ref, fetcher);
+        }
+      });
+    } catch (final ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } catch (final UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  Scenario load(ScenarioRef ref, Fetcher fetcher) {
+    String serialized = readFromDisk(ref);
+    if (serialized == null) {
+      LOGGER.trace("Fetching scenario {}.", ref.digest);
+      try {
+        serialized = fetcher.fetch(ref.digest);
+      } catch (final Exception e) {
+        throw new IllegalStateException("Could not fetch scenario "
+          + ref.digest + ".", e);
+      }
+      checkState(ref.digest.equals(digest(serialized)),
+        "The fetched scenario does not match its digest %s.", ref.digest);
+      writeToDisk(ref, serialized);
+    }
+    return (Scenario) ScenarioIO.read(serialized, ref.scenarioClass);
+  }
+
+  @Nullable
+  String readFromDisk(ScenarioRef ref) {
+    final File file = new File(directory, ref.digest + EXTENSION);
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      final String serialized = new String(Files.readAllBytes(file.toPath()),
+        StandardCharsets.UTF_8);
+      if (ref.digest.equals(digest(serialized))) {
+        // marks the file as recently used
+        if (!file.setLastModified(System.currentTimeMillis())) {
+          LOGGER.trace("Could not touch {}.", file);
+        }
+        return serialized;
+      }
+      LOGGER.warn("Removing corrupt scenario file {}.", file);
+    } catch (final IOException e) {
+      LOGGER.warn("Could not read scenario file {}.", file, e);
+    }
+    delete(file);
+    return null;
+  }
+
+  void writeToDisk(ScenarioRef ref, String serialized) {
+    final File file = new File(directory, ref.digest + EXTENSION);
+    Path temp = null;
+    try {
+      Files.createDirectories(directory.toPath());
+      // the file is written under another name first such that concurrent
+      // readers never observe a partially written file
+      temp = Files.createTempFile(directory.toPath(), ref.digest,
+        TEMP_EXTENSION);
+      Files.write(temp, serialized.getBytes(StandardCharsets.UTF_8));
+      Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      LOGGER.warn("Could not write scenario file {}.", file, e);
+      return;
+    } finally {
+      // only exists when the write or the move failed
+      if (temp != null) {
+        deleteIfExists(temp);
+      }
+    }
+    evict(file);
+  }
+
+  // removes the least recently used files until the size of the directory is
+  // within bounds
+  synchronized void evict(File keep) {
+    final File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    final List<File> scenarioFiles = new ArrayList<>();
+    long size = 0L;
+    for (final File f : files) {
+      if (f.getName().endsWith(EXTENSION)) {
+        scenarioFiles.add(f);
+        size += f.length();
+      }
+    }
+    Collections.sort(scenarioFiles, new LastModifiedComparator());
+    for (int i = 0; i < scenarioFiles.size() && size > maxBytes; i++) {
+      final File f = scenarioFiles.get(i);
+      if (!f.equals(keep)) {
+        size -= f.length();
+        delete(f);
+      }
+    }
+  }
+
+  static void delete(File file) {
+    if (!file.delete()) {
+      LOGGER.warn("Could not delete {}.", file);
+    }
+  }
+
+  static void deleteIfExists(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (final IOException e) {
+      LOGGER.warn("Could not remove temporary file {}.", path, e);
+    }
+  }
+
+  /**
+   * Retrieves a serialized scenario when it is not in the cache.
+   * @author Rinde van Lon
+   */
+  interface Fetcher {
+    /**
+     * @param digest The digest of the scenario.
+     * @return The serialized scenario.
+     * @throws Exception When fetching fails.
+     */
+    String fetch(String digest) throws Exception;
+  }
+
+  /**
+   * Refers to a scenario by the digest of its serialized form.
+   * @author Rinde van Lon
+   */
+  static final class ScenarioRef implements Serializable {
+    private static final long serialVersionUID = -1655823536493380457L;
+    final String digest;
+    final Class<?> scenarioClass;
+
+    ScenarioRef(String dig, Class<?> clz) {
+      digest = dig;
+      scenarioClass = clz;
+    }
+
+    @Override
+    public int hashCode() {
+      return digest.hashCode();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+      if (other == null || other.getClass() != getClass()) {
+        return false;
+      }
+      final ScenarioRef ref = (ScenarioRef) other;
+      return Objects.equal(digest, ref.digest)
+        && Objects.equal(scenarioClass, ref.scenarioClass);
+    }
+
+    @Override
+    public String toString() {
+      return "ScenarioRef(" + digest + ")";
+    }
+  }
+
+  static class LastModifiedComparator implements Comparator<File> {
+    LastModifiedComparator() {}
+
+    @Override
+    public int compare(@Nullable File f1, @Nullable File f2) {
+      return Longs.compare(verifyNotNull(f1).lastModified(),
+        verifyNotNull(f2).lastModified());
+    }
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.google.common.primitives.Doubles;
+
+/**
+ * A quantile sketch based on the merging t-digest of Dunning and Ertl. Values
+ * are buffered and periodically merged into a sorted list of centroids, the
+ * size of a centroid is bounded by <code>4 n q (1 - q) / compression</code>
+ * where <code>q</code> is its quantile. As a consequence centroids in the
+ * tails are small, which keeps extreme quantiles accurate, and the number of
+ * centroids is bounded by a constant that depends only on the compression.
+ * Two digests can be merged by adding the centroids of one to the other.
+ * @author Rinde van Lon
+ */
+final class TDigest implements Serializable {
+  static final double DEFAULT_COMPRESSION = 100d;
+  private static final long serialVersionUID = 6022713466612727187L;
+  private static final int BUFFER_FACTOR = 5;
+  private static final double FOUR = 4d;
+  private static final double HALF = .5;
+
+  final double compression;
+  double[] means;
+  double[] weights;
+  int centroids;
+  final double[] bufferMeans;
+  final double[] bufferWeights;
+  int buffered;
+  double totalWeight;
+  double min;
+  double max;
+
+  TDigest(double comp) {
+    checkArgument(comp >= 1d, "Compression must be at least 1, found %s.",
+      comp);
+    compression = comp;
+    final int capacity = (int) Math.ceil(comp) * BUFFER_FACTOR;
+    means = new double[capacity];
+    weights = new double[capacity];
+    bufferMeans = new double[capacity];
+    bufferWeights = new double[capacity];
+    min = Double.POSITIVE_INFINITY;
+    max = Double.NEGATIVE_INFINITY;
+  }
+
+  TDigest(TDigest copy) {
+    compression = copy.compression;
+    means = copy.means.clone();
+    weights = copy.weights.clone();
+    centroids = copy.centroids;
+    bufferMeans = copy.bufferMeans.clone();
+    bufferWeights = copy.bufferWeights.clone();
+    buffered = copy.buffered;
+    totalWeight = copy.totalWeight;
+    min = copy.min;
+    max = copy.max;
+  }
+
+  void add(double value) {
+    add(value, 1d);
+  }
+
+  void add(double value, double weight) {
+    checkArgument(!Double.isNaN(value), "NaN can not be added.");
+    if (buffered == bufferMeans.length) {
+      compress();
+    }
+    bufferMeans[buffered] = value;
+    bufferWeights[buffered] = weight;
+    buffered++;
+    totalWeight += weight;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  void merge(TDigest other) {
+    checkArgument(other != this, "A digest can not be merged with itself.");
+    for (int i = 0; i < other.centroids; i++) {
+      add(other.means[i], other.weights[i]);
+    }
+    for (int i = 0; i < other.buffered; i++) {
+      add(other.bufferMeans[i], other.bufferWeights[i]);
+    }
+    // the extremes may be part of a centroid of the other digest
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  double getTotalWeight() {
+    return totalWeight;
+  }
+
+  /**
+   * Estimates the specified quantile by interpolating between the centers of
+   * the centroids, the minimum and the maximum. The quantiles
+   * <code>0</code> and <code>1</code> are the exact minimum and maximum.
+   * @param q The quantile in <code>[0,1]</code>.
+   * @return The estimate or {@link Double#NaN} if the digest is empty.
+   */
+  double quantile(double q) {
+    checkArgument(q >= 0d && q <= 1d, "Quantile must be in [0,1], found %s.",
+      q);
+    compress();
+    if (centroids == 0) {
+      return Double.NaN;
+    } else if (q == 0d) {
+      return min;
+    } else if (q == 1d) {
+      return max;
+    } else if (centroids == 1) {
+      return means[0];
+    }
+    final double index = q * totalWeight;
+    if (index < weights[0] * HALF) {
+      return min + (means[0] - min) * index / (weights[0] * HALF);
+    }
+    double cumulative = weights[0] * HALF;
+    for (int i = 0; i < centroids - 1; i++) {
+      final double dw = (weights[i] + weights[i + 1]) * HALF;
+      if (cumulative + dw > index) {
+        return means[i] + (means[i + 1] - means[i])
+          * (index - cumulative) / dw;
+      }
+      cumulative += dw;
+    }
+    final int last = centroids - 1;
+    return Math.min(max, means[last] + (max - means[last])
+      * (index - cumulative) / (weights[last] * HALF));
+  }
+
+  void compress() {
+    if (buffered == 0) {
+      return;
+    }
+    final int n = centroids + buffered;
+    final Integer[] order = new Integer[n];
+    final double[] allMeans = Arrays.copyOf(means, n);
+    final double[] allWeights = Arrays.copyOf(weights, n);
+    System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+    System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new IndexComparator(allMeans));
+
+    final double[] newMeans = new double[Math.max(means.length, n)];
+    final double[] newWeights = new double[newMeans.length];
+    int size = 0;
+    double curMean = allMeans[order[0]];
+    double curWeight = allWeights[order[0]];
+    double soFar = 0d;
+    for (int j = 1; j < n; j++) {
+      final double m = allMeans[order[j]];
+      final double w = allWeights[order[j]];
+      final double proposed = curWeight + w;
+      final double q = (soFar + proposed * HALF) / totalWeight;
+      if (proposed <= FOUR * totalWeight * q * (1 - q) / compression) {
+        curMean += (m - curMean) * w / proposed;
+        curWeight = proposed;
+      } else {
+        newMeans[size] = curMean;
+        newWeights[size] = curWeight;
+        size++;
+        soFar += curWeight;
+        curMean = m;
+        curWeight = w;
+      }
+    }
+    newMeans[size] = curMean;
+    newWeights[size] = curWeight;
+    size++;
+    means = newMeans;
+    weights = newWeights;
+    centroids = size;
+    buffered = 0;
+  }
+
+  static class IndexComparator implements Comparator<Integer> {
+    final double[] values;
+
+    IndexComparator(double[] vals) {
+      values = vals;
+    }
+
+    @Override
+    public int compare(Integer i1, Integer i2) {
+      return Doubles.compare(values[i1], values[i2]);
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.experiment.Experiment.SimArgs;
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.experiment.ProcessComputer.Collector;
+import com.github.rinde.rinsim.experiment.ProcessComputer.Job;
+import com.github.rinde.rinsim.experiment.ProcessComputer.ScenarioProvider;
+import com.github.rinde.rinsim.pdptw.common.ScenarioTestUtil;
+import com.github.rinde.rinsim.pdptw.common.StatsTracker;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for computing experiments in worker processes.
+ * @author Rinde van Lon
+ */
+public class ProcessComputerTest {
+  @SuppressWarnings("null")
+  static Scenario scenario;
+
+  /**
+   * A temporary folder.
+   */
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  /**
+   * Creates the scenario.
+   */
+  @BeforeClass
+  public static void setUp() {
+    scenario = ScenarioTestUtil.createRandomScenario(123L,
+      StatsTracker.builder());
+  }
+
+  /**
+   * The results computed by worker processes must equal the results computed
+   * locally.
+   */
+  @Test
+  public void determinismLocalVsProcesses() {
+    final Experiment.Builder experimentBuilder = Experiment.builder()
+      .computeLocalProcesses("-Xmx256m")
+      .withThreads(2)
+      .addScenario(scenario)
+      .withRandomSeed(123)
+      .repeat(4)
+      .usePostProcessor(ExperimentTestUtil.testPostProcessor())
+      .addConfiguration(ExperimentTestUtil.testConfig("A"))
+      .addConfiguration(ExperimentTestUtil.testConfig("B"));
+
+    final ExperimentResults processResults = experimentBuilder.perform();
+    final ExperimentResults localResults =
+      experimentBuilder.computeLocal().perform();
+    assertThat(processResults.getResults()).hasSize(8);
+    assertEquals(localResults, processResults);
+  }
+
+  /**
+   * A simulation that crashes its worker is retried in a new worker.
+   * @throws IOException If the marker file can not be created.
+   */
+  @Test
+  public void testCrashedWorker() throws IOException {
+    final File marker = new File(tempFolder.getRoot(), "crashed");
+    final ExperimentResults results = Experiment.builder()
+      .computeLocalProcesses()
+      .withThreads(1)
+      .addScenario(scenario)
+      .usePostProcessor(new CrashOncePostProcessor(marker.getPath()))
+      .addConfiguration(ExperimentTestUtil.testConfig("A"))
+      .perform();
+
+    assertThat(marker.exists()).isTrue();
+    assertThat(results.getResults()).hasSize(1);
+    final SimulationResult result = results.getResults().asList().get(0);
+    assertThat(result.getResultObject()).isEqualTo("SUCCESS");
+  }
+
+  /**
+   * A simulation is retried after a crash, the experiment is aborted when the
+   * worker crashes for the third time.
+   */
+  @Test
+  public void testMaxCrashes() {
+    final SimArgs args = SimArgs.create(scenario,
+      ExperimentTestUtil.testConfig("A"), 0L, 0, false,
+      ExperimentTestUtil.testPostProcessor(), null);
+    final Job job =
+      new Job(0, new ScenarioProvider("", Scenario.class), args);
+    final Collector collector = new Collector(ImmutableList.of(job),
+      ImmutableList.<ResultListener>of());
+    final Exception cause = new IllegalStateException("crash");
+    for (int i = 1; i < ProcessComputer.MAX_CRASHES; i++) {
+      collector.crashed(job, cause);
+      assertThat(collector.throwables).isEmpty();
+    }
+    collector.crashed(job, cause);
+    assertThat(collector.throwables).hasSize(1);
+    assertThat(collector.throwables.get(0).getMessage())
+      .contains("crashed 3 times");
+  }
+
+  /**
+   * Exceptions thrown in a worker abort the experiment.
+   */
+  @Test
+  public void testFailure() {
+    try {
+      Experiment.builder()
+        .computeLocalProcesses()
+        .withThreads(1)
+        .addScenario(scenario)
+        .usePostProcessor(new FailingPostProcessor())
+        .addConfiguration(ExperimentTestUtil.testConfig("A"))
+        .perform();
+      fail();
+    } catch (final AbortExperimentException e) {
+      assertThat(e.getCause().getMessage()).isEqualTo("Failure");
+    }
+  }
+
+  /**
+   * The post-processor must be serializable.
+   */
+  @Test
+  public void testNotSerializable() {
+    try {
+      Experiment.builder()
+        .computeLocalProcesses()
+        .addScenario(scenario)
+        .usePostProcessor(new PostProcessor<String>() {
+          @Override
+          public String collectResults(Simulator sim, SimArgs args) {
+            return "";
+          }
+
+          @Override
+          public FailureStrategy handleFailure(Exception e, Simulator sim,
+              SimArgs args) {
+            return FailureStrategy.ABORT_EXPERIMENT_RUN;
+          }
+        })
+        .addConfiguration(ExperimentTestUtil.testConfig("A"))
+        .perform();
+      fail();
+    } catch (final IllegalArgumentException e) {
+      assertThat(e.getMessage()).contains("must implement Serializable");
+    }
+  }
+
+  static class CrashOncePostProcessor
+      implements PostProcessor<String>, Serializable {
+    private static final long serialVersionUID = 6417305468423911342L;
+    final String markerPath;
+
+    CrashOncePostProcessor(String path) {
+      markerPath = path;
+    }
+
+    @Override
+    public String collectResults(Simulator sim, SimArgs args) {
+      try {
+        if (new File(markerPath).createNewFile()) {
+          Runtime.getRuntime().halt(1);
+        }
+      } catch (final IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return "SUCCESS";
+    }
+
+    @Override
+    public FailureStrategy handleFailure(Exception e, Simulator sim,
+        SimArgs args) {
+      return FailureStrategy.ABORT_EXPERIMENT_RUN;
+    }
+  }
+
+  static class FailingPostProcessor
+      implements PostProcessor<String>, Serializable {
+    private static final long serialVersionUID = -1491958102985287166L;
+
+    @Override
+    public String collectResults(Simulator sim, SimArgs args) {
+      throw new IllegalStateException("Failure");
+    }
+
+    @Override
+    public FailureStrategy handleFailure(Exception e, Simulator sim,
+        SimArgs args) {
+      return FailureStrategy.ABORT_EXPERIMENT_RUN;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.Test;
+
+import com.github.rinde.rinsim.experiment.Experiment.SimulationResult;
+import com.github.rinde.rinsim.experiment.PostProcessor.FailureStrategy;
+import com.github.rinde.rinsim.experiment.ResultAggregator.Cell;
+import com.github.rinde.rinsim.experiment.ResultAggregator.MetricValues;
+import com.github.rinde.rinsim.pdptw.common.ObjectiveFunction;
+import com.github.rinde.rinsim.pdptw.common.ScenarioTestUtil;
+import com.github.rinde.rinsim.pdptw.common.StatisticsDTO;
+import com.github.rinde.rinsim.pdptw.common.StatsTracker;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.gendreau06.Gendreau06ObjectiveFunction;
+
+/**
+ * Tests for {@link ResultAggregator}.
+ * @author Rinde van Lon
+ */
+public class ResultAggregatorTest {
+  static final double EPSILON = 1e-6;
+
+  /**
+   * The summaries equal the statistics of the individual results, also when
+   * the results are reduced to their metric values by the post-processor and
+   * when summaries are merged.
+   */
+  @Test
+  public void testAggregate() {
+    final ObjectiveFunction objFunc = Gendreau06ObjectiveFunction.instance();
+    final Scenario scenario = ScenarioTestUtil.createRandomScenario(123L,
+      StatsTracker.builder());
+    final MASConfiguration config = ExperimentTestUtil.testConfig("A");
+    final PostProcessor<StatisticsDTO> pp = PostProcessors
+      .statisticsPostProcessor(objFunc, FailureStrategy.INCLUDE);
+
+    final ResultAggregator<StatisticsDTO> full = ResultAggregator
+      .statisticsBuilder()
+      .addMetric("cost", ResultAggregator.objective(objFunc))
+      .build();
+    final ExperimentResults results = Experiment.builder()
+      .addScenario(scenario)
+      .addConfiguration(config)
+      .usePostProcessor(pp)
+      .addResultListener(full)
+      .withRandomSeed(123)
+      .repeat(6)
+      .perform();
+
+    final ResultAggregator<StatisticsDTO> reduced = ResultAggregator
+      .statisticsBuilder()
+      .addMetric("cost", ResultAggregator.objective(objFunc))
+      .build();
+    final ResultAggregator<StatisticsDTO> merged = ResultAggregator
+      .statisticsBuilder()
+      .addMetric("cost", ResultAggregator.objective(objFunc))
+      .build();
+    for (int i = 0; i < 2; i++) {
+      final ExperimentResults res = Experiment.builder()
+        .addScenario(scenario)
+        .addConfiguration(config)
+        .usePostProcessor(reduced.postProcessor(pp))
+        .addResultListener(reduced)
+        .withRandomSeed(123)
+        .repeat(6)
+        .perform();
+      if (i == 0) {
+        for (final SimulationResult r : res.getResults()) {
+          assertThat(r.getResultObject()).isInstanceOf(MetricValues.class);
+        }
+        merged.merge(reduced.getSummaries());
+      }
+    }
+    merged.merge(full.getSummaries());
+
+    final DescriptiveStatistics expected = new DescriptiveStatistics();
+    for (final SimulationResult r : results.getResults()) {
+      expected.addValue(objFunc.computeCost(
+        (StatisticsDTO) r.getResultObject()));
+    }
+    assertThat(full.getCells()).containsExactly(Cell.create(scenario, config));
+    final RunningStatistics cost = full.getSummary(scenario, config, "cost");
+    assertThat(cost.getCount()).isEqualTo(6L);
+    assertEquals(expected.getMean(), cost.getMean(), EPSILON);
+    assertEquals(expected.getMin(), cost.getMin(), EPSILON);
+    assertEquals(expected.getMax(), cost.getMax(), EPSILON);
+    assertEquals(expected.getVariance(), cost.getVariance(), EPSILON);
+
+    for (final ResultAggregator<StatisticsDTO> agg : new ResultAggregator[] {
+      reduced, merged}) {
+      final RunningStatistics c = agg.getTotal("cost");
+      assertThat(c.getCount()).isEqualTo(12L);
+      assertEquals(cost.getMean(), c.getMean(), EPSILON);
+      assertEquals(cost.getMin(), c.getMin(), EPSILON);
+      assertEquals(cost.getMax(), c.getMax(), EPSILON);
+    }
+    assertThat(full.getMetrics()).contains("totalTravelTime");
+    assertThat(full.getIgnoredResults()).isEqualTo(0);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RunningStatistics}.
+ * @author Rinde van Lon
+ */
+public class RunningStatisticsTest {
+  static final double EPSILON = 1e-9;
+
+  /**
+   * Mean, variance, min and max are exact, quantiles are close to the exact
+   * values.
+   */
+  @Test
+  public void testAgainstDescriptiveStatistics() {
+    final RandomGenerator rng = new MersenneTwister(123L);
+    final RunningStatistics stats = RunningStatistics.create();
+    final DescriptiveStatistics expected = new DescriptiveStatistics();
+    for (int i = 0; i < 100000; i++) {
+      final double v = rng.nextGaussian() * 10 + 100;
+      stats.add(v);
+      expected.addValue(v);
+    }
+    assertSame(expected, stats);
+  }
+
+  /**
+   * The merge of the statistics of parts equals the statistics of the whole.
+   */
+  @Test
+  public void testMerge() {
+    final RandomGenerator rng = new MersenneTwister(456L);
+    final DescriptiveStatistics expected = new DescriptiveStatistics();
+    final RunningStatistics merged = RunningStatistics.create();
+    for (int p = 0; p < 10; p++) {
+      final RunningStatistics part = RunningStatistics.create();
+      for (int i = 0; i < 1000 * p; i++) {
+        final double v = rng.nextDouble() * 1000;
+        part.add(v);
+        expected.addValue(v);
+      }
+      merged.merge(part);
+      assertThat(part.getCount()).isEqualTo(1000L * p);
+    }
+    assertSame(expected, merged);
+
+    final RunningStatistics copy = RunningStatistics.copyOf(merged);
+    copy.add(-1d);
+    assertThat(merged.getMin()).isAtLeast(0d);
+    assertThat(copy.getMin()).isEqualTo(-1d);
+  }
+
+  /**
+   * The extremes of a merged summary are exact, also when they are part of a
+   * centroid of the merged summary.
+   */
+  @Test
+  public void testMergeExtremes() {
+    final RandomGenerator rng = new MersenneTwister(789L);
+    final RunningStatistics part = RunningStatistics.create(1d);
+    final DescriptiveStatistics expected = new DescriptiveStatistics();
+    for (int i = 0; i < 1000; i++) {
+      final double v = rng.nextDouble() * 1000;
+      part.add(v);
+      expected.addValue(v);
+    }
+    // computing a quantile compresses the values into a few centroids
+    assertThat(part.getMedian()).isNotNaN();
+    final RunningStatistics merged = RunningStatistics.create(1d);
+    merged.merge(part);
+    assertThat(merged.getMin()).isEqualTo(expected.getMin());
+    assertThat(merged.getMax()).isEqualTo(expected.getMax());
+    assertThat(merged.getQuantile(0d)).isEqualTo(expected.getMin());
+    assertThat(merged.getQuantile(1d)).isEqualTo(expected.getMax());
+  }
+
+  /**
+   * Small and empty summaries.
+   */
+  @Test
+  public void testSmall() {
+    final RunningStatistics stats = RunningStatistics.create();
+    assertThat(stats.getMean()).isNaN();
+    assertThat(stats.getMedian()).isNaN();
+    assertThat(stats.getMax()).isNaN();
+    stats.add(3d);
+    assertThat(stats.getVariance()).isNaN();
+    assertThat(stats.getMedian()).isEqualTo(3d);
+    stats.add(5d);
+    assertEquals(4d, stats.getMean(), EPSILON);
+    assertEquals(2d, stats.getVariance(), EPSILON);
+    assertEquals(3d, stats.getQuantile(0d), EPSILON);
+    assertEquals(5d, stats.getQuantile(1d), EPSILON);
+  }
+
+  static void assertSame(DescriptiveStatistics expected,
+      RunningStatistics actual) {
+    assertThat(actual.getCount()).isEqualTo(expected.getN());
+    assertEquals(expected.getMean(), actual.getMean(), EPSILON);
+    assertEquals(1d, actual.getVariance() / expected.getVariance(), EPSILON);
+    assertThat(actual.getMin()).isEqualTo(expected.getMin());
+    assertThat(actual.getMax()).isEqualTo(expected.getMax());
+    final double range = expected.getMax() - expected.getMin();
+    for (final double q : new double[] {.001, .01, .25, .5, .75, .99, .999}) {
+      assertEquals(expected.getPercentile(q * 100), actual.getQuantile(q),
+        range * .005);
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.experiment;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jppf.node.protocol.AbstractTask;
+import org.jppf.utils.JPPFCallable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.experiment.ScenarioCache.Fetcher;
+import com.github.rinde.rinsim.experiment.ScenarioCache.ScenarioRef;
+import com.github.rinde.rinsim.pdptw.common.ScenarioTestUtil;
+import com.github.rinde.rinsim.pdptw.common.StatsTracker;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
+
+/**
+ * Tests for {@link ScenarioCache}.
+ * @author Rinde van Lon
+ */
+public class ScenarioCacheTest {
+  /**
+   * Temporary directory of the cache.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @SuppressWarnings("null")
+  Scenario scenario;
+  @SuppressWarnings("null")
+  ScenarioRef ref;
+  @SuppressWarnings("null")
+  CountingFetcher fetcher;
+
+  /**
+   * Publishes a scenario.
+   */
+  @Before
+  public void setUp() {
+    scenario = ScenarioTestUtil.createRandomScenario(123L,
+      StatsTracker.builder());
+    ref = ScenarioCache.publish(scenario);
+    fetcher = new CountingFetcher();
+  }
+
+  /**
+   * Unpublishes the scenario.
+   */
+  @After
+  public void tearDown() {
+    ScenarioCache.unpublish(ref);
+  }
+
+  /**
+   * A scenario is fetched only when it is neither in memory nor on disk.
+   */
+  @Test
+  public void testFetchOnMiss() {
+    final ScenarioCache cache =
+      new ScenarioCache(folder.getRoot(), Long.MAX_VALUE);
+    assertThat(cache.get(ref, fetcher)).isEqualTo(scenario);
+    assertThat(fetcher.fetches).isEqualTo(1);
+    assertThat(cache.get(ref, fetcher)).isSameAs(cache.get(ref, fetcher));
+    assertThat(fetcher.fetches).isEqualTo(1);
+
+    // a new cache in the same directory reads from disk
+    final ScenarioCache other =
+      new ScenarioCache(folder.getRoot(), Long.MAX_VALUE);
+    assertThat(other.get(ref, fetcher)).isEqualTo(scenario);
+    assertThat(fetcher.fetches).isEqualTo(1);
+  }
+
+  /**
+   * Publishing is reference counted.
+   */
+  @Test
+  public void testPublish() {
+    final ScenarioRef ref2 = ScenarioCache.publish(scenario);
+    assertThat(ref2).isEqualTo(ref);
+    ScenarioCache.unpublish(ref2);
+    assertThat(ScenarioCache.lookup(ref.digest))
+      .isEqualTo(ScenarioIO.write(scenario));
+  }
+
+  /**
+   * A corrupt file is replaced and a fetched scenario must match its digest.
+   * @throws IOException Should not happen.
+   */
+  @Test
+  public void testCorrupt() throws IOException {
+    final File file = new File(folder.getRoot(),
+      ref.digest + ScenarioCache.EXTENSION);
+    Files.write(file.toPath(), "{}".getBytes(StandardCharsets.UTF_8));
+    assertThat(new ScenarioCache(folder.getRoot(), Long.MAX_VALUE)
+      .get(ref, fetcher)).isEqualTo(scenario);
+    assertThat(fetcher.fetches).isEqualTo(1);
+    assertThat(ScenarioCache.digest(new String(
+      Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)))
+        .isEqualTo(ref.digest);
+
+    boolean fail = false;
+    try {
+      new ScenarioCache(folder.newFolder(), Long.MAX_VALUE).get(ref,
+        new Fetcher() {
+          @Override
+          public String fetch(String digest) {
+            return "{}";
+          }
+        });
+    } catch (final IllegalStateException e) {
+      assertThat(e.getMessage()).contains("does not match");
+      fail = true;
+    }
+    assertThat(fail).isTrue();
+  }
+
+  /**
+   * A failed write leaves no files behind, the scenario is still returned.
+   * @throws IOException Should not happen.
+   */
+  @Test
+  public void testFailedWrite() throws IOException {
+    // the temporary file can not replace a non-empty directory
+    final File blocking =
+      folder.newFolder(ref.digest + ScenarioCache.EXTENSION);
+    assertThat(new File(blocking, "file").createNewFile()).isTrue();
+    assertThat(new ScenarioCache(folder.getRoot(), Long.MAX_VALUE)
+      .get(ref, fetcher)).isEqualTo(scenario);
+    assertThat(folder.getRoot().list())
+      .asList()
+      .containsExactly(blocking.getName());
+  }
+
+  /**
+   * Outside a JPPF node the scenario is looked up without the task.
+   * @throws Exception Should not happen.
+   */
+  @Test
+  public void testLocalClientFetcher() throws Exception {
+    final JppfComputer.ClientFetcher clientFetcher =
+      new JppfComputer.ClientFetcher(new AbstractTask<Object>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public <V> V compute(JPPFCallable<V> callable) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void run() {}
+      });
+    assertThat(clientFetcher.fetch(ref.digest))
+      .isEqualTo(ScenarioCache.lookup(ref.digest));
+  }
+
+  /**
+   * The least recently used files are removed when the directory exceeds its
+   * maximum size, the most recent one is always kept.
+   */
+  @Test
+  public void testEvict() {
+    final Scenario scenario2 = ScenarioTestUtil.createRandomScenario(456L,
+      StatsTracker.builder());
+    final ScenarioRef ref2 = ScenarioCache.publish(scenario2);
+    try {
+      final ScenarioCache cache = new ScenarioCache(folder.getRoot(), 1L);
+      cache.get(ref, fetcher);
+      cache.get(ref2, fetcher);
+      assertThat(folder.getRoot().list())
+        .asList()
+        .containsExactly(ref2.digest + ScenarioCache.EXTENSION);
+    } finally {
+      ScenarioCache.unpublish(ref2);
+    }
+  }
+
+  /**
+   * A slow fetch of one scenario does not block loading a different scenario.
+   * @throws Exception Should not happen.
+   */
+  @Test
+  public void testConcurrentGet() throws Exception {
+    final Scenario scenario2 = ScenarioTestUtil.createRandomScenario(456L,
+      StatsTracker.builder());
+    final ScenarioRef ref2 = ScenarioCache.publish(scenario2);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final ScenarioCache cache =
+        new ScenarioCache(folder.getRoot(), Long.MAX_VALUE);
+      final CountDownLatch fetched = new CountDownLatch(1);
+      final Future<Boolean> slow = executor.submit(new Callable<Boolean>() {
+        @Override
+        public Boolean call() {
+          final boolean[] released = new boolean[1];
+          cache.get(ref, new Fetcher() {
+            @Override
+            public String fetch(String digest) throws InterruptedException {
+              // waits until the other scenario is loaded
+              released[0] = fetched.await(10, TimeUnit.SECONDS);
+              return ScenarioCache.lookup(digest);
+            }
+          });
+          return released[0];
+        }
+      });
+      assertThat(cache.get(ref2, fetcher)).isEqualTo(scenario2);
+      fetched.countDown();
+      assertThat(slow.get()).isTrue();
+      assertThat(cache.get(ref, fetcher)).isEqualTo(scenario);
+      assertThat(fetcher.fetches).isEqualTo(1);
+    } finally {
+      executor.shutdown();
+      ScenarioCache.unpublish(ref2);
+    }
+  }
+
+  /**
+   * Looking up a scenario that is not published fails.
+   */
+  @Test
+  public void testLookupNotPublished() {
+    try {
+      ScenarioCache.lookup("abc");
+      fail();
+    } catch (final IllegalStateException e) {
+      assertThat(e.getMessage()).contains("not published");
+    }
+  }
+
+  static class CountingFetcher implements Fetcher {
+    int fetches;
+
+    @Override
+    public String fetch(String digest) {
+      fetches++;
+      return ScenarioCache.lookup(digest);
+    }
+  }
+}
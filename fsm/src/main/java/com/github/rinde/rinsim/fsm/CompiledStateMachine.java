@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.fsm;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Table.Cell;
+
+/**
+ * A {@link StateMachine} that stores its transitions in a dense array that is
+ * indexed by state and trigger. States and triggers are numbered once upon
+ * construction, for {@link Enum} triggers the number is derived from the
+ * ordinal such that a transition requires no hash lookups. A
+ * {@link StateMachine.StateTransitionEvent} is only created when a listener is
+ * registered. Instances can be created using
+ * {@link StateMachine.StateMachineBuilder#compile()}.
+ * @author Rinde van Lon
+ * @param <T> The trigger type.
+ * @param <C> The context type.
+ */
+final class CompiledStateMachine<T, C> extends StateMachine<T, C> {
+  private static final int NONE = -1;
+
+  private final List<State<T, C>> states;
+  // the enum classes of the triggers with the index of their first constant
+  private final Class<?>[] enumTypes;
+  private final int[] enumOffsets;
+  // the triggers that are not enums
+  private final Map<Object, Integer> otherTriggers;
+  private final int numTriggers;
+  // index of the new state at: state * numTriggers + trigger
+  private final int[] transitions;
+  private int currentIndex;
+
+  CompiledStateMachine(State<T, C> start,
+      ImmutableTable<State<T, C>, T, State<T, C>> table,
+      boolean explRecurTrns) {
+    super(start, table, explRecurTrns);
+
+    final Map<State<T, C>, Integer> stateIds = new HashMap<>();
+    states = new ArrayList<>();
+    addState(start, stateIds);
+    for (final Cell<State<T, C>, T, State<T, C>> cell : table.cellSet()) {
+      addState(cell.getRowKey(), stateIds);
+      addState(cell.getValue(), stateIds);
+    }
+
+    final List<Class<?>> types = new ArrayList<>();
+    final List<Integer> offsets = new ArrayList<>();
+    otherTriggers = new HashMap<>();
+    int count = 0;
+    for (final T trigger : table.columnKeySet()) {
+      if (trigger instanceof Enum<?>) {
+        final Class<?> type = ((Enum<?>) trigger).getDeclaringClass();
+        if (!types.contains(type)) {
+          types.add(type);
+          offsets.add(count);
+          count += type.getEnumConstants().length;
+        }
+      } else {
+        otherTriggers.put(trigger, count++);
+      }
+    }
+    enumTypes = types.toArray(new Class<?>[types.size()]);
+    enumOffsets = new int[offsets.size()];
+    for (int i = 0; i < enumOffsets.length; i++) {
+      enumOffsets[i] = offsets.get(i);
+    }
+    numTriggers = count;
+
+    transitions = new int[states.size() * numTriggers];
+    Arrays.fill(transitions, NONE);
+    for (final Cell<State<T, C>, T, State<T, C>> cell : table.cellSet()) {
+      transitions[stateIds.get(cell.getRowKey()) * numTriggers
+        + triggerIndex(cell.getColumnKey())] = stateIds.get(cell.getValue());
+    }
+    currentIndex = stateIds.get(start);
+  }
+
+  private void addState(State<T, C> state,
+      Map<State<T, C>, Integer> stateIds) {
+    if (!stateIds.containsKey(state)) {
+      stateIds.put(state, states.size());
+      states.add(state);
+    }
+  }
+
+  int triggerIndex(@Nullable Object trigger) {
+    if (trigger instanceof Enum<?>) {
+      final Enum<?> e = (Enum<?>) trigger;
+      final Class<?> type = e.getDeclaringClass();
+      for (int i = 0; i < enumTypes.length; i++) {
+        if (enumTypes[i] == type) {
+          return enumOffsets[i] + e.ordinal();
+        }
+      }
+      return NONE;
+    }
+    final Integer index = otherTriggers.get(trigger);
+    return index == null ? NONE : index;
+  }
+
+  int nextIndex(T trigger) {
+    final int trig = triggerIndex(trigger);
+    return trig == NONE ? NONE : transitions[currentIndex * numTriggers + trig];
+  }
+
+  @Override
+  protected void changeState(T trigger, C context) {
+    final int next = nextIndex(trigger);
+    checkArgument(next != NONE,
+      "The trigger %s is not supported when in state %s.", trigger,
+      currentState);
+    if (next != currentIndex || explicitRecursiveTransitions) {
+      final State<T, C> oldState = currentState;
+      final State<T, C> newState = states.get(next);
+      oldState.onExit(trigger, context);
+      currentIndex = next;
+      currentState = newState;
+      newState.onEntry(trigger, context);
+      if (eventDispatcher.hasListenerFor(StateMachineEvent.STATE_TRANSITION)) {
+        eventDispatcher.dispatchEvent(new StateTransitionEvent<>(this,
+          oldState, trigger, newState));
+      }
+    }
+  }
+
+  @Override
+  public boolean isSupported(T trigger) {
+    return nextIndex(trigger) != NONE;
+  }
+}
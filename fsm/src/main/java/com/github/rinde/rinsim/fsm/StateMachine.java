@@ -139,8 +139,10 @@ public class StateMachine<T, C> {
       final State<T, C> oldState = currentState;
       currentState = newState;
       currentState.onEntry(trigger, context);
-      eventDispatcher.dispatchEvent(new StateTransitionEvent<>(this,
-        oldState, trigger, newState));
+      if (eventDispatcher.hasListenerFor(StateMachineEvent.STATE_TRANSITION)) {
+        eventDispatcher.dispatchEvent(new StateTransitionEvent<>(this,
+          oldState, trigger, newState));
+      }
     }
   }
 
@@ -340,6 +342,22 @@ public class StateMachine<T, C> {
       return new StateMachine<>(start, tableBuilder.build(),
         explicitRecursiveTransitions);
     }
+
+    /**
+     * Builds a compiled {@link StateMachine} as configured by this builder. The
+     * compiled state machine behaves exactly as the state machine created by
+     * {@link #build()}, but its transitions are stored in an array that is
+     * indexed by state and trigger. This makes transitions cheaper, especially
+     * when the triggers are {@link Enum}s, at the cost of a more expensive
+     * construction. This is useful when many state machines are used during a
+     * long time, e.g. one for every vehicle in a simulation.
+     * @return The compiled {@link StateMachine}.
+     */
+    @CheckReturnValue
+    public StateMachine<T, C> compile() {
+      return new CompiledStateMachine<>(start, tableBuilder.build(),
+        explicitRecursiveTransitions);
+    }
   }
 
   /**
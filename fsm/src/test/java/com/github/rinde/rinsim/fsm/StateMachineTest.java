@@ -55,15 +55,18 @@ public class StateMachineTest {
    */
   protected StateMachine<Events, Context> fsm;
   final boolean explicitRecursiveTransitions;
+  final boolean compiled;
   DefaultState startState, stopState, pauseState, specialState;
 
   /**
    * @param ert Indicates whether to create a state machine that enables
    *          explicit recursive transitions.
+   * @param comp Indicates whether to create a compiled state machine.
    */
   @SuppressWarnings("null")
-  public StateMachineTest(boolean ert) {
+  public StateMachineTest(boolean ert, boolean comp) {
     explicitRecursiveTransitions = ert;
+    compiled = comp;
   }
 
   /**
@@ -71,7 +74,8 @@ public class StateMachineTest {
    */
   @Parameters
   public static Collection<Object[]> data() {
-    return Arrays.asList(new Object[][] {{true}, {false}});
+    return Arrays.asList(new Object[][] {{true, false}, {false, false},
+      {true, true}, {false, true}});
   }
 
   /**
@@ -104,7 +108,7 @@ public class StateMachineTest {
       smb.explicitRecursiveTransitions();
     }
 
-    fsm = smb.build();
+    fsm = compiled ? smb.compile() : smb.build();
 
     assertTrue(fsm
       .stateIsOneOf(startState, specialState, stopState, pauseState));
@@ -130,7 +134,7 @@ public class StateMachineTest {
     if (explicitRecursiveTransitions) {
       smb.explicitRecursiveTransitions();
     }
-    fsm = smb.build();
+    fsm = compiled ? smb.compile() : smb.build();
 
     final State<Events, Context> first = fsm.getStates().iterator().next();
     assertEquals(first, fsm.getStateOfType(Object.class));
@@ -242,7 +246,6 @@ public class StateMachineTest {
   /**
    * Tests correct behavior for events which are not equal.
    */
-  @SuppressWarnings("static-method")
   @Test
   public void eventNotEqualBehavior() {
     final TestState state1 = new TestState("state1");
@@ -251,10 +254,12 @@ public class StateMachineTest {
     final Object event1 = "event1";
     final Object event2 = new Object();
 
-    final StateMachine<Object, Object> sm = StateMachine.create(state1)/* */
+    final StateMachineBuilder<Object, Object> smb = StateMachine
+      .create(state1)/* */
       .addTransition(state1, event1, state2)/* */
-      .addTransition(state2, event2, state1)/* */
-      .build();
+      .addTransition(state2, event2, state1);
+    final StateMachine<Object, Object> sm =
+      compiled ? smb.compile() : smb.build();
 
     assertTrue(sm.isSupported(event1));
     assertTrue(sm.isSupported("event1"));
@@ -270,6 +275,38 @@ public class StateMachineTest {
     assertFalse(sm.isSupported(new Object()));
   }
 
+  /**
+   * Triggers of different enum types and other types can be mixed.
+   */
+  @Test
+  public void testMixedTriggerTypes() {
+    final TestState state1 = new TestState("state1");
+    final TestState state2 = new TestState("state2");
+    final TestState state3 = new TestState("state3");
+    final StateMachineBuilder<Object, Object> smb = StateMachine
+      .create(state1)
+      .addTransition(state1, Events.PAUSE, state2)
+      .addTransition(state2, OtherEvents.GO, state3)
+      .addTransition(state3, "back", state1)
+      .addTransition(state3, Events.STOP, state3);
+    final StateMachine<Object, Object> sm =
+      compiled ? smb.compile() : smb.build();
+
+    assertTrue(sm.isSupported(Events.PAUSE));
+    assertFalse(sm.isSupported(Events.STOP));
+    assertFalse(sm.isSupported(OtherEvents.GO));
+    assertFalse(sm.isSupported(OtherEvents.WAIT));
+    sm.handle(Events.PAUSE, CONTEXT);
+    sm.handle(OtherEvents.GO, CONTEXT);
+    assertTrue(sm.stateIs(state3));
+    assertTrue(sm.isSupported(Events.STOP));
+    assertFalse(sm.isSupported(Events.PAUSE));
+    sm.handle(Events.STOP, CONTEXT);
+    assertTrue(sm.stateIs(state3));
+    sm.handle(new StringBuilder("ba").append("ck").toString(), CONTEXT);
+    assertTrue(sm.stateIs(state1));
+  }
+
   static class TestState extends AbstractState<Object, Object> {
     private final String name;
 
@@ -293,6 +330,10 @@ public class StateMachineTest {
     START, STOP, PAUSE, SPEZIAL, RECURSIVE
   }
 
+  enum OtherEvents {
+    WAIT, GO
+  }
+
   static class DefaultState implements State<Events, Context> {
     private final List<Events> history;
     private final List<Events> onEntryHistory;
@@ -143,6 +143,15 @@ public abstract class AbstractGraph<E extends ConnectionData> implements
     throw new IllegalStateException();
   }
 
+  // draws an index of a random access view of the nodes or connections, an
+  // index out of range fails in the same way as the iteration above
+  static int randomIndex(RandomGenerator generator, int size) {
+    final int index = generator.nextInt(size);
+    checkState(index >= 0 && index < size,
+      "The generator returned an index out of range: %s.", index);
+    return index;
+  }
+
   @Override
   public Optional<E> setConnectionData(Point from, Point to, E connData) {
     return changeConnectionData(from, to, Optional.of(connData));
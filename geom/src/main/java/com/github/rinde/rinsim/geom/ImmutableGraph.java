@@ -16,11 +16,15 @@
 package com.github.rinde.rinsim.geom;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.hash;
 
 import javax.annotation.Nullable;
 
+import org.apache.commons.math3.random.RandomGenerator;
+
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableTable;
 
@@ -35,6 +39,9 @@ import com.google.common.collect.ImmutableTable;
  */
 public class ImmutableGraph<E extends ConnectionData> extends AbstractGraph<E> {
   private final ImmutableTable<Point, Point, Connection<E>> data;
+  // random access views for sampling random nodes and connections
+  private final ImmutableList<Point> nodeList;
+  private final ImmutableList<Connection<E>> connectionList;
 
   @SuppressWarnings("unchecked")
   ImmutableGraph(Iterable<? extends Connection<? extends E>> connections) {
@@ -44,6 +51,8 @@ public class ImmutableGraph<E extends ConnectionData> extends AbstractGraph<E> {
       tableBuilder.put(conn.from(), conn.to(), (Connection<E>) conn);
     }
     data = tableBuilder.build();
+    nodeList = getNodes().asList();
+    connectionList = data.values().asList();
   }
 
   @Override
@@ -141,6 +150,20 @@ public class ImmutableGraph<E extends ConnectionData> extends AbstractGraph<E> {
     return data.isEmpty();
   }
 
+  @Override
+  public Point getRandomNode(RandomGenerator generator) {
+    checkState(!isEmpty(), "Can not find a random node in an empty graph.");
+    return nodeList.get(randomIndex(generator, nodeList.size()));
+  }
+
+  @Override
+  public Connection<E> getRandomConnection(RandomGenerator generator) {
+    checkState(!isEmpty(),
+      "Can not find a random connection in an empty graph.");
+    return connectionList.get(randomIndex(generator,
+      connectionList.size()));
+  }
+
   @Override
   public Connection<E> getConnection(Point from, Point to) {
     checkArgument(hasConnection(from, to), "%s -> %s is not a connection",
@@ -16,6 +16,7 @@
 package com.github.rinde.rinsim.geom;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.hash;
 
 import java.util.ArrayList;
@@ -31,8 +32,11 @@ import java.util.Set;
 
 import javax.annotation.Nullable;
 
+import org.apache.commons.math3.random.RandomGenerator;
+
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultimap;
@@ -51,6 +55,12 @@ public class MultimapGraph<E extends ConnectionData> extends AbstractGraph<E> {
   private final Multimap<Point, Point> multimap;
   private final Table<Point, Point, Connection<E>> lazyConnectionTable;
   private final Set<Point> deadEndNodes;
+  // random access snapshots of getNodes() and getConnections() for sampling,
+  // they are discarded when the graph is modified
+  @Nullable
+  private ImmutableList<Point> nodeList;
+  @Nullable
+  private ImmutableList<Connection<E>> connectionList;
 
   /**
    * Create a new empty graph.
@@ -118,6 +128,7 @@ public class MultimapGraph<E extends ConnectionData> extends AbstractGraph<E> {
       dat = Optional.absent();
     }
     lazyConnectionTable.put(from, to, Connection.create(from, to, connData));
+    invalidateSnapshots();
     return dat;
   }
 
@@ -201,6 +212,7 @@ public class MultimapGraph<E extends ConnectionData> extends AbstractGraph<E> {
       removeConnection(p, node);
     }
     deadEndNodes.remove(node);
+    invalidateSnapshots();
   }
 
   @Override
@@ -212,6 +224,7 @@ public class MultimapGraph<E extends ConnectionData> extends AbstractGraph<E> {
     if (!multimap.containsKey(to)) {
       deadEndNodes.add(to);
     }
+    invalidateSnapshots();
   }
 
   private void removeData(Point from, Point to) {
@@ -234,6 +247,38 @@ public class MultimapGraph<E extends ConnectionData> extends AbstractGraph<E> {
       this.lazyConnectionTable.put(from, to,
         Connection.create(from, to, connData));
     }
+    invalidateSnapshots();
+  }
+
+  // samples in the same order as the iteration order of getNodes()
+  @Override
+  public Point getRandomNode(RandomGenerator generator) {
+    checkState(!isEmpty(), "Can not find a random node in an empty graph.");
+    ImmutableList<Point> nodes = nodeList;
+    if (nodes == null) {
+      nodes = ImmutableList.copyOf(getNodes());
+      nodeList = nodes;
+    }
+    return nodes.get(randomIndex(generator, nodes.size()));
+  }
+
+  // samples in the same order as the iteration order of getConnections(),
+  // which no longer changes once all connections have been created lazily
+  @Override
+  public Connection<E> getRandomConnection(RandomGenerator generator) {
+    checkState(!isEmpty(),
+      "Can not find a random connection in an empty graph.");
+    ImmutableList<Connection<E>> conns = connectionList;
+    if (conns == null) {
+      conns = ImmutableList.copyOf(getConnections());
+      connectionList = conns;
+    }
+    return conns.get(randomIndex(generator, conns.size()));
+  }
+
+  void invalidateSnapshots() {
+    nodeList = null;
+    connectionList = null;
   }
 
   /**
@@ -16,6 +16,7 @@
 package com.github.rinde.rinsim.geom;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verifyNotNull;
 import static java.util.Objects.hash;
 
@@ -26,8 +27,11 @@ import java.util.Set;
 
 import javax.annotation.Nullable;
 
+import org.apache.commons.math3.random.RandomGenerator;
+
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
@@ -43,6 +47,12 @@ import com.google.common.collect.Tables;
 public class TableGraph<E extends ConnectionData> extends AbstractGraph<E> {
 
   private final Table<Point, Point, Connection<E>> data;
+  // random access snapshots of getNodes() and getConnections() for sampling,
+  // they are discarded when the graph is modified
+  @Nullable
+  private ImmutableList<Point> nodeList;
+  @Nullable
+  private ImmutableList<Connection<E>> connectionList;
 
   /**
    * Create a new empty graph.
@@ -113,12 +123,14 @@ public class TableGraph<E extends ConnectionData> extends AbstractGraph<E> {
   public void removeNode(Point node) {
     data.row(node).clear();
     data.column(node).clear();
+    invalidateSnapshots();
   }
 
   @Override
   public void removeConnection(Point from, Point to) {
     if (hasConnection(from, to)) {
       data.remove(from, to);
+      invalidateSnapshots();
     } else {
       throw new IllegalArgumentException(
         "Can not remove non-existing connection: " + from + " -> " + to);
@@ -150,14 +162,46 @@ public class TableGraph<E extends ConnectionData> extends AbstractGraph<E> {
     return Optional.absent();
   }
 
+  // samples in the same order as the iteration order of getNodes()
+  @Override
+  public Point getRandomNode(RandomGenerator generator) {
+    checkState(!isEmpty(), "Can not find a random node in an empty graph.");
+    ImmutableList<Point> nodes = nodeList;
+    if (nodes == null) {
+      nodes = ImmutableList.copyOf(getNodes());
+      nodeList = nodes;
+    }
+    return nodes.get(randomIndex(generator, nodes.size()));
+  }
+
+  // samples in the same order as the iteration order of getConnections()
+  @Override
+  public Connection<E> getRandomConnection(RandomGenerator generator) {
+    checkState(!isEmpty(),
+      "Can not find a random connection in an empty graph.");
+    ImmutableList<Connection<E>> conns = connectionList;
+    if (conns == null) {
+      conns = ImmutableList.copyOf(getConnections());
+      connectionList = conns;
+    }
+    return conns.get(randomIndex(generator, conns.size()));
+  }
+
+  void invalidateSnapshots() {
+    nodeList = null;
+    connectionList = null;
+  }
+
   @Override
   protected void doAddConnection(Point from, Point to, Optional<E> connData) {
     data.put(from, to, Connection.create(from, to, connData));
+    invalidateSnapshots();
   }
 
   @Override
   protected Optional<E> doChangeConnectionData(Point from, Point to,
       Optional<E> connData) {
+    invalidateSnapshots();
     return verifyNotNull(
       data.put(from, to, Connection.create(from, to, connData))).data();
   }
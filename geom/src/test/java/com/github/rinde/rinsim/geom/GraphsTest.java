@@ -27,7 +27,9 @@ import static org.junit.Assert.fail;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 import javax.measure.Measure;
@@ -437,6 +439,72 @@ public class GraphsTest {
     graph.getRandomNode(new MersenneTwister(234));
   }
 
+  /**
+   * Random nodes and connections must be sampled from the current nodes and
+   * connections, also after removals, and every node and connection must be
+   * reachable.
+   */
+  @Test
+  public void testRandomSamplingAfterRemoval() {
+    final Point a = new Point(0, 0);
+    final Point b = new Point(0, 10);
+    final Point c = new Point(10, 10);
+    final Point d = new Point(10, 0);
+    Graphs.addBiPath(graph, a, b, c, d, a);
+    graph.removeNode(b);
+    graph.removeConnection(c, d);
+
+    final RandomGenerator rng = new MersenneTwister(123);
+    final Set<Point> nodes = new HashSet<>();
+    final Set<Connection<LengthData>> conns = new HashSet<>();
+    for (int i = 0; i < 200; i++) {
+      nodes.add(graph.getRandomNode(rng));
+      conns.add(graph.getRandomConnection(rng));
+    }
+    assertEquals(graph.getNodes(), nodes);
+    assertEquals(graph.getConnections(), conns);
+
+    final Point p1 = graph.getRandomNode(new MersenneTwister(456));
+    final Point p2 = graph.getRandomNode(new MersenneTwister(456));
+    assertEquals(p1, p2);
+  }
+
+  /**
+   * Sampling must be equal to picking the element at a random index of
+   * {@link Graph#getNodes()} and {@link Graph#getConnections()}, such that a
+   * seed yields the same nodes and connections as before sampling was
+   * indexed.
+   */
+  @Test
+  public void testRandomSamplingOrder() {
+    final Point a = new Point(0, 0);
+    final Point b = new Point(0, 10);
+    final Point c = new Point(10, 10);
+    final Point d = new Point(10, 0);
+    final Point e = new Point(5, 5);
+    Graphs.addBiPath(graph, a, b, c, d, a);
+    Graphs.addPath(graph, e, a, c, e);
+    assertSameSampling(graph, 789);
+    graph.removeNode(b);
+    graph.addConnection(d, b);
+    graph.setConnectionData(c, e, LengthData.create(3));
+    assertSameSampling(graph, 790);
+  }
+
+  static void assertSameSampling(Graph<LengthData> g, long seed) {
+    final RandomGenerator rng = new MersenneTwister(seed);
+    final RandomGenerator expectedRng = new MersenneTwister(seed);
+    for (int i = 0; i < 50; i++) {
+      final List<Point> nodes = new ArrayList<>(g.getNodes());
+      assertEquals(nodes.get(expectedRng.nextInt(nodes.size())),
+        g.getRandomNode(rng));
+      final List<Connection<LengthData>> conns =
+        new ArrayList<>(g.getConnections());
+      assertEquals(conns.get(expectedRng.nextInt(conns.size())),
+        g.getRandomConnection(rng));
+    }
+  }
+
   @Test
   public void unmodifiable() {
     final Point N = new Point(0, 5);
@@ -493,7 +493,7 @@ public class RouteFollowingVehicle extends Vehicle {
       .addTransition(waitAtService, DefaultEvent.REROUTE, gotos)
       .addTransition(waitAtService, DefaultEvent.NOGO, wait)
       .addTransition(waitAtService, DefaultEvent.READY_TO_SERVICE, service)
-      .addTransition(service, DefaultEvent.DONE, wait).build();
+      .addTransition(service, DefaultEvent.DONE, wait).compile();
   }
 
   void checkCurrentParcelOwnership() {
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.pdptw.common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Defines the binary format of the traces that are written by
+ * {@link TraceRecorder} and read by {@link TraceReplay}. A trace starts with a
+ * header containing {@link #MAGIC}, {@link #VERSION} and the length of the
+ * trace in bytes, followed by a sequence of records. Every record starts with
+ * a tag byte, a tag of <code>0</code> marks the end of the trace. All integers
+ * are written as variable length quantities, signed integers are zig-zag
+ * encoded first.
+ * Coordinates are delta encoded by writing the exclusive or of the bits of the
+ * new and the previous value of the same object, as consecutive positions
+ * typically share the sign, exponent and most significant bits of the mantissa
+ * this results in a small number.
+ * @author Rinde van Lon
+ */
+final class TraceFormat {
+  static final int MAGIC = 0x52535452;
+  static final byte VERSION = 1;
+  // magic + version
+  static final int LENGTH_OFFSET = 5;
+  // magic + version + length
+  static final int HEADER_SIZE = 13;
+
+  static final byte END = 0;
+  static final byte TIME = 1;
+  static final byte DEFINE = 2;
+  static final byte ADD = 3;
+  static final byte MOVE = 4;
+  static final byte REMOVE = 5;
+  static final byte PDP_EVENT = 6;
+  static final byte SCENARIO_EVENT = 7;
+
+  // tag + three var longs
+  static final int MAX_RECORD_SIZE = 32;
+  static final int MAX_VAR_INT_SIZE = 5;
+  // 1 MiB
+  static final int DEFAULT_WINDOW_SIZE = 1048576;
+
+  static final int VAR_BITS = 7;
+  static final int VAR_MASK = 0x7f;
+  static final int VAR_MORE = 0x80;
+  static final int LONG_SIGN_SHIFT = 63;
+
+  private TraceFormat() {}
+
+  static long zigZag(long value) {
+    return value << 1 ^ value >> LONG_SIGN_SHIFT;
+  }
+
+  static long unZigZag(long value) {
+    return value >>> 1 ^ -(value & 1);
+  }
+
+  /**
+   * Writes a trace to a file using a sliding memory mapped window. The file
+   * is extended one window at a time, the unwritten part of a window consists
+   * of zeros and therefore reads as the end of the trace. As a consequence a
+   * trace is readable at any time after {@link #flush()} even when
+   * {@link #close()} is never called. The file is never truncated as that
+   * fails on some platforms while a part of it is mapped, instead the length
+   * of the trace is stored in the header on every flush.
+   */
+  static final class Writer implements Closeable {
+    final RandomAccessFile file;
+    final FileChannel channel;
+    final int windowSize;
+    final MappedByteBuffer header;
+    MappedByteBuffer buffer;
+    long windowStart;
+
+    Writer(File f, int window) throws IOException {
+      windowSize = window;
+      file = new RandomAccessFile(f, "rw");
+      file.setLength(0);
+      channel = file.getChannel();
+      windowStart = 0;
+      header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+      header.putInt(MAGIC);
+      header.put(VERSION);
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+        Math.max(windowSize, HEADER_SIZE));
+      buffer.position(HEADER_SIZE);
+    }
+
+    // makes sure that the specified number of bytes fits in the window
+    void ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        windowStart += buffer.position();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, windowStart,
+          Math.max(windowSize, bytes));
+      }
+    }
+
+    void put(byte value) {
+      buffer.put(value);
+    }
+
+    void putVarLong(long value) {
+      long v = value;
+      while ((v & ~VAR_MASK) != 0) {
+        buffer.put((byte) (v & VAR_MASK | VAR_MORE));
+        v >>>= VAR_BITS;
+      }
+      buffer.put((byte) v);
+    }
+
+    void putString(String value) throws IOException {
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      ensure(MAX_VAR_INT_SIZE + bytes.length);
+      putVarLong(bytes.length);
+      buffer.put(bytes);
+    }
+
+    long length() {
+      return windowStart + buffer.position();
+    }
+
+    void flush() {
+      buffer.force();
+      header.putLong(LENGTH_OFFSET, length());
+      header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        file.close();
+      }
+    }
+  }
+
+  /**
+   * Reads a trace from a file using a sliding read-only memory mapped window.
+   */
+  static final class Reader implements Closeable {
+    final RandomAccessFile file;
+    final FileChannel channel;
+    final int windowSize;
+    long size;
+    MappedByteBuffer buffer;
+    long windowStart;
+
+    Reader(File f, int window) throws IOException {
+      windowSize = window;
+      file = new RandomAccessFile(f, "r");
+      channel = file.getChannel();
+      size = channel.size();
+      windowStart = 0;
+      buffer = map(HEADER_SIZE);
+      if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+        file.close();
+        throw new IOException("Not a trace file: " + f);
+      }
+      final byte version = buffer.get();
+      if (version != VERSION) {
+        file.close();
+        throw new IOException("Unsupported trace version: " + version);
+      }
+      // the length is zero when the trace has never been flushed, the zeros
+      // at the end of the file read as the end of the trace in that case
+      final long length = buffer.getLong();
+      if (length >= HEADER_SIZE && length < size) {
+        size = length;
+        buffer.limit((int) Math.min(buffer.limit(), size));
+      }
+    }
+
+    MappedByteBuffer map(int bytes) throws IOException {
+      return channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+        Math.min(Math.max(windowSize, bytes), size - windowStart));
+    }
+
+    void ensure(int bytes) throws IOException {
+      if (buffer.remaining() < bytes
+        && windowStart + buffer.limit() < size) {
+        windowStart += buffer.position();
+        buffer = map(bytes);
+      }
+    }
+
+    // returns END at the end of the file
+    byte tag() throws IOException {
+      ensure(MAX_RECORD_SIZE);
+      if (!buffer.hasRemaining()) {
+        return END;
+      }
+      return buffer.get();
+    }
+
+    byte get() {
+      return buffer.get();
+    }
+
+    long getVarLong() {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer.get();
+        value |= (long) (b & VAR_MASK) << shift;
+        shift += VAR_BITS;
+      } while ((b & VAR_MORE) != 0);
+      return value;
+    }
+
+    int getVarInt() {
+      return (int) getVarLong();
+    }
+
+    String getString() throws IOException {
+      ensure(MAX_VAR_INT_SIZE);
+      final int length = getVarInt();
+      ensure(length);
+      final byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      file.close();
+    }
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.pdptw.common;
+
+import static com.github.rinde.rinsim.core.model.road.GenericRoadModel.RoadEventType.ADD_ROAD_USER;
+import static com.github.rinde.rinsim.core.model.road.GenericRoadModel.RoadEventType.MOVE;
+import static com.github.rinde.rinsim.core.model.road.GenericRoadModel.RoadEventType.REMOVE_ROAD_USER;
+import static com.github.rinde.rinsim.core.model.time.Clock.ClockEventType.STOPPED;
+import static com.github.rinde.rinsim.scenario.ScenarioController.EventType.SCENARIO_EVENT;
+import static com.github.rinde.rinsim.scenario.ScenarioController.EventType.SCENARIO_FINISHED;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
+
+import com.github.rinde.rinsim.core.model.DependencyProvider;
+import com.github.rinde.rinsim.core.model.Model.AbstractModelVoid;
+import com.github.rinde.rinsim.core.model.ModelBuilder.AbstractModelBuilder;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel.PDPModelEventType;
+import com.github.rinde.rinsim.core.model.pdp.PDPModelEvent;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadModelEvent;
+import com.github.rinde.rinsim.core.model.time.Clock;
+import com.github.rinde.rinsim.event.Event;
+import com.github.rinde.rinsim.event.Listener;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.scenario.ScenarioController;
+import com.github.rinde.rinsim.scenario.ScenarioController.ScenarioEvent;
+import com.google.auto.value.AutoValue;
+
+/**
+ * Records a compact binary trace of a simulation to a memory mapped file. The
+ * trace contains all additions, moves and removals of road users, all
+ * {@link PDPModelEvent}s and the type and time of all scenario events. A trace
+ * can be read using {@link TraceReplay}, which allows to replay a simulation
+ * at any speed without simulating it again.
+ * <p>
+ * Recording is cheap: every event is appended to the memory mapped file as a
+ * handful of bytes without creating any objects, positions are delta encoded
+ * per road user and times are delta encoded with respect to the previous
+ * record, see {@link TraceFormat} for details. The operating system writes the
+ * file in the background, the recorder only forces a write when the
+ * {@link Clock} is stopped or when the scenario is finished. Use
+ * {@link #close()} to release the file when the simulation is done.
+ * <p>
+ * <b>Model properties</b>
+ * <ul>
+ * <li><i>Provides:</i> nothing.</li>
+ * <li><i>Dependencies:</i> {@link ScenarioController}, {@link Clock},
+ * {@link RoadModel}, {@link PDPModel}.</li>
+ * </ul>
+ * @author Rinde van Lon
+ */
+public final class TraceRecorder extends AbstractModelVoid
+    implements Closeable {
+  static final int INITIAL_CAPACITY = 16;
+
+  final Clock clock;
+  final TraceFormat.Writer writer;
+  final Map<Object, Integer> ids;
+  final Map<String, Integer> strings;
+  long[] lastX;
+  long[] lastY;
+  long lastTime;
+  boolean closed;
+
+  TraceRecorder(TraceFormat.Writer w, ScenarioController scenContr, Clock c,
+      RoadModel rm, PDPModel pm) {
+    writer = w;
+    clock = c;
+    ids = new IdentityHashMap<>();
+    strings = new HashMap<>();
+    lastX = new long[INITIAL_CAPACITY];
+    lastY = new long[INITIAL_CAPACITY];
+
+    final Listener listener = new Listener() {
+      @Override
+      public void handleEvent(Event e) {
+        try {
+          record(e);
+        } catch (final IOException ex) {
+          throw new IllegalStateException("Writing the trace failed.", ex);
+        }
+      }
+    };
+    scenContr.getEventAPI().addListener(listener, SCENARIO_EVENT,
+      SCENARIO_FINISHED);
+    rm.getEventAPI().addListener(listener, ADD_ROAD_USER, MOVE,
+      REMOVE_ROAD_USER);
+    pm.getEventAPI().addListener(listener, PDPModelEventType.values());
+    clock.getEventAPI().addListener(listener, STOPPED);
+  }
+
+  /**
+   * @return The number of bytes that have been written so far.
+   */
+  public long getLength() {
+    return writer.length();
+  }
+
+  /**
+   * Forces all recorded events to be written to the file. After closing the
+   * recorder ignores all events.
+   * @throws IOException If the file can not be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      writer.close();
+    }
+  }
+
+  void record(Event e) throws IOException {
+    if (closed) {
+      return;
+    }
+    final Enum<?> type = e.getEventType();
+    if (type == MOVE || type == ADD_ROAD_USER) {
+      final RoadModelEvent rme = (RoadModelEvent) e;
+      time(clock.getCurrentTime());
+      final int id = id(rme.roadUser);
+      final Point pos = rme.roadModel.getPosition(rme.roadUser);
+      final long x = Double.doubleToRawLongBits(pos.x);
+      final long y = Double.doubleToRawLongBits(pos.y);
+      writer.ensure(TraceFormat.MAX_RECORD_SIZE);
+      writer.put(type == MOVE ? TraceFormat.MOVE : TraceFormat.ADD);
+      writer.putVarLong(id);
+      writer.putVarLong(x ^ lastX[id]);
+      writer.putVarLong(y ^ lastY[id]);
+      lastX[id] = x;
+      lastY[id] = y;
+    } else if (type == REMOVE_ROAD_USER) {
+      final RoadModelEvent rme = (RoadModelEvent) e;
+      time(clock.getCurrentTime());
+      final int id = id(rme.roadUser);
+      writer.ensure(TraceFormat.MAX_RECORD_SIZE);
+      writer.put(TraceFormat.REMOVE);
+      writer.putVarLong(id);
+    } else if (e instanceof PDPModelEvent) {
+      final PDPModelEvent pme = (PDPModelEvent) e;
+      time(pme.time);
+      final int parcel = optionalId(pme.parcel);
+      final int vehicle = optionalId(pme.vehicle);
+      writer.ensure(TraceFormat.MAX_RECORD_SIZE);
+      writer.put(TraceFormat.PDP_EVENT);
+      writer.putVarLong(type.ordinal());
+      writer.putVarLong(parcel);
+      writer.putVarLong(vehicle);
+    } else if (type == SCENARIO_EVENT) {
+      final ScenarioEvent se = (ScenarioEvent) e;
+      time(clock.getCurrentTime());
+      writer.ensure(TraceFormat.MAX_RECORD_SIZE);
+      writer.put(TraceFormat.SCENARIO_EVENT);
+      writer.putVarLong(
+        TraceFormat.zigZag(se.getTimedEvent().getTime() - lastTime));
+      string(se.getTimedEvent().getClass().getName());
+    } else {
+      // clock stopped or scenario finished
+      writer.flush();
+    }
+  }
+
+  void time(long time) throws IOException {
+    if (time != lastTime) {
+      writer.ensure(TraceFormat.MAX_RECORD_SIZE);
+      writer.put(TraceFormat.TIME);
+      writer.putVarLong(TraceFormat.zigZag(time - lastTime));
+      lastTime = time;
+    }
+  }
+
+  // ids are shifted by one such that zero can represent absence
+  int optionalId(@Nullable Object object) throws IOException {
+    return object == null ? 0 : id(object) + 1;
+  }
+
+  int id(Object object) throws IOException {
+    final Integer id = ids.get(object);
+    if (id != null) {
+      return id;
+    }
+    final int newId = ids.size();
+    ids.put(object, newId);
+    if (newId == lastX.length) {
+      lastX = Arrays.copyOf(lastX, newId * 2);
+      lastY = Arrays.copyOf(lastY, newId * 2);
+    }
+    writer.ensure(TraceFormat.MAX_RECORD_SIZE);
+    writer.put(TraceFormat.DEFINE);
+    string(object.getClass().getName());
+    return newId;
+  }
+
+  // writes the index of the string in the string table, a new string is
+  // written in full directly after its index
+  void string(String value) throws IOException {
+    final Integer index = strings.get(value);
+    if (index != null) {
+      writer.putVarLong(index);
+    } else {
+      final int newIndex = strings.size();
+      strings.put(value, newIndex);
+      writer.putVarLong(newIndex);
+      writer.putString(value);
+    }
+  }
+
+  /**
+   * Creates a new {@link Builder} for recording a trace to the specified file.
+   * If the file exists it is overwritten.
+   * @param file The path of the file.
+   * @return A new {@link Builder} instance.
+   */
+  @CheckReturnValue
+  public static Builder builder(String file) {
+    return Builder.create(file, Builder.DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * Builder for creating {@link TraceRecorder} instances.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class Builder
+      extends AbstractModelBuilder<TraceRecorder, Object> {
+    static final int DEFAULT_WINDOW_SIZE =
+      TraceFormat.DEFAULT_WINDOW_SIZE;
+    private static final long serialVersionUID = 2870137404126539946L;
+
+    Builder() {
+      setDependencies(ScenarioController.class,
+        Clock.class,
+        RoadModel.class,
+        PDPModel.class);
+    }
+
+    abstract String getFile();
+
+    abstract int getWindowSize();
+
+    /**
+     * Sets the number of bytes of the file that are mapped in memory at once.
+     * The file grows in steps of this size. The default is
+     * {@value #DEFAULT_WINDOW_SIZE} bytes.
+     * @param bytes The window size, must be at least
+     *          {@link TraceFormat#MAX_RECORD_SIZE}.
+     * @return A new builder instance.
+     */
+    @CheckReturnValue
+    public Builder withWindowSize(int bytes) {
+      checkArgument(bytes >= TraceFormat.MAX_RECORD_SIZE,
+        "The window size must be at least %s bytes, found %s.",
+        TraceFormat.MAX_RECORD_SIZE, bytes);
+      return create(getFile(), bytes);
+    }
+
+    @Override
+    public TraceRecorder build(DependencyProvider dependencyProvider) {
+      final TraceFormat.Writer writer;
+      try {
+        writer = new TraceFormat.Writer(new File(getFile()), getWindowSize());
+      } catch (final IOException e) {
+        throw new IllegalStateException(
+          "Could not open trace file " + getFile() + ".", e);
+      }
+      return new TraceRecorder(writer,
+        dependencyProvider.get(ScenarioController.class),
+        dependencyProvider.get(Clock.class),
+        dependencyProvider.get(RoadModel.class),
+        dependencyProvider.get(PDPModel.class));
+    }
+
+    static Builder create(String file, int windowSize) {
+      return new AutoValue_TraceRecorder_Builder(file, windowSize);
+    }
+  }
+}
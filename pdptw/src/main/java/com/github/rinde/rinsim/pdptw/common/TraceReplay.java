@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.pdptw.common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.github.rinde.rinsim.core.model.pdp.PDPModel.PDPModelEventType;
+import com.github.rinde.rinsim.event.Event;
+import com.github.rinde.rinsim.event.EventAPI;
+import com.github.rinde.rinsim.event.EventDispatcher;
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Replays a trace that was recorded by {@link TraceRecorder}. The replay
+ * maintains the positions of all road users and dispatches a
+ * {@link ReplayEvent} for every recorded event to the listeners of
+ * {@link #getEventAPI()}. The replay is driven by the caller using
+ * {@link #advanceTo(long)} or {@link #step()}, it can therefore be played at
+ * any speed: as fast as possible for analysis or, for example, at a multiple
+ * of the wall clock time for visualization. Objects in the trace are
+ * identified by their index in the order in which they first appeared in the
+ * simulation.
+ * @author Rinde van Lon
+ */
+public final class TraceReplay implements Closeable {
+  static final int DEFAULT_WINDOW_SIZE = TraceFormat.DEFAULT_WINDOW_SIZE;
+  static final int INITIAL_CAPACITY = 16;
+  static final PDPModelEventType[] PDP_TYPES = PDPModelEventType.values();
+
+  /**
+   * The types of events that are dispatched by {@link TraceReplay}.
+   */
+  public enum EventType {
+    /**
+     * A road user has been added to the road model.
+     */
+    ADD,
+
+    /**
+     * A road user has moved.
+     */
+    MOVE,
+
+    /**
+     * A road user has been removed from the road model.
+     */
+    REMOVE,
+
+    /**
+     * An event of the {@link com.github.rinde.rinsim.core.model.pdp.PDPModel}.
+     */
+    PDP_EVENT,
+
+    /**
+     * A scenario event has been dispatched.
+     */
+    SCENARIO_EVENT;
+  }
+
+  final TraceFormat.Reader reader;
+  final EventDispatcher eventDispatcher;
+  final List<String> strings;
+  final List<String> types;
+  final Map<Integer, Point> positions;
+  long[] lastX;
+  long[] lastY;
+  long time;
+  long nextTime;
+  boolean hasNextTime;
+  boolean finished;
+
+  TraceReplay(TraceFormat.Reader r) {
+    reader = r;
+    eventDispatcher = new EventDispatcher(EventType.values());
+    strings = new ArrayList<>();
+    types = new ArrayList<>();
+    positions = new LinkedHashMap<>();
+    lastX = new long[INITIAL_CAPACITY];
+    lastY = new long[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Opens the specified trace file for replaying.
+   * @param file The trace file.
+   * @return A new replay positioned at the start of the trace.
+   * @throws IOException If the file can not be read or if it is not a trace.
+   */
+  public static TraceReplay open(File file) throws IOException {
+    return new TraceReplay(new TraceFormat.Reader(file, DEFAULT_WINDOW_SIZE));
+  }
+
+  /**
+   * @return The {@link EventAPI} that dispatches a {@link ReplayEvent} for
+   *         every replayed event, see {@link EventType}.
+   */
+  public EventAPI getEventAPI() {
+    return eventDispatcher.getPublicEventAPI();
+  }
+
+  /**
+   * @return The time of the most recently replayed events.
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * @return <code>true</code> if the end of the trace has been reached,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isFinished() {
+    return finished;
+  }
+
+  /**
+   * @return An unmodifiable view of the current positions of all road users,
+   *         indexed by the identifier of the road user.
+   */
+  public Map<Integer, Point> getPositions() {
+    return Collections.unmodifiableMap(positions);
+  }
+
+  /**
+   * @return The number of objects that have appeared in the trace so far.
+   */
+  public int getNumberOfObjects() {
+    return types.size();
+  }
+
+  /**
+   * @param id The identifier of an object.
+   * @return The fully qualified class name of the object.
+   */
+  public String getType(int id) {
+    return types.get(id);
+  }
+
+  /**
+   * Replays all events with a time that is smaller than or equal to the
+   * specified time.
+   * @param until The time until which to replay.
+   * @return <code>true</code> if there are more events to replay,
+   *         <code>false</code> if the end of the trace has been reached.
+   * @throws IOException If the trace can not be read.
+   */
+  public boolean advanceTo(long until) throws IOException {
+    while (!finished) {
+      if (hasNextTime) {
+        if (nextTime > until) {
+          return true;
+        }
+        time = nextTime;
+        hasNextTime = false;
+      }
+      final byte tag = reader.tag();
+      if (tag == TraceFormat.TIME) {
+        nextTime = time + TraceFormat.unZigZag(reader.getVarLong());
+        hasNextTime = true;
+      } else if (tag == TraceFormat.END) {
+        finished = true;
+      } else {
+        replay(tag);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Replays all events of the next point in time at which events were
+   * recorded.
+   * @return <code>true</code> if there are more events to replay,
+   *         <code>false</code> if the end of the trace has been reached.
+   * @throws IOException If the trace can not be read.
+   */
+  public boolean step() throws IOException {
+    if (hasNextTime) {
+      return advanceTo(nextTime);
+    }
+    return advanceTo(time);
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  void replay(byte tag) throws IOException {
+    if (tag == TraceFormat.DEFINE) {
+      final int id = types.size();
+      types.add(string());
+      if (id == lastX.length) {
+        lastX = Arrays.copyOf(lastX, id * 2);
+        lastY = Arrays.copyOf(lastY, id * 2);
+      }
+    } else if (tag == TraceFormat.ADD || tag == TraceFormat.MOVE) {
+      final int id = reader.getVarInt();
+      lastX[id] ^= reader.getVarLong();
+      lastY[id] ^= reader.getVarLong();
+      final Point pos = new Point(Double.longBitsToDouble(lastX[id]),
+        Double.longBitsToDouble(lastY[id]));
+      positions.put(id, pos);
+      final EventType type =
+        tag == TraceFormat.ADD ? EventType.ADD : EventType.MOVE;
+      if (eventDispatcher.hasListenerFor(type)) {
+        eventDispatcher.dispatchEvent(
+          new ReplayEvent(type, this, time, id, pos, null, -1, null));
+      }
+    } else if (tag == TraceFormat.REMOVE) {
+      final int id = reader.getVarInt();
+      positions.remove(id);
+      if (eventDispatcher.hasListenerFor(EventType.REMOVE)) {
+        eventDispatcher.dispatchEvent(new ReplayEvent(EventType.REMOVE, this,
+          time, id, null, null, -1, null));
+      }
+    } else if (tag == TraceFormat.PDP_EVENT) {
+      final PDPModelEventType type = PDP_TYPES[reader.getVarInt()];
+      final int parcel = reader.getVarInt() - 1;
+      final int vehicle = reader.getVarInt() - 1;
+      if (eventDispatcher.hasListenerFor(EventType.PDP_EVENT)) {
+        eventDispatcher.dispatchEvent(new ReplayEvent(EventType.PDP_EVENT,
+          this, time, parcel, null, type, vehicle, null));
+      }
+    } else if (tag == TraceFormat.SCENARIO_EVENT) {
+      final long eventTime =
+        time + TraceFormat.unZigZag(reader.getVarLong());
+      final String type = string();
+      if (eventDispatcher.hasListenerFor(EventType.SCENARIO_EVENT)) {
+        eventDispatcher.dispatchEvent(new ReplayEvent(
+          EventType.SCENARIO_EVENT, this, eventTime, -1, null, null, -1,
+          type));
+      }
+    } else {
+      throw new IOException("Corrupt trace, unknown record: " + tag);
+    }
+  }
+
+  String string() throws IOException {
+    final int index = reader.getVarInt();
+    if (index == strings.size()) {
+      strings.add(reader.getString());
+    }
+    return strings.get(index);
+  }
+
+  /**
+   * An event that is dispatched by {@link TraceReplay}.
+   * @author Rinde van Lon
+   */
+  public static final class ReplayEvent extends Event {
+    /**
+     * The time at which the event occurred.
+     */
+    public final long time;
+
+    /**
+     * The identifier of the road user, or of the parcel in case of a
+     * {@link EventType#PDP_EVENT}. It is <code>-1</code> if no such object
+     * was involved in the event.
+     */
+    public final int object;
+
+    /**
+     * The new position of the road user for {@link EventType#ADD} and
+     * {@link EventType#MOVE} events, <code>null</code> otherwise.
+     */
+    @Nullable
+    public final Point position;
+
+    /**
+     * The type of the original event for {@link EventType#PDP_EVENT} events,
+     * <code>null</code> otherwise.
+     */
+    @Nullable
+    public final PDPModelEventType pdpEventType;
+
+    /**
+     * The identifier of the vehicle for {@link EventType#PDP_EVENT} events,
+     * <code>-1</code> if there was no vehicle involved in the event.
+     */
+    public final int vehicle;
+
+    /**
+     * The class name of the scenario event for
+     * {@link EventType#SCENARIO_EVENT} events, <code>null</code> otherwise.
+     */
+    @Nullable
+    public final String scenarioEventType;
+
+    ReplayEvent(EventType type, TraceReplay issuer, long t, int obj,
+        @Nullable Point pos, @Nullable PDPModelEventType pdpType, int veh,
+        @Nullable String scenType) {
+      super(type, issuer);
+      time = t;
+      object = obj;
+      position = pos;
+      pdpEventType = pdpType;
+      vehicle = veh;
+      scenarioEventType = scenType;
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.pdptw.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.rinde.rinsim.core.Simulator;
+import com.github.rinde.rinsim.core.SimulatorAPI;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel;
+import com.github.rinde.rinsim.core.model.pdp.PDPModel.PDPModelEventType;
+import com.github.rinde.rinsim.core.model.pdp.PDPModelEvent;
+import com.github.rinde.rinsim.core.model.pdp.RandomVehicle;
+import com.github.rinde.rinsim.core.model.road.RoadModel;
+import com.github.rinde.rinsim.core.model.road.RoadUser;
+import com.github.rinde.rinsim.event.Event;
+import com.github.rinde.rinsim.event.Listener;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.pdptw.common.TraceReplay.EventType;
+import com.github.rinde.rinsim.pdptw.common.TraceReplay.ReplayEvent;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioController;
+import com.github.rinde.rinsim.scenario.TimeOutEvent;
+import com.github.rinde.rinsim.scenario.TimedEventHandler;
+import com.google.common.io.Files;
+
+/**
+ * Tests for {@link TraceRecorder} and {@link TraceReplay}.
+ * @author Rinde van Lon
+ */
+public class TraceRecorderTest {
+  /**
+   * Temporary folder for the trace files.
+   */
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * A replayed trace must contain the same pdp events as the simulation and
+   * must end with the same positions. A small window forces many remappings.
+   * @throws IOException Should not happen.
+   */
+  @Test
+  public void testRecordAndReplay() throws IOException {
+    final File file = folder.newFile("sim.trace");
+    final Scenario scenario = ScenarioTestUtil.createRandomScenario(123L,
+      TraceRecorder.builder(file.getPath()).withWindowSize(64));
+    final Simulator sim = Simulator.builder()
+      .addModel(ScenarioController.builder(scenario)
+        .withEventHandler(AddParcelEvent.class, AddParcelEvent.defaultHandler())
+        .withEventHandler(TimeOutEvent.class, TimeOutEvent.ignoreHandler())
+        .withEventHandler(AddVehicleEvent.class,
+          new TimedEventHandler<AddVehicleEvent>() {
+            @Override
+            public void handleTimedEvent(AddVehicleEvent event,
+                SimulatorAPI simulator) {
+              simulator.register(new RandomVehicle(event.getVehicleDTO()));
+            }
+          }))
+      .build();
+
+    final List<PDPModelEventType> expectedTypes = new ArrayList<>();
+    final List<Long> expectedTimes = new ArrayList<>();
+    sim.getModelProvider().getModel(PDPModel.class).getEventAPI()
+      .addListener(new Listener() {
+        @Override
+        public void handleEvent(Event e) {
+          expectedTypes.add((PDPModelEventType) e.getEventType());
+          expectedTimes.add(((PDPModelEvent) e).time);
+        }
+      }, PDPModelEventType.values());
+    sim.start();
+    final TraceRecorder recorder =
+      sim.getModelProvider().getModel(TraceRecorder.class);
+    final long length = recorder.getLength();
+    recorder.close();
+    try (TraceFormat.Reader reader =
+      new TraceFormat.Reader(file, TraceFormat.DEFAULT_WINDOW_SIZE)) {
+      assertThat(reader.size).isEqualTo(length);
+    }
+
+    final RoadModel rm = sim.getModelProvider().getModel(RoadModel.class);
+    final List<Point> expectedPositions = new ArrayList<>();
+    for (final RoadUser ru : rm.getObjects()) {
+      expectedPositions.add(rm.getPosition(ru));
+    }
+
+    final List<PDPModelEventType> types = new ArrayList<>();
+    final List<Long> times = new ArrayList<>();
+    final List<String> scenarioEvents = new ArrayList<>();
+    try (TraceReplay replay = TraceReplay.open(file)) {
+      replay.getEventAPI().addListener(new Listener() {
+        @Override
+        public void handleEvent(Event e) {
+          final ReplayEvent re = (ReplayEvent) e;
+          if (e.getEventType() == EventType.PDP_EVENT) {
+            types.add(re.pdpEventType);
+            times.add(re.time);
+          } else {
+            scenarioEvents.add(re.scenarioEventType);
+          }
+        }
+      }, EventType.PDP_EVENT, EventType.SCENARIO_EVENT);
+
+      long prev = -1;
+      while (replay.step()) {
+        assertThat(replay.getTime()).isAtLeast(prev);
+        prev = replay.getTime();
+      }
+      assertThat(replay.isFinished()).isTrue();
+      assertThat(replay.getPositions().values())
+        .containsExactlyElementsIn(expectedPositions);
+      assertThat(replay.getType(0))
+        .isEqualTo(RandomVehicle.class.getName());
+    }
+    assertThat(expectedTypes).isNotEmpty();
+    assertThat(types).isEqualTo(expectedTypes);
+    assertThat(times).isEqualTo(expectedTimes);
+    assertThat(scenarioEvents).hasSize(scenario.getEvents().size());
+    assertThat(scenarioEvents).contains(scenario.getEvents()
+      .get(scenario.getEvents().size() - 1).getClass().getName());
+  }
+
+  /**
+   * Replaying up to a time must not replay later events.
+   * @throws IOException Should not happen.
+   */
+  @Test
+  public void testAdvanceTo() throws IOException {
+    final File file = folder.newFile("short.trace");
+    final Scenario scenario = ScenarioTestUtil.createRandomScenario(7L,
+      TraceRecorder.builder(file.getPath()));
+    final Simulator sim = Simulator.builder()
+      .addModel(ScenarioController.builder(scenario)
+        .withEventHandler(AddParcelEvent.class, AddParcelEvent.defaultHandler())
+        .withEventHandler(TimeOutEvent.class, TimeOutEvent.ignoreHandler())
+        .withEventHandler(AddVehicleEvent.class,
+          new TimedEventHandler<AddVehicleEvent>() {
+            @Override
+            public void handleTimedEvent(AddVehicleEvent event,
+                SimulatorAPI simulator) {
+              simulator.register(new RandomVehicle(event.getVehicleDTO()));
+            }
+          }))
+      .build();
+    sim.start();
+    sim.getModelProvider().getModel(TraceRecorder.class).close();
+
+    final long until = scenario.getTimeWindow().end() / 2;
+    try (TraceReplay replay = TraceReplay.open(file)) {
+      final List<Long> times = new ArrayList<>();
+      replay.getEventAPI().addListener(new Listener() {
+        @Override
+        public void handleEvent(Event e) {
+          times.add(((ReplayEvent) e).time);
+        }
+      }, EventType.MOVE);
+      assertThat(replay.advanceTo(until)).isTrue();
+      assertThat(times).isNotEmpty();
+      assertThat(replay.getTime()).isAtMost(until);
+      for (final long t : times) {
+        assertThat(t).isAtMost(until);
+      }
+      assertThat(replay.advanceTo(Long.MAX_VALUE)).isFalse();
+      assertThat(times.get(times.size() - 1)).isGreaterThan(until);
+    }
+  }
+
+  /**
+   * Opening a file that is not a trace fails.
+   * @throws IOException Should not happen.
+   */
+  @Test
+  public void testNotATrace() throws IOException {
+    final File file = folder.newFile("text.trace");
+    Files.write("not a trace", file, StandardCharsets.UTF_8);
+    try {
+      TraceReplay.open(file);
+      fail();
+    } catch (final IOException e) {
+      assertThat(e.getMessage()).contains("Not a trace file");
+    }
+  }
+}
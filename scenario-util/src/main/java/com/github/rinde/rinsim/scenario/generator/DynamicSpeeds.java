@@ -346,12 +346,6 @@ public final class DynamicSpeeds {
     private final StochasticSupplier<Long> recedeWaitDurationSupplier;
     private final StochasticSupplier<Function<Long, Double>> expandingSpeedSupplier;
     private final StochasticSupplier<Function<Long, Double>> recedingSpeedSupplier;
-    private final RandomGenerator rng;
-
-    // Shockwave variables
-    private Map<Connection<MultiAttributeData>, List<ChangeConnectionSpeedEvent>> expansionMap;
-    private Graph<MultiAttributeData> affectedGraph;
-    private Set<Connection<MultiAttributeData>> leafNodes;
 
     DefaultDynamicSpeedGenerator(Builder b) {
       numberOfShockwaves = b.numberOfShockwaves;
@@ -363,12 +357,14 @@ public final class DynamicSpeeds {
       recedeWaitDurationSupplier = b.recedeWaitDurationSupplier;
       expandingSpeedSupplier = b.expandingSpeedSupplier;
       recedingSpeedSupplier = b.recedingSpeedSupplier;
-      rng = new MersenneTwister();
     }
 
+    // all state is local to a call, the generator can be used by multiple
+    // threads concurrently
     @Override
     public ImmutableList<ChangeConnectionSpeedEvent> generate(long seed,
         long scenarioLength) {
+      final RandomGenerator rng = new MersenneTwister(seed);
       final ImmutableList.Builder<ChangeConnectionSpeedEvent> builder =
         ImmutableList.builder();
 
@@ -388,27 +384,41 @@ public final class DynamicSpeeds {
         // Emulate shockwave starting in origin
         final long startingTime = eventTimesSupplier.get(rng.nextLong());
 
-        expansionMap = new HashMap<>();
-        affectedGraph = new TableGraph<>();
-        leafNodes = new HashSet<>();
-
-        final Queue<ShockwaveSimulation> shockwave = new LinkedList<>();
-        shockwave.offer(
+        final Shockwave shockwave = new Shockwave(rng);
+        shockwave.queue.offer(
           new ShockwaveSimulation(shockwave, conn, conn, 0, 0, startingTime,
             startingTime + recedeWaitDurationSupplier.get(rng.nextLong()), 0,
             scenarioLength));
 
-        while (!shockwave.isEmpty()) {
-          builder.addAll(shockwave.poll().simulateForwardRecedingShockwave());
+        while (!shockwave.queue.isEmpty()) {
+          builder.addAll(
+            shockwave.queue.poll().simulateForwardRecedingShockwave());
         }
 
       }
       return builder.build();
     }
 
+    // the state of a single shockwave
+    class Shockwave {
+      final RandomGenerator rng;
+      final Queue<ShockwaveSimulation> queue;
+      final Map<Connection<MultiAttributeData>, List<ChangeConnectionSpeedEvent>> expansionMap;
+      final Graph<MultiAttributeData> affectedGraph;
+      final Set<Connection<MultiAttributeData>> leafNodes;
+
+      Shockwave(RandomGenerator generator) {
+        rng = generator;
+        queue = new LinkedList<>();
+        expansionMap = new HashMap<>();
+        affectedGraph = new TableGraph<>();
+        leafNodes = new HashSet<>();
+      }
+    }
+
     class ShockwaveSimulation {
 
-      private final Queue<ShockwaveSimulation> shockwave;
+      private final Shockwave shockwave;
       private final Connection<MultiAttributeData> origin;
       private final Connection<MultiAttributeData> conn;
       private final long relExpandingTimestamp;
@@ -419,10 +429,10 @@ public final class DynamicSpeeds {
       private final long scenarioLength;
 
       /**
-       * @param shockwaveQueue The queue of shockwaves steps, while this is non
-       *          empty, more simulation steps should be done. An empty queue
-       *          indicates that both the expanding and the receding shockwave
-       *          have died.
+       * @param shockwaveState The state of the shockwave, while its queue of
+       *          steps is non empty, more simulation steps should be done. An
+       *          empty queue indicates that both the expanding and the receding
+       *          shockwave have died.
        * @param originConn The previous connection to be handled.
        * @param currentConn The current connection to handle in this shockwave
        *          simulation step.
@@ -437,14 +447,14 @@ public final class DynamicSpeeds {
        * @param totalDistance Total distance travelled.
        * @param totalScenarioLength Total duration of the scenario.
        */
-      ShockwaveSimulation(Queue<ShockwaveSimulation> shockwaveQueue,
+      ShockwaveSimulation(Shockwave shockwaveState,
           Connection<MultiAttributeData> originConn,
           Connection<MultiAttributeData> currentConn,
           long relativeExpandingTimestamp,
           long relativeRecedingTimestamp, long currentExpandingTimestamp,
           long currentRecedingTimestamp, double totalDistance,
           long totalScenarioLength) {
-        this.shockwave = shockwaveQueue;
+        this.shockwave = shockwaveState;
         this.origin = originConn;
         this.conn = currentConn;
         this.relExpandingTimestamp = relativeExpandingTimestamp;
@@ -465,16 +475,17 @@ public final class DynamicSpeeds {
       private List<ChangeConnectionSpeedEvent> simulateForwardRecedingShockwave() {
         final List<ChangeConnectionSpeedEvent> events = new ArrayList<>();
         @Nonnull
-        final Double factor = behaviourSupplier.get(rng.nextLong())
+        final Double factor = behaviourSupplier.get(shockwave.rng.nextLong())
           .apply(distance + conn.getLength() / 2);
         final Double factorInverse = 1 / factor;
         @Nonnull
         final Double forwardSpeed =
-          expandingSpeedSupplier.get(rng.nextLong())
+          expandingSpeedSupplier.get(shockwave.rng.nextLong())
             .apply(relExpandingTimestamp);
         @Nonnull
         final Double recedingSpeed =
-          recedingSpeedSupplier.get(rng.nextLong()).apply(relRecedingTimestamp);
+          recedingSpeedSupplier.get(shockwave.rng.nextLong())
+            .apply(relRecedingTimestamp);
 
         long nextRelExTimestamp = relExpandingTimestamp;
         long nextActualExTimestamp = actualExpandingTimestamp;
@@ -509,12 +520,12 @@ public final class DynamicSpeeds {
         // OR if cycle???
         if (factor == 1 || forwardSpeed == 0
           || nextRelExTimestamp >= eventDurationSupplier
-            .get(rng.nextLong())
+            .get(shockwave.rng.nextLong())
           || actualExpandingTimestamp + exJump >= actualRecedingTimestamp
             + reJump
-          || expansionMap.containsKey(conn)) {
+          || shockwave.expansionMap.containsKey(conn)) {
           // Origin was last affected node
-          leafNodes.add(origin);
+          shockwave.leafNodes.add(origin);
         } else {
           // EXPAND
 
@@ -525,16 +536,16 @@ public final class DynamicSpeeds {
           events.add(newExEvent);
 
           // Keep track of events linked to connections
-          if (expansionMap.containsKey(conn)) {
+          if (shockwave.expansionMap.containsKey(conn)) {
             // Cycle, add to existing list
             final List<ChangeConnectionSpeedEvent> eventList =
-              expansionMap.get(conn);
+              shockwave.expansionMap.get(conn);
             eventList.add(newExEvent);
-            expansionMap.put(conn, eventList);
+            shockwave.expansionMap.put(conn, eventList);
           } else {
             // New connection
-            expansionMap.put(conn, Lists.newArrayList(newExEvent));
-            affectedGraph.addConnection(conn);
+            shockwave.expansionMap.put(conn, Lists.newArrayList(newExEvent));
+            shockwave.affectedGraph.addConnection(conn);
           }
 
           // RECEDE
@@ -557,7 +568,7 @@ public final class DynamicSpeeds {
           // Check dead end -> no need to continue branching
           if (nextFroms.isEmpty() || nextFroms.size() == 1
             && nextFroms.iterator().next().equals(conn.to())) {
-            leafNodes.add(conn);
+            shockwave.leafNodes.add(conn);
             return events;
           }
           for (final Point nextFrom : nextFroms) {
@@ -567,7 +578,8 @@ public final class DynamicSpeeds {
             }
             final Connection<MultiAttributeData> nextConn =
               graph.get().getConnection(nextFrom, conn.from());
-            shockwave.offer(new ShockwaveSimulation(shockwave, conn, nextConn,
+            shockwave.queue.offer(new ShockwaveSimulation(shockwave, conn,
+              nextConn,
               nextRelExTimestamp, nextRelReTimestamp, nextActualExTimestamp,
               nextActualReTimestamp,
               distance + conn.getLength(), scenarioLength));
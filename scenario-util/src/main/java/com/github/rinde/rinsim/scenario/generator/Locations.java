@@ -20,9 +20,6 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.Collections;
 
-import org.apache.commons.math3.random.MersenneTwister;
-import org.apache.commons.math3.random.RandomGenerator;
-
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.util.StochasticSupplier;
 import com.github.rinde.rinsim.util.StochasticSuppliers;
@@ -457,7 +454,6 @@ public final class Locations {
   private static class SupplierLocGen extends AbstractLocGen {
     private final StochasticSupplier<Double> xSupplier;
     private final StochasticSupplier<Double> ySupplier;
-    private final RandomGenerator rng;
 
     SupplierLocGen(Point mi, Point ma, Point ce,
         StochasticSupplier<Double> xSup,
@@ -465,17 +461,26 @@ public final class Locations {
       super(mi, ma, ce);
       xSupplier = xSup;
       ySupplier = ySup;
-      rng = new MersenneTwister();
     }
 
     @Override
     public ImmutableList<Point> generate(long seed, int numOrders) {
-      rng.setSeed(seed);
+      // the seeds alternate between x and y
+      final long[] seeds = StochasticSuppliers.seeds(seed, numOrders * 2);
+      final long[] xSeeds = new long[numOrders];
+      final long[] ySeeds = new long[numOrders];
+      for (int i = 0; i < numOrders; i++) {
+        xSeeds[i] = seeds[2 * i];
+        ySeeds[i] = seeds[2 * i + 1];
+      }
+      final double[] xs = new double[numOrders];
+      final double[] ys = new double[numOrders];
+      StochasticSuppliers.getDoubles(xSupplier, xSeeds, xs);
+      StochasticSuppliers.getDoubles(ySupplier, ySeeds, ys);
+
       final ImmutableList.Builder<Point> locs = ImmutableList.builder();
       for (int i = 0; i < numOrders; i++) {
-        locs.add(new Point(
-          xSupplier.get(rng.nextLong()),
-          ySupplier.get(rng.nextLong())));
+        locs.add(new Point(xs[i], ys[i]));
       }
       return locs.build();
     }
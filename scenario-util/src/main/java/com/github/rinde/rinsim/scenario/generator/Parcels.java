@@ -19,7 +19,6 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import java.math.RoundingMode;
 import java.util.Iterator;
-import java.util.List;
 
 import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.random.RandomGenerator;
@@ -94,17 +93,21 @@ public final class Parcels {
     Point getMax();
   }
 
-  static class DefaultParcelGenerator implements ParcelGenerator {
-    private final RandomGenerator rng;
-    private final TimeSeriesGenerator announceTimeGenerator;
-    private final LocationGenerator locationGenerator;
-    private final TimeWindowGenerator timeWindowGenerator;
-    private final StochasticSupplier<Long> pickupDurationGenerator;
-    private final StochasticSupplier<Long> deliveryDurationGenerator;
-    private final StochasticSupplier<Integer> neededCapacityGenerator;
-
-    DefaultParcelGenerator(Builder b) {
-      rng = new MersenneTwister();
+  abstract static class AbstractParcelGenerator implements ParcelGenerator {
+    static final int SEEDS_PER_PARCEL = 4;
+    static final int PICKUP = 0;
+    static final int DELIVERY = 1;
+    static final int CAPACITY = 2;
+    static final int TIME_WINDOW = 3;
+
+    final TimeSeriesGenerator announceTimeGenerator;
+    final LocationGenerator locationGenerator;
+    final TimeWindowGenerator timeWindowGenerator;
+    final StochasticSupplier<Long> pickupDurationGenerator;
+    final StochasticSupplier<Long> deliveryDurationGenerator;
+    final StochasticSupplier<Integer> neededCapacityGenerator;
+
+    AbstractParcelGenerator(Builder b) {
       announceTimeGenerator = b.announceTimeGenerator;
       locationGenerator = b.locationGenerator;
       timeWindowGenerator = b.timeWindowGenerator;
@@ -113,17 +116,38 @@ public final class Parcels {
       neededCapacityGenerator = b.neededCapacityGenerator;
     }
 
-    @Override
-    public ImmutableList<AddParcelEvent> generate(long seed,
-        TravelTimes travelModel, long endTime) {
-      rng.setSeed(seed);
+    /**
+     * Creates the events for the parcels with the specified announce times and
+     * locations. The durations are drawn in batches, using the same seeds as
+     * when drawing the properties parcel by parcel from <code>rng</code>.
+     * @param rng The random generator to draw the seeds from.
+     * @param times The announce times.
+     * @param locs Two locations for every parcel.
+     * @param travelModel The travel times.
+     * @param endTime The end time of the scenario.
+     * @return The list of events.
+     */
+    ImmutableList<AddParcelEvent> createEvents(RandomGenerator rng,
+        double[] times, Iterator<Point> locs, TravelTimes travelModel,
+        long endTime) {
+      final int num = times.length;
+      final long[][] seeds = new long[SEEDS_PER_PARCEL][num];
+      for (int i = 0; i < num; i++) {
+        for (int j = 0; j < SEEDS_PER_PARCEL; j++) {
+          seeds[j][i] = rng.nextLong();
+        }
+      }
+      final long[] pickupDurations = new long[num];
+      StochasticSuppliers.getLongs(pickupDurationGenerator, seeds[PICKUP],
+        pickupDurations);
+      final long[] deliveryDurations = new long[num];
+      StochasticSuppliers.getLongs(deliveryDurationGenerator, seeds[DELIVERY],
+        deliveryDurations);
+
       final ImmutableList.Builder<AddParcelEvent> eventList = ImmutableList
         .builder();
-      final List<Double> times = announceTimeGenerator.generate(rng.nextLong());
-      final Iterator<Point> locs = locationGenerator.generate(rng.nextLong(),
-        times.size() * 2).iterator();
-
-      for (final double time : times) {
+      for (int i = 0; i < num; i++) {
+        final double time = times[i];
         final long arrivalTime = DoubleMath.roundToLong(time,
           RoundingMode.FLOOR);
         final Point origin = locs.next();
@@ -134,11 +158,11 @@ public final class Parcels {
         final Parcel.Builder parcelBuilder = Parcel
           .builder(origin, destination)
           .orderAnnounceTime(arrivalTime)
-          .pickupDuration(pickupDurationGenerator.get(rng.nextLong()))
-          .deliveryDuration(deliveryDurationGenerator.get(rng.nextLong()))
-          .neededCapacity(neededCapacityGenerator.get(rng.nextLong()));
+          .pickupDuration(pickupDurations[i])
+          .deliveryDuration(deliveryDurations[i])
+          .neededCapacity(neededCapacityGenerator.get(seeds[CAPACITY][i]));
 
-        timeWindowGenerator.generate(rng.nextLong(), parcelBuilder,
+        timeWindowGenerator.generate(seeds[TIME_WINDOW][i], parcelBuilder,
           travelModel, endTime);
 
         eventList.add(AddParcelEvent.create(parcelBuilder.buildDTO()));
@@ -162,78 +186,45 @@ public final class Parcels {
     }
   }
 
-  static class GraphParcelGenerator
-      implements ParcelGenerator {
+  static class DefaultParcelGenerator extends AbstractParcelGenerator {
 
-    private final RandomGenerator rng;
-    private final TimeSeriesGenerator announceTimeGenerator;
-    private final LocationGenerator locationGenerator;
-    private final TimeWindowGenerator timeWindowGenerator;
-    private final StochasticSupplier<Long> pickupDurationGenerator;
-    private final StochasticSupplier<Long> deliveryDurationGenerator;
-    private final StochasticSupplier<Integer> neededCapacityGenerator;
+    DefaultParcelGenerator(Builder b) {
+      super(b);
+    }
+
+    @Override
+    public ImmutableList<AddParcelEvent> generate(long seed,
+        TravelTimes travelModel, long endTime) {
+      final RandomGenerator rng = new MersenneTwister(seed);
+      final double[] times =
+        TimeSeries.generateArray(announceTimeGenerator, rng.nextLong());
+      final Iterator<Point> locs = locationGenerator.generate(rng.nextLong(),
+        times.length * 2).iterator();
+      return createEvents(rng, times, locs, travelModel, endTime);
+    }
+  }
+
+  static class GraphParcelGenerator extends AbstractParcelGenerator {
     private final Graph<?> graph;
 
     GraphParcelGenerator(Builder b) {
-      rng = new MersenneTwister();
-      announceTimeGenerator = b.announceTimeGenerator;
-      locationGenerator = b.locationGenerator;
-      timeWindowGenerator = b.timeWindowGenerator;
-      pickupDurationGenerator = b.pickupDurationGenerator;
-      deliveryDurationGenerator = b.deliveryDurationGenerator;
-      neededCapacityGenerator = b.neededCapacityGenerator;
+      super(b);
       graph = b.graphSup.get().get();
     }
 
     @Override
     public ImmutableList<AddParcelEvent> generate(long seed,
         TravelTimes travelModel, long endTime) {
-      rng.setSeed(seed);
-      final ImmutableList.Builder<AddParcelEvent> eventList = ImmutableList
-        .builder();
-      final List<Double> times = announceTimeGenerator.generate(rng.nextLong());
+      final RandomGenerator rng = new MersenneTwister(seed);
+      final double[] times =
+        TimeSeries.generateArray(announceTimeGenerator, rng.nextLong());
       final ImmutableList.Builder<Point> locsB = ImmutableList.builder();
 
-      for (int i = 0; i < times.size() * 2; i++) {
+      for (int i = 0; i < times.length * 2; i++) {
         locsB.add(graph.getRandomNode(rng));
       }
-      final Iterator<Point> locs = locsB.build().iterator();
-
-      for (final double time : times) {
-        final long arrivalTime = DoubleMath.roundToLong(time,
-          RoundingMode.FLOOR);
-        final Point origin = locs.next();
-        final Point destination = locs.next();
-
-        checkEndTime(time, endTime);
-
-        final Parcel.Builder parcelBuilder = Parcel
-          .builder(origin, destination)
-          .orderAnnounceTime(arrivalTime)
-          .pickupDuration(pickupDurationGenerator.get(rng.nextLong()))
-          .deliveryDuration(deliveryDurationGenerator.get(rng.nextLong()))
-          .neededCapacity(neededCapacityGenerator.get(rng.nextLong()));
-
-        timeWindowGenerator.generate(rng.nextLong(), parcelBuilder,
-          travelModel, endTime);
-        eventList.add(AddParcelEvent.create(parcelBuilder.buildDTO()));
-      }
-      return eventList.build();
-    }
-
-    @Override
-    public Point getCenter() {
-      return locationGenerator.getCenter();
-    }
-
-    @Override
-    public Point getMin() {
-      return locationGenerator.getMin();
-    }
-
-    @Override
-    public Point getMax() {
-      return locationGenerator.getMax();
+      return createEvents(rng, times, locsB.build().iterator(), travelModel,
+        endTime);
     }
   }
 
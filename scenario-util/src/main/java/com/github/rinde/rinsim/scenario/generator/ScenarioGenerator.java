@@ -18,9 +18,18 @@ package com.github.rinde.rinsim.scenario.generator;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Lists.newArrayList;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import javax.measure.Measure;
 import javax.measure.quantity.Duration;
@@ -28,6 +37,7 @@ import javax.measure.quantity.Length;
 import javax.measure.quantity.Velocity;
 import javax.measure.unit.Unit;
 
+import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +61,7 @@ import com.github.rinde.rinsim.pdptw.common.AddVehicleEvent;
 import com.github.rinde.rinsim.scenario.Scenario;
 import com.github.rinde.rinsim.scenario.Scenario.AbstractBuilder;
 import com.github.rinde.rinsim.scenario.Scenario.ProblemClass;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
 import com.github.rinde.rinsim.scenario.TimeOutEvent;
 import com.github.rinde.rinsim.scenario.TimedEvent;
 import com.github.rinde.rinsim.scenario.generator.Depots.DepotGenerator;
@@ -59,6 +70,7 @@ import com.github.rinde.rinsim.scenario.generator.Parcels.ParcelGenerator;
 import com.github.rinde.rinsim.scenario.generator.Vehicles.VehicleGenerator;
 import com.github.rinde.rinsim.util.TimeWindow;
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -72,6 +84,7 @@ public final class ScenarioGenerator {
 
   private static final Logger LOGGER =
     LoggerFactory.getLogger("ScenarioGenerator");
+  private static final String SCENARIO_EXT = ".scen";
 
   // global properties
   final Builder builder;
@@ -193,6 +206,96 @@ public final class ScenarioGenerator {
    */
   // TODO change rng to seed?
   public Scenario generate(RandomGenerator rng, String id) {
+    return generate(rng, id, Optional.<BatchContext>absent());
+  }
+
+  /**
+   * Generates <code>num</code> new {@link Scenario} instances in parallel on
+   * the specified {@link ForkJoinPool}. The seed of each scenario is derived
+   * from <code>seed</code> and the index of the scenario only, the result is
+   * therefore independent of the number of threads in the pool. The scenario
+   * at index <code>i</code> is equal to the scenario that is created by
+   * {@link #generate(RandomGenerator, String)} when it is called with a
+   * {@link MersenneTwister} that is seeded with the <code>i</code>-th number
+   * that is drawn from a {@link MersenneTwister} seeded with
+   * <code>seed</code>. The ids of the scenarios are
+   * <code>idPrefix-i</code>. All scenarios in the batch share the same road
+   * model and travel time information.
+   * @param seed The master seed from which all scenario seeds are derived.
+   * @param num The number of scenarios to generate.
+   * @param idPrefix The prefix of the id of each scenario.
+   * @param pool The pool to use for generating the scenarios.
+   * @return A list of the generated scenarios, ordered by index.
+   */
+  public ImmutableList<Scenario> generate(long seed, int num, String idPrefix,
+      ForkJoinPool pool) {
+    final Scenario[] scenarios = new Scenario[num];
+    generateBatch(seed, num, idPrefix, pool, new ScenarioSink() {
+      @Override
+      public void accept(int index, Scenario scenario) {
+        scenarios[index] = scenario;
+      }
+    });
+    return ImmutableList.copyOf(scenarios);
+  }
+
+  /**
+   * Generates <code>num</code> new {@link Scenario} instances in parallel and
+   * writes each scenario to the specified directory as soon as it is
+   * generated. Scenarios are written using
+   * {@link ScenarioIO#write(Scenario, Path)} to a file named
+   * <code>idPrefix-i.scen</code>, they are not kept in memory. See
+   * {@link #generate(long, int, String, ForkJoinPool)} for more information
+   * about how the scenarios are generated.
+   * @param seed The master seed from which all scenario seeds are derived.
+   * @param num The number of scenarios to generate.
+   * @param idPrefix The prefix of the id and file name of each scenario.
+   * @param pool The pool to use for generating the scenarios.
+   * @param dir The directory to write the scenario files to.
+   * @throws IOException When writing a scenario fails.
+   */
+  public void generate(long seed, int num, String idPrefix, ForkJoinPool pool,
+      final Path dir) throws IOException {
+    Files.createDirectories(dir);
+    try {
+      generateBatch(seed, num, idPrefix, pool, new ScenarioSink() {
+        @Override
+        public void accept(int index, Scenario scenario) {
+          try {
+            ScenarioIO.write(scenario,
+              dir.resolve(scenario.getProblemInstanceId() + SCENARIO_EXT));
+          } catch (final IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      });
+    } catch (final IllegalStateException e) {
+      // the exception may be wrapped once more when it is rethrown by the pool
+      final Optional<IOException> cause = FluentIterable
+        .from(Throwables.getCausalChain(e))
+        .filter(IOException.class)
+        .first();
+      if (cause.isPresent()) {
+        throw cause.get();
+      }
+      throw e;
+    }
+  }
+
+  void generateBatch(long seed, int num, String idPrefix, ForkJoinPool pool,
+      ScenarioSink sink) {
+    checkArgument(num >= 0, "num must be non-negative, found %s.", num);
+    final RandomGenerator rng = new MersenneTwister(seed);
+    final long[] seeds = new long[num];
+    for (int i = 0; i < num; i++) {
+      seeds[i] = rng.nextLong();
+    }
+    pool.invoke(new BatchTask(new BatchContext(this, seeds, idPrefix, sink),
+      0, num));
+  }
+
+  Scenario generate(RandomGenerator rng, String id,
+      Optional<BatchContext> batch) {
     final ImmutableList.Builder<TimedEvent> b = ImmutableList.builder();
 
     LOGGER.info("Starting generation scenario");
@@ -210,8 +313,12 @@ public final class ScenarioGenerator {
       builder.getTimeWindow().end());
     b.addAll(vehicles);
 
-    final TravelTimes tm = createTravelTimes(modelBuilders, getTimeUnit(),
-      depots, vehicles);
+    final TravelTimes tm;
+    if (batch.isPresent()) {
+      tm = batch.get().getTravelTimes(depots, vehicles);
+    } else {
+      tm = createTravelTimes(modelBuilders, getTimeUnit(), depots, vehicles);
+    }
 
     // parcels
     LOGGER.info("- Generating Parcels");
@@ -449,6 +556,139 @@ public final class ScenarioGenerator {
     long getTravelTimeToNearestDepot(Point from);
   }
 
+  interface ScenarioSink {
+    void accept(int index, Scenario scenario);
+  }
+
+  static class BatchTask extends RecursiveAction {
+    private static final long serialVersionUID = -2836237478102462510L;
+    private final BatchContext context;
+    private final int from;
+    private final int to;
+
+    BatchTask(BatchContext ctx, int fromIndex, int toIndex) {
+      context = ctx;
+      from = fromIndex;
+      to = toIndex;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        context.generate(from);
+      } else if (to - from > 1) {
+        final int mid = from + (to - from) / 2;
+        invokeAll(new BatchTask(context, from, mid),
+          new BatchTask(context, mid, to));
+      }
+    }
+  }
+
+  /**
+   * State that is shared between all threads that generate the scenarios of
+   * one batch. Each thread uses its own {@link RoadModel} instance (road
+   * models are not guaranteed to be thread safe), travel times are shared by
+   * all threads via {@link SharedTravelTimes}.
+   */
+  static class BatchContext {
+    final ScenarioGenerator generator;
+    final long[] seeds;
+    final String idPrefix;
+    final ScenarioSink sink;
+    final ThreadLocal<RoadModel> roadModels;
+    final ConcurrentMap<List<Object>, SharedTravelTimes> travelTimes;
+
+    BatchContext(ScenarioGenerator gen, long[] scenarioSeeds, String prefix,
+        ScenarioSink scenarioSink) {
+      generator = gen;
+      seeds = scenarioSeeds;
+      idPrefix = prefix;
+      sink = scenarioSink;
+      roadModels = new ThreadLocal<RoadModel>() {
+        @Override
+        protected RoadModel initialValue() {
+          return getRm(generator.modelBuilders);
+        }
+      };
+      travelTimes = new ConcurrentHashMap<>();
+    }
+
+    void generate(int index) {
+      sink.accept(index, generator.generate(new MersenneTwister(seeds[index]),
+        idPrefix + "-" + index, Optional.of(this)));
+    }
+
+    TravelTimes getTravelTimes(Iterable<? extends AddDepotEvent> depots,
+        ImmutableList<AddVehicleEvent> vehicles) {
+      final ImmutableList.Builder<Point> depotPositions =
+        ImmutableList.builder();
+      for (final AddDepotEvent ade : depots) {
+        depotPositions.add(ade.getPosition());
+      }
+      double max = 0;
+      for (final AddVehicleEvent ave : vehicles) {
+        max = Math.max(max, ave.getVehicleDTO().getSpeed());
+      }
+      // travel times only depend on the depot positions and the fastest
+      // vehicle
+      final List<Object> key =
+        ImmutableList.<Object>of(depotPositions.build(), max);
+      SharedTravelTimes tt = travelTimes.get(key);
+      if (tt == null) {
+        travelTimes.putIfAbsent(key, new SharedTravelTimes(this,
+          ImmutableList.<AddDepotEvent>copyOf(depots), vehicles));
+        tt = travelTimes.get(key);
+      }
+      return tt;
+    }
+  }
+
+  /**
+   * Thread safe {@link TravelTimes} implementation that memoizes the travel
+   * times to the nearest depot. Cache misses are computed using the
+   * {@link RoadModel} of the calling thread. A batch computes the travel time
+   * from a node to its nearest depot only once, all scenarios of the batch
+   * with the same depots and vehicle speed share it.
+   */
+  static class SharedTravelTimes implements TravelTimes {
+    private final ThreadLocal<TravelTimes> delegates;
+    private final ConcurrentMap<Point, Long> nearestDepotTravelTimes;
+
+    SharedTravelTimes(final BatchContext context,
+        final ImmutableList<AddDepotEvent> depots,
+        final ImmutableList<AddVehicleEvent> vehicles) {
+      delegates = new ThreadLocal<TravelTimes>() {
+        @Override
+        protected TravelTimes initialValue() {
+          final RoadModel rm = context.roadModels.get();
+          if (rm instanceof GraphRoadModel) {
+            return new GraphTravelTimes<>((GraphRoadModel) rm,
+              context.generator.getTimeUnit(), depots, vehicles);
+          }
+          return new DefaultTravelTimes(rm, context.generator.getTimeUnit(),
+            depots, vehicles);
+        }
+      };
+      nearestDepotTravelTimes = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public long getShortestTravelTime(Point from, Point to) {
+      return delegates.get().getShortestTravelTime(from, to);
+    }
+
+    @Override
+    public long getTravelTimeToNearestDepot(Point from) {
+      final Long cached = nearestDepotTravelTimes.get(from);
+      if (cached != null) {
+        return cached;
+      }
+      final long tt = delegates.get().getTravelTimeToNearestDepot(from);
+      nearestDepotTravelTimes.putIfAbsent(from, tt);
+      return tt;
+    }
+  }
+
   static class DefaultTravelTimes implements TravelTimes {
     private final RoadModel roadModel;
     private final Measure<Double, Velocity> vehicleSpeed;
@@ -513,30 +753,32 @@ public final class ScenarioGenerator {
     }
   }
 
+  /**
+   * {@link TravelTimes} implementation for {@link GraphRoadModel}s. The travel
+   * time to the nearest depot is memoized per point. Like the road model it
+   * uses, an instance should not be shared between threads.
+   */
   static class GraphTravelTimes<T extends ConnectionData>
       implements TravelTimes {
     private final GraphRoadModel roadModel;
     private final Measure<Double, Velocity> vehicleSpeed;
     private final Unit<Duration> timeUnit;
     private final ImmutableList<Point> depotLocations;
+    private final Map<Point, Long> nearestDepotTravelTimes;
 
     GraphTravelTimes(GraphRoadModel rm, Unit<Duration> tu,
         Iterable<? extends AddDepotEvent> depots,
         Iterable<? extends AddVehicleEvent> vehicles) {
       roadModel = rm;
-
-      double max = 0;
-      for (final AddVehicleEvent ave : vehicles) {
-        max = Math.max(max, ave.getVehicleDTO().getSpeed());
-      }
-      vehicleSpeed = Measure.valueOf(max, roadModel.getSpeedUnit());
+      vehicleSpeed = Measure.valueOf(maxSpeed(vehicles),
+        roadModel.getSpeedUnit());
 
       final ImmutableList.Builder<Point> depotBuilder = ImmutableList.builder();
       for (final AddDepotEvent ade : depots) {
         depotBuilder.add(ade.getPosition());
       }
       depotLocations = depotBuilder.build();
-
+      nearestDepotTravelTimes = new HashMap<>();
       timeUnit = tu;
     }
 
@@ -552,15 +794,25 @@ public final class ScenarioGenerator {
       vehicleSpeed = Measure.valueOf(max, roadModel.getSpeedUnit());
 
       depotLocations = ImmutableList.of(centerMostPoint);
-
+      nearestDepotTravelTimes = new HashMap<>();
       this.timeUnit = tu;
     }
 
+    static double maxSpeed(Iterable<? extends AddVehicleEvent> vehicles) {
+      double max = 0;
+      for (final AddVehicleEvent ave : vehicles) {
+        max = Math.max(max, ave.getVehicleDTO().getSpeed());
+      }
+      return max;
+    }
+
     @Override
     public long getShortestTravelTime(Point from, Point to) {
-      final Iterator<Point> path = roadModel.getShortestPathTo(from, to)
-        .iterator();
+      return computeTravelTime(
+        roadModel.getShortestPathTo(from, to).iterator());
+    }
 
+    long computeTravelTime(Iterator<Point> path) {
       long travelTime = 0L;
       Point prev = path.next();
       while (path.hasNext()) {
@@ -595,7 +847,13 @@ public final class ScenarioGenerator {
 
     @Override
     public long getTravelTimeToNearestDepot(Point from) {
-      return getShortestTravelTime(from, findNearestDepot(from));
+      final Long cached = nearestDepotTravelTimes.get(from);
+      if (cached != null) {
+        return cached;
+      }
+      final long tt = getShortestTravelTime(from, findNearestDepot(from));
+      nearestDepotTravelTimes.put(from, tt);
+      return tt;
     }
 
     private Point findNearestDepot(Point from) {
@@ -28,6 +28,8 @@ import org.apache.commons.math3.distribution.RealDistribution;
 import org.apache.commons.math3.distribution.UniformRealDistribution;
 import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.apache.commons.math3.util.ResizableDoubleArray;
 
 import com.github.rinde.rinsim.scenario.generator.IntensityFunctions.IntensityFunction;
 import com.github.rinde.rinsim.util.StochasticSupplier;
@@ -37,6 +39,7 @@ import com.google.common.collect.AbstractSequentialIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Range;
+import com.google.common.primitives.Doubles;
 
 /**
  * Utilities for generating time series.
@@ -199,6 +202,21 @@ public final class TimeSeries {
     return new SupplierTimeSeries(length, interArrivalTimesSupplier);
   }
 
+  /**
+   * Generates a time series as an array of primitive doubles. The values are
+   * equal to the values of {@link TimeSeriesGenerator#generate(long)}, for
+   * the Poisson processes of this class they are generated without boxing.
+   * @param tsg The generator to use.
+   * @param seed The random seed to use.
+   * @return An array of times in ascending order, may contain duplicates.
+   */
+  public static double[] generateArray(TimeSeriesGenerator tsg, long seed) {
+    if (tsg instanceof PoissonProcess) {
+      return ((PoissonProcess) tsg).generateArray(seed);
+    }
+    return Doubles.toArray(tsg.generate(seed));
+  }
+
   /**
    * Decorates the specified {@link TimeSeriesGenerator} such that it only
    * generates time series which conform to the specified {@link Predicate}.
@@ -251,17 +269,15 @@ public final class TimeSeries {
   static class FilteredTSG implements TimeSeriesGenerator {
     private final TimeSeriesGenerator delegate;
     private final Predicate<List<Double>> predicate;
-    private final RandomGenerator rng;
 
     FilteredTSG(TimeSeriesGenerator tsg, Predicate<List<Double>> pred) {
       delegate = tsg;
       predicate = pred;
-      rng = new MersenneTwister();
     }
 
     @Override
     public ImmutableList<Double> generate(long seed) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
       while (true) {
         final ImmutableList<Double> timeSeries = delegate.generate(rng
           .nextLong());
@@ -273,19 +289,12 @@ public final class TimeSeries {
   }
 
   static class PoissonProcess implements TimeSeriesGenerator {
-
-    /**
-     * Random generator used for drawing random numbers.
-     */
-    protected final RandomGenerator rng;
-
     final double length;
     final double intensity;
 
     PoissonProcess(double len, double intens) {
       length = len;
       intensity = intens;
-      rng = new MersenneTwister();
     }
 
     /**
@@ -297,17 +306,38 @@ public final class TimeSeries {
     }
 
     // internal use only!
-    Iterator<Double> iterator() {
+    Iterator<Double> iterator(RandomGenerator rng) {
       return new TimeSeriesIterator(new ExponentialDistribution(rng,
         1d / intensity,
         ExponentialDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY),
         length);
     }
 
+    // draws the same numbers in the same order as iterator(rng)
+    double[] generateArray(long seed) {
+      final RandomGenerator rng = new MersenneTwister(seed);
+      final RealDistribution ed = new ExponentialDistribution(rng,
+        1d / intensity,
+        ExponentialDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
+      final ResizableDoubleArray times = new ResizableDoubleArray();
+      double time = TimeSeriesIterator.getFirstPositive(ed);
+      while (time < length) {
+        final double next = time + TimeSeriesIterator.getFirstPositive(ed);
+        if (accept(time, rng)) {
+          times.addElement(time);
+        }
+        time = next;
+      }
+      return times.getElements();
+    }
+
+    boolean accept(double time, RandomGenerator rng) {
+      return true;
+    }
+
     @Override
     public ImmutableList<Double> generate(long seed) {
-      rng.setSeed(seed);
-      return ImmutableList.copyOf(iterator());
+      return ImmutableList.copyOf(Doubles.asList(generateArray(seed)));
     }
   }
 
@@ -320,26 +350,29 @@ public final class TimeSeries {
     }
 
     @Override
-    public Iterator<Double> iterator() {
-      return Iterators.filter(super.iterator(), new NHPredicate(rng, lambd));
+    Iterator<Double> iterator(RandomGenerator rng) {
+      return Iterators.filter(super.iterator(rng), new NHPredicate(rng, lambd));
+    }
+
+    @Override
+    boolean accept(double time, RandomGenerator rng) {
+      return rng.nextDouble() <= lambd.apply(time) / lambd.getMax();
     }
   }
 
   static class SuppliedNonHomogenous implements TimeSeriesGenerator {
     final double length;
     final StochasticSupplier<IntensityFunction> lambdSup;
-    final RandomGenerator rng;
 
     SuppliedNonHomogenous(double l,
         StochasticSupplier<IntensityFunction> funcSup) {
       length = l;
       lambdSup = funcSup;
-      rng = new MersenneTwister();
     }
 
     @Override
     public ImmutableList<Double> generate(long seed) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
       final TimeSeriesGenerator tsg = new NonHomogenous(length,
         lambdSup.get(rng.nextLong()));
       return tsg.generate(rng.nextLong());
@@ -406,13 +439,11 @@ public final class TimeSeries {
 
   static class UniformTimeSeries implements TimeSeriesGenerator {
     static final double SMALLEST_DEVIATION = .0000001;
-    private final RandomGenerator rng;
     private final double length;
     private final double average;
     private final StochasticSupplier<Double> deviationSupplier;
 
     UniformTimeSeries(double len, double avg, StochasticSupplier<Double> dev) {
-      rng = new MersenneTwister();
       length = len;
       average = avg;
       deviationSupplier = dev;
@@ -420,7 +451,7 @@ public final class TimeSeries {
 
     @Override
     public ImmutableList<Double> generate(long seed) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
 
       double deviation = deviationSupplier.get(rng.nextLong());
       deviation = Math.min(average, deviation);
@@ -438,16 +469,20 @@ public final class TimeSeries {
 
   static class NormalTimeSeries implements TimeSeriesGenerator {
     private final double length;
-    private final RealDistribution distribution;
+    private final double average;
+    private final double standardDeviation;
 
     NormalTimeSeries(double len, double avg, double sd) {
       length = len;
-      distribution = new NormalDistribution(avg, sd);
+      average = avg;
+      standardDeviation = sd;
     }
 
     @Override
     public ImmutableList<Double> generate(long seed) {
-      distribution.reseedRandomGenerator(seed);
+      final RealDistribution distribution = new NormalDistribution(
+        new Well19937c(seed), average, standardDeviation,
+        NormalDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
       return ImmutableList.copyOf(new TimeSeriesIterator(
         distribution, length));
     }
@@ -174,7 +174,6 @@ public final class TimeWindows {
   }
 
   static class DefaultTimeWindowGenerator implements TimeWindowGenerator {
-    private final RandomGenerator rng;
     private final StochasticSupplier<Long> pickupUrgency;
     private final StochasticSupplier<Long> pickupTWLength;
     private final StochasticSupplier<Long> deliveryOpening;
@@ -182,7 +181,6 @@ public final class TimeWindows {
     private final Optional<StochasticSupplier<Long>> minDeliveryLength;
 
     DefaultTimeWindowGenerator(Builder b) {
-      rng = new MersenneTwister();
       pickupUrgency = b.pickupUrgency;
       pickupTWLength = b.pickupTWLength;
       deliveryOpening = b.deliveryOpening;
@@ -193,7 +191,7 @@ public final class TimeWindows {
     @Override
     public void generate(long seed, Parcel.Builder parcelBuilder,
         TravelTimes travelTimes, long endTime) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
       final long orderAnnounceTime = parcelBuilder.getOrderAnnounceTime();
       final Point pickup = parcelBuilder.getPickupLocation();
       final Point delivery = parcelBuilder.getDeliveryLocation();
@@ -210,7 +208,7 @@ public final class TimeWindows {
       final long latestPickupClosing = endTime - deliveryToDepotTT
         - pickupToDeliveryTT - parcelBuilder.getPickupDuration()
         - parcelBuilder.getDeliveryDuration();
-      final TimeWindow pickupTW = urgencyTimeWindow(earliestPickupOpening,
+      final TimeWindow pickupTW = urgencyTimeWindow(rng, earliestPickupOpening,
         earliestPickupClosing, latestPickupClosing, pickupUrgency,
         pickupTWLength);
 
@@ -256,9 +254,9 @@ public final class TimeWindows {
       return Math.max(lowerBound, Math.min(value, upperBound));
     }
 
-    TimeWindow urgencyTimeWindow(long earliestOpening, long earliestClosing,
-        long latestClosing, StochasticSupplier<Long> urgency,
-        StochasticSupplier<Long> length) {
+    static TimeWindow urgencyTimeWindow(RandomGenerator rng,
+        long earliestOpening, long earliestClosing, long latestClosing,
+        StochasticSupplier<Long> urgency, StochasticSupplier<Long> length) {
       final long closing = boundValue(
         earliestClosing + urgency.get(rng.nextLong()), earliestClosing,
         latestClosing);
@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.scenario.generator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import javax.annotation.Nullable;
+
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.PathNotFoundException;
+import com.github.rinde.rinsim.geom.Point;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Answers shortest path queries on a static {@link Graph} that contains a set
+ * of depots. The distance from every node to its nearest depot is computed
+ * once using a multi-source Dijkstra search, nearest depot queries are
+ * therefore answered in constant time. Queries between arbitrary nodes are
+ * answered using A* guided by landmark based (ALT) lower bounds, which are
+ * much tighter than the Euclidean distance. Distances are expressed in the
+ * length of the connections of the graph.
+ * <p>
+ * Instances are immutable and can safely be shared between threads, changes
+ * to the graph after construction are not reflected in the oracle.
+ * @author Rinde van Lon
+ */
+public final class TravelTimeOracle {
+  static final int DEFAULT_NUM_LANDMARKS = 8;
+  private static final int NONE = -1;
+
+  private final Point[] nodes;
+  private final ImmutableMap<Point, Integer> nodeIndex;
+  private final ImmutableList<Point> depots;
+
+  // outgoing and incoming connections in compressed sparse row format
+  private final int[] outStart;
+  private final int[] outTarget;
+  private final double[] outLength;
+  private final int[] inStart;
+  private final int[] inSource;
+  private final double[] inLength;
+
+  private final double[] depotDistance;
+  private final int[] depotNextHop;
+  private final int[] nearestDepot;
+
+  private final int[] landmarks;
+  private final double[][] fromLandmark;
+  private final double[][] toLandmark;
+
+  TravelTimeOracle(Graph<?> graph, Iterable<Point> depotPositions,
+      int numLandmarks) {
+    checkArgument(numLandmarks >= 0,
+      "The number of landmarks must be non-negative, found %s.",
+      numLandmarks);
+    depots = ImmutableList.copyOf(depotPositions);
+    checkArgument(!depots.isEmpty(), "At least one depot is required.");
+
+    nodes = graph.getNodes().toArray(new Point[graph.getNumberOfNodes()]);
+    final ImmutableMap.Builder<Point, Integer> indexBuilder =
+      ImmutableMap.builder();
+    for (int i = 0; i < nodes.length; i++) {
+      indexBuilder.put(nodes[i], i);
+    }
+    nodeIndex = indexBuilder.build();
+
+    final int numConns = graph.getNumberOfConnections();
+    outStart = new int[nodes.length + 1];
+    outTarget = new int[numConns];
+    outLength = new double[numConns];
+    int c = 0;
+    for (int i = 0; i < nodes.length; i++) {
+      outStart[i] = c;
+      for (final Point to : graph.getOutgoingConnections(nodes[i])) {
+        outTarget[c] = nodeIndex.get(to);
+        outLength[c] = graph.connectionLength(nodes[i], to);
+        c++;
+      }
+    }
+    outStart[nodes.length] = c;
+
+    inStart = new int[nodes.length + 1];
+    inSource = new int[numConns];
+    inLength = new double[numConns];
+    c = 0;
+    for (int i = 0; i < nodes.length; i++) {
+      inStart[i] = c;
+      for (final Point from : graph.getIncomingConnections(nodes[i])) {
+        inSource[c] = nodeIndex.get(from);
+        inLength[c] = graph.connectionLength(from, nodes[i]);
+        c++;
+      }
+    }
+    inStart[nodes.length] = c;
+
+    // searching backwards from all depots yields the distance from each node
+    // to its nearest depot
+    final int[] depotIndices = new int[depots.size()];
+    for (int i = 0; i < depotIndices.length; i++) {
+      checkArgument(nodeIndex.containsKey(depots.get(i)),
+        "Depot %s is not a node in the graph.", depots.get(i));
+      depotIndices[i] = nodeIndex.get(depots.get(i));
+    }
+    depotDistance = new double[nodes.length];
+    depotNextHop = new int[nodes.length];
+    nearestDepot = new int[nodes.length];
+    dijkstra(inStart, inSource, inLength, depotIndices, depotDistance,
+      depotNextHop, nearestDepot);
+
+    landmarks = selectLandmarks(Math.min(numLandmarks, nodes.length));
+    fromLandmark = new double[landmarks.length][];
+    toLandmark = new double[landmarks.length][];
+    for (int i = 0; i < landmarks.length; i++) {
+      fromLandmark[i] = new double[nodes.length];
+      toLandmark[i] = new double[nodes.length];
+      final int[] source = {landmarks[i]};
+      dijkstra(outStart, outTarget, outLength, source, fromLandmark[i], null,
+        null);
+      dijkstra(inStart, inSource, inLength, source, toLandmark[i], null,
+        null);
+    }
+  }
+
+  /**
+   * Creates a new oracle using a default number of landmarks.
+   * @param graph The graph to compute the oracle for.
+   * @param depots The positions of the depots, each position must be a node
+   *          in the graph.
+   * @return A new oracle.
+   */
+  public static TravelTimeOracle create(Graph<?> graph,
+      Iterable<Point> depots) {
+    return create(graph, depots, DEFAULT_NUM_LANDMARKS);
+  }
+
+  /**
+   * Creates a new oracle. The construction requires one Dijkstra search for
+   * the depots and two searches per landmark. More landmarks yield tighter
+   * lower bounds and thus faster point to point queries.
+   * @param graph The graph to compute the oracle for.
+   * @param depots The positions of the depots, each position must be a node
+   *          in the graph.
+   * @param numLandmarks The number of landmarks to use for lower bounds, may
+   *          be <code>0</code> in which case point to point queries fall back
+   *          to Dijkstra.
+   * @return A new oracle.
+   */
+  public static TravelTimeOracle create(Graph<?> graph, Iterable<Point> depots,
+      int numLandmarks) {
+    return new TravelTimeOracle(graph, depots, numLandmarks);
+  }
+
+  /**
+   * @return The depots known by this oracle.
+   */
+  public ImmutableList<Point> getDepots() {
+    return depots;
+  }
+
+  /**
+   * @param node The node to check.
+   * @return <code>true</code> if the node is part of the graph of this oracle,
+   *         <code>false</code> otherwise.
+   */
+  public boolean containsNode(Point node) {
+    return nodeIndex.containsKey(node);
+  }
+
+  /**
+   * Looks up the depot that can be reached from <code>from</code> via the
+   * shortest path.
+   * @param from The node to start from.
+   * @return The nearest depot.
+   * @throws PathNotFoundException if no depot can be reached.
+   */
+  public Point getNearestDepot(Point from) {
+    final int i = reachableDepotIndex(from);
+    return nodes[nearestDepot[i]];
+  }
+
+  /**
+   * Looks up the length of the shortest path from <code>from</code> to its
+   * nearest depot.
+   * @param from The node to start from.
+   * @return The distance to the nearest depot.
+   * @throws PathNotFoundException if no depot can be reached.
+   */
+  public double getDistanceToNearestDepot(Point from) {
+    return depotDistance[reachableDepotIndex(from)];
+  }
+
+  /**
+   * Constructs the shortest path from <code>from</code> to its nearest depot.
+   * @param from The node to start from.
+   * @return The path, including <code>from</code> and the depot.
+   * @throws PathNotFoundException if no depot can be reached.
+   */
+  public ImmutableList<Point> getPathToNearestDepot(Point from) {
+    int cur = reachableDepotIndex(from);
+    final ImmutableList.Builder<Point> path = ImmutableList.builder();
+    path.add(nodes[cur]);
+    while (depotNextHop[cur] != NONE) {
+      cur = depotNextHop[cur];
+      path.add(nodes[cur]);
+    }
+    return path.build();
+  }
+
+  /**
+   * Computes a lower bound of the length of the shortest path between
+   * <code>from</code> and <code>to</code> using the triangle inequality with
+   * respect to the landmarks. This takes time linear in the number of
+   * landmarks.
+   * @param from The start node.
+   * @param to The destination node.
+   * @return A lower bound on the shortest path length.
+   */
+  public double getLowerBound(Point from, Point to) {
+    return lowerBound(indexOf(from), indexOf(to));
+  }
+
+  /**
+   * Computes the shortest path between <code>from</code> and <code>to</code>
+   * using A* with landmark lower bounds as heuristic.
+   * @param from The start node.
+   * @param to The destination node.
+   * @return The shortest path, including <code>from</code> and
+   *         <code>to</code>.
+   * @throws PathNotFoundException if no path exists.
+   */
+  public ImmutableList<Point> getShortestPath(Point from, Point to) {
+    final int source = indexOf(from);
+    final int target = indexOf(to);
+    final double[] dist = new double[nodes.length];
+    final int[] parent = new int[nodes.length];
+    final boolean[] closed = new boolean[nodes.length];
+    Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    Arrays.fill(parent, NONE);
+
+    final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+    dist[source] = 0d;
+    queue.add(new QueueEntry(source, lowerBound(source, target)));
+    while (!queue.isEmpty()) {
+      final int cur = queue.poll().node;
+      if (closed[cur]) {
+        continue;
+      }
+      if (cur == target) {
+        return reconstructPath(parent, target);
+      }
+      closed[cur] = true;
+      for (int c = outStart[cur]; c < outStart[cur + 1]; c++) {
+        final int next = outTarget[c];
+        final double d = dist[cur] + outLength[c];
+        if (!closed[next] && d < dist[next]) {
+          dist[next] = d;
+          parent[next] = cur;
+          queue.add(new QueueEntry(next, d + lowerBound(next, target)));
+        }
+      }
+    }
+    throw new PathNotFoundException("Cannot reach " + to + " from " + from);
+  }
+
+  int indexOf(Point p) {
+    final Integer i = nodeIndex.get(p);
+    checkArgument(i != null, "%s is not a node in the graph.", p);
+    return i;
+  }
+
+  int reachableDepotIndex(Point from) {
+    final int i = indexOf(from);
+    if (nearestDepot[i] == NONE) {
+      throw new PathNotFoundException("Cannot reach any depot from " + from);
+    }
+    return i;
+  }
+
+  double lowerBound(int from, int to) {
+    double bound = 0d;
+    for (int i = 0; i < landmarks.length; i++) {
+      // d(from,to) >= d(l,to) - d(l,from) and d(from,to) >= d(from,l) - d(to,l)
+      final double forward = fromLandmark[i][to] - fromLandmark[i][from];
+      if (!Double.isNaN(forward) && forward > bound
+        && forward != Double.POSITIVE_INFINITY) {
+        bound = forward;
+      }
+      final double backward = toLandmark[i][from] - toLandmark[i][to];
+      if (!Double.isNaN(backward) && backward > bound
+        && backward != Double.POSITIVE_INFINITY) {
+        bound = backward;
+      }
+    }
+    return bound;
+  }
+
+  ImmutableList<Point> reconstructPath(int[] parent, int target) {
+    int length = 0;
+    for (int cur = target; cur != NONE; cur = parent[cur]) {
+      length++;
+    }
+    final Point[] path = new Point[length];
+    int cur = target;
+    for (int i = length - 1; i >= 0; i--) {
+      path[i] = nodes[cur];
+      cur = parent[cur];
+    }
+    return ImmutableList.copyOf(path);
+  }
+
+  // farthest point selection: each landmark is the node that is farthest away
+  // from all previously selected landmarks
+  int[] selectLandmarks(int num) {
+    final int[] selected = new int[num];
+    if (num == 0) {
+      return selected;
+    }
+    final double[] minDist = new double[nodes.length];
+    final double[] dist = new double[nodes.length];
+    dijkstra(outStart, outTarget, outLength, new int[] {0}, minDist, null,
+      null);
+    for (int i = 0; i < num; i++) {
+      int farthest = 0;
+      for (int n = 0; n < nodes.length; n++) {
+        if (minDist[n] != Double.POSITIVE_INFINITY
+          && minDist[n] > minDist[farthest]) {
+          farthest = n;
+        }
+      }
+      selected[i] = farthest;
+      dijkstra(outStart, outTarget, outLength, new int[] {farthest}, dist,
+        null, null);
+      for (int n = 0; n < nodes.length; n++) {
+        minDist[n] = Math.min(minDist[n], dist[n]);
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Multi-source Dijkstra search over the specified adjacency structure.
+   * @param start Start offset of the neighbors of each node.
+   * @param adjacent The neighbors.
+   * @param length The lengths of the connections to the neighbors.
+   * @param sources The source nodes.
+   * @param dist Is filled with the distance to the nearest source.
+   * @param parent If not <code>null</code>, it is filled with the previous
+   *          node on the path from the nearest source.
+   * @param origin If not <code>null</code>, it is filled with the nearest
+   *          source.
+   */
+  static void dijkstra(int[] start, int[] adjacent, double[] length,
+      int[] sources, double[] dist, @Nullable int[] parent,
+      @Nullable int[] origin) {
+    Arrays.fill(dist, Double.POSITIVE_INFINITY);
+    if (parent != null) {
+      Arrays.fill(parent, NONE);
+    }
+    if (origin != null) {
+      Arrays.fill(origin, NONE);
+    }
+    final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+    for (final int s : sources) {
+      dist[s] = 0d;
+      if (origin != null) {
+        origin[s] = s;
+      }
+      queue.add(new QueueEntry(s, 0d));
+    }
+    while (!queue.isEmpty()) {
+      final QueueEntry entry = queue.poll();
+      final int cur = entry.node;
+      if (entry.priority > dist[cur]) {
+        continue;
+      }
+      for (int c = start[cur]; c < start[cur + 1]; c++) {
+        final int next = adjacent[c];
+        final double d = dist[cur] + length[c];
+        if (d < dist[next]) {
+          dist[next] = d;
+          if (parent != null) {
+            parent[next] = cur;
+          }
+          if (origin != null) {
+            origin[next] = origin[cur];
+          }
+          queue.add(new QueueEntry(next, d));
+        }
+      }
+    }
+  }
+
+  static final class QueueEntry implements Comparable<QueueEntry> {
+    final int node;
+    final double priority;
+
+    QueueEntry(int n, double p) {
+      node = n;
+      priority = p;
+    }
+
+    @Override
+    public int compareTo(@Nullable QueueEntry o) {
+      assert o != null;
+      return Double.compare(priority, o.priority);
+    }
+  }
+}
@@ -223,7 +223,6 @@ public final class Vehicles {
     private final StochasticSupplier<Integer> capacityGenerator;
     private final Optional<StochasticSupplier<TimeWindow>> timeWindowGenerator;
     private final StochasticSupplier<Long> creationTimeGenerator;
-    private final RandomGenerator rng;
 
     DefaultVehicleGenerator(Builder b) {
       numberOfVehicles = b.numberOfVehicles;
@@ -232,13 +231,12 @@ public final class Vehicles {
       capacityGenerator = b.capacitiesSupplier;
       timeWindowGenerator = b.timeWindowsSupplier;
       creationTimeGenerator = b.creationTimesSupplier;
-      rng = new MersenneTwister();
     }
 
     @Override
     public ImmutableList<AddVehicleEvent> generate(long seed, Point center,
         long scenarioLength) {
-      rng.setSeed(seed);
+      final RandomGenerator rng = new MersenneTwister(seed);
 
       final ImmutableList.Builder<AddVehicleEvent> builder = ImmutableList
         .builder();
@@ -285,18 +283,15 @@ public final class Vehicles {
   private static class HomogenousVehicleGenerator implements VehicleGenerator {
     private final VehicleDTO vehicleDto;
     private final int n;
-    private final RandomGenerator rng;
 
     HomogenousVehicleGenerator(int numberOfVehicles, VehicleDTO dto) {
       vehicleDto = dto;
       n = numberOfVehicles;
-      rng = new MersenneTwister();
     }
 
     @Override
     public ImmutableList<AddVehicleEvent> generate(long seed, Point center,
         long scenarioLength) {
-      rng.setSeed(seed);
       return ImmutableList
         .copyOf(nCopies(n, AddVehicleEvent.create(-1, vehicleDto)));
     }
@@ -17,10 +17,15 @@ package com.github.rinde.rinsim.scenario.generator;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nonnull;
 
@@ -36,6 +41,7 @@ import com.github.rinde.rinsim.pdptw.common.ChangeConnectionSpeedEvent;
 import com.github.rinde.rinsim.scenario.generator.DynamicSpeeds.DynamicSpeedGenerator;
 import com.github.rinde.rinsim.util.StochasticSuppliers;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
 
@@ -645,6 +651,65 @@ public class DynamicSpeedsTest {
     }
   }
 
+  /**
+   * The events only depend on the seed, also when the generator is used by
+   * multiple threads concurrently.
+   * @throws Exception When the generation fails.
+   */
+  @Test
+  public void concurrentGenerationTest() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5; j++) {
+        final Point p = new Point(i * 250, j * 250);
+        final Point right = new Point((i + 1) * 250, j * 250);
+        final Point up = new Point(i * 250, (j + 1) * 250);
+        graph.addConnection(Connection.create(p, right,
+          MultiAttributeData.builder().setMaxSpeed(100).build()));
+        graph.addConnection(Connection.create(right, p,
+          MultiAttributeData.builder().setMaxSpeed(100).build()));
+        graph.addConnection(Connection.create(p, up,
+          MultiAttributeData.builder().setMaxSpeed(100).build()));
+        graph.addConnection(Connection.create(up, p,
+          MultiAttributeData.builder().setMaxSpeed(100).build()));
+      }
+    }
+    final DynamicSpeedGenerator gen = builder.withGraph(graph)
+      .numberOfShockwaves(StochasticSuppliers.constant(3))
+      .shockwaveWaitForRecedeDurations(
+        StochasticSuppliers.constant(2 * MINUTE))
+      .shockwaveBehaviour(StochasticSuppliers.constant(LINEAR_DESCENDING))
+      .shockwaveExpandingSpeed(StochasticSuppliers.constant(TEN_KM_H))
+      .shockwaveRecedingSpeed(StochasticSuppliers.constant(FIFTEEN_KM_H))
+      .build();
+
+    final int numSeeds = 16;
+    final List<ImmutableList<ChangeConnectionSpeedEvent>> expected =
+      new ArrayList<>();
+    for (int i = 0; i < numSeeds; i++) {
+      expected.add(gen.generate(i, scenarioLength));
+    }
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<ImmutableList<ChangeConnectionSpeedEvent>>> actual =
+        new ArrayList<>();
+      for (int i = 0; i < numSeeds; i++) {
+        final long s = i;
+        actual.add(executor.submit(
+          new Callable<ImmutableList<ChangeConnectionSpeedEvent>>() {
+            @Override
+            public ImmutableList<ChangeConnectionSpeedEvent> call() {
+              return gen.generate(s, scenarioLength);
+            }
+          }));
+      }
+      for (int i = 0; i < numSeeds; i++) {
+        assertEquals(expected.get(i), actual.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   final class TimingComparator extends Ordering<ChangeConnectionSpeedEvent> {
     @Override
     public int compare(@Nonnull ChangeConnectionSpeedEvent left,
@@ -41,6 +41,7 @@ import com.github.rinde.rinsim.scenario.generator.TimeSeries.NonHomogenous;
 import com.github.rinde.rinsim.scenario.generator.TimeSeries.PoissonProcess;
 import com.github.rinde.rinsim.testutil.TestUtil;
 import com.google.common.math.DoubleMath;
+import com.google.common.primitives.Doubles;
 
 /**
  * @author Rinde van Lon
@@ -146,6 +147,23 @@ public class PoissonProcessTest {
     }
   }
 
+  /**
+   * The primitive array must be equal to the times produced by the iterator
+   * based implementation.
+   */
+  @Test
+  public void testGenerateArray() {
+    final RandomGenerator rng = new MersenneTwister(456);
+    for (int i = 0; i < 100; i++) {
+      final long seed = rng.nextLong();
+      final List<Double> expected =
+        newArrayList(poisson.iterator(new MersenneTwister(seed)));
+      assertEquals(expected, poisson.generate(seed));
+      assertEquals(expected,
+        Doubles.asList(TimeSeries.generateArray(poisson, seed)));
+    }
+  }
+
   /**
    * Checks whether the observations conform to a Poisson process with the
    * specified intensity. Uses a chi square test with the specified confidence.
@@ -15,24 +15,60 @@
  */
 package com.github.rinde.rinsim.scenario.generator;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import javax.measure.unit.NonSI;
 import javax.measure.unit.SI;
 
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.github.rinde.rinsim.core.model.ModelBuilder;
+import com.github.rinde.rinsim.core.model.pdp.DefaultPDPModel;
+import com.github.rinde.rinsim.core.model.pdp.ParcelDTO;
+import com.github.rinde.rinsim.core.model.pdp.VehicleDTO;
 import com.github.rinde.rinsim.core.model.road.DynamicGraphRoadModel;
+import com.github.rinde.rinsim.core.model.road.GraphRoadModel;
 import com.github.rinde.rinsim.core.model.road.RoadModel;
 import com.github.rinde.rinsim.core.model.road.RoadModelBuilders;
 import com.github.rinde.rinsim.core.model.road.RoadUser;
+import com.github.rinde.rinsim.geom.Graph;
 import com.github.rinde.rinsim.geom.ListenableGraph;
+import com.github.rinde.rinsim.geom.MultiAttributeData;
+import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.geom.TableGraph;
+import com.github.rinde.rinsim.pdptw.common.AddDepotEvent;
+import com.github.rinde.rinsim.pdptw.common.AddParcelEvent;
+import com.github.rinde.rinsim.pdptw.common.AddVehicleEvent;
 import com.github.rinde.rinsim.pdptw.common.PDPDynamicGraphRoadModel;
+import com.github.rinde.rinsim.pdptw.common.PDPRoadModel;
+import com.github.rinde.rinsim.scenario.Scenario;
+import com.github.rinde.rinsim.scenario.ScenarioIO;
+import com.github.rinde.rinsim.scenario.TimedEvent;
+import com.github.rinde.rinsim.scenario.generator.Depots.DepotGenerator;
+import com.github.rinde.rinsim.scenario.generator.Locations.LocationGenerator;
+import com.github.rinde.rinsim.scenario.generator.ScenarioGenerator.BatchContext;
+import com.github.rinde.rinsim.scenario.generator.ScenarioGenerator.GraphTravelTimes;
+import com.github.rinde.rinsim.scenario.generator.ScenarioGenerator.ScenarioSink;
+import com.github.rinde.rinsim.scenario.generator.ScenarioGenerator.TravelTimes;
+import com.google.common.collect.ImmutableList;
 
 public class ScenarioGeneratorTest {
+  static final int GRID_SIZE = 7;
+  static final long PRIME = 31L;
+  // fingerprints of the scenarios of createMultiDepotGraphGenerator() as
+  // generated by previous versions, see testGraphScenariosBaseline()
+  static final long[] BASELINE_FINGERPRINTS = {-2955380981000957534L,
+    5939917413045012244L, -3175852357245936958L, 7942893285349404304L};
 
   @Before
   public void setUp() throws Exception {}
@@ -87,4 +123,254 @@ public class ScenarioGeneratorTest {
     assertEquals(SI.METER, sg.getDistanceUnit());
     assertEquals(NonSI.KILOMETERS_PER_HOUR, sg.getSpeedUnit());
   }
+
+  /**
+   * Tests that batch generation does not depend on the number of threads and
+   * is equal to sequential generation.
+   */
+  @Test
+  public void testGenerateBatch() {
+    final ScenarioGenerator sg = createGenerator();
+
+    final List<Scenario> single = sg.generate(123L, 6, "s", new ForkJoinPool(1));
+    final List<Scenario> multi = sg.generate(123L, 6, "s", new ForkJoinPool(4));
+    assertThat(multi).containsExactlyElementsIn(single).inOrder();
+
+    final RandomGenerator rng = new MersenneTwister(123L);
+    for (int i = 0; i < single.size(); i++) {
+      assertThat(single.get(i)).isEqualTo(
+        sg.generate(new MersenneTwister(rng.nextLong()), "s-" + i));
+    }
+    assertThat(sg.generate(123L, 0, "s", new ForkJoinPool(2))).isEmpty();
+  }
+
+  /**
+   * Tests that batch generation is equal to sequential generation on a graph
+   * road model where many shortest paths have the same length but a different
+   * travel time.
+   */
+  @Test
+  public void testGenerateBatchGraph() {
+    final ScenarioGenerator sg = createGraphGenerator();
+    final List<Scenario> batch = sg.generate(42L, 6, "g", new ForkJoinPool(3));
+    final RandomGenerator rng = new MersenneTwister(42L);
+    for (int i = 0; i < batch.size(); i++) {
+      assertThat(batch.get(i)).isEqualTo(
+        sg.generate(new MersenneTwister(rng.nextLong()), "g-" + i));
+    }
+  }
+
+  /**
+   * Tests that batch generation writes all scenarios to disk.
+   * @throws IOException When IO fails.
+   */
+  @Test
+  public void testGenerateBatchToDisk() throws IOException {
+    final ScenarioGenerator sg = createGenerator();
+    final Path tmpDir =
+      Files.createTempDirectory("rinsim-scenario-generator-test");
+    sg.generate(7L, 3, "d", new ForkJoinPool(2), tmpDir);
+
+    final List<Scenario> expected = sg.generate(7L, 3, "d",
+      new ForkJoinPool(1));
+    for (int i = 0; i < expected.size(); i++) {
+      final Path file = tmpDir.resolve("d-" + i + ".scen");
+      assertThat(ScenarioIO.read(file)).isEqualTo(expected.get(i));
+      Files.delete(file);
+    }
+    Files.delete(tmpDir);
+  }
+
+  /**
+   * Scenarios generated on a graph road model with several depots and many
+   * shortest paths of equal length must be identical to the scenarios that
+   * were generated by previous versions, both sequentially and in a batch.
+   */
+  @Test
+  public void testGraphScenariosBaseline() {
+    final ScenarioGenerator sg = createMultiDepotGraphGenerator();
+    final int num = BASELINE_FINGERPRINTS.length;
+    final List<Scenario> batch = sg.generate(7L, num, "b", new ForkJoinPool(2));
+    final RandomGenerator rng = new MersenneTwister(7L);
+    for (int i = 0; i < num; i++) {
+      assertThat(fingerprint(sg.generate(new MersenneTwister(rng.nextLong()),
+        "b-" + i))).isEqualTo(BASELINE_FINGERPRINTS[i]);
+      assertThat(fingerprint(batch.get(i)))
+        .isEqualTo(BASELINE_FINGERPRINTS[i]);
+    }
+  }
+
+  /**
+   * The travel times used for batch generation, which are shared between
+   * threads, must be equal to the travel times of sequential generation.
+   */
+  @Test
+  public void testGraphTravelTimesPathSource() {
+    final Graph<MultiAttributeData> graph = createGrid();
+    final ScenarioGenerator sg = createMultiDepotGraphGenerator();
+    final GraphRoadModel rm =
+      (GraphRoadModel) RoadModelBuilders.staticGraph(graph).build(null);
+    final ImmutableList<AddDepotEvent> depots = createDepots();
+    final ImmutableList<AddVehicleEvent> vehicles = ImmutableList.of(
+      AddVehicleEvent.create(-1, VehicleDTO.builder().speed(50d).build()));
+    final TravelTimes sequential = new GraphTravelTimes<>(rm,
+      sg.getTimeUnit(), depots, vehicles);
+    final TravelTimes batch = new BatchContext(sg, new long[0], "b",
+      new ScenarioSink() {
+        @Override
+        public void accept(int index, Scenario scenario) {}
+      }).getTravelTimes(depots, vehicles);
+    for (final Point from : graph.getNodes()) {
+      assertThat(batch.getTravelTimeToNearestDepot(from))
+        .isEqualTo(sequential.getTravelTimeToNearestDepot(from));
+      for (final Point to : graph.getNodes()) {
+        assertThat(batch.getShortestTravelTime(from, to))
+          .isEqualTo(sequential.getShortestTravelTime(from, to));
+      }
+    }
+  }
+
+  // a grid with connections of equal length and varying maximum speeds
+  static Graph<MultiAttributeData> createGrid() {
+    final Graph<MultiAttributeData> graph = new TableGraph<>();
+    for (int x = 0; x < GRID_SIZE; x++) {
+      for (int y = 0; y < GRID_SIZE; y++) {
+        final Point p = new Point(x, y);
+        if (x > 0) {
+          addConnections(graph, new Point(x - 1, y), p);
+        }
+        if (y > 0) {
+          addConnections(graph, new Point(x, y - 1), p);
+        }
+      }
+    }
+    return graph;
+  }
+
+  static ScenarioGenerator createGraphGenerator() {
+    final Graph<MultiAttributeData> graph = createGrid();
+    return ScenarioGenerator.builder()
+      .scenarioLength(4 * 60 * 60 * 1000L)
+      .parcels(Parcels.builder()
+        .announceTimes(TimeSeries.homogenousPoisson(4 * 60 * 60 * 1000L, 10))
+        .locations(new NodeLocations(graph.getNodes()))
+        .timeWindows(TimeWindows.builder().build())
+        .build())
+      .addModel(RoadModelBuilders.staticGraph(graph))
+      .addModel(DefaultPDPModel.builder())
+      .build();
+  }
+
+  // the order of the depots matters: the second depot is nearer to many
+  // nodes than the third, but the third depot is listed last
+  static ImmutableList<AddDepotEvent> createDepots() {
+    final int max = GRID_SIZE - 1;
+    return ImmutableList.of(
+      AddDepotEvent.create(-1, new Point(0, 0)),
+      AddDepotEvent.create(-1, new Point(max, max)),
+      AddDepotEvent.create(-1, new Point(max, 0)));
+  }
+
+  static ScenarioGenerator createMultiDepotGraphGenerator() {
+    final Graph<MultiAttributeData> graph = createGrid();
+    final ImmutableList<AddDepotEvent> depots = createDepots();
+    return ScenarioGenerator.builder()
+      .scenarioLength(4 * 60 * 60 * 1000L)
+      .depots(new DepotGenerator() {
+        @Override
+        public Iterable<? extends AddDepotEvent> generate(long seed,
+            Point center) {
+          return depots;
+        }
+      })
+      .parcels(Parcels.builder()
+        .announceTimes(TimeSeries.homogenousPoisson(4 * 60 * 60 * 1000L, 20))
+        .locations(new NodeLocations(graph.getNodes()))
+        .timeWindows(TimeWindows.builder().build())
+        .build())
+      .addModel(RoadModelBuilders.staticGraph(graph))
+      .addModel(DefaultPDPModel.builder())
+      .build();
+  }
+
+  static long fingerprint(Scenario s) {
+    long hash = 1L;
+    for (final TimedEvent e : s.getEvents()) {
+      hash = PRIME * hash + e.getTime();
+      if (e instanceof AddParcelEvent) {
+        final ParcelDTO dto = ((AddParcelEvent) e).getParcelDTO();
+        hash = PRIME * hash + hash(dto.getPickupLocation());
+        hash = PRIME * hash + hash(dto.getDeliveryLocation());
+        hash = PRIME * hash + dto.getPickupTimeWindow().begin();
+        hash = PRIME * hash + dto.getPickupTimeWindow().end();
+        hash = PRIME * hash + dto.getDeliveryTimeWindow().begin();
+        hash = PRIME * hash + dto.getDeliveryTimeWindow().end();
+        hash = PRIME * hash + dto.getOrderAnnounceTime();
+        hash = PRIME * hash + dto.getPickupDuration();
+        hash = PRIME * hash + dto.getDeliveryDuration();
+      }
+    }
+    return hash;
+  }
+
+  static long hash(Point p) {
+    return PRIME * Double.doubleToLongBits(p.x) + Double.doubleToLongBits(p.y);
+  }
+
+  static void addConnections(Graph<MultiAttributeData> graph, Point a,
+      Point b) {
+    final double speed = 60d + 20d * ((int) (a.x * 3 + a.y * 7) % 4);
+    graph.addConnection(a, b, MultiAttributeData.builder()
+      .setLength(1d).setMaxSpeed(speed).build());
+    graph.addConnection(b, a, MultiAttributeData.builder()
+      .setLength(1d).setMaxSpeed(speed).build());
+  }
+
+  static ScenarioGenerator createGenerator() {
+    return ScenarioGenerator.builder()
+      .scenarioLength(4 * 60 * 60 * 1000L)
+      .parcels(Parcels.builder()
+        .announceTimes(TimeSeries.homogenousPoisson(4 * 60 * 60 * 1000L, 10))
+        .locations(Locations.builder().square(5).buildUniform())
+        .timeWindows(TimeWindows.builder().build())
+        .build())
+      .addModel(PDPRoadModel.builder(RoadModelBuilders.plane()
+        .withMaxSpeed(50d))
+        .withAllowVehicleDiversion(true))
+      .addModel(DefaultPDPModel.builder())
+      .build();
+  }
+
+  static class NodeLocations implements LocationGenerator {
+    final ImmutableList<Point> nodes;
+
+    NodeLocations(Iterable<Point> ns) {
+      nodes = ImmutableList.copyOf(ns);
+    }
+
+    @Override
+    public ImmutableList<Point> generate(long seed, int numLocations) {
+      final RandomGenerator rng = new MersenneTwister(seed);
+      final ImmutableList.Builder<Point> locs = ImmutableList.builder();
+      for (int i = 0; i < numLocations; i++) {
+        locs.add(nodes.get(rng.nextInt(nodes.size())));
+      }
+      return locs.build();
+    }
+
+    @Override
+    public Point getCenter() {
+      return new Point(GRID_SIZE / 2, GRID_SIZE / 2);
+    }
+
+    @Override
+    public Point getMin() {
+      return new Point(0, 0);
+    }
+
+    @Override
+    public Point getMax() {
+      return new Point(GRID_SIZE - 1, GRID_SIZE - 1);
+    }
+  }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.scenario.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.rinde.rinsim.geom.Graph;
+import com.github.rinde.rinsim.geom.Graphs;
+import com.github.rinde.rinsim.geom.LengthData;
+import com.github.rinde.rinsim.geom.PathNotFoundException;
+import com.github.rinde.rinsim.geom.Point;
+import com.github.rinde.rinsim.geom.TableGraph;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests for {@link TravelTimeOracle}.
+ * @author Rinde van Lon
+ */
+public class TravelTimeOracleTest {
+  private static final double EPSILON = 1e-9;
+  private static final int SIZE = 6;
+
+  Graph<LengthData> graph;
+  Point[][] grid;
+  ImmutableList<Point> depots;
+
+  /**
+   * Creates a grid graph with slightly perturbed node positions, such that
+   * shortest paths are unique in most cases.
+   */
+  @Before
+  public void setUp() {
+    final RandomGenerator rng = new MersenneTwister(123L);
+    graph = new TableGraph<>();
+    grid = new Point[SIZE][SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      for (int j = 0; j < SIZE; j++) {
+        grid[i][j] = new Point(i * 10 + rng.nextDouble() * 4,
+          j * 10 + rng.nextDouble() * 4);
+      }
+    }
+    for (int i = 0; i < SIZE; i++) {
+      for (int j = 0; j < SIZE - 1; j++) {
+        Graphs.addBiPath(graph, grid[i][j], grid[i][j + 1]);
+        Graphs.addBiPath(graph, grid[j][i], grid[j + 1][i]);
+      }
+    }
+    // a one way shortcut
+    Graphs.addPath(graph, grid[0][0], grid[SIZE - 1][SIZE - 1]);
+    depots = ImmutableList.of(grid[0][0], grid[SIZE - 1][0], grid[2][3]);
+  }
+
+  /**
+   * The distance to the nearest depot must equal the shortest distance to any
+   * of the depots.
+   */
+  @Test
+  public void testNearestDepot() {
+    final TravelTimeOracle oracle = TravelTimeOracle.create(graph, depots, 0);
+    for (final Point from : graph.getNodes()) {
+      double min = Double.POSITIVE_INFINITY;
+      for (final Point depot : depots) {
+        min = Math.min(min, Graphs.pathLength(
+          Graphs.shortestPathEuclideanDistance(graph, from, depot)));
+      }
+      assertEquals(min, oracle.getDistanceToNearestDepot(from), EPSILON);
+
+      final List<Point> path = oracle.getPathToNearestDepot(from);
+      assertEquals(from, path.get(0));
+      assertEquals(oracle.getNearestDepot(from), path.get(path.size() - 1));
+      assertTrue(depots.contains(oracle.getNearestDepot(from)));
+      assertEquals(min, Graphs.pathLength(path), EPSILON);
+    }
+  }
+
+  /**
+   * Shortest paths must have the same length as the paths found by
+   * {@link Graphs#shortestPathEuclideanDistance(Graph, Point, Point)}, the
+   * lower bounds must not exceed the true distance.
+   */
+  @Test
+  public void testShortestPath() {
+    final TravelTimeOracle oracle = TravelTimeOracle.create(graph, depots);
+    for (final Point from : graph.getNodes()) {
+      for (final Point to : graph.getNodes()) {
+        final double expected = Graphs.pathLength(
+          Graphs.shortestPathEuclideanDistance(graph, from, to));
+        final List<Point> path = oracle.getShortestPath(from, to);
+        assertEquals(from, path.get(0));
+        assertEquals(to, path.get(path.size() - 1));
+        assertEquals(expected, Graphs.pathLength(path), EPSILON);
+        assertTrue(oracle.getLowerBound(from, to) <= expected + EPSILON);
+      }
+    }
+  }
+
+  /**
+   * Connections are directed, the oracle must respect this.
+   */
+  @Test
+  public void testDirected() {
+    final Graph<LengthData> g = new TableGraph<>();
+    final Point a = new Point(0, 0);
+    final Point b = new Point(1, 0);
+    final Point c = new Point(1, 1);
+    Graphs.addPath(g, a, b, c, a);
+    final TravelTimeOracle oracle =
+      TravelTimeOracle.create(g, ImmutableList.of(a));
+    assertEquals(ImmutableList.of(b, c, a), oracle.getPathToNearestDepot(b));
+    assertEquals(1 + Math.sqrt(2), oracle.getDistanceToNearestDepot(b),
+      EPSILON);
+    assertEquals(ImmutableList.of(c, a, b), oracle.getShortestPath(c, b));
+  }
+
+  /**
+   * Unreachable depots and nodes result in a {@link PathNotFoundException}.
+   */
+  @Test
+  public void testUnreachable() {
+    final Graph<LengthData> g = new TableGraph<>();
+    final Point a = new Point(0, 0);
+    final Point b = new Point(1, 0);
+    Graphs.addPath(g, a, b);
+    final TravelTimeOracle oracle =
+      TravelTimeOracle.create(g, ImmutableList.of(a));
+    boolean fail = false;
+    try {
+      oracle.getNearestDepot(b);
+    } catch (final PathNotFoundException e) {
+      fail = true;
+    }
+    assertTrue(fail);
+    fail = false;
+    try {
+      oracle.getShortestPath(b, a);
+    } catch (final PathNotFoundException e) {
+      fail = true;
+    }
+    assertTrue(fail);
+  }
+
+  /**
+   * Depots must be nodes in the graph.
+   */
+  @Test
+  public void testDepotNotInGraph() {
+    try {
+      TravelTimeOracle.create(graph, ImmutableList.of(new Point(-1, -1)));
+      fail();
+    } catch (final IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("not a node"));
+    }
+  }
+}
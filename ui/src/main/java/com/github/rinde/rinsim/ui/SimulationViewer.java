@@ -19,8 +19,12 @@ import static com.google.common.base.Preconditions.checkState;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Nullable;
 
@@ -28,6 +32,8 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.SashForm;
 import org.eclipse.swt.events.ControlEvent;
 import org.eclipse.swt.events.ControlListener;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.PaintEvent;
 import org.eclipse.swt.events.PaintListener;
 import org.eclipse.swt.events.SelectionEvent;
@@ -63,21 +69,30 @@ import com.github.rinde.rinsim.core.model.time.ClockController;
 import com.github.rinde.rinsim.core.model.time.RealtimeClockController;
 import com.github.rinde.rinsim.core.model.time.RealtimeClockController.ClockMode;
 import com.github.rinde.rinsim.core.model.time.TickListener;
+import com.github.rinde.rinsim.core.model.road.GraphRoadModel;
 import com.github.rinde.rinsim.core.model.time.TimeLapse;
+import com.github.rinde.rinsim.geom.ListenableGraph;
+import com.github.rinde.rinsim.geom.ListenableGraph.EventTypes;
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.ui.View.ViewOption;
 import com.github.rinde.rinsim.ui.renderers.CanvasRenderer;
 import com.github.rinde.rinsim.ui.renderers.PanelRenderer;
 import com.github.rinde.rinsim.ui.renderers.Renderer;
+import com.github.rinde.rinsim.ui.renderers.SnapshotRenderer;
 import com.github.rinde.rinsim.ui.renderers.ViewPort;
 import com.github.rinde.rinsim.ui.renderers.ViewRect;
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 
 /**
- * Simulation viewer.
+ * Simulation viewer. After a tick the simulation thread publishes a
+ * {@link Frame} containing the snapshots of all {@link SnapshotRenderer}s and
+ * requests an asynchronous redraw, it never waits for the UI thread. The UI
+ * thread always draws the most recently published frame, frames that are
+ * published while the UI is busy are dropped.
  *
  * @author Bartosz Michalik
  * @author Rinde van Lon
@@ -109,6 +124,9 @@ final class SimulationViewer extends Composite implements TickListener,
   private static final int MIN_SPEED_UP = 1;
   private static final int MAX_SPEED_UP = 512;
   private static final int MAX_ZOOM_LEVEL = 16;
+  private static final int TILE_SIZE = 512;
+  private static final int MAX_TILES = 64;
+  private static final float LOAD_FACTOR = .75f;
 
   boolean firstTime = true;
   final ClockController clock;
@@ -125,8 +143,12 @@ final class SimulationViewer extends Composite implements TickListener,
   private org.eclipse.swt.graphics.Point origin;
   private org.eclipse.swt.graphics.Point size;
 
-  @Nullable
-  private Image image;
+  // the tiles of the static layer, the least recently used are disposed
+  private final Map<Tile, Image> tiles;
+  // indicates whether the graph has changed since the tiles were rendered,
+  // is written by the simulation thread
+  private final AtomicBoolean tilesInvalid;
+  private boolean contentValid;
   private final List<PanelRenderer> panelRenderers;
   private final List<CanvasRenderer> canvasRenderers;
   private final boolean autoPlay;
@@ -146,6 +168,11 @@ final class SimulationViewer extends Composite implements TickListener,
   private int zoomRatio;
   private final Display display;
   private final Map<MenuItems, Integer> accelerators;
+  // the most recently published frame, is written by the simulation thread
+  private final AtomicReference<Optional<Frame>> latestFrame;
+  // indicates whether a redraw has been requested and is not yet started
+  private final AtomicBoolean redrawRequested;
+  private final Runnable redraw;
 
   SimulationViewer(Shell shell, ClockController cc, SimulatorAPI simapi,
       View.Builder vb) {
@@ -161,6 +188,21 @@ final class SimulationViewer extends Composite implements TickListener,
 
     canvasRenderers = new ArrayList<>();
     panelRenderers = new ArrayList<>();
+    tiles = new LinkedHashMap<>(MAX_TILES, LOAD_FACTOR, true);
+    tilesInvalid = new AtomicBoolean();
+    latestFrame = new AtomicReference<>(Optional.<Frame>absent());
+    redrawRequested = new AtomicBoolean();
+    redraw = new Runnable() {
+      @Override
+      public void run() {
+        redrawRequested.set(false);
+        final Optional<Frame> frame = latestFrame.get();
+        if (!canvas.isDisposed() && frame.isPresent()) {
+          updateTimeLabel(frame.get().getTime());
+          canvas.redraw();
+        }
+      }
+    };
 
     speedUp = vb.speedUp();
     shell.setLayout(new FillLayout());
@@ -271,6 +313,12 @@ final class SimulationViewer extends Composite implements TickListener,
     size = START_SCREEN_SIZE;
     canvas.addPaintListener(this);
     canvas.addControlListener(this);
+    canvas.addDisposeListener(new DisposeListener() {
+      @Override
+      public void widgetDisposed(@Nullable DisposeEvent e) {
+        clearTiles();
+      }
+    });
     this.layout();
 
     timeLabel = new Label(canvas, SWT.NONE);
@@ -433,11 +481,8 @@ final class SimulationViewer extends Composite implements TickListener,
       origin.y /= 2;
       zoomRatio >>= 1;
     }
-    if (image != null) {
-      image.dispose();
-    }
-    // this forces a redraw
-    image = null;
+    // the tiles of other zoom levels remain cached
+    contentValid = false;
     canvas.redraw();
   }
 
@@ -453,19 +498,78 @@ final class SimulationViewer extends Composite implements TickListener,
     }
   }
 
-  Image renderStatic() {
-    size = new org.eclipse.swt.graphics.Point((int) (m * viewRect.width),
-      (int) (m * viewRect.height));
-    final Image img = new Image(getDisplay(), size.x, size.y);
-    final GC gc = new GC(img);
+  void updateContentSize() {
+    size = new org.eclipse.swt.graphics.Point(
+      Math.max(1, (int) (m * viewRect.width)),
+      Math.max(1, (int) (m * viewRect.height)));
+  }
+
+  Rectangle getContentBounds() {
+    return new Rectangle(0, 0, size.x, size.y);
+  }
 
+  // draws the tiles of the static layer that intersect the clipping area, the
+  // static renderers only render the tiles that are not in the cache
+  void drawTiles(GC gc, org.eclipse.swt.graphics.Point center) {
+    final Rectangle clip = gc.getClipping();
+    final int columns = (size.x + TILE_SIZE - 1) / TILE_SIZE;
+    final int rows = (size.y + TILE_SIZE - 1) / TILE_SIZE;
+    final int c1 = Math.max(0, tileIndex(clip.x - center.x));
+    final int r1 = Math.max(0, tileIndex(clip.y - center.y));
+    final int c2 =
+      Math.min(columns - 1, tileIndex(clip.x + clip.width - 1 - center.x));
+    final int r2 =
+      Math.min(rows - 1, tileIndex(clip.y + clip.height - 1 - center.y));
+    if (tilesInvalid.getAndSet(false)) {
+      clearTiles();
+    }
+    for (int r = r1; r <= r2; r++) {
+      for (int c = c1; c <= c2; c++) {
+        final Tile tile = Tile.create(m, c, r);
+        Image img = tiles.get(tile);
+        if (img == null) {
+          img = renderTile(tile);
+          tiles.put(tile, img);
+          evictTiles();
+        }
+        gc.drawImage(img, center.x + c * TILE_SIZE, center.y + r * TILE_SIZE);
+      }
+    }
+  }
+
+  static int tileIndex(int pixel) {
+    return (int) Math.floor(pixel / (double) TILE_SIZE);
+  }
+
+  Image renderTile(Tile tile) {
+    final int x = tile.getColumn() * TILE_SIZE;
+    final int y = tile.getRow() * TILE_SIZE;
+    final Image img = new Image(getDisplay(), Math.min(TILE_SIZE, size.x - x),
+      Math.min(TILE_SIZE, size.y - y));
+    final GC gc = new GC(img);
+    final ViewPort vp = new ViewPort(new Point(-x, -y), viewRect, m);
     for (final CanvasRenderer r : canvasRenderers) {
-      r.renderStatic(gc, new ViewPort(new Point(0, 0), viewRect, m));
+      r.renderStatic(gc, vp);
     }
     gc.dispose();
     return img;
   }
 
+  void clearTiles() {
+    for (final Image img : tiles.values()) {
+      img.dispose();
+    }
+    tiles.clear();
+  }
+
+  void evictTiles() {
+    final Iterator<Image> it = tiles.values().iterator();
+    while (tiles.size() > MAX_TILES) {
+      it.next().dispose();
+      it.remove();
+    }
+  }
+
   @Override
   public void paintControl(@Nullable PaintEvent e) {
     assert e != null;
@@ -477,25 +581,35 @@ final class SimulationViewer extends Composite implements TickListener,
       firstTime = false;
     }
 
-    if (image == null) {
-      image = renderStatic();
+    if (!contentValid) {
+      updateContentSize();
+      contentValid = true;
       updateScrollbars(false);
     }
 
     final org.eclipse.swt.graphics.Point center = getCenteredOrigin();
-
-    gc.drawImage(image, center.x, center.y);
+    final Optional<Frame> published = latestFrame.get();
+    // before the first tick there is no frame, the simulation is not running
+    // and it is safe to create the snapshots in the UI thread
+    final Frame frame = published.isPresent() ? published.get()
+      : captureFrame(clock.getCurrentTime());
+
+    drawTiles(gc, center);
+    final ViewPort vp =
+      new ViewPort(new Point(center.x, center.y), viewRect, m);
     for (final CanvasRenderer renderer : canvasRenderers) {
-      renderer.renderDynamic(gc, new ViewPort(new Point(center.x,
-        center.y),
-        viewRect, m),
-        clock.getCurrentTime());
+      if (frame.getSnapshots().containsKey(renderer)) {
+        renderSnapshot((SnapshotRenderer<?>) renderer, gc, vp,
+          frame.getTime(), frame.getSnapshots().get(renderer));
+      } else {
+        renderer.renderDynamic(gc, vp, frame.getTime());
+      }
     }
     for (final PanelRenderer renderer : panelRenderers) {
       renderer.render();
     }
 
-    final Rectangle content = image.getBounds();
+    final Rectangle content = getContentBounds();
     final Rectangle client = canvas.getClientArea();
 
     hBar.setVisible(content.width > client.width);
@@ -507,8 +621,42 @@ final class SimulationViewer extends Composite implements TickListener,
     }
   }
 
+  Frame captureFrame(long time) {
+    final ImmutableMap.Builder<SnapshotRenderer<?>, Object> snapshots =
+      ImmutableMap.builder();
+    for (final CanvasRenderer renderer : canvasRenderers) {
+      if (renderer instanceof SnapshotRenderer) {
+        final SnapshotRenderer<?> sr = (SnapshotRenderer<?>) renderer;
+        snapshots.put(sr, sr.createSnapshot(time));
+      }
+    }
+    return Frame.create(time, snapshots.build());
+  }
+
+  @SuppressWarnings("unchecked")
+  static <S> void renderSnapshot(SnapshotRenderer<S> renderer, GC gc,
+      ViewPort vp, long time, Object snapshot) {
+    renderer.renderSnapshot(gc, vp, time, (S) snapshot);
+  }
+
+  void updateTimeLabel(long time) {
+    if (clock.getTickLength() > TIME_FORMATTER_THRESHOLD) {
+      final StringBuilder sb = new StringBuilder();
+      sb.append(FORMATTER.print(new Period(0, time)));
+
+      if (isRealtime) {
+        sb.append(SPACE);
+        sb.append(((RealtimeClockController) clock).getClockMode().name());
+      }
+      timeLabel.setText(sb.toString());
+    } else {
+      timeLabel.setText(Long.toString(time));
+    }
+    timeLabel.pack();
+  }
+
   org.eclipse.swt.graphics.Point getCenteredOrigin() {
-    final Rectangle rect = image.getBounds();
+    final Rectangle rect = getContentBounds();
     final Rectangle client = canvas.getClientArea();
     final int zeroX = client.x + client.width / 2 - rect.width / 2;
     final int zeroY = client.y + client.height / 2 - rect.height / 2;
@@ -517,7 +665,7 @@ final class SimulationViewer extends Composite implements TickListener,
   }
 
   void updateScrollbars(boolean adaptToScrollbar) {
-    final Rectangle rect = image.getBounds();
+    final Rectangle rect = getContentBounds();
     final Rectangle client = canvas.getClientArea();
 
     hBar.setMaximum(rect.width);
@@ -571,7 +719,7 @@ final class SimulationViewer extends Composite implements TickListener,
 
   @Override
   public void controlResized(ControlEvent e) {
-    if (image != null) {
+    if (contentValid) {
       updateScrollbars(true);
       scrollHorizontal();
       scrollVertical();
@@ -590,7 +738,7 @@ final class SimulationViewer extends Composite implements TickListener,
 
   void scrollVertical() {
     final org.eclipse.swt.graphics.Point center = getCenteredOrigin();
-    final Rectangle content = image.getBounds();
+    final Rectangle content = getContentBounds();
     final Rectangle client = canvas.getClientArea();
     if (client.height > content.height) {
       origin.y = 0;
@@ -605,7 +753,7 @@ final class SimulationViewer extends Composite implements TickListener,
 
   void scrollHorizontal() {
     final org.eclipse.swt.graphics.Point center = getCenteredOrigin();
-    final Rectangle content = image.getBounds();
+    final Rectangle content = getContentBounds();
     final Rectangle client = canvas.getClientArea();
     if (client.width > content.width) {
       origin.x = 0;
@@ -646,28 +794,11 @@ final class SimulationViewer extends Composite implements TickListener,
         return;
       }
     }
-    display.syncExec(new Runnable() {
-      @Override
-      public void run() {
-        if (!canvas.isDisposed()) {
-          if (clock.getTickLength() > TIME_FORMATTER_THRESHOLD) {
-            final StringBuilder sb = new StringBuilder();
-            sb.append(FORMATTER.print(new Period(0, clock.getCurrentTime())));
-
-            if (isRealtime) {
-              sb.append(SPACE);
-              sb.append(
-                ((RealtimeClockController) clock).getClockMode().name());
-            }
-            timeLabel.setText(sb.toString());
-          } else {
-            timeLabel.setText(Long.toString(clock.getCurrentTime()));
-          }
-          timeLabel.pack();
-          canvas.redraw();
-        }
-      }
-    });
+    latestFrame.set(Optional.of(captureFrame(clock.getCurrentTime())));
+    // at most one redraw is pending, it draws the latest frame
+    if (redrawRequested.compareAndSet(false, true) && !display.isDisposed()) {
+      display.asyncExec(redraw);
+    }
   }
 
   @Override
@@ -694,6 +825,17 @@ final class SimulationViewer extends Composite implements TickListener,
   @Override
   public void registerModelProvider(ModelProvider mp) {
     modelProvider = mp;
+    final GraphRoadModel grm = mp.tryGetModel(GraphRoadModel.class);
+    if (grm != null && grm.getGraph() instanceof ListenableGraph) {
+      // the static layer shows the graph, its tiles are stale when it changes
+      ((ListenableGraph<?>) grm.getGraph()).getEventAPI()
+        .addListener(new com.github.rinde.rinsim.event.Listener() {
+          @Override
+          public void handleEvent(com.github.rinde.rinsim.event.Event e) {
+            tilesInvalid.set(true);
+          }
+        }, EventTypes.ADD_CONNECTION, EventTypes.REMOVE_CONNECTION);
+    }
   }
 
   @Override
@@ -733,4 +875,37 @@ final class SimulationViewer extends Composite implements TickListener,
       return sv;
     }
   }
+
+  /**
+   * The snapshots of the {@link SnapshotRenderer}s at a specific time.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  abstract static class Frame {
+    abstract long getTime();
+
+    abstract ImmutableMap<SnapshotRenderer<?>, Object> getSnapshots();
+
+    static Frame create(long time,
+        ImmutableMap<SnapshotRenderer<?>, Object> snapshots) {
+      return new AutoValue_SimulationViewer_Frame(time, snapshots);
+    }
+  }
+
+  /**
+   * A tile of the static layer at a specific scale.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  abstract static class Tile {
+    abstract double getScale();
+
+    abstract int getColumn();
+
+    abstract int getRow();
+
+    static Tile create(double scale, int column, int row) {
+      return new AutoValue_SimulationViewer_Tile(scale, column, row);
+    }
+  }
 }
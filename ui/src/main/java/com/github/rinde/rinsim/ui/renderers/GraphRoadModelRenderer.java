@@ -52,6 +52,12 @@ import com.google.common.collect.Sets;
  * A simple {@link CanvasRenderer} for {@link GraphRoadModel}s. Instances can be
  * obtained via {@link #builder()}.
  * <p>
+ * The nodes and connections are kept in a spatial index such that only the
+ * visible part of the graph, as defined by the clipping area of the graphics
+ * context, is drawn. Direction arrows are omitted for connections that are too
+ * short to show them and node coordinates are omitted when too many nodes are
+ * visible.
+ * <p>
  * <b>Requires:</b> a {@link GraphRoadModel} in the
  * {@link com.github.rinde.rinsim.core.Simulator}.
  * @author Rinde van Lon (rinde.vanlon@cs.kuleuven.be)
@@ -63,6 +69,9 @@ public final class GraphRoadModelRenderer extends AbstractCanvasRenderer {
   private static final int ARROW_HEAD_SIZE = 8;
   // private static final Point ARROW_REL_FROM_TO = new Point(.9, .95);
   private static final Point ARROW_REL_FROM_TO = new Point(.6, .65);
+  private static final int CULL_MARGIN_PX = 16;
+  private static final int LABEL_MARGIN_PX = 200;
+  private static final int MAX_LABELS = 500;
 
   final List<Connection<? extends ConnectionData>> updatedConnections;
 
@@ -74,10 +83,13 @@ public final class GraphRoadModelRenderer extends AbstractCanvasRenderer {
   private final boolean showRelativeSpeedStatic;
   private final boolean showRelativeSpeedDynamic;
   private final RenderHelper helper;
+  // is invalidated when the graph changes
+  private volatile Optional<GraphIndex> index;
 
   GraphRoadModelRenderer(GraphRoadModel grm, Builder b) {
     model = grm;
     updatedConnections = new CopyOnWriteArrayList<>();
+    index = Optional.absent();
 
     margin = b.margin();
     showNodes = b.vizOptions().contains(VizOptions.NODE_CIRCLES);
@@ -103,33 +115,60 @@ public final class GraphRoadModelRenderer extends AbstractCanvasRenderer {
             + "showRelativeSpeedDynamic, yet cannot provide a ListenableGraph");
       }
     }
+    if (grm.getGraph() instanceof ListenableGraph) {
+      ((ListenableGraph<?>) grm.getGraph()).getEventAPI()
+        .addListener(new Listener() {
+          @Override
+          public void handleEvent(Event e) {
+            index = Optional.absent();
+          }
+        }, EventTypes.ADD_CONNECTION, EventTypes.REMOVE_CONNECTION);
+    }
+  }
+
+  GraphIndex getIndex() {
+    final Optional<GraphIndex> current = index;
+    if (current.isPresent()) {
+      return current.get();
+    }
+    final GraphIndex created = new GraphIndex(model.getGraph());
+    index = Optional.of(created);
+    return created;
   }
 
   @Override
   public void renderStatic(GC gc, ViewPort vp) {
     helper.adapt(gc, vp);
-    final Graph<? extends ConnectionData> graph = model.getGraph();
-
-    if (showNodes) {
-      for (final Point node : graph.getNodes()) {
-        helper.setBackgroundSysCol(SWT.COLOR_RED);
-        helper.fillCircle(node, NODE_RADIUS);
+    final GraphIndex graphIndex = getIndex();
+    final int cullMargin =
+      showNodeCoordinates ? LABEL_MARGIN_PX : CULL_MARGIN_PX;
+    final ViewRect visible = vp.toViewRect(gc.getClipping(), cullMargin);
+
+    if (showNodes || showNodeCoordinates) {
+      final List<Point> nodes = graphIndex.nodes.query(visible);
+      if (showNodes) {
+        for (final Point node : nodes) {
+          helper.setBackgroundSysCol(SWT.COLOR_RED);
+          helper.fillCircle(node, NODE_RADIUS);
+        }
       }
-    }
-    if (showNodeCoordinates) {
-      for (final Point node : graph.getNodes()) {
-        helper.setForegroundSysCol(SWT.COLOR_GRAY);
-        helper.drawString(node.toString(), node, true,
-          (int) RELATIVE_TEXT_POSITION.x, (int) RELATIVE_TEXT_POSITION.y);
+      if (showNodeCoordinates && nodes.size() <= MAX_LABELS) {
+        for (final Point node : nodes) {
+          helper.setForegroundSysCol(SWT.COLOR_GRAY);
+          helper.drawString(node.toString(), node, true,
+            (int) RELATIVE_TEXT_POSITION.x, (int) RELATIVE_TEXT_POSITION.y);
+        }
       }
     }
 
-    for (final Connection<? extends ConnectionData> e : graph
-      .getConnections()) {
+    for (final Connection<? extends ConnectionData> e : graphIndex.connections
+      .query(visible)) {
       helper.setForegroundSysCol(SWT.COLOR_GRAY);
       helper.drawLine(e.from(), e.to());
 
-      if (showDirectionArrows) {
+      // arrows are only drawn when they fit on the connection
+      if (showDirectionArrows && vp.scale(Point.distance(e.from(), e.to()))
+        >= 2 * ARROW_HEAD_SIZE) {
         final double dist = Point.distance(e.from(), e.to());
         final Point f = PointUtil.on(e, dist * ARROW_REL_FROM_TO.x);
         final Point t = PointUtil.on(e, dist * ARROW_REL_FROM_TO.y);
@@ -164,7 +203,11 @@ public final class GraphRoadModelRenderer extends AbstractCanvasRenderer {
     if (showRelativeSpeedDynamic) {
       final Set<Connection<? extends ConnectionData>> set =
         ImmutableSet.copyOf(updatedConnections);
+      final ViewRect visible = vp.toViewRect(gc.getClipping(), CULL_MARGIN_PX);
       for (final Connection<? extends ConnectionData> e : set) {
+        if (!visible.intersects(e.from(), e.to())) {
+          continue;
+        }
         final double dist = Point.distance(e.from(), e.to());
         final Point f = PointUtil.on(e, dist * ARROW_REL_FROM_TO.x);
         final Point t = PointUtil.on(e, dist * ARROW_REL_FROM_TO.y);
@@ -204,6 +247,26 @@ public final class GraphRoadModelRenderer extends AbstractCanvasRenderer {
     return Builder.create();
   }
 
+  static class GraphIndex {
+    final GridIndex<Point> nodes;
+    final GridIndex<Connection<? extends ConnectionData>> connections;
+
+    GraphIndex(Graph<? extends ConnectionData> graph) {
+      final GridIndex.Builder<Point> nb = GridIndex.builder();
+      for (final Point node : graph.getNodes()) {
+        nb.add(node, node);
+      }
+      nodes = nb.build();
+      final GridIndex.Builder<Connection<? extends ConnectionData>> cb =
+        GridIndex.builder();
+      for (final Connection<? extends ConnectionData> c : graph
+        .getConnections()) {
+        cb.add(c, c.from().x, c.from().y, c.to().x, c.to().y);
+      }
+      connections = cb.build();
+    }
+  }
+
   enum VizOptions {
     NODE_CIRCLES, NODE_COORDS, DIR_ARROWS, REL_SPEED_D, REL_SPEED_S;
   }
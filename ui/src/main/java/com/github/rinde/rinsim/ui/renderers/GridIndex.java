@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.ui.renderers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import com.github.rinde.rinsim.geom.Point;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
+
+/**
+ * An immutable uniform grid that indexes items by their bounding box. The
+ * bounds of the grid are the bounds of all items, the number of cells is in
+ * the order of the number of items. Querying the items that intersect a
+ * rectangle takes time proportional to the number of cells that intersect the
+ * rectangle and the number of items in these cells.
+ * @author Rinde van Lon
+ * @param <T> The type of items.
+ */
+final class GridIndex<T> {
+  static final int X1 = 0;
+  static final int Y1 = 1;
+  static final int X2 = 2;
+  static final int Y2 = 3;
+  static final int STRIDE = 4;
+
+  final ImmutableList<T> items;
+  final double minX;
+  final double minY;
+  final double cellWidth;
+  final double cellHeight;
+  final int columns;
+  final int rows;
+  // the indices of the items in each cell
+  final int[][] cells;
+  final double[] bounds;
+
+  GridIndex(Builder<T> b) {
+    items = ImmutableList.copyOf(b.items);
+    bounds = Arrays.copyOf(b.bounds, items.size() * STRIDE);
+    final int n = items.size();
+    double x1 = Double.POSITIVE_INFINITY;
+    double y1 = Double.POSITIVE_INFINITY;
+    double x2 = Double.NEGATIVE_INFINITY;
+    double y2 = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < n; i++) {
+      x1 = Math.min(x1, b.bounds[i * STRIDE + X1]);
+      y1 = Math.min(y1, b.bounds[i * STRIDE + Y1]);
+      x2 = Math.max(x2, b.bounds[i * STRIDE + X2]);
+      y2 = Math.max(y2, b.bounds[i * STRIDE + Y2]);
+    }
+    final int side = Math.max(1, (int) Math.sqrt(n));
+    minX = n == 0 ? 0 : x1;
+    minY = n == 0 ? 0 : y1;
+    columns = side;
+    rows = side;
+    cellWidth = n == 0 || x2 == x1 ? 1d : (x2 - x1) / side;
+    cellHeight = n == 0 || y2 == y1 ? 1d : (y2 - y1) / side;
+
+    final List<List<Integer>> lists = new ArrayList<>(columns * rows);
+    for (int i = 0; i < columns * rows; i++) {
+      lists.add(new ArrayList<Integer>());
+    }
+    for (int i = 0; i < n; i++) {
+      final int c1 = column(b.bounds[i * STRIDE + X1]);
+      final int r1 = row(b.bounds[i * STRIDE + Y1]);
+      final int c2 = column(b.bounds[i * STRIDE + X2]);
+      final int r2 = row(b.bounds[i * STRIDE + Y2]);
+      for (int r = r1; r <= r2; r++) {
+        for (int c = c1; c <= c2; c++) {
+          lists.get(r * columns + c).add(i);
+        }
+      }
+    }
+    cells = new int[lists.size()][];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = Ints.toArray(lists.get(i));
+    }
+  }
+
+  /**
+   * Finds the items of which the bounding box intersects the specified
+   * rectangle.
+   * @param rect The rectangle.
+   * @return The items in the order in which they were added.
+   */
+  List<T> query(ViewRect rect) {
+    if (items.isEmpty()) {
+      return ImmutableList.of();
+    }
+    final int c1 = column(rect.min.x);
+    final int r1 = row(rect.min.y);
+    final int c2 = column(rect.max.x);
+    final int r2 = row(rect.max.y);
+    final BitSet found = new BitSet(items.size());
+    for (int r = r1; r <= r2; r++) {
+      for (int c = c1; c <= c2; c++) {
+        for (final int i : cells[r * columns + c]) {
+          found.set(i);
+        }
+      }
+    }
+    final List<T> result = new ArrayList<>();
+    for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+      if (bounds[i * STRIDE + X1] <= rect.max.x
+        && bounds[i * STRIDE + X2] >= rect.min.x
+        && bounds[i * STRIDE + Y1] <= rect.max.y
+        && bounds[i * STRIDE + Y2] >= rect.min.y) {
+        result.add(items.get(i));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return All items in the order in which they were added.
+   */
+  ImmutableList<T> getItems() {
+    return items;
+  }
+
+  int column(double x) {
+    return constrain((int) Math.floor((x - minX) / cellWidth), columns);
+  }
+
+  int row(double y) {
+    return constrain((int) Math.floor((y - minY) / cellHeight), rows);
+  }
+
+  static int constrain(int index, int size) {
+    return Math.max(0, Math.min(size - 1, index));
+  }
+
+  static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  static final class Builder<T> {
+    final List<T> items;
+    double[] bounds;
+
+    Builder() {
+      items = new ArrayList<>();
+      bounds = new double[0];
+    }
+
+    Builder<T> add(T item, double x1, double y1, double x2, double y2) {
+      final int i = items.size() * STRIDE;
+      bounds = Doubles.ensureCapacity(bounds, i + STRIDE, i + STRIDE);
+      bounds[i + X1] = Math.min(x1, x2);
+      bounds[i + Y1] = Math.min(y1, y2);
+      bounds[i + X2] = Math.max(x1, x2);
+      bounds[i + Y2] = Math.max(y1, y2);
+      items.add(item);
+      return this;
+    }
+
+    Builder<T> add(T item, Point p) {
+      return add(item, p.x, p.y, p.x, p.y);
+    }
+
+    GridIndex<T> build() {
+      return new GridIndex<>(this);
+    }
+  }
+}
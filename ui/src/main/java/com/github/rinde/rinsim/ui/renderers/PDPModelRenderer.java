@@ -15,9 +15,8 @@
  */
 package com.github.rinde.rinsim.ui.renderers;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Color;
@@ -37,18 +36,23 @@ import com.github.rinde.rinsim.core.model.road.RoadModel;
 import com.github.rinde.rinsim.core.model.road.RoadUser;
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.ui.renderers.CanvasRenderer.AbstractCanvasRenderer;
+import com.github.rinde.rinsim.ui.renderers.PDPModelRenderer.PDPSnapshot;
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
 
 /**
  * @author Rinde van Lon
  *
  */
-public final class PDPModelRenderer extends AbstractCanvasRenderer {
+public final class PDPModelRenderer extends AbstractCanvasRenderer
+    implements SnapshotRenderer<PDPSnapshot> {
   private static final RGB LIGHT_GRAY = new RGB(205, 201, 201);
   private static final RGB ORANGE = new RGB(255, 160, 0);
   private static final int OVAL_RADIUS_PX = 5;
   private static final int OVAL_DIAMETER_PX = 2 * OVAL_RADIUS_PX;
   private static final int STATE_TEXT_OFFSET = -20;
+  private static final int CULL_MARGIN_PX = 100;
+  private static final int MAX_LABELS = 500;
 
   private final Color black;
   private final Color white;
@@ -90,86 +94,131 @@ public final class PDPModelRenderer extends AbstractCanvasRenderer {
 
   @Override
   public void renderDynamic(GC gc, ViewPort vp, long time) {
-    helper.adapt(gc, vp);
+    renderSnapshot(gc, vp, time, createSnapshot(time));
+  }
+
+  @Override
+  public PDPSnapshot createSnapshot(long time) {
+    final GridIndex.Builder<Point> depots = GridIndex.builder();
+    final GridIndex.Builder<VehicleSnapshot> vehicles = GridIndex.builder();
+    final GridIndex.Builder<ParcelSnapshot> parcels = GridIndex.builder();
     synchronized (pdpModel) {
       final Map<RoadUser, Point> posMap = roadModel.getObjectsAndPositions();
-      final Set<Vehicle> vehicles = pdpModel.getVehicles();
-
-      final Set<Depot> depots = roadModel.getObjectsOfType(Depot.class);
-      for (final Depot d : depots) {
-        helper.setBackgroundSysCol(SWT.COLOR_GRAY);
-        helper.fillRect(posMap.get(d), OVAL_RADIUS_PX);
+      for (final Depot d : roadModel.getObjectsOfType(Depot.class)) {
+        depots.add(posMap.get(d), posMap.get(d));
       }
-
-      for (final Vehicle v : vehicles) {
+      for (final Vehicle v : pdpModel.getVehicles()) {
         if (posMap.containsKey(v)) {
           final Point p = posMap.get(v);
-          final double size = pdpModel.getContentsSize(v);
-
-          final Collection<Parcel> contents = pdpModel.getContents(v);
-          final int x = vp.toCoordX(p.x);
-          final int y = vp.toCoordY(p.y);
-
+          final VehicleState state = pdpModel.getVehicleState(v);
+          final long timeNeeded = state == VehicleState.IDLE ? 0L
+            : pdpModel.getVehicleActionInfo(v).timeNeeded();
+          final ImmutableList<Parcel> contents =
+            ImmutableList.copyOf(pdpModel.getContents(v));
+          // the bounding box includes the destination lines
+          double x1 = p.x;
+          double y1 = p.y;
+          double x2 = p.x;
+          double y2 = p.y;
           if (drawDestLines) {
-            gc.setForeground(black);
             for (final Parcel parcel : contents) {
-              final Point po = parcel.getDeliveryLocation();
-              final int xd = vp.toCoordX(po.x);
-              final int yd = vp.toCoordY(po.y);
-              if (parcel.getDeliveryTimeWindow().isBeforeStart(time)) {
-                gc.setBackground(darkGreen);
-              } else if (parcel.getDeliveryTimeWindow().isBeforeEnd(time)) {
-                gc.setBackground(green);
-              } else {
-                gc.setBackground(orange);
-              }
-              gc.drawLine(x, y, xd, yd);
-              gc.fillOval(xd - OVAL_RADIUS_PX, yd - OVAL_RADIUS_PX,
-                OVAL_DIAMETER_PX, OVAL_DIAMETER_PX);
-              gc.drawOval(xd - OVAL_RADIUS_PX, yd - OVAL_RADIUS_PX,
-                OVAL_DIAMETER_PX, OVAL_DIAMETER_PX);
+              final Point dest = parcel.getDeliveryLocation();
+              x1 = Math.min(x1, dest.x);
+              y1 = Math.min(y1, dest.y);
+              x2 = Math.max(x2, dest.x);
+              y2 = Math.max(y2, dest.y);
             }
           }
-          gc.setBackground(backgroundInfo);
-          gc.setForeground(foregroundInfo);
-          final VehicleState state = pdpModel.getVehicleState(v);
-          if (state != VehicleState.IDLE) {
-            gc.drawText(
-              state.toString() + " "
-                + pdpModel.getVehicleActionInfo(v).timeNeeded(),
-              x, y - STATE_TEXT_OFFSET);
-          }
-          gc.drawText(
-            String.format("%d (%1.1f)", pdpModel.getContents(v).size(), size),
-            x,
-            y);
+          vehicles.add(VehicleSnapshot.create(p, state, timeNeeded, contents,
+            pdpModel.getContentsSize(v)), x1, y1, x2, y2);
+        }
+      }
+      for (final Parcel parcel : pdpModel.getParcels(
+        ParcelState.AVAILABLE, ParcelState.ANNOUNCED)) {
+        if (posMap.containsKey(parcel)) {
+          final Point p = posMap.get(parcel);
+          final Point dest = parcel.getDeliveryLocation();
+          parcels.add(ParcelSnapshot.create(parcel, p), p.x, p.y, dest.x,
+            dest.y);
         }
       }
+    }
+    return PDPSnapshot.create(depots, vehicles, parcels);
+  }
 
-      final Collection<Parcel> parcels = pdpModel.getParcels(
-        ParcelState.AVAILABLE, ParcelState.ANNOUNCED);
-      for (final Parcel parcel : parcels) {
+  @Override
+  public void renderSnapshot(GC gc, ViewPort vp, long time,
+      PDPSnapshot snapshot) {
+    helper.adapt(gc, vp);
+    final ViewRect visible = vp.toViewRect(gc.getClipping(), CULL_MARGIN_PX);
+    for (final Point d : snapshot.getDepots().query(visible)) {
+      helper.setBackgroundSysCol(SWT.COLOR_GRAY);
+      helper.fillRect(d, OVAL_RADIUS_PX);
+    }
 
-        final Point p = posMap.get(parcel);
-        if (posMap.containsKey(parcel)) {
-          final int x = vp.toCoordX(p.x);
-          final int y = vp.toCoordY(p.y);
-          gc.setForeground(lightGray);
-          gc.drawLine(x, y, vp.toCoordX(parcel.getDeliveryLocation().x),
-            vp.toCoordY(parcel.getDeliveryLocation().y));
+    final List<VehicleSnapshot> vehicles =
+      snapshot.getVehicles().query(visible);
+    // the texts are omitted when they would clutter the view
+    final boolean drawText = vehicles.size() <= MAX_LABELS;
+    for (final VehicleSnapshot v : vehicles) {
+      final Point p = v.getPosition();
+      final int x = vp.toCoordX(p.x);
+      final int y = vp.toCoordY(p.y);
 
-          if (parcel.getPickupTimeWindow().isBeforeStart(time)) {
+      if (drawDestLines) {
+        gc.setForeground(black);
+        for (final Parcel parcel : v.getContents()) {
+          final Point po = parcel.getDeliveryLocation();
+          final int xd = vp.toCoordX(po.x);
+          final int yd = vp.toCoordY(po.y);
+          if (parcel.getDeliveryTimeWindow().isBeforeStart(time)) {
             gc.setBackground(darkGreen);
-          } else if (parcel.getPickupTimeWindow().isBeforeEnd(time)) {
+          } else if (parcel.getDeliveryTimeWindow().isBeforeEnd(time)) {
             gc.setBackground(green);
           } else {
             gc.setBackground(orange);
           }
-          gc.setForeground(black);
-          gc.fillOval(x - OVAL_RADIUS_PX, y - OVAL_RADIUS_PX, OVAL_DIAMETER_PX,
-            OVAL_DIAMETER_PX);
+          gc.drawLine(x, y, xd, yd);
+          gc.fillOval(xd - OVAL_RADIUS_PX, yd - OVAL_RADIUS_PX,
+            OVAL_DIAMETER_PX, OVAL_DIAMETER_PX);
+          gc.drawOval(xd - OVAL_RADIUS_PX, yd - OVAL_RADIUS_PX,
+            OVAL_DIAMETER_PX, OVAL_DIAMETER_PX);
         }
       }
+      if (!drawText) {
+        continue;
+      }
+      gc.setBackground(backgroundInfo);
+      gc.setForeground(foregroundInfo);
+      if (v.getState() != VehicleState.IDLE) {
+        gc.drawText(v.getState().toString() + " " + v.getTimeNeeded(),
+          x, y - STATE_TEXT_OFFSET);
+      }
+      gc.drawText(
+        String.format("%d (%1.1f)", v.getContents().size(),
+          v.getContentsSize()),
+        x,
+        y);
+    }
+
+    for (final ParcelSnapshot ps : snapshot.getParcels().query(visible)) {
+      final Parcel parcel = ps.getParcel();
+      final int x = vp.toCoordX(ps.getPosition().x);
+      final int y = vp.toCoordY(ps.getPosition().y);
+      gc.setForeground(lightGray);
+      gc.drawLine(x, y, vp.toCoordX(parcel.getDeliveryLocation().x),
+        vp.toCoordY(parcel.getDeliveryLocation().y));
+
+      if (parcel.getPickupTimeWindow().isBeforeStart(time)) {
+        gc.setBackground(darkGreen);
+      } else if (parcel.getPickupTimeWindow().isBeforeEnd(time)) {
+        gc.setBackground(green);
+      } else {
+        gc.setBackground(orange);
+      }
+      gc.setForeground(black);
+      gc.fillOval(x - OVAL_RADIUS_PX, y - OVAL_RADIUS_PX, OVAL_DIAMETER_PX,
+        OVAL_DIAMETER_PX);
     }
   }
 
@@ -218,4 +267,56 @@ public final class PDPModelRenderer extends AbstractCanvasRenderer {
       return new AutoValue_PDPModelRenderer_Builder(lines);
     }
   }
+
+  /**
+   * The state of the {@link PDPModel} as it is rendered.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class PDPSnapshot {
+    PDPSnapshot() {}
+
+    abstract GridIndex<Point> getDepots();
+
+    abstract GridIndex<VehicleSnapshot> getVehicles();
+
+    abstract GridIndex<ParcelSnapshot> getParcels();
+
+    static PDPSnapshot create(GridIndex.Builder<Point> depots,
+        GridIndex.Builder<VehicleSnapshot> vehicles,
+        GridIndex.Builder<ParcelSnapshot> parcels) {
+      return new AutoValue_PDPModelRenderer_PDPSnapshot(depots.build(),
+        vehicles.build(), parcels.build());
+    }
+  }
+
+  @AutoValue
+  abstract static class VehicleSnapshot {
+    abstract Point getPosition();
+
+    abstract VehicleState getState();
+
+    abstract long getTimeNeeded();
+
+    abstract ImmutableList<Parcel> getContents();
+
+    abstract double getContentsSize();
+
+    static VehicleSnapshot create(Point pos, VehicleState state,
+        long timeNeeded, ImmutableList<Parcel> contents, double size) {
+      return new AutoValue_PDPModelRenderer_VehicleSnapshot(pos, state,
+        timeNeeded, contents, size);
+    }
+  }
+
+  @AutoValue
+  abstract static class ParcelSnapshot {
+    abstract Parcel getParcel();
+
+    abstract Point getPosition();
+
+    static ParcelSnapshot create(Parcel parcel, Point pos) {
+      return new AutoValue_PDPModelRenderer_ParcelSnapshot(parcel, pos);
+    }
+  }
 }
@@ -15,6 +15,7 @@
  */
 package com.github.rinde.rinsim.ui.renderers;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -31,6 +32,7 @@ import com.github.rinde.rinsim.core.model.road.RoadModel;
 import com.github.rinde.rinsim.core.model.road.RoadUser;
 import com.github.rinde.rinsim.geom.Point;
 import com.github.rinde.rinsim.ui.renderers.CanvasRenderer.AbstractCanvasRenderer;
+import com.github.rinde.rinsim.ui.renderers.RoadUserRenderer.RoadUserSnapshot;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableMap;
 
@@ -40,7 +42,11 @@ import com.google.common.collect.ImmutableMap;
  * @author Rinde van Lon (rinde.vanlon@cs.kuleuven.be)
  * @author Bartosz Michalik changes in handling colors
  */
-public final class RoadUserRenderer extends AbstractCanvasRenderer {
+public final class RoadUserRenderer extends AbstractCanvasRenderer
+    implements SnapshotRenderer<RoadUserSnapshot> {
+  private static final int CULL_MARGIN_PX = 64;
+  private static final int LABEL_MARGIN_PX = 200;
+  private static final int MAX_LABELS = 500;
 
   private final RoadModel model;
   private final boolean useEncirclement;
@@ -57,50 +63,71 @@ public final class RoadUserRenderer extends AbstractCanvasRenderer {
 
   @Override
   public void renderDynamic(GC gc, ViewPort vp, long time) {
+    renderSnapshot(gc, vp, time, createSnapshot(time));
+  }
+
+  @Override
+  public RoadUserSnapshot createSnapshot(long time) {
+    final GridIndex.Builder<RoadUserState> snapshot = GridIndex.builder();
+    final Map<RoadUser, Point> objects = model.getObjectsAndPositions();
+    synchronized (objects) {
+      for (final Entry<RoadUser, Point> entry : objects.entrySet()) {
+        snapshot.add(RoadUserState.create(entry.getKey().getClass(),
+          entry.getValue(),
+          useTextLabel ? entry.getKey().toString() : ""), entry.getValue());
+      }
+    }
+    return RoadUserSnapshot.create(snapshot.build());
+  }
+
+  @Override
+  public void renderSnapshot(GC gc, ViewPort vp, long time,
+      RoadUserSnapshot snapshot) {
     final int radius = 4;
     final int outerRadius = 10;
     uiSchema.initialize(gc.getDevice());
     gc.setBackground(uiSchema.getDefaultColor());
 
-    final Map<RoadUser, Point> objects = model.getObjectsAndPositions();
-    synchronized (objects) {
-      for (final Entry<RoadUser, Point> entry : objects.entrySet()) {
-        final Point p = entry.getValue();
-        final Class<?> type = entry.getKey().getClass();
-        final Image image = uiSchema.getImage(type);
-        final int x = vp.toCoordX(p.x) - radius;
-        final int y = vp.toCoordY(p.y) - radius;
-
-        if (image != null) {
-          final int offsetX = x - image.getBounds().width / 2;
-          final int offsetY = y - image.getBounds().height / 2;
-          gc.drawImage(image, offsetX, offsetY);
-        } else {
-          final Color color = uiSchema.getColor(type);
-          if (color == null) {
-            continue;
-          }
-          gc.setBackground(color);
-          if (useEncirclement) {
-            gc.setForeground(gc.getBackground());
-            gc.drawOval((int) (vp.origin.x + (p.x - vp.rect.min.x) * vp.scale)
-              - outerRadius,
-              (int) (vp.origin.y + (p.y - vp.rect.min.y)
-                * vp.scale)
-                - outerRadius,
-              2 * outerRadius, 2 * outerRadius);
-          }
-          gc.fillOval((int) (vp.origin.x + (p.x - vp.rect.min.x) * vp.scale)
-            - radius,
-            (int) (vp.origin.y + (p.y - vp.rect.min.y) * vp.scale)
-              - radius,
-            2 * radius, 2 * radius);
-        }
+    final List<RoadUserState> visible = snapshot.getIndex().query(
+      vp.toViewRect(gc.getClipping(),
+        useTextLabel ? LABEL_MARGIN_PX : CULL_MARGIN_PX));
+    // labels are omitted when they would clutter the view
+    final boolean drawLabels = useTextLabel && visible.size() <= MAX_LABELS;
+    for (final RoadUserState state : visible) {
+      final Point p = state.getPosition();
+      final Class<?> type = state.getType();
+      final Image image = uiSchema.getImage(type);
+      final int x = vp.toCoordX(p.x) - radius;
+      final int y = vp.toCoordY(p.y) - radius;
 
-        if (useTextLabel) {
-          gc.drawText(entry.getKey().toString(), x, y, true);
+      if (image != null) {
+        final int offsetX = x - image.getBounds().width / 2;
+        final int offsetY = y - image.getBounds().height / 2;
+        gc.drawImage(image, offsetX, offsetY);
+      } else {
+        final Color color = uiSchema.getColor(type);
+        if (color == null) {
+          continue;
+        }
+        gc.setBackground(color);
+        if (useEncirclement) {
+          gc.setForeground(gc.getBackground());
+          gc.drawOval((int) (vp.origin.x + (p.x - vp.rect.min.x) * vp.scale)
+            - outerRadius,
+            (int) (vp.origin.y + (p.y - vp.rect.min.y)
+              * vp.scale)
+              - outerRadius,
+            2 * outerRadius, 2 * outerRadius);
         }
+        gc.fillOval((int) (vp.origin.x + (p.x - vp.rect.min.x) * vp.scale)
+          - radius,
+          (int) (vp.origin.y + (p.y - vp.rect.min.y) * vp.scale)
+            - radius,
+          2 * radius, 2 * radius);
+      }
 
+      if (drawLabels) {
+        gc.drawText(state.getLabel(), x, y, true);
       }
     }
   }
@@ -226,4 +253,31 @@ public final class RoadUserRenderer extends AbstractCanvasRenderer {
     }
   }
 
+  /**
+   * The positions of the {@link RoadUser}s as they are rendered.
+   * @author Rinde van Lon
+   */
+  @AutoValue
+  public abstract static class RoadUserSnapshot {
+    RoadUserSnapshot() {}
+
+    abstract GridIndex<RoadUserState> getIndex();
+
+    static RoadUserSnapshot create(GridIndex<RoadUserState> index) {
+      return new AutoValue_RoadUserRenderer_RoadUserSnapshot(index);
+    }
+  }
+
+  @AutoValue
+  abstract static class RoadUserState {
+    abstract Class<?> getType();
+
+    abstract Point getPosition();
+
+    abstract String getLabel();
+
+    static RoadUserState create(Class<?> type, Point pos, String label) {
+      return new AutoValue_RoadUserRenderer_RoadUserState(type, pos, label);
+    }
+  }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.ui.renderers;
+
+import org.eclipse.swt.graphics.GC;
+
+/**
+ * A {@link CanvasRenderer} that renders its dynamic objects from a snapshot.
+ * The snapshot is created in the simulation thread right after a tick, it is
+ * rendered later in the UI thread. As a consequence the simulation does not
+ * have to wait for the UI and the UI never observes the model while it is
+ * being modified. Implementations of
+ * {@link CanvasRenderer#renderDynamic(GC, ViewPort, long)} should render a
+ * newly created snapshot, this method is used when no snapshot is available.
+ * @author Rinde van Lon
+ * @param <S> The type of snapshot.
+ */
+public interface SnapshotRenderer<S> extends CanvasRenderer {
+
+  /**
+   * Creates a snapshot of the state that is rendered by this renderer, is
+   * called in the simulation thread. The snapshot should not refer to mutable
+   * state of the simulation.
+   * @param time The current time of the simulator.
+   * @return The snapshot.
+   */
+  S createSnapshot(long time);
+
+  /**
+   * Renders a snapshot that was previously created by
+   * {@link #createSnapshot(long)}, is called in the UI thread.
+   * @param gc The graphic context of the canvas.
+   * @param vp The {@link ViewPort}.
+   * @param time The time of the simulator at which the snapshot was created.
+   * @param snapshot The snapshot.
+   */
+  void renderSnapshot(GC gc, ViewPort vp, long time, S snapshot);
+}
@@ -15,6 +15,8 @@
  */
 package com.github.rinde.rinsim.ui.renderers;
 
+import org.eclipse.swt.graphics.Rectangle;
+
 import com.github.rinde.rinsim.geom.Point;
 
 /**
@@ -48,6 +50,23 @@ public class ViewPort {
     return (int) (scale * i);
   }
 
+  /**
+   * Computes the part of the world that is shown in the specified area of the
+   * canvas, such as the clipping area of a graphics context. Renderers can use
+   * this to skip objects that are not visible.
+   * @param area The area in canvas coordinates.
+   * @param marginPx The margin in pixels to add around the area.
+   * @return The visible part of the world.
+   */
+  public ViewRect toViewRect(Rectangle area, int marginPx) {
+    return new ViewRect(
+      new Point(rect.min.x + (area.x - marginPx - origin.x) / scale,
+        rect.min.y + (area.y - marginPx - origin.y) / scale),
+      new Point(
+        rect.min.x + (area.x + area.width + marginPx - origin.x) / scale,
+        rect.min.y + (area.y + area.height + marginPx - origin.y) / scale));
+  }
+
   double invScale(int val) {
     return 1d / scale * val;
   }
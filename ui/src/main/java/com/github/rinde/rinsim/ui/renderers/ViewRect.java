@@ -35,6 +35,19 @@ public class ViewRect {
     height = max.y - min.y;
   }
 
+  /**
+   * Checks whether the bounding box of the specified points intersects this
+   * rectangle.
+   * @param p1 A corner of the box.
+   * @param p2 The opposite corner of the box.
+   * @return <code>true</code> if the box intersects, <code>false</code>
+   *         otherwise.
+   */
+  public boolean intersects(Point p1, Point p2) {
+    return Math.min(p1.x, p2.x) <= max.x && Math.max(p1.x, p2.x) >= min.x
+      && Math.min(p1.y, p2.y) <= max.y && Math.max(p1.y, p2.y) >= min.y;
+  }
+
   @Override
   public String toString() {
     return new StringBuilder().append("{ViewRect: ").append(min).append(" ")
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2011-2017 Rinde van Lon, imec-DistriNet, KU Leuven
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rinde.rinsim.ui.renderers;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Test;
+
+import com.github.rinde.rinsim.geom.Point;
+
+/**
+ * Tests for {@link GridIndex}.
+ * @author Rinde van Lon
+ */
+public class GridIndexTest {
+
+  /**
+   * A query returns exactly the items of which the bounding box intersects
+   * the rectangle, in insertion order.
+   */
+  @Test
+  public void testQuery() {
+    final RandomGenerator rng = new MersenneTwister(123L);
+    final GridIndex.Builder<Integer> builder = GridIndex.builder();
+    final List<Point[]> boxes = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      final Point p1 = new Point(rng.nextDouble() * 100, rng.nextDouble() * 50);
+      final Point p2 = i % 2 == 0 ? p1
+        : new Point(p1.x + rng.nextGaussian() * 5,
+          p1.y + rng.nextGaussian() * 5);
+      boxes.add(new Point[] {p1, p2});
+      builder.add(i, p1.x, p1.y, p2.x, p2.y);
+    }
+    final GridIndex<Integer> index = builder.build();
+    assertThat(index.getItems()).hasSize(1000);
+
+    for (int q = 0; q < 100; q++) {
+      final double x = rng.nextDouble() * 120 - 10;
+      final double y = rng.nextDouble() * 70 - 10;
+      final ViewRect rect = new ViewRect(new Point(x, y),
+        new Point(x + rng.nextDouble() * 30, y + rng.nextDouble() * 30));
+      final List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < boxes.size(); i++) {
+        if (rect.intersects(boxes.get(i)[0], boxes.get(i)[1])) {
+          expected.add(i);
+        }
+      }
+      assertThat(index.query(rect)).containsExactlyElementsIn(expected)
+        .inOrder();
+    }
+  }
+
+  /**
+   * Empty indices and indices with coinciding points.
+   */
+  @Test
+  public void testDegenerate() {
+    final ViewRect all =
+      new ViewRect(new Point(-1, -1), new Point(1, 1));
+    assertThat(GridIndex.<String>builder().build().query(all)).isEmpty();
+
+    final GridIndex<String> index = GridIndex.<String>builder()
+      .add("a", new Point(0, 0))
+      .add("b", new Point(0, 0))
+      .build();
+    assertThat(index.query(all)).containsExactly("a", "b").inOrder();
+    assertThat(index.query(new ViewRect(new Point(2, 2), new Point(3, 3))))
+      .isEmpty();
+  }
+}